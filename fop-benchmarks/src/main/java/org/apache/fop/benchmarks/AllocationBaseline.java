@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Runs the benchmarks with the GC profiler (the equivalent of "-prof gc") and checks the
+ * normalized allocation rate, in bytes per operation, of each benchmark against a baseline.
+ * Allocation per operation is far more stable across machines than timings, so it can be used
+ * to catch regressions. Usage:
+ * <pre>
+ * java -cp target/benchmarks.jar org.apache.fop.benchmarks.AllocationBaseline
+ *     [-baseline file] [-include regex] [-tolerance percent] [-update]
+ * </pre>
+ * With -update the baseline file is (re)written from the results, otherwise the process exits
+ * with status 1 if a benchmark allocates more than the tolerance above its baseline.
+ */
+public final class AllocationBaseline {
+
+    private static final String ALLOCATION_RATE = "gc.alloc.rate.norm";
+
+    private AllocationBaseline() {
+    }
+
+    /**
+     * Main method.
+     * @param args the command line arguments
+     * @throws IOException if the baseline can't be read or written
+     * @throws RunnerException if the benchmarks can't be run
+     */
+    public static void main(String[] args) throws IOException, RunnerException {
+        File baselineFile = new File("allocation-baseline.properties");
+        String include = "org\\.apache\\.fop\\..*";
+        double tolerance = 10;
+        boolean update = false;
+        for (int i = 0; i < args.length; i++) {
+            if ("-baseline".equals(args[i]) && i + 1 < args.length) {
+                baselineFile = new File(args[++i]);
+            } else if ("-include".equals(args[i]) && i + 1 < args.length) {
+                include = args[++i];
+            } else if ("-tolerance".equals(args[i]) && i + 1 < args.length) {
+                tolerance = Double.parseDouble(args[++i]);
+            } else if ("-update".equals(args[i])) {
+                update = true;
+            } else {
+                System.err.println("Unknown or incomplete option: " + args[i]);
+                System.exit(2);
+            }
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class);
+        Map<String, Double> allocations = getAllocations(new Runner(options.build()).run());
+
+        if (update) {
+            Properties baseline = new Properties();
+            for (Map.Entry<String, Double> entry : allocations.entrySet()) {
+                baseline.setProperty(entry.getKey(), String.valueOf(Math.round(entry.getValue())));
+            }
+            OutputStream out = new FileOutputStream(baselineFile);
+            try {
+                baseline.store(out, "Allocated bytes per operation");
+            } finally {
+                IOUtils.closeQuietly(out);
+            }
+            System.out.println("Baseline written to " + baselineFile);
+        } else {
+            Properties baseline = new Properties();
+            InputStream in = new FileInputStream(baselineFile);
+            try {
+                baseline.load(in);
+            } finally {
+                IOUtils.closeQuietly(in);
+            }
+            if (!compare(allocations, baseline, tolerance)) {
+                System.exit(1);
+            }
+        }
+    }
+
+    private static Map<String, Double> getAllocations(Collection<RunResult> results) {
+        Map<String, Double> allocations = new TreeMap<String, Double>();
+        for (RunResult result : results) {
+            for (Map.Entry<String, Result> secondary : result.getSecondaryResults().entrySet()) {
+                if (secondary.getKey().endsWith(ALLOCATION_RATE)) {
+                    allocations.put(getKey(result.getParams()), secondary.getValue().getScore());
+                }
+            }
+        }
+        return allocations;
+    }
+
+    private static String getKey(BenchmarkParams params) {
+        StringBuilder key = new StringBuilder(params.getBenchmark());
+        for (String param : params.getParamsKeys()) {
+            key.append(':').append(param).append('=').append(params.getParam(param));
+        }
+        return key.toString();
+    }
+
+    private static boolean compare(Map<String, Double> allocations, Properties baseline,
+            double tolerance) {
+        boolean passed = true;
+        for (Map.Entry<String, Double> entry : allocations.entrySet()) {
+            String expected = baseline.getProperty(entry.getKey());
+            if (expected == null) {
+                System.out.println("NEW    " + entry.getKey() + ": " + Math.round(entry.getValue()));
+                continue;
+            }
+            double limit = Double.parseDouble(expected) * (1 + tolerance / 100);
+            boolean regressed = entry.getValue() > limit;
+            System.out.println((regressed ? "FAILED " : "OK     ") + entry.getKey() + ": "
+                    + Math.round(entry.getValue()) + " (baseline " + expected + ")");
+            passed &= !regressed;
+        }
+        return passed;
+    }
+}
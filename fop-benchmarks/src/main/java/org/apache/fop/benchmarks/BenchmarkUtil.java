@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+
+/**
+ * Helper methods shared by the benchmarks.
+ */
+final class BenchmarkUtil {
+
+    private static final TransformerFactory TRANSFORMER_FACTORY = TransformerFactory.newInstance();
+
+    private BenchmarkUtil() {
+    }
+
+    /**
+     * Creates a FopFactory with the default configuration.
+     * @return the FopFactory
+     */
+    static FopFactory newFopFactory() {
+        return FopFactory.newInstance(new File(".").toURI());
+    }
+
+    /**
+     * Sends an FO document through the given Fop instance.
+     * @param fo the FO document
+     * @param fop the Fop instance
+     * @throws FOPException if the default handler of the Fop instance can't be created
+     * @throws TransformerException if an error occurs while processing the document
+     */
+    static void process(byte[] fo, Fop fop) throws FOPException, TransformerException {
+        Transformer transformer = TRANSFORMER_FACTORY.newTransformer();
+        Source src = new StreamSource(new ByteArrayInputStream(fo));
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * The fixed FO documents the benchmarks are run on. The documents are generated from a fixed
+ * seed, so every run processes exactly the same input.
+ */
+public enum FOCorpus {
+
+    /** Long justified paragraphs: line breaking and word splitting */
+    PARAGRAPHS {
+        void writeFlow(StringBuilder fo, Random random) {
+            for (int i = 0; i < 200; i++) {
+                fo.append("<fo:block text-align=\"justify\" space-after=\"6pt\">");
+                writeWords(fo, random, 150);
+                fo.append("</fo:block>\n");
+            }
+        }
+    },
+
+    /** Many short blocks with keeps and breaks: page breaking */
+    PAGES {
+        void writeFlow(StringBuilder fo, Random random) {
+            for (int i = 0; i < 300; i++) {
+                fo.append("<fo:block font-weight=\"bold\" keep-with-next=\"always\""
+                        + " space-before=\"12pt\">Section ").append(i).append("</fo:block>\n");
+                for (int j = 0; j < 4; j++) {
+                    fo.append("<fo:block keep-together.within-page=\"always\">");
+                    writeWords(fo, random, 20);
+                    fo.append("</fo:block>\n");
+                }
+                if (i % 25 == 24) {
+                    fo.append("<fo:block break-after=\"page\"/>\n");
+                }
+            }
+        }
+    },
+
+    /** Tables with a header and bordered cells */
+    TABLES {
+        void writeFlow(StringBuilder fo, Random random) {
+            for (int t = 0; t < 10; t++) {
+                fo.append("<fo:table table-layout=\"fixed\" width=\"100%\""
+                        + " border-collapse=\"separate\">\n");
+                for (int c = 0; c < 4; c++) {
+                    fo.append("<fo:table-column column-width=\"proportional-column-width(1)\"/>\n");
+                }
+                fo.append("<fo:table-header><fo:table-row>");
+                for (int c = 0; c < 4; c++) {
+                    fo.append("<fo:table-cell border=\"1pt solid black\"><fo:block font-weight=\"bold\">"
+                            + "Column ").append(c).append("</fo:block></fo:table-cell>");
+                }
+                fo.append("</fo:table-row></fo:table-header>\n<fo:table-body>\n");
+                for (int r = 0; r < 100; r++) {
+                    fo.append("<fo:table-row>");
+                    for (int c = 0; c < 4; c++) {
+                        fo.append("<fo:table-cell border=\"0.5pt solid gray\" padding=\"2pt\"><fo:block>");
+                        writeWords(fo, random, 3 + random.nextInt(8));
+                        fo.append("</fo:block></fo:table-cell>");
+                    }
+                    fo.append("</fo:table-row>\n");
+                }
+                fo.append("</fo:table-body></fo:table>\n");
+            }
+        }
+    };
+
+    private static final String[] WORDS = {
+        "the", "processor", "formatting", "objects", "layout", "of", "a", "page", "is",
+        "determined", "by", "breaking", "paragraphs", "into", "lines", "and", "content", "onto",
+        "pages", "where", "each", "area", "has", "its", "traits", "such", "as", "borders",
+        "padding", "background", "which", "are", "rendered", "to", "output", "format",
+        "internationalization", "hyphenation", "justification", "typography"
+    };
+
+    private static final long SEED = 20240101L;
+
+    private byte[] document;
+
+    abstract void writeFlow(StringBuilder fo, Random random);
+
+    /**
+     * Returns the document, encoded in UTF-8.
+     * @return the FO document
+     */
+    public synchronized byte[] getDocument() {
+        if (document == null) {
+            StringBuilder fo = new StringBuilder();
+            fo.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                    + "<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">\n"
+                    + "<fo:layout-master-set>\n"
+                    + "<fo:simple-page-master master-name=\"A4\" page-height=\"29.7cm\""
+                    + " page-width=\"21cm\" margin=\"2cm\">\n"
+                    + "<fo:region-body margin-bottom=\"1.5cm\"/>\n"
+                    + "<fo:region-after extent=\"1cm\"/>\n"
+                    + "</fo:simple-page-master>\n"
+                    + "</fo:layout-master-set>\n"
+                    + "<fo:page-sequence master-reference=\"A4\">\n"
+                    + "<fo:static-content flow-name=\"xsl-region-after\">"
+                    + "<fo:block text-align=\"center\">Page <fo:page-number/></fo:block>"
+                    + "</fo:static-content>\n"
+                    + "<fo:flow flow-name=\"xsl-region-body\" font-family=\"serif\""
+                    + " font-size=\"10pt\">\n");
+            writeFlow(fo, new Random(SEED));
+            fo.append("</fo:flow>\n</fo:page-sequence>\n</fo:root>\n");
+            document = fo.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        return document;
+    }
+
+    private static void writeWords(StringBuilder fo, Random random, int count) {
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                fo.append(' ');
+            }
+            fo.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+    }
+}
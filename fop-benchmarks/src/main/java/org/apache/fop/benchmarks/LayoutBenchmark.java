@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+
+/**
+ * Measures FO tree building plus layout, that is word splitting in the TextLayoutManager, line
+ * breaking in the LineLayoutManager and page breaking in the PageBreakingAlgorithm. The pages
+ * are discarded by a {@link LayoutOnlyRenderer}. The PARAGRAPHS corpus is dominated by line
+ * breaking and word splitting, the PAGES corpus by page breaking.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LayoutBenchmark {
+
+    @Param
+    private FOCorpus corpus;
+
+    private FopFactory fopFactory;
+
+    private byte[] document;
+
+    /** Creates the FopFactory and the document. */
+    @Setup
+    public void setUp() {
+        fopFactory = BenchmarkUtil.newFopFactory();
+        document = corpus.getDocument();
+    }
+
+    /**
+     * Lays out the document.
+     * @param blackhole receives the page count
+     * @throws Exception if an error occurs during layout
+     */
+    @Benchmark
+    public void layout(Blackhole blackhole) throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setRendererOverride(new LayoutOnlyRenderer(userAgent));
+        Fop fop = fopFactory.newFop(LayoutOnlyRenderer.MIME_TYPE, userAgent);
+        BenchmarkUtil.process(document, fop);
+        blackhole.consume(fop.getResults().getPageCount());
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.benchmarks;
+
+import java.awt.Rectangle;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.area.Block;
+import org.apache.fop.area.CTM;
+import org.apache.fop.area.PageViewport;
+import org.apache.fop.area.inline.InlineArea;
+import org.apache.fop.render.PrintRenderer;
+
+/**
+ * Renderer that discards all pages, so that the cost of layout (line and page breaking) can
+ * be measured without the cost of producing output.
+ */
+class LayoutOnlyRenderer extends PrintRenderer {
+
+    /** The MIME type reported by this renderer */
+    static final String MIME_TYPE = "application/X-fop-benchmark-layout";
+
+    /**
+     * @param userAgent the user agent
+     */
+    LayoutOnlyRenderer(FOUserAgent userAgent) {
+        super(userAgent);
+    }
+
+    /** {@inheritDoc} */
+    public String getMimeType() {
+        return MIME_TYPE;
+    }
+
+    @Override
+    public boolean supportsOutOfOrder() {
+        return true;
+    }
+
+    @Override
+    public void renderPage(PageViewport page) {
+        //nop
+    }
+
+    @Override
+    protected void startVParea(CTM ctm, Rectangle clippingRect) {
+        //nop
+    }
+
+    @Override
+    protected void endVParea() {
+        //nop
+    }
+
+    @Override
+    protected void renderReferenceArea(Block block) {
+        //nop
+    }
+
+    @Override
+    protected void startLayer(String layer) {
+        //nop
+    }
+
+    @Override
+    protected void endLayer() {
+        //nop
+    }
+
+    @Override
+    protected void renderInlineAreaBackAndBorders(InlineArea area) {
+        //nop
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts.truetype;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Measures subsetting of TrueType and OpenType CFF fonts, as done when fonts are embedded.
+ * It lives in the font package because the OpenType subsetter can't be called with an explicit
+ * glyph map from outside of it. The fonts default to two fonts of the test suite, which are
+ * packaged with the benchmarks so the parameters don't depend on the working directory. A font
+ * parameter that doesn't name a packaged resource is read as a file path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FontSubsetBenchmark {
+
+    @Param("fonts/ttf/DejaVuLGCSerif.ttf")
+    private String trueTypeFont;
+
+    @Param("fonts/otf/SourceSansProBold.otf")
+    private String openTypeFont;
+
+    @Param("256")
+    private int glyphCount;
+
+    private byte[] trueTypeData;
+
+    private byte[] openTypeData;
+
+    private Map<Integer, Integer> glyphs;
+
+    /**
+     * Loads the fonts and sets up the glyphs to subset.
+     * @throws IOException if a font can't be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        trueTypeData = readFont(trueTypeFont);
+        openTypeData = readFont(openTypeFont);
+        glyphs = new HashMap<Integer, Integer>();
+        for (int i = 0; i < glyphCount; i++) {
+            glyphs.put(i, i);
+        }
+    }
+
+    private static byte[] readFont(String name) throws IOException {
+        InputStream in = FontSubsetBenchmark.class.getClassLoader().getResourceAsStream(name);
+        if (in == null) {
+            return Files.readAllBytes(new File(name).toPath());
+        }
+        try {
+            return IOUtils.toByteArray(in);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Creates a subset of the TrueType font.
+     * @return the subset
+     * @throws IOException if an error occurs while subsetting
+     */
+    @Benchmark
+    public byte[] subsetTrueType() throws IOException {
+        FontFileReader reader = new FontFileReader(new ByteArrayInputStream(trueTypeData));
+        TTFSubSetFile subset = new TTFSubSetFile();
+        subset.readFont(reader, "DejaVu", OFFontLoader.readHeader(reader), glyphs);
+        return subset.getFontSubset();
+    }
+
+    /**
+     * Creates a subset of the OpenType CFF font.
+     * @return the subset
+     * @throws IOException if an error occurs while subsetting
+     */
+    @Benchmark
+    public byte[] subsetOpenType() throws IOException {
+        FontFileReader reader = new FontFileReader(new ByteArrayInputStream(openTypeData));
+        OTFSubSetFile subset = new OTFSubSetFile();
+        subset.readFont(reader, "SourceSansProBold", null, glyphs);
+        return subset.getFontSubset();
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.afp;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Caches encoded AFP data objects across the documents of a FopFactory, so that an image
+ * appearing in many documents, like the logo of a letterhead, is only encoded once. The
+ * entries are looked up with a key computed from the content of the source object and the
+ * settings used to encode it. The encoded data is shared between the documents and must not
+ * be modified. The cache can be used by several threads at the same time.</p>
+ * <p>The maximum number of bytes of encoded data is set with
+ * {@link org.apache.fop.apps.FopFactoryBuilder#setAFPDataObjectCacheSize(long)}. When the cache
+ * is full, the least recently used entries are removed.</p>
+ */
+public class AFPDataObjectCache {
+
+    private final long size;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    private long usedSize;
+
+    private long hitCount;
+
+    private long missCount;
+
+    /**
+     * Creates a new cache.
+     * @param size the maximum number of bytes of cached data, 0 to disable the cache
+     */
+    public AFPDataObjectCache(long size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size must not be negative: " + size);
+        }
+        this.size = size;
+    }
+
+    /**
+     * Indicates whether the cache is enabled.
+     * @return true if data objects are cached
+     */
+    public boolean isEnabled() {
+        return size > 0;
+    }
+
+    /**
+     * Copies the encoded data and the encoding settings of a cached data object to the
+     * given data object info.
+     * @param key the key computed from the content of the data object
+     * @param dataObjectInfo the data object info to complete
+     * @return true if the data object was found in the cache
+     */
+    public synchronized boolean restore(String key, AFPDataObjectInfo dataObjectInfo) {
+        Entry entry = isEnabled() ? entries.get(key) : null;
+        if (entry == null) {
+            missCount++;
+            return false;
+        }
+        hitCount++;
+        entry.restore(dataObjectInfo);
+        return true;
+    }
+
+    /**
+     * Caches the encoded data and the encoding settings of a data object. Objects larger
+     * than the cache are not stored.
+     * @param key the key computed from the content of the data object
+     * @param dataObjectInfo the data object info holding the encoded data
+     */
+    public synchronized void store(String key, AFPDataObjectInfo dataObjectInfo) {
+        if (!isEnabled() || dataObjectInfo.getData() == null) {
+            return;
+        }
+        Entry entry = new Entry(dataObjectInfo);
+        if (entry.getSize() > size) {
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            usedSize -= previous.getSize();
+        }
+        usedSize += entry.getSize();
+        Iterator<Entry> iter = entries.values().iterator();
+        while (usedSize > size) {
+            usedSize -= iter.next().getSize();
+            iter.remove();
+        }
+    }
+
+    /**
+     * Returns the number of bytes of encoded data currently in the cache.
+     * @return the size of the cached data
+     */
+    public synchronized long getUsedSize() {
+        return usedSize;
+    }
+
+    /**
+     * Returns the number of lookups that found the data object in the cache.
+     * @return the number of cache hits
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups that didn't find the data object in the cache.
+     * @return the number of cache misses
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /** The encoded data of a data object and the settings that depend on its encoding */
+    private static final class Entry {
+
+        private final byte[] data;
+        private final byte[] transparencyMask;
+        private final String mimeType;
+        private final boolean createPageSegment;
+        private final boolean useIocaImages;
+        private final boolean image;
+        private final int bitsPerPixel;
+        private final boolean color;
+        private final int compression;
+        private final boolean subtractive;
+
+        Entry(AFPDataObjectInfo dataObjectInfo) {
+            this.data = dataObjectInfo.getData();
+            this.transparencyMask = dataObjectInfo.getTransparencyMask();
+            this.mimeType = dataObjectInfo.getMimeType();
+            this.createPageSegment = dataObjectInfo.isCreatePageSegment();
+            this.useIocaImages = dataObjectInfo.isUseIocaImages();
+            this.image = dataObjectInfo instanceof AFPImageObjectInfo;
+            if (image) {
+                AFPImageObjectInfo imageObjectInfo = (AFPImageObjectInfo) dataObjectInfo;
+                this.bitsPerPixel = imageObjectInfo.getBitsPerPixel();
+                this.color = imageObjectInfo.isColor();
+                this.compression = imageObjectInfo.getCompression();
+                this.subtractive = imageObjectInfo.isSubtractive();
+            } else {
+                this.bitsPerPixel = 0;
+                this.color = false;
+                this.compression = -1;
+                this.subtractive = false;
+            }
+        }
+
+        long getSize() {
+            return data.length + (transparencyMask != null ? transparencyMask.length : 0);
+        }
+
+        void restore(AFPDataObjectInfo dataObjectInfo) {
+            dataObjectInfo.setData(data);
+            dataObjectInfo.setTransparencyMask(transparencyMask);
+            dataObjectInfo.setMimeType(mimeType);
+            dataObjectInfo.setCreatePageSegment(createPageSegment);
+            dataObjectInfo.setUseIocaImages(useIocaImages);
+            if (image && dataObjectInfo instanceof AFPImageObjectInfo) {
+                AFPImageObjectInfo imageObjectInfo = (AFPImageObjectInfo) dataObjectInfo;
+                imageObjectInfo.setBitsPerPixel(bitsPerPixel);
+                imageObjectInfo.setColor(color);
+                imageObjectInfo.setCompression(compression);
+                imageObjectInfo.setSubtractive(subtractive);
+            }
+        }
+    }
+}
@@ -105,8 +105,8 @@ public class AFPResourceManager {
      */
     public DataStream createDataStream(AFPPaintingState paintingState, OutputStream outputStream)
     throws IOException {
-        this.dataStream = streamer.createDataStream(paintingState);
         streamer.setOutputStream(outputStream);
+        this.dataStream = streamer.createDataStream(paintingState);
         return this.dataStream;
     }
 
@@ -128,6 +128,24 @@ public class AFPResourceManager {
         streamer.close();
     }
 
+    /**
+     * Sets whether the pages are written to the outputstream as soon as they are complete.
+     *
+     * @param streamPages true to stream the pages
+     */
+    public void setStreamPages(boolean streamPages) {
+        streamer.setStreamPages(streamPages);
+    }
+
+    /**
+     * Notifies the resource manager that the current page has been written to the data stream.
+     *
+     * @throws IOException thrown if an I/O exception of some sort has occurred.
+     */
+    public void endPage() throws IOException {
+        streamer.endPage();
+    }
+
     /**
      * Sets the default resource group URI.
      *
@@ -20,6 +20,7 @@
 package org.apache.fop.afp;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -28,6 +29,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.ProxyOutputStream;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -71,6 +73,15 @@ public class AFPStreamer implements Streamable {
 
     private DataStream dataStream;
 
+    /** true if the pages are written to the final outputstream as soon as they are complete */
+    private boolean streamPages;
+
+    /** the start of the document, kept until the first page is complete when pages are streamed */
+    private ByteArrayOutputStream documentStart;
+
+    /** true once the document is written to the final outputstream */
+    private boolean documentStreamed;
+
     /**
      * Main constructor
      *
@@ -93,11 +104,49 @@ public class AFPStreamer implements Streamable {
      * @throws IOException thrown if an I/O exception of some sort has occurred
      */
     public DataStream createDataStream(AFPPaintingState paintingState) throws IOException {
-        this.tempOutputStream = new BufferedOutputStream(resourceResolver.getOutputStream(tempUri));
+        if (streamPages) {
+            this.documentStart = new ByteArrayOutputStream();
+            this.tempOutputStream = new DocumentOutputStream(documentStart);
+        } else {
+            this.tempOutputStream = new BufferedOutputStream(
+                    resourceResolver.getOutputStream(tempUri));
+        }
         this.dataStream = factory.createDataStream(paintingState, tempOutputStream);
         return dataStream;
     }
 
+    /**
+     * Sets whether the pages are written to the final outputstream as soon as they are complete
+     * instead of being collected in a temporary file until the end of the document. The
+     * print-file resource group has to precede the document, so print-file level resources that
+     * are only created after the first page go to the default external resource group.
+     *
+     * @param streamPages true to stream the pages
+     */
+    public void setStreamPages(boolean streamPages) {
+        this.streamPages = streamPages;
+    }
+
+    /**
+     * Notifies the streamer that a page has been written to the document. If pages are
+     * streamed, the print-file resource group and the start of the document are written to
+     * the final outputstream once the first page is complete, and the document goes straight
+     * to it from then on.
+     *
+     * @throws IOException if an an I/O exception of some sort has occurred
+     */
+    public void endPage() throws IOException {
+        if (streamPages && !documentStreamed) {
+            if (printFileResourceGroup != null) {
+                printFileResourceGroup.close();
+            }
+            documentStart.writeTo(outputStream);
+            ((DocumentOutputStream) tempOutputStream).redirect(outputStream);
+            documentStart = null;
+            documentStreamed = true;
+        }
+    }
+
     /**
      * Sets the default resource group URI.
      *
@@ -124,21 +173,10 @@ public class AFPStreamer implements Streamable {
                 LOG.warn("No file path provided for external resource, using default.");
                 uri = defaultResourceGroupUri;
             }
-            resourceGroup = pathResourceGroupMap.get(uri);
-            if (resourceGroup == null) {
-                OutputStream os = null;
-                try {
-                    os = new BufferedOutputStream(resourceResolver.getOutputStream(uri));
-                } catch (IOException ioe) {
-                    LOG.error("Failed to create/open external resource group for uri '"
-                            + uri + "'");
-                } finally {
-                    if (os != null) {
-                        resourceGroup = factory.createStreamedResourceGroup(os);
-                        pathResourceGroupMap.put(uri, resourceGroup);
-                    }
-                }
-            }
+            resourceGroup = getExternalResourceGroup(uri);
+        } else if (level.isPrintFile() && documentStreamed) {
+            // the print-file resource group has already been written before the document
+            resourceGroup = getExternalResourceGroup(defaultResourceGroupUri);
         } else if (level.isPrintFile()) {
             if (printFileResourceGroup == null) {
                 // use final outputstream for print-file resource group
@@ -152,6 +190,25 @@ public class AFPStreamer implements Streamable {
         return resourceGroup;
     }
 
+    private ResourceGroup getExternalResourceGroup(URI uri) {
+        ResourceGroup resourceGroup = pathResourceGroupMap.get(uri);
+        if (resourceGroup == null) {
+            OutputStream os = null;
+            try {
+                os = new BufferedOutputStream(resourceResolver.getOutputStream(uri));
+            } catch (IOException ioe) {
+                LOG.error("Failed to create/open external resource group for uri '"
+                        + uri + "'");
+            } finally {
+                if (os != null) {
+                    resourceGroup = factory.createStreamedResourceGroup(os);
+                    pathResourceGroupMap.put(uri, resourceGroup);
+                }
+            }
+        }
+        return resourceGroup;
+    }
+
     /**
      * Closes off the AFP stream writing the document stream
      *
@@ -164,12 +221,18 @@ public class AFPStreamer implements Streamable {
             assert (resourceGroup instanceof StreamedResourceGroup);
             ((StreamedResourceGroup) resourceGroup).close();
         }
-        // close any open print-file resource group
-        if (printFileResourceGroup != null) {
-            printFileResourceGroup.close();
+        if (streamPages) {
+            // write out the document if no page has been completed
+            endPage();
+            outputStream.flush();
+        } else {
+            // close any open print-file resource group
+            if (printFileResourceGroup != null) {
+                printFileResourceGroup.close();
+            }
+            // write out document
+            writeToStream(outputStream);
         }
-        // write out document
-        writeToStream(outputStream);
         outputStream.close();
     }
 
@@ -191,4 +254,16 @@ public class AFPStreamer implements Streamable {
         tempInputStream.close();
         os.flush();
     }
+
+    /** The outputstream of the document when pages are streamed */
+    private static final class DocumentOutputStream extends ProxyOutputStream {
+
+        DocumentOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        void redirect(OutputStream out) {
+            this.out = out;
+        }
+    }
 }
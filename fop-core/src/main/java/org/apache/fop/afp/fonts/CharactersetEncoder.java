@@ -49,7 +49,10 @@ public abstract class CharactersetEncoder {
      * @throws IllegalStateException - If an encoding operation is already in progress
      */
     final boolean canEncode(char c) {
-        return encoder.canEncode(c);
+        // canEncode method is not thread safe
+        synchronized (encoder) {
+            return encoder.canEncode(c);
+        }
     }
 
     /**
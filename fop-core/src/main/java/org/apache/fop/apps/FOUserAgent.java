@@ -44,6 +44,7 @@ import org.apache.fop.Version;
 import org.apache.fop.accessibility.Accessibility;
 import org.apache.fop.accessibility.DummyStructureTreeEventHandler;
 import org.apache.fop.accessibility.StructureTreeEventHandler;
+import org.apache.fop.afp.AFPDataObjectCache;
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.configuration.Configuration;
 import org.apache.fop.configuration.ConfigurationException;
@@ -55,9 +56,12 @@ import org.apache.fop.events.EventBroadcaster;
 import org.apache.fop.events.EventListener;
 import org.apache.fop.fo.ElementMappingRegistry;
 import org.apache.fop.fo.FOEventHandler;
+import org.apache.fop.fo.expr.PropertyExpressionCache;
 import org.apache.fop.fonts.FontManager;
 import org.apache.fop.hyphenation.HyphenationTreeCache;
 import org.apache.fop.layoutmgr.LayoutManagerMaker;
+import org.apache.fop.metrics.Metrics;
+import org.apache.fop.metrics.NoOpMetrics;
 import org.apache.fop.render.ImageHandlerRegistry;
 import org.apache.fop.render.Renderer;
 import org.apache.fop.render.RendererConfig;
@@ -108,6 +112,7 @@ public class FOUserAgent {
     private EventBroadcaster eventBroadcaster = new FOPEventBroadcaster();
     private StructureTreeEventHandler structureTreeEventHandler
             = DummyStructureTreeEventHandler.INSTANCE;
+    private Metrics metrics = NoOpMetrics.INSTANCE;
     private boolean pdfUAEnabled;
 
     /** Producer:  Metadata element for the system/software that produces
@@ -747,6 +752,26 @@ public class FOUserAgent {
         return this.structureTreeEventHandler;
     }
 
+    /**
+     * Sets the metrics receiving the timings and counts measured while processing the
+     * document, for example to feed a monitoring system.
+     *
+     * @param metrics the metrics, or null to disable them
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = (metrics != null ? metrics : NoOpMetrics.INSTANCE);
+    }
+
+    /**
+     * Returns the metrics receiving the timings and counts measured while processing the
+     * document. By default, the metrics are ignored.
+     *
+     * @return the metrics, never null
+     */
+    public Metrics getMetrics() {
+        return this.metrics;
+    }
+
     /** @see FopFactory#getLayoutManagerMakerOverride() */
     public LayoutManagerMaker getLayoutManagerMakerOverride() {
         return factory.getLayoutManagerMakerOverride();
@@ -823,6 +848,16 @@ public class FOUserAgent {
         return factory.getHyphenationTreeCache();
     }
 
+    /** @return the cache of parsed property expressions */
+    public PropertyExpressionCache getPropertyExpressionCache() {
+        return factory.getPropertyExpressionCache();
+    }
+
+    /** @return the cache of encoded AFP data objects */
+    public AFPDataObjectCache getAFPDataObjectCache() {
+        return factory.getAFPDataObjectCache();
+    }
+
     public void setKeepEmptyTags(boolean b) {
         getRendererOptions().put(Accessibility.KEEP_EMPTY_TAGS, b);
     }
@@ -859,4 +894,57 @@ public class FOUserAgent {
     public boolean isLegacyFoWrapper() {
         return factory.isLegacyFoWrapper();
     }
+
+    /**
+     * Returns the number of threads used to lay out page-sequences in parallel.
+     * @return the number of layout threads, 0 if page-sequences are laid out one after the other
+     */
+    public int getPageSequenceLayoutThreads() {
+        return factory.getPageSequenceLayoutThreads();
+    }
+
+    /**
+     * Returns the maximum number of active nodes the page breaking algorithm keeps per page.
+     * @return the maximum number of active nodes, 0 if unbounded
+     */
+    public int getPageBreakingMaxActiveNodes() {
+        return factory.getPageBreakingMaxActiveNodes();
+    }
+
+    /**
+     * Returns the number of pages the page breaking algorithm looks ahead before it commits to
+     * the breaks of earlier pages.
+     * @return the number of pages, 0 if breaks are only chosen at the end of a page-sequence
+     */
+    public int getPageBreakingLookahead() {
+        return factory.getPageBreakingLookahead();
+    }
+
+    /**
+     * Returns the number of complete page-sequences that may wait for layout while the FO
+     * tree is being built on another thread.
+     * @return the number of page-sequences, 0 if page-sequences are laid out on the thread
+     * building the FO tree
+     */
+    public int getPageSequencePipelineSize() {
+        return factory.getPageSequencePipelineSize();
+    }
+
+    /**
+     * Returns the number of pages with unresolved references kept in memory when memory is
+     * conserved.
+     * @return the number of pages
+     * @see #setConserveMemoryPolicy(boolean)
+     */
+    public int getPageCacheSize() {
+        return factory.getPageCacheSize();
+    }
+
+    /**
+     * Indicates whether the layout of static-content is reused on the following pages.
+     * @return true if static-content is cached
+     */
+    public boolean isStaticContentCachingEnabled() {
+        return factory.isStaticContentCachingEnabled();
+    }
 }
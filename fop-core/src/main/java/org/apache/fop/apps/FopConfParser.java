@@ -62,6 +62,15 @@ public class FopConfParser {
     private static final String LEGACY_SKIP_PAGE_POSITION_ONLY = "legacy-skip-page-position-only";
     private static final String LEGACY_LAST_PAGE_CHANGE_IPD = "legacy-last-page-change-ipd";
     private static final String LEGACY_FO_WRAPPER = "legacy-fo-wrapper";
+    private static final String PAGE_SEQUENCE_LAYOUT_THREADS = "page-sequence-layout-threads";
+    private static final String PAGE_BREAKING_MAX_ACTIVE_NODES = "page-breaking-max-active-nodes";
+    private static final String PAGE_BREAKING_LOOKAHEAD = "page-breaking-lookahead";
+    private static final String PAGE_SEQUENCE_PIPELINE_SIZE = "page-sequence-pipeline-size";
+    private static final String PAGE_CACHE_SIZE = "page-cache-size";
+    private static final String STATIC_CONTENT_CACHING = "static-content-caching";
+    private static final String HYPHENATION_WORD_CACHE_SIZE = "hyphenation-word-cache-size";
+    private static final String PROPERTY_EXPRESSION_CACHE_SIZE = "property-expression-cache-size";
+    private static final String AFP_DATA_OBJECT_CACHE_SIZE = "afp-data-object-cache-size";
 
     private static final Log LOG = LogFactory.getLog(FopConfParser.class);
 
@@ -326,6 +335,78 @@ public class FopConfParser {
                 LogUtil.handleException(LOG, e, false);
             }
         }
+        if (cfg.getChild(PAGE_SEQUENCE_LAYOUT_THREADS, false) != null) {
+            try {
+                fopFactoryBuilder.setPageSequenceLayoutThreads(
+                        cfg.getChild(PAGE_SEQUENCE_LAYOUT_THREADS).getValueAsInteger());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(LOG, e, strict);
+            }
+        }
+        if (cfg.getChild(PAGE_BREAKING_MAX_ACTIVE_NODES, false) != null) {
+            try {
+                fopFactoryBuilder.setPageBreakingMaxActiveNodes(
+                        cfg.getChild(PAGE_BREAKING_MAX_ACTIVE_NODES).getValueAsInteger());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(LOG, e, strict);
+            }
+        }
+        if (cfg.getChild(PAGE_BREAKING_LOOKAHEAD, false) != null) {
+            try {
+                fopFactoryBuilder.setPageBreakingLookahead(
+                        cfg.getChild(PAGE_BREAKING_LOOKAHEAD).getValueAsInteger());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(LOG, e, strict);
+            }
+        }
+        if (cfg.getChild(PAGE_SEQUENCE_PIPELINE_SIZE, false) != null) {
+            try {
+                fopFactoryBuilder.setPageSequencePipelineSize(
+                        cfg.getChild(PAGE_SEQUENCE_PIPELINE_SIZE).getValueAsInteger());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(LOG, e, strict);
+            }
+        }
+        if (cfg.getChild(PAGE_CACHE_SIZE, false) != null) {
+            try {
+                fopFactoryBuilder.setPageCacheSize(
+                        cfg.getChild(PAGE_CACHE_SIZE).getValueAsInteger());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(LOG, e, strict);
+            }
+        }
+        if (cfg.getChild(STATIC_CONTENT_CACHING, false) != null) {
+            try {
+                fopFactoryBuilder.setStaticContentCaching(
+                        cfg.getChild(STATIC_CONTENT_CACHING).getValueAsBoolean());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(LOG, e, strict);
+            }
+        }
+        if (cfg.getChild(HYPHENATION_WORD_CACHE_SIZE, false) != null) {
+            try {
+                fopFactoryBuilder.setHyphenationWordCacheSize(
+                        cfg.getChild(HYPHENATION_WORD_CACHE_SIZE).getValueAsInteger());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(LOG, e, strict);
+            }
+        }
+        if (cfg.getChild(PROPERTY_EXPRESSION_CACHE_SIZE, false) != null) {
+            try {
+                fopFactoryBuilder.setPropertyExpressionCacheSize(
+                        cfg.getChild(PROPERTY_EXPRESSION_CACHE_SIZE).getValueAsInteger());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(LOG, e, strict);
+            }
+        }
+        if (cfg.getChild(AFP_DATA_OBJECT_CACHE_SIZE, false) != null) {
+            try {
+                fopFactoryBuilder.setAFPDataObjectCacheSize(
+                        cfg.getChild(AFP_DATA_OBJECT_CACHE_SIZE).getValueAsInteger());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(LOG, e, strict);
+            }
+        }
 
         // configure font manager
         new FontManagerConfigurator(cfg, baseURI, fopFactoryBuilder.getBaseURI(), resourceResolver)
@@ -408,6 +489,8 @@ public class FopConfParser {
                     hyphPatNames.put(llccKey, filename + Hyphenator.XMLTYPE);
                 } else if ("hyp".equals(extension)) {
                     hyphPatNames.put(llccKey, filename + Hyphenator.HYPTYPE);
+                } else if ("hyc".equals(extension)) {
+                    hyphPatNames.put(llccKey, filename + Hyphenator.HYCTYPE);
                 } else {
                     hyphPatNames.put(llccKey, filename);
                 }
@@ -40,11 +40,13 @@ import org.apache.xmlgraphics.image.loader.ImageManager;
 import org.apache.xmlgraphics.image.loader.impl.AbstractImageSessionContext.FallbackResolver;
 import org.apache.xmlgraphics.util.UnitConv;
 
+import org.apache.fop.afp.AFPDataObjectCache;
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.apps.io.ResourceResolverFactory;
 import org.apache.fop.configuration.Configuration;
 import org.apache.fop.fo.ElementMapping;
 import org.apache.fop.fo.ElementMappingRegistry;
+import org.apache.fop.fo.expr.PropertyExpressionCache;
 import org.apache.fop.fonts.FontManager;
 import org.apache.fop.hyphenation.HyphenationTreeCache;
 import org.apache.fop.layoutmgr.LayoutManagerMaker;
@@ -93,6 +95,10 @@ public final class FopFactory implements ImageContext {
 
     private HyphenationTreeCache hyphenationTreeCache;
 
+    private final PropertyExpressionCache propertyExpressionCache;
+
+    private final AFPDataObjectCache afpDataObjectCache;
+
     private FopFactory(FopFactoryConfig config) {
         this.config = config;
         this.resolver = ResourceResolverFactory.createInternalResourceResolver(config.getBaseURI(),
@@ -103,6 +109,9 @@ public final class FopFactory implements ImageContext {
         this.xmlHandlers = new XMLHandlerRegistry();
         this.imageHandlers = new ImageHandlerRegistry();
         rendererConfig = new HashMap<String, RendererConfig>();
+        this.propertyExpressionCache = new PropertyExpressionCache(
+                config.getPropertyExpressionCacheSize());
+        this.afpDataObjectCache = new AFPDataObjectCache(config.getAFPDataObjectCacheSize());
     }
 
     /**
@@ -256,6 +265,42 @@ public final class FopFactory implements ImageContext {
         return config.isLegacyFoWrapper();
     }
 
+    int getPageSequenceLayoutThreads() {
+        return config.getPageSequenceLayoutThreads();
+    }
+
+    int getPageBreakingMaxActiveNodes() {
+        return config.getPageBreakingMaxActiveNodes();
+    }
+
+    int getPageBreakingLookahead() {
+        return config.getPageBreakingLookahead();
+    }
+
+    int getPageSequencePipelineSize() {
+        return config.getPageSequencePipelineSize();
+    }
+
+    int getPageCacheSize() {
+        return config.getPageCacheSize();
+    }
+
+    boolean isStaticContentCachingEnabled() {
+        return config.isStaticContentCachingEnabled();
+    }
+
+    int getHyphenationWordCacheSize() {
+        return config.getHyphenationWordCacheSize();
+    }
+
+    int getPropertyExpressionCacheSize() {
+        return config.getPropertyExpressionCacheSize();
+    }
+
+    long getAFPDataObjectCacheSize() {
+        return config.getAFPDataObjectCacheSize();
+    }
+
     /**
      * Returns a new {@link Fop} instance. FOP will be configured with a default user agent
      * instance. Use this factory method if your output type requires an output stream.
@@ -493,9 +538,29 @@ public final class FopFactory implements ImageContext {
         return this.colorSpaceCache;
     }
 
+    /**
+     * Returns the cache of parsed property expressions for this instance.
+     * <p>
+     * Note: this method should not be considered as part of FOP's external API.
+     * @return the property expression cache
+     */
+    public PropertyExpressionCache getPropertyExpressionCache() {
+        return this.propertyExpressionCache;
+    }
+
+    /**
+     * Returns the cache of encoded AFP data objects for this instance.
+     * <p>
+     * Note: this method should not be considered as part of FOP's external API.
+     * @return the AFP data object cache
+     */
+    public AFPDataObjectCache getAFPDataObjectCache() {
+        return this.afpDataObjectCache;
+    }
+
     public HyphenationTreeCache getHyphenationTreeCache() {
         if (hyphenationTreeCache == null) {
-            hyphenationTreeCache = new HyphenationTreeCache();
+            hyphenationTreeCache = new HyphenationTreeCache(config.getHyphenationWordCacheSize());
         }
         return hyphenationTreeCache;
     }
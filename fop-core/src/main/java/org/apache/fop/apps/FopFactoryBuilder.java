@@ -370,6 +370,156 @@ public final class FopFactoryBuilder {
         return this;
     }
 
+    /**
+     * Sets the number of worker threads used to lay out page-sequences in parallel. Only
+     * page-sequences with an explicit initial-page-number are laid out concurrently, the pages
+     * are still handed to the renderer in document order. 0 (the default) lays out every
+     * page-sequence on the thread parsing the FO document.
+     *
+     * @param threads the number of layout threads
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setPageSequenceLayoutThreads(int threads) {
+        if (threads < 0) {
+            throw new IllegalArgumentException("The number of layout threads must not be negative");
+        }
+        fopFactoryConfigBuilder.setPageSequenceLayoutThreads(threads);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of active nodes the page breaking algorithm keeps for each page.
+     * When a page gets more candidate breaks, the ones with the highest demerits are dropped.
+     * 0 (the default) keeps all of them, which gives the optimal (total-fit) page breaks.
+     *
+     * @param maxActiveNodes the maximum number of active nodes per page
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setPageBreakingMaxActiveNodes(int maxActiveNodes) {
+        if (maxActiveNodes < 0) {
+            throw new IllegalArgumentException("The number of active nodes must not be negative");
+        }
+        fopFactoryConfigBuilder.setPageBreakingMaxActiveNodes(maxActiveNodes);
+        return this;
+    }
+
+    /**
+     * Sets the number of pages the page breaking algorithm looks ahead before it commits to
+     * the breaks of earlier pages. Once the best candidate reaches a page that many pages
+     * after the last committed one, all candidates not based on its breaks are dropped.
+     * 0 (the default) never commits early, which gives the optimal (total-fit) page breaks.
+     *
+     * @param pages the number of pages to look ahead
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setPageBreakingLookahead(int pages) {
+        if (pages < 0) {
+            throw new IllegalArgumentException("The page breaking lookahead must not be negative");
+        }
+        fopFactoryConfigBuilder.setPageBreakingLookahead(pages);
+        return this;
+    }
+
+    /**
+     * Sets the number of complete page-sequences that may wait for layout while the FO tree
+     * of the next ones is being built. A value greater than 0 builds the FO tree on the thread
+     * that delivers the SAX events, and lays out and renders the page-sequences on a separate
+     * thread. The thread building the FO tree waits when that many page-sequences are waiting.
+     * 0 (the default) lays out every page-sequence on the thread that delivers the SAX events.
+     *
+     * @param size the maximum number of page-sequences waiting for layout
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setPageSequencePipelineSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("The pipeline size must not be negative");
+        }
+        fopFactoryConfigBuilder.setPageSequencePipelineSize(size);
+        return this;
+    }
+
+    /**
+     * Sets the number of pages with unresolved references kept in memory when the user agent
+     * conserves memory. Older pages are written to temporary files until their references
+     * are resolved. The default is {@link FopFactoryConfig#DEFAULT_PAGE_CACHE_SIZE}.
+     *
+     * @param size the number of pages kept in memory, 0 to write every page to a temporary file
+     * @return <code>this</code>
+     * @see FOUserAgent#setConserveMemoryPolicy(boolean)
+     */
+    public FopFactoryBuilder setPageCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("The page cache size must not be negative");
+        }
+        fopFactoryConfigBuilder.setPageCacheSize(size);
+        return this;
+    }
+
+    /**
+     * Sets whether the areas laid out for the side regions of a page-sequence are reused on
+     * the following pages when the regions have the same content and dimensions. Headers
+     * and footers are then only laid out again when they change. The cache is not used when
+     * accessibility is enabled. The default is false.
+     *
+     * @param enableCaching true to reuse the layout of static-content
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setStaticContentCaching(boolean enableCaching) {
+        fopFactoryConfigBuilder.setStaticContentCaching(enableCaching);
+        return this;
+    }
+
+    /**
+     * Sets the number of hyphenated words kept by the hyphenation cache, so that words that
+     * occur repeatedly are only hyphenated once. The least recently used word is removed when
+     * the cache is full. The default is
+     * {@link FopFactoryConfig#DEFAULT_HYPHENATION_WORD_CACHE_SIZE}.
+     *
+     * @param size the number of words, 0 to disable the cache
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setHyphenationWordCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("The hyphenation word cache size must not be negative");
+        }
+        fopFactoryConfigBuilder.setHyphenationWordCacheSize(size);
+        return this;
+    }
+
+    /**
+     * Sets the number of parsed property expressions kept by the expression cache, so that
+     * attribute values like "12pt" that occur repeatedly are only parsed once. The least
+     * recently used expression is removed when the cache is full. The default is
+     * {@link FopFactoryConfig#DEFAULT_PROPERTY_EXPRESSION_CACHE_SIZE}.
+     *
+     * @param size the number of expressions, 0 to disable the cache
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setPropertyExpressionCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("The property expression cache size must not be negative");
+        }
+        fopFactoryConfigBuilder.setPropertyExpressionCacheSize(size);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of bytes of encoded AFP data objects kept across documents, so
+     * that an image appearing in many documents, like the logo of a letterhead, is only
+     * encoded once. The least recently used objects are removed when the cache is full. The
+     * default is 0, which disables the cache.
+     *
+     * @param size the maximum number of bytes of cached data, 0 to disable the cache
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setAFPDataObjectCacheSize(long size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("The AFP data object cache size must not be negative");
+        }
+        fopFactoryConfigBuilder.setAFPDataObjectCacheSize(size);
+        return this;
+    }
+
     public static class FopFactoryConfigImpl implements FopFactoryConfig {
 
         private final EnvironmentProfile enviro;
@@ -422,6 +572,24 @@ public final class FopFactoryBuilder {
 
         private boolean legacyFoWrapper;
 
+        private int pageSequenceLayoutThreads;
+
+        private int pageBreakingMaxActiveNodes;
+
+        private int pageBreakingLookahead;
+
+        private int pageSequencePipelineSize;
+
+        private int pageCacheSize = FopFactoryConfig.DEFAULT_PAGE_CACHE_SIZE;
+
+        private boolean staticContentCaching;
+
+        private int hyphenationWordCacheSize = FopFactoryConfig.DEFAULT_HYPHENATION_WORD_CACHE_SIZE;
+
+        private int propertyExpressionCacheSize = FopFactoryConfig.DEFAULT_PROPERTY_EXPRESSION_CACHE_SIZE;
+
+        private long afpDataObjectCacheSize;
+
         private static final class ImageContextImpl implements ImageContext {
 
             private final FopFactoryConfig config;
@@ -562,6 +730,42 @@ public final class FopFactoryBuilder {
             return legacyFoWrapper;
         }
 
+        public int getPageSequenceLayoutThreads() {
+            return pageSequenceLayoutThreads;
+        }
+
+        public int getPageBreakingMaxActiveNodes() {
+            return pageBreakingMaxActiveNodes;
+        }
+
+        public int getPageBreakingLookahead() {
+            return pageBreakingLookahead;
+        }
+
+        public int getPageSequencePipelineSize() {
+            return pageSequencePipelineSize;
+        }
+
+        public int getPageCacheSize() {
+            return pageCacheSize;
+        }
+
+        public boolean isStaticContentCachingEnabled() {
+            return staticContentCaching;
+        }
+
+        public int getHyphenationWordCacheSize() {
+            return hyphenationWordCacheSize;
+        }
+
+        public int getPropertyExpressionCacheSize() {
+            return propertyExpressionCacheSize;
+        }
+
+        public long getAFPDataObjectCacheSize() {
+            return afpDataObjectCacheSize;
+        }
+
         public Map<String, String> getHyphenationPatternNames() {
             return hyphPatNames;
         }
@@ -619,6 +823,24 @@ public final class FopFactoryBuilder {
         void setLegacyLastPageChangeIPD(boolean b);
 
         void setLegacyFoWrapper(boolean b);
+
+        void setPageSequenceLayoutThreads(int threads);
+
+        void setPageBreakingMaxActiveNodes(int maxActiveNodes);
+
+        void setPageBreakingLookahead(int pages);
+
+        void setPageSequencePipelineSize(int size);
+
+        void setPageCacheSize(int size);
+
+        void setStaticContentCaching(boolean enableCaching);
+
+        void setHyphenationWordCacheSize(int size);
+
+        void setPropertyExpressionCacheSize(int size);
+
+        void setAFPDataObjectCacheSize(long size);
     }
 
     private static final class CompletedFopFactoryConfigBuilder implements FopFactoryConfigBuilder {
@@ -726,6 +948,42 @@ public final class FopFactoryBuilder {
         public void setLegacyFoWrapper(boolean b) {
             throwIllegalStateException();
         }
+
+        public void setPageSequenceLayoutThreads(int threads) {
+            throwIllegalStateException();
+        }
+
+        public void setPageBreakingMaxActiveNodes(int maxActiveNodes) {
+            throwIllegalStateException();
+        }
+
+        public void setPageBreakingLookahead(int pages) {
+            throwIllegalStateException();
+        }
+
+        public void setPageSequencePipelineSize(int size) {
+            throwIllegalStateException();
+        }
+
+        public void setPageCacheSize(int size) {
+            throwIllegalStateException();
+        }
+
+        public void setStaticContentCaching(boolean enableCaching) {
+            throwIllegalStateException();
+        }
+
+        public void setHyphenationWordCacheSize(int size) {
+            throwIllegalStateException();
+        }
+
+        public void setPropertyExpressionCacheSize(int size) {
+            throwIllegalStateException();
+        }
+
+        public void setAFPDataObjectCacheSize(long size) {
+            throwIllegalStateException();
+        }
     }
 
     private static final class ActiveFopFactoryConfigBuilder implements FopFactoryConfigBuilder {
@@ -834,6 +1092,42 @@ public final class FopFactoryBuilder {
         public void setLegacyFoWrapper(boolean b) {
             config.legacyFoWrapper = b;
         }
+
+        public void setPageSequenceLayoutThreads(int threads) {
+            config.pageSequenceLayoutThreads = threads;
+        }
+
+        public void setPageBreakingMaxActiveNodes(int maxActiveNodes) {
+            config.pageBreakingMaxActiveNodes = maxActiveNodes;
+        }
+
+        public void setPageBreakingLookahead(int pages) {
+            config.pageBreakingLookahead = pages;
+        }
+
+        public void setPageSequencePipelineSize(int size) {
+            config.pageSequencePipelineSize = size;
+        }
+
+        public void setPageCacheSize(int size) {
+            config.pageCacheSize = size;
+        }
+
+        public void setStaticContentCaching(boolean enableCaching) {
+            config.staticContentCaching = enableCaching;
+        }
+
+        public void setHyphenationWordCacheSize(int size) {
+            config.hyphenationWordCacheSize = size;
+        }
+
+        public void setPropertyExpressionCacheSize(int size) {
+            config.propertyExpressionCacheSize = size;
+        }
+
+        public void setAFPDataObjectCacheSize(long size) {
+            config.afpDataObjectCacheSize = size;
+        }
     }
 
 }
@@ -61,6 +61,15 @@ public interface FopFactoryConfig {
     /** Defines the default target resolution (72dpi) for FOP */
     float DEFAULT_TARGET_RESOLUTION = 72.0f; //dpi
 
+    /** Defines the default number of unresolved pages kept in memory when conserving memory */
+    int DEFAULT_PAGE_CACHE_SIZE = 8;
+
+    /** Defines the default number of hyphenated words kept by the hyphenation cache */
+    int DEFAULT_HYPHENATION_WORD_CACHE_SIZE = 2048;
+
+    /** Defines the default number of parsed property expressions kept by the expression cache */
+    int DEFAULT_PROPERTY_EXPRESSION_CACHE_SIZE = 4096;
+
     /**
      * Whether accessibility features are switched on.
      *
@@ -175,6 +184,33 @@ public interface FopFactoryConfig {
 
     boolean isLegacyFoWrapper();
 
+    /** @return the number of threads used to lay out page-sequences in parallel, 0 if disabled */
+    int getPageSequenceLayoutThreads();
+
+    /** @return the maximum number of active nodes per page when breaking pages, 0 if unbounded */
+    int getPageBreakingMaxActiveNodes();
+
+    /** @return the number of pages looked ahead before page breaks are committed, 0 if disabled */
+    int getPageBreakingLookahead();
+
+    /** @return the number of page-sequences that may wait for layout, 0 if not pipelined */
+    int getPageSequencePipelineSize();
+
+    /** @return the number of unresolved pages kept in memory when conserving memory */
+    int getPageCacheSize();
+
+    /** @return true if the layout of static-content is reused on the following pages */
+    boolean isStaticContentCachingEnabled();
+
+    /** @return the number of hyphenated words kept by the hyphenation cache */
+    int getHyphenationWordCacheSize();
+
+    /** @return the number of parsed property expressions kept by the expression cache */
+    int getPropertyExpressionCacheSize();
+
+    /** @return the maximum number of bytes of encoded AFP data objects kept across documents */
+    long getAFPDataObjectCacheSize();
+
     /** @return the hyphenation pattern names */
     Map<String, String> getHyphenationPatternNames();
 
@@ -34,6 +34,7 @@ import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.apps.FormattingResults;
 import org.apache.fop.datatypes.Numeric;
 import org.apache.fop.fo.FOEventHandler;
+import org.apache.fop.fo.FOTreeBuilderContext;
 import org.apache.fop.fo.extensions.ExtensionAttachment;
 import org.apache.fop.fo.extensions.ExternalDocument;
 import org.apache.fop.fo.extensions.destination.Destination;
@@ -41,11 +42,13 @@ import org.apache.fop.fo.pagination.AbstractPageSequence;
 import org.apache.fop.fo.pagination.PageSequence;
 import org.apache.fop.fo.pagination.Root;
 import org.apache.fop.fo.pagination.bookmarks.BookmarkTree;
+import org.apache.fop.fo.properties.PropertyCache;
 import org.apache.fop.layoutmgr.ExternalDocumentLayoutManager;
 import org.apache.fop.layoutmgr.LayoutManagerMaker;
 import org.apache.fop.layoutmgr.LayoutManagerMapping;
 import org.apache.fop.layoutmgr.PageSequenceLayoutManager;
 import org.apache.fop.layoutmgr.TopLevelLayoutManager;
+import org.apache.fop.metrics.Metrics;
 
 /**
  * Area tree handler for formatting objects.
@@ -89,6 +92,16 @@ public class AreaTreeHandler extends FOEventHandler {
 
     private int idGen;
 
+    // Lays out page-sequences on worker threads, null if disabled
+    private PageSequenceLayoutQueue layoutQueue;
+
+    // Lays out and renders the page-sequences on a thread of its own, null if disabled
+    private PageSequencePipeline pipeline;
+
+    // the start of the document and the time spent laying out page-sequences, for the metrics
+    private long documentStartTime;
+    private long layoutTime;
+
     /**
      * Constructor.
      *
@@ -113,11 +126,38 @@ public class AreaTreeHandler extends FOEventHandler {
 
         this.useComplexScriptFeatures = userAgent.isComplexScriptFeaturesEnabled();
 
+        int layoutThreads = userAgent.getPageSequenceLayoutThreads();
+        if (layoutThreads > 0) {
+            this.layoutQueue = new PageSequenceLayoutQueue(this, layoutThreads);
+        }
+
+        int pipelineSize = userAgent.getPageSequencePipelineSize();
+        // the structure tree is built while parsing and has to be complete when a page is rendered
+        if (pipelineSize > 0 && !userAgent.isAccessibilityEnabled()) {
+            this.pipeline = new PageSequencePipeline(pipelineSize);
+        }
+
         if (log.isDebugEnabled()) {
             statistics = new Statistics();
         }
     }
 
+    /**
+     * Constructor for an area tree handler that lays out a single page-sequence on behalf
+     * of the area tree handler of the document, sharing its fonts and layout manager maker.
+     *
+     * @param parent the area tree handler of the document
+     * @param model the area tree model collecting the pages of the page-sequence
+     */
+    AreaTreeHandler(AreaTreeHandler parent, AreaTreeModel model) {
+        this.foUserAgent = parent.foUserAgent;
+        this.fontInfo = parent.fontInfo;
+        this.model = model;
+        this.lmMaker = parent.lmMaker;
+        this.idTracker = new IDTracker();
+        this.useComplexScriptFeatures = parent.useComplexScriptFeatures;
+    }
+
     /**
      * Sets up the AreaTreeModel instance for use by the AreaTreeHandler.
      *
@@ -191,6 +231,7 @@ public class AreaTreeHandler extends FOEventHandler {
      */
     @Override
     public void startDocument() throws SAXException {
+        documentStartTime = System.nanoTime();
         // Initialize statistics
         if (statistics != null) {
             statistics.start();
@@ -210,8 +251,11 @@ public class AreaTreeHandler extends FOEventHandler {
      */
     private void finishPrevPageSequence(Numeric initialPageNumber) {
         if (prevPageSeqLM != null) {
-            prevPageSeqLM.doForcePageCount(initialPageNumber);
-            prevPageSeqLM.finishPageSequence();
+            if (layoutQueue == null
+                    || !layoutQueue.finishPageSequence(prevPageSeqLM, initialPageNumber)) {
+                prevPageSeqLM.doForcePageCount(initialPageNumber);
+                prevPageSeqLM.finishPageSequence();
+            }
             prevPageSeqLM = null;
         }
     }
@@ -222,7 +266,19 @@ public class AreaTreeHandler extends FOEventHandler {
         startAbstractPageSequence(pageSequence);
     }
 
-    private void startAbstractPageSequence(AbstractPageSequence pageSequence) {
+    private void startAbstractPageSequence(final AbstractPageSequence pageSequence) {
+        if (pipeline != null) {
+            pipeline.addStep(prepareLayoutStep(pageSequence, new Runnable() {
+                public void run() {
+                    initAbstractPageSequence(pageSequence);
+                }
+            }));
+        } else {
+            initAbstractPageSequence(pageSequence);
+        }
+    }
+
+    private void initAbstractPageSequence(AbstractPageSequence pageSequence) {
         rootFObj = pageSequence.getRoot();
 
         //Before the first page-sequence...
@@ -237,9 +293,25 @@ public class AreaTreeHandler extends FOEventHandler {
         }
 
         finishPrevPageSequence(pageSequence.getInitialPageNumber());
+        if (layoutQueue != null && pageSequence.getInitialPageNumber().getEnum() != 0) {
+            // auto numbering depends on the page count of the preceding page-sequences
+            layoutQueue.flush(true);
+        }
         pageSequence.initPageNumber();
     }
 
+    /**
+     * Prepares a step in the layout of a page-sequence to be run on another thread than the
+     * one building the FO tree.
+     * @param pageSequence the page-sequence
+     * @param step the layout step
+     * @return the step to run on the other thread
+     */
+    static Runnable prepareLayoutStep(AbstractPageSequence pageSequence, Runnable step) {
+        FOTreeBuilderContext builderContext = pageSequence.getRoot().getBuilderContext();
+        return builderContext != null ? builderContext.prepareLayoutStep(step) : step;
+    }
+
     private void wrapAndAddExtensionAttachments(List<ExtensionAttachment> list) {
         for (ExtensionAttachment attachment : list) {
             addOffDocumentItem(new OffDocumentExtensionAttachment(attachment));
@@ -253,14 +325,35 @@ public class AreaTreeHandler extends FOEventHandler {
      * @param pageSequence the page sequence ending
      */
     @Override
-    public void endPageSequence(PageSequence pageSequence) {
+    public void endPageSequence(final PageSequence pageSequence) {
 
         if (statistics != null) {
             statistics.end();
         }
 
+        if (pipeline != null) {
+            pipeline.addPageSequence(prepareLayoutStep(pageSequence, new Runnable() {
+                public void run() {
+                    layoutPageSequence(pageSequence);
+                }
+            }));
+        } else {
+            layoutPageSequence(pageSequence);
+        }
+    }
+
+    private void layoutPageSequence(PageSequence pageSequence) {
+        long start = System.nanoTime();
         // If no main flow, nothing to layout!
         if (pageSequence.getMainFlow() != null) {
+            if (layoutQueue != null) {
+                if (PageSequenceLayoutQueue.isIndependent(pageSequence)) {
+                    prevPageSeqLM = layoutQueue.submit(pageSequence);
+                    layoutTime += System.nanoTime() - start;
+                    return;
+                }
+                layoutQueue.flush(true);
+            }
             PageSequenceLayoutManager pageSLM;
             pageSLM = getLayoutManagerMaker().makePageSequenceLayoutManager(
                     this, pageSequence);
@@ -269,6 +362,7 @@ public class AreaTreeHandler extends FOEventHandler {
             // force-page-count check at the beginning of the next PageSequence
             prevPageSeqLM = pageSLM;
         }
+        layoutTime += System.nanoTime() - start;
     }
 
     /** {@inheritDoc} */
@@ -279,18 +373,34 @@ public class AreaTreeHandler extends FOEventHandler {
 
     /** {@inheritDoc} */
     @Override
-    public void endExternalDocument(ExternalDocument document) {
+    public void endExternalDocument(final ExternalDocument document) {
         if (statistics != null) {
             statistics.end();
         }
 
+        if (pipeline != null) {
+            pipeline.addPageSequence(prepareLayoutStep(document, new Runnable() {
+                public void run() {
+                    layoutExternalDocument(document);
+                }
+            }));
+        } else {
+            layoutExternalDocument(document);
+        }
+    }
+
+    private void layoutExternalDocument(ExternalDocument document) {
+        long start = System.nanoTime();
+        if (layoutQueue != null) {
+            layoutQueue.flush(true);
+        }
         ExternalDocumentLayoutManager edLM;
         edLM = getLayoutManagerMaker().makeExternalDocumentLayoutManager(this, document);
         edLM.activateLayout();
         // preserve the current PageSequenceLayoutManger for the
         // force-page-count check at the beginning of the next PageSequence
         prevPageSeqLM = edLM;
-
+        layoutTime += System.nanoTime() - start;
     }
 
     /**
@@ -315,8 +425,23 @@ public class AreaTreeHandler extends FOEventHandler {
      */
     @Override
     public void endDocument() throws SAXException {
+        long parseTime;
+        if (pipeline != null) {
+            // the remaining steps are run here, once the pipeline is done with the page-sequences
+            pipeline.close();
+            parseTime = System.nanoTime() - documentStartTime - pipeline.getWaitTime();
+        } else {
+            parseTime = System.nanoTime() - documentStartTime - layoutTime;
+        }
+        Metrics metrics = foUserAgent.getMetrics();
+        if (metrics.isEnabled()) {
+            metrics.recordTime(Metrics.PARSE, parseTime);
+        }
 
         finishPrevPageSequence(null);
+        if (layoutQueue != null) {
+            layoutQueue.close();
+        }
         // process fox:destination elements
         if (rootFObj != null) {
             List<Destination> destinationList = rootFObj.getDestinationList();
@@ -382,7 +507,7 @@ public class AreaTreeHandler extends FOEventHandler {
      *
      * @return the generated key.
      */
-    public String generatePageViewportKey() {
+    public synchronized String generatePageViewportKey() {
         this.idGen++;
         return "P" + this.idGen;
     }
@@ -526,6 +651,9 @@ public class AreaTreeHandler extends FOEventHandler {
                         / (double) timeUsed) : -1);
                 log.debug("Avg render time: " + perPage + "ms/page (" + ppm + "pages/min)");
             }
+            for (PropertyCache<?> cache : PropertyCache.getCaches()) {
+                log.debug(cache);
+            }
         }
     }
 }
@@ -0,0 +1,600 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.awt.Color;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.util.QName;
+
+import org.apache.fop.area.inline.InlineAreaEncoding;
+import org.apache.fop.fo.extensions.ExtensionAttachment;
+import org.apache.fop.fo.flow.ChangeBar;
+import org.apache.fop.traits.BorderProps;
+
+import static org.apache.fop.area.AreaTreeOutput.AREA_BLOCK;
+import static org.apache.fop.area.AreaTreeOutput.AREA_BLOCK_VIEWPORT;
+import static org.apache.fop.area.AreaTreeOutput.AREA_LINE;
+import static org.apache.fop.area.AreaTreeOutput.AREA_NULL;
+import static org.apache.fop.area.AreaTreeOutput.AREA_REFERENCE;
+import static org.apache.fop.area.AreaTreeOutput.AREA_REGION_VIEWPORT;
+import static org.apache.fop.area.AreaTreeOutput.AREA_SIDE_FLOAT;
+import static org.apache.fop.area.AreaTreeOutput.FLAG_CHANGE_BARS;
+import static org.apache.fop.area.AreaTreeOutput.FLAG_EXTENSION_ATTACHMENTS;
+import static org.apache.fop.area.AreaTreeOutput.FLAG_FOREIGN_ATTRIBUTES;
+import static org.apache.fop.area.AreaTreeOutput.FLAG_FROM_FOOTNOTE;
+import static org.apache.fop.area.AreaTreeOutput.FLAG_TRAITS;
+import static org.apache.fop.area.AreaTreeOutput.REGIONS;
+import static org.apache.fop.area.AreaTreeOutput.REGION_BODY;
+import static org.apache.fop.area.AreaTreeOutput.REGION_NULL;
+import static org.apache.fop.area.AreaTreeOutput.REGION_OTHER;
+import static org.apache.fop.area.AreaTreeOutput.REGION_REFERENCE;
+import static org.apache.fop.area.AreaTreeOutput.RESOLVABLE_AREA;
+import static org.apache.fop.area.AreaTreeOutput.RESOLVABLE_LINK;
+import static org.apache.fop.area.AreaTreeOutput.RESOLVABLE_NULL;
+import static org.apache.fop.area.AreaTreeOutput.RESOLVABLE_REFERENCE;
+import static org.apache.fop.area.AreaTreeOutput.VALUE_BACKGROUND;
+import static org.apache.fop.area.AreaTreeOutput.VALUE_BORDER_PROPS;
+import static org.apache.fop.area.AreaTreeOutput.VALUE_COLOR;
+import static org.apache.fop.area.AreaTreeOutput.VALUE_EXTERNAL_LINK;
+import static org.apache.fop.area.AreaTreeOutput.VALUE_FALSE;
+import static org.apache.fop.area.AreaTreeOutput.VALUE_INTEGER;
+import static org.apache.fop.area.AreaTreeOutput.VALUE_INTERNAL_LINK;
+import static org.apache.fop.area.AreaTreeOutput.VALUE_NULL;
+import static org.apache.fop.area.AreaTreeOutput.VALUE_REFERENCE;
+import static org.apache.fop.area.AreaTreeOutput.VALUE_STRING;
+import static org.apache.fop.area.AreaTreeOutput.VALUE_TRUE;
+
+/**
+ * Reads the contents of a page written by an {@link AreaTreeOutput}.
+ * <p>Note: this class should not be considered as part of FOP's external API.</p>
+ */
+public final class AreaTreeInput {
+
+    private final byte[] buf;
+    private int pos;
+    private final int end;
+
+    private final Object[] references;
+
+    private final List<String> strings = new ArrayList<String>();
+
+    private final List<Area> areas = new ArrayList<Area>();
+
+    private final List<LinkResolver> linkResolvers = new ArrayList<LinkResolver>();
+
+    /**
+     * Creates a new input.
+     * @param buf the buffer holding the encoded data
+     * @param offset the offset of the encoded data
+     * @param length the length of the encoded data
+     * @param references the objects referenced by the encoded data
+     */
+    public AreaTreeInput(byte[] buf, int offset, int length, Object[] references) {
+        this.buf = buf;
+        this.pos = offset;
+        this.end = offset + length;
+        this.references = references;
+    }
+
+    /**
+     * Decodes a page.
+     * @return the page contents
+     * @throws IOException if the encoded data is corrupt
+     */
+    public Page readPage() throws IOException {
+        try {
+            Page page = new Page();
+            readObjectState(page);
+            if (readBoolean()) {
+                page.fakeNonEmpty();
+            }
+            for (int region : REGIONS) {
+                page.setRegionViewport(region, (RegionViewport) readArea());
+            }
+            int size = readInt();
+            if (size >= 0) {
+                Map<String, List<Resolvable>> unresolved
+                        = new HashMap<String, List<Resolvable>>(size * 2);
+                for (int i = 0; i < size; i++) {
+                    unresolved.put(readString(), readResolvables());
+                }
+                page.setUnresolvedReferences(unresolved);
+            }
+            for (int i = 0; i < linkResolvers.size(); i++) {
+                linkResolvers.get(i).read(this);
+            }
+            if (pos != end) {
+                throw new IOException("Unexpected data at the end of a page record");
+            }
+            return page;
+        } catch (RuntimeException e) {
+            // a corrupt record can cause index and class cast errors
+            throw new IOException("Corrupt page record", e);
+        }
+    }
+
+    private int readByte() throws IOException {
+        if (pos >= end) {
+            throw new IOException("Unexpected end of a page record");
+        }
+        return buf[pos++] & 0xFF;
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid number in a page record");
+    }
+
+    /**
+     * Reads an integer.
+     * @return the value
+     * @throws IOException if the encoded data is corrupt
+     */
+    public int readInt() throws IOException {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads a boolean.
+     * @return the value
+     * @throws IOException if the encoded data is corrupt
+     */
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    /**
+     * Reads a double.
+     * @return the value
+     * @throws IOException if the encoded data is corrupt
+     */
+    public double readDouble() throws IOException {
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits = (bits << 8) | readByte();
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * Reads a string.
+     * @return the string, may be null
+     * @throws IOException if the encoded data is corrupt
+     */
+    public String readString() throws IOException {
+        int index = readVarInt();
+        if (index == 0) {
+            return null;
+        } else if (index > 1) {
+            return strings.get(index - 2);
+        }
+        int length = readVarInt();
+        if (length > end - pos) {
+            throw new IOException("Invalid string length in a page record: " + length);
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) readVarInt();
+        }
+        String str = new String(chars);
+        strings.add(str);
+        return str;
+    }
+
+    /**
+     * Reads an array of integers.
+     * @return the array, may be null
+     * @throws IOException if the encoded data is corrupt
+     */
+    public int[] readIntArray() throws IOException {
+        int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > end - pos) {
+            throw new IOException("Invalid array length in a page record: " + length);
+        }
+        int[] array = new int[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = readInt();
+        }
+        return array;
+    }
+
+    /**
+     * Reads a rectangle.
+     * @return the rectangle, may be null
+     * @throws IOException if the encoded data is corrupt
+     */
+    public Rectangle2D readRectangle() throws IOException {
+        if (!readBoolean()) {
+            return null;
+        }
+        return new Rectangle2D.Double(readDouble(), readDouble(), readDouble(), readDouble());
+    }
+
+    /**
+     * Reads a reference to an object which was not encoded.
+     * @return the object, may be null
+     * @throws IOException if the encoded data is corrupt
+     */
+    public Object readReference() throws IOException {
+        int index = readVarInt();
+        return index == 0 ? null : references[index - 1];
+    }
+
+    /**
+     * Reads the value of a trait.
+     * @return the value, may be null
+     * @throws IOException if the encoded data is corrupt
+     */
+    public Object readValue() throws IOException {
+        int type = readVarInt();
+        switch (type) {
+        case VALUE_NULL:
+            return null;
+        case VALUE_REFERENCE:
+            return readReference();
+        case VALUE_TRUE:
+            return Boolean.TRUE;
+        case VALUE_FALSE:
+            return Boolean.FALSE;
+        case VALUE_INTEGER:
+            return readInt();
+        case VALUE_STRING:
+            return readString();
+        case VALUE_COLOR:
+            return new Color(readInt(), true);
+        case VALUE_INTERNAL_LINK:
+            return new Trait.InternalLink(readString(), readString());
+        case VALUE_EXTERNAL_LINK:
+            return new Trait.ExternalLink(readString(), readBoolean(), readString());
+        case VALUE_BORDER_PROPS:
+            int style = readInt();
+            int width = readInt();
+            int radiusStart = readInt();
+            int radiusEnd = readInt();
+            Color color = (Color) readValue();
+            return new BorderProps(style, width, radiusStart, radiusEnd, color,
+                    BorderProps.Mode.values()[readInt()]);
+        case VALUE_BACKGROUND:
+            Trait.Background background = new Trait.Background();
+            background.setColor((Color) readValue());
+            background.setURL(readString());
+            background.setImageInfo((ImageInfo) readReference());
+            background.setRepeat(readInt());
+            background.setHoriz(readInt());
+            background.setVertical(readInt());
+            background.setImageTargetWidth(readInt());
+            background.setImageTargetHeight(readInt());
+            return background;
+        default:
+            throw new IOException("Invalid value type in a page record: " + type);
+        }
+    }
+
+    /**
+     * Reads a CTM.
+     * @return the CTM, may be null
+     * @throws IOException if the encoded data is corrupt
+     */
+    public CTM readCTM() throws IOException {
+        if (!readBoolean()) {
+            return null;
+        }
+        return new CTM(readDouble(), readDouble(), readDouble(), readDouble(), readDouble(),
+                readDouble());
+    }
+
+    /**
+     * Reads an area and its descendants.
+     * @return the area, may be null
+     * @throws IOException if the encoded data is corrupt
+     */
+    public Area readArea() throws IOException {
+        int type = readVarInt();
+        switch (type) {
+        case AREA_NULL:
+            return null;
+        case AREA_REFERENCE:
+            return (Area) readReference();
+        case AREA_BLOCK:
+            return readBlock(new Block());
+        case AREA_BLOCK_VIEWPORT:
+            BlockViewport viewport = readBlock(new BlockViewport());
+            viewport.setClip(readBoolean());
+            viewport.setCTM(readCTM());
+            return viewport;
+        case AREA_SIDE_FLOAT:
+            return readBlock(new SideFloat());
+        case AREA_LINE:
+            LineArea line = new LineArea();
+            registerArea(line);
+            readAreaState(line);
+            line.readAdjustingInfo(this);
+            int size = readInt();
+            for (int i = 0; i < size; i++) {
+                line.addInlineArea((org.apache.fop.area.inline.InlineArea) readArea());
+            }
+            return line;
+        case AREA_REGION_VIEWPORT:
+            return readRegionViewport();
+        default:
+            return InlineAreaEncoding.read(this, type);
+        }
+    }
+
+    /**
+     * Reads a list of areas.
+     * @param <T> the class of the areas
+     * @return the areas, may be null
+     * @throws IOException if the encoded data is corrupt
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Area> List<T> readAreas() throws IOException {
+        int size = readInt();
+        if (size < 0) {
+            return null;
+        }
+        List<T> list = new ArrayList<T>(size);
+        for (int i = 0; i < size; i++) {
+            list.add((T) readArea());
+        }
+        return list;
+    }
+
+    /**
+     * Registers an area, in the same order as it was registered when it was written.
+     * @param area the area
+     */
+    public void registerArea(Area area) {
+        areas.add(area);
+    }
+
+    /**
+     * Reads a reference to an area.
+     * @return the area, may be null
+     * @throws IOException if the encoded data is corrupt
+     */
+    public Area readAreaReference() throws IOException {
+        int index = readVarInt();
+        if (index == 0) {
+            return null;
+        } else if (index == 1) {
+            return (Area) readReference();
+        } else {
+            return areas.get(index - 2);
+        }
+    }
+
+    /**
+     * Reads the state every area has. The state is restored before the children of the area
+     * are added, so setters that also apply to the children only affect the area itself.
+     * @param area the area
+     * @throws IOException if the encoded data is corrupt
+     */
+    @SuppressWarnings("unchecked")
+    public void readAreaState(Area area) throws IOException {
+        int flags = readVarInt();
+        area.setAreaClass(readInt());
+        area.ipd = readInt();
+        area.bpd = readInt();
+        area.effectiveIPD = readInt();
+        area.bidiLevel = readInt();
+        if ((flags & FLAG_TRAITS) != 0) {
+            int size = readVarInt();
+            TreeMap<Integer, Object> traits = new TreeMap<Integer, Object>();
+            for (int i = 0; i < size; i++) {
+                traits.put(readInt(), readValue());
+            }
+            area.traits = traits;
+        } else {
+            area.traits = null;
+        }
+        if ((flags & FLAG_CHANGE_BARS) != 0) {
+            area.setChangeBarList((List<ChangeBar>) readReference());
+        }
+        area.setFromFootnote((flags & FLAG_FROM_FOOTNOTE) != 0);
+        readForeignAttributes(area, flags);
+        readExtensionAttachments(area, flags);
+    }
+
+    private void readObjectState(AreaTreeObject obj) throws IOException {
+        int flags = readVarInt();
+        readForeignAttributes(obj, flags);
+        readExtensionAttachments(obj, flags);
+    }
+
+    private void readForeignAttributes(AreaTreeObject obj, int flags) throws IOException {
+        if ((flags & FLAG_FOREIGN_ATTRIBUTES) != 0) {
+            int size = readVarInt();
+            obj.foreignAttributes = new HashMap<QName, String>(size * 2);
+            for (int i = 0; i < size; i++) {
+                QName name = new QName(readString(), readString());
+                obj.foreignAttributes.put(name, readString());
+            }
+        }
+    }
+
+    private void readExtensionAttachments(AreaTreeObject obj, int flags) throws IOException {
+        if ((flags & FLAG_EXTENSION_ATTACHMENTS) != 0) {
+            int size = readVarInt();
+            obj.extensionAttachments = new ArrayList<ExtensionAttachment>(size);
+            for (int i = 0; i < size; i++) {
+                obj.extensionAttachments.add((ExtensionAttachment) readReference());
+            }
+        }
+    }
+
+    private void readBlockParent(BlockParent blockParent) throws IOException {
+        blockParent.xOffset = readInt();
+        blockParent.yOffset = readInt();
+        blockParent.children = readAreas();
+    }
+
+    private <T extends Block> T readBlock(T block) throws IOException {
+        registerArea(block);
+        readAreaState(block);
+        block.setPositioning(readInt());
+        block.allowBPDUpdate = readBoolean();
+        block.setLocale((Locale) readReference());
+        block.setLocation(readString());
+        readBlockParent(block);
+        return block;
+    }
+
+    private RegionViewport readRegionViewport() throws IOException {
+        RegionViewport viewport = new RegionViewport(readRectangle());
+        registerArea(viewport);
+        readAreaState(viewport);
+        viewport.setClip(readBoolean());
+        int type = readVarInt();
+        switch (type) {
+        case REGION_NULL:
+            break;
+        case REGION_OTHER:
+            viewport.setRegionReference((RegionReference) readReference());
+            break;
+        case REGION_REFERENCE:
+            RegionReference reference = new RegionReference(readInt(), readString(),
+                    (RegionViewport) readAreaReference());
+            readRegionReference(reference);
+            viewport.setRegionReference(reference);
+            break;
+        case REGION_BODY:
+            int columnCount = readInt();
+            int columnGap = readInt();
+            BodyRegion body = new BodyRegion(readInt(), readString(),
+                    (RegionViewport) readAreaReference(), columnCount, columnGap);
+            readRegionReference(body);
+            body.getBeforeFloat().setSeparator(readFloat(body.getBeforeFloat()));
+            readMainReference(body.getMainReference());
+            body.getFootnote().setSeparator(readFloat(body.getFootnote()));
+            body.getFootnote().setTop(readInt());
+            viewport.setRegionReference(body);
+            break;
+        default:
+            throw new IOException("Invalid region type in a page record: " + type);
+        }
+        return viewport;
+    }
+
+    private void readRegionReference(RegionReference reference) throws IOException {
+        registerArea(reference);
+        readAreaState(reference);
+        reference.setCTM(readCTM());
+        List<Area> blocks = readAreas();
+        for (Area block : blocks) {
+            reference.addChildArea(block);
+        }
+    }
+
+    private Block readFloat(BlockParent blockParent) throws IOException {
+        registerArea(blockParent);
+        readAreaState(blockParent);
+        Block separator = (Block) readArea();
+        readBlockParent(blockParent);
+        return separator;
+    }
+
+    private void readMainReference(MainReference mainReference) throws IOException {
+        registerArea(mainReference);
+        readAreaState(mainReference);
+        int size = readInt();
+        List<Span> spans = new ArrayList<Span>(size);
+        for (int i = 0; i < size; i++) {
+            Span span = new Span(readInt(), readInt(), readInt());
+            registerArea(span);
+            readAreaState(span);
+            int currentFlowIndex = readInt();
+            while (span.getCurrentFlowIndex() < currentFlowIndex) {
+                span.moveToNextFlow();
+            }
+            for (int j = 0; j < span.getColumnCount(); j++) {
+                NormalFlow flow = span.getNormalFlow(j);
+                registerArea(flow);
+                readAreaState(flow);
+                readBlockParent(flow);
+            }
+            spans.add(span);
+        }
+        mainReference.setSpans(spans);
+    }
+
+    /**
+     * Reads a list of resolvables.
+     * @return the resolvables, may be null
+     * @throws IOException if the encoded data is corrupt
+     */
+    public List<Resolvable> readResolvables() throws IOException {
+        int size = readInt();
+        if (size < 0) {
+            return null;
+        }
+        List<Resolvable> list = new ArrayList<Resolvable>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(readResolvable());
+        }
+        return list;
+    }
+
+    /**
+     * Reads a resolvable.
+     * @return the resolvable, may be null
+     * @throws IOException if the encoded data is corrupt
+     */
+    public Resolvable readResolvable() throws IOException {
+        int type = readVarInt();
+        switch (type) {
+        case RESOLVABLE_NULL:
+            return null;
+        case RESOLVABLE_REFERENCE:
+            return (Resolvable) readReference();
+        case RESOLVABLE_AREA:
+            return (Resolvable) readAreaReference();
+        case RESOLVABLE_LINK:
+            int index = readVarInt();
+            if (index == linkResolvers.size()) {
+                // the state of the link resolver follows at the end of the page
+                linkResolvers.add(new LinkResolver());
+            }
+            return linkResolvers.get(index);
+        default:
+            throw new IOException("Invalid resolvable type in a page record: " + type);
+        }
+    }
+}
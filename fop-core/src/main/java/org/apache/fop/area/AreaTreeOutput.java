@@ -0,0 +1,654 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.awt.Color;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.xmlgraphics.util.QName;
+
+import org.apache.fop.area.inline.InlineAreaEncoding;
+import org.apache.fop.fo.Constants;
+import org.apache.fop.fo.extensions.ExtensionAttachment;
+import org.apache.fop.traits.BorderProps;
+
+/**
+ * <p>Writes the contents of a page in the compact binary encoding of the {@link PageStore}.
+ * Integers are written as variable length numbers, strings that occur several times in a page
+ * are only written once, and the areas are written depth-first, each with a small type code
+ * followed by its state.</p>
+ * <p>Objects that are not part of the area tree itself, like fonts, structure tree elements,
+ * extension attachments, foreign documents or areas of unknown classes, are not encoded but
+ * kept in a table of references, which has to be handed to the {@link AreaTreeInput} along
+ * with the encoded data.</p>
+ * <p>Note: this class should not be considered as part of FOP's external API.</p>
+ */
+public final class AreaTreeOutput {
+
+    // area types; inline areas use the types of InlineAreaEncoding
+    static final int AREA_NULL = 0;
+    static final int AREA_REFERENCE = 1;
+    static final int AREA_BLOCK = 2;
+    static final int AREA_BLOCK_VIEWPORT = 3;
+    static final int AREA_SIDE_FLOAT = 4;
+    static final int AREA_LINE = 5;
+    static final int AREA_REGION_VIEWPORT = 6;
+
+    // region reference types
+    static final int REGION_NULL = 0;
+    static final int REGION_OTHER = 1;
+    static final int REGION_REFERENCE = 2;
+    static final int REGION_BODY = 3;
+
+    // value types
+    static final int VALUE_NULL = 0;
+    static final int VALUE_REFERENCE = 1;
+    static final int VALUE_TRUE = 2;
+    static final int VALUE_FALSE = 3;
+    static final int VALUE_INTEGER = 4;
+    static final int VALUE_STRING = 5;
+    static final int VALUE_COLOR = 6;
+    static final int VALUE_INTERNAL_LINK = 7;
+    static final int VALUE_EXTERNAL_LINK = 8;
+    static final int VALUE_BORDER_PROPS = 9;
+    static final int VALUE_BACKGROUND = 10;
+
+    // resolvable types
+    static final int RESOLVABLE_NULL = 0;
+    static final int RESOLVABLE_REFERENCE = 1;
+    static final int RESOLVABLE_AREA = 2;
+    static final int RESOLVABLE_LINK = 3;
+
+    // flags of the common area state
+    static final int FLAG_TRAITS = 1;
+    static final int FLAG_CHANGE_BARS = 2;
+    static final int FLAG_FROM_FOOTNOTE = 4;
+    static final int FLAG_FOREIGN_ATTRIBUTES = 8;
+    static final int FLAG_EXTENSION_ATTACHMENTS = 16;
+
+    /** The regions of a page, in the order they are written */
+    static final int[] REGIONS = {Constants.FO_REGION_BEFORE, Constants.FO_REGION_START,
+            Constants.FO_REGION_BODY, Constants.FO_REGION_END, Constants.FO_REGION_AFTER};
+
+    private byte[] buf = new byte[4096];
+    private int count;
+
+    private final List<Object> references = new ArrayList<Object>();
+    private final Map<Object, Integer> referenceIndex = new IdentityHashMap<Object, Integer>();
+
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+    private final Map<Area, Integer> areas = new IdentityHashMap<Area, Integer>();
+
+    private final List<LinkResolver> linkResolvers = new ArrayList<LinkResolver>();
+    private final Map<LinkResolver, Integer> linkResolverIndex
+            = new IdentityHashMap<LinkResolver, Integer>();
+
+    /**
+     * Encodes a page. This output can be reused for the next page after it has been
+     * {@link #reset()}.
+     * @param page the page contents
+     */
+    public void writePage(Page page) {
+        writeObjectState(page);
+        writeBoolean(page.isFakeNonEmpty());
+        for (int region : REGIONS) {
+            writeArea(page.getRegionViewport(region));
+        }
+        Map<String, List<Resolvable>> unresolved = page.getUnresolvedReferences();
+        if (unresolved == null) {
+            writeInt(-1);
+        } else {
+            writeInt(unresolved.size());
+            for (Map.Entry<String, List<Resolvable>> entry : unresolved.entrySet()) {
+                writeString(entry.getKey());
+                writeResolvables(entry.getValue());
+            }
+        }
+        // the link resolvers are written last since they refer to areas anywhere on the page;
+        // writing them may discover more of them
+        for (int i = 0; i < linkResolvers.size(); i++) {
+            linkResolvers.get(i).write(this);
+        }
+    }
+
+    /**
+     * Clears the encoded data and the references, so that another page can be encoded.
+     */
+    public void reset() {
+        count = 0;
+        references.clear();
+        referenceIndex.clear();
+        strings.clear();
+        areas.clear();
+        linkResolvers.clear();
+        linkResolverIndex.clear();
+    }
+
+    /** @return the number of bytes of encoded data */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Writes the encoded data to a stream.
+     * @param out the stream
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, count);
+    }
+
+    /** @return the objects referenced by the encoded data */
+    public Object[] getReferences() {
+        return references.toArray();
+    }
+
+    private void ensureCapacity(int n) {
+        if (count + n > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + n));
+        }
+    }
+
+    private void writeByte(int b) {
+        ensureCapacity(1);
+        buf[count++] = (byte) b;
+    }
+
+    /**
+     * Writes an unsigned integer as a variable length number.
+     * @param value the value, not negative
+     */
+    private void writeVarInt(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            buf[count++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[count++] = (byte) value;
+    }
+
+    /**
+     * Writes an integer. Small values, positive or negative, take a single byte.
+     * @param value the value
+     */
+    public void writeInt(int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Writes a boolean.
+     * @param value the value
+     */
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    /**
+     * Writes a double.
+     * @param value the value
+     */
+    public void writeDouble(double value) {
+        long bits = Double.doubleToLongBits(value);
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buf[count++] = (byte) (bits >>> shift);
+        }
+    }
+
+    /**
+     * Writes a string. A string that was already written to this page is replaced by its
+     * index.
+     * @param str the string, may be null
+     */
+    public void writeString(String str) {
+        if (str == null) {
+            writeVarInt(0);
+            return;
+        }
+        Integer index = strings.get(str);
+        if (index != null) {
+            writeVarInt(index + 2);
+            return;
+        }
+        strings.put(str, strings.size());
+        writeVarInt(1);
+        int length = str.length();
+        writeVarInt(length);
+        for (int i = 0; i < length; i++) {
+            writeVarInt(str.charAt(i));
+        }
+    }
+
+    /**
+     * Writes an array of integers.
+     * @param array the array, may be null
+     */
+    public void writeIntArray(int[] array) {
+        if (array == null) {
+            writeInt(-1);
+        } else {
+            writeInt(array.length);
+            for (int value : array) {
+                writeInt(value);
+            }
+        }
+    }
+
+    /**
+     * Writes a rectangle.
+     * @param rect the rectangle, may be null
+     */
+    public void writeRectangle(Rectangle2D rect) {
+        writeBoolean(rect != null);
+        if (rect != null) {
+            writeDouble(rect.getX());
+            writeDouble(rect.getY());
+            writeDouble(rect.getWidth());
+            writeDouble(rect.getHeight());
+        }
+    }
+
+    /**
+     * Writes a reference to an object which is not encoded.
+     * @param obj the object, may be null
+     */
+    public void writeReference(Object obj) {
+        if (obj == null) {
+            writeVarInt(0);
+            return;
+        }
+        Integer index = referenceIndex.get(obj);
+        if (index == null) {
+            index = references.size();
+            references.add(obj);
+            referenceIndex.put(obj, index);
+        }
+        writeVarInt(index + 1);
+    }
+
+    /**
+     * Writes the value of a trait. Values of classes that have no encoding are written as
+     * references.
+     * @param value the value, may be null
+     */
+    public void writeValue(Object value) {
+        if (value == null) {
+            writeVarInt(VALUE_NULL);
+        } else if (value instanceof Boolean) {
+            writeVarInt((Boolean) value ? VALUE_TRUE : VALUE_FALSE);
+        } else if (value instanceof Integer) {
+            writeVarInt(VALUE_INTEGER);
+            writeInt((Integer) value);
+        } else if (value instanceof String) {
+            writeVarInt(VALUE_STRING);
+            writeString((String) value);
+        } else if (value.getClass() == Color.class) {
+            writeVarInt(VALUE_COLOR);
+            writeInt(((Color) value).getRGB());
+        } else if (value.getClass() == Trait.InternalLink.class) {
+            Trait.InternalLink link = (Trait.InternalLink) value;
+            writeVarInt(VALUE_INTERNAL_LINK);
+            writeString(link.getPVKey());
+            writeString(link.getIDRef());
+        } else if (value.getClass() == Trait.ExternalLink.class) {
+            Trait.ExternalLink link = (Trait.ExternalLink) value;
+            writeVarInt(VALUE_EXTERNAL_LINK);
+            writeString(link.getDestination());
+            writeBoolean(link.newWindow());
+            writeString(link.getAltText());
+        } else if (value.getClass() == BorderProps.class) {
+            BorderProps props = (BorderProps) value;
+            writeVarInt(VALUE_BORDER_PROPS);
+            writeInt(props.style);
+            writeInt(props.width);
+            writeInt(props.getRadiusStart());
+            writeInt(props.getRadiusEnd());
+            writeValue(props.color);
+            writeInt(props.getMode().ordinal());
+        } else if (value.getClass() == Trait.Background.class) {
+            Trait.Background background = (Trait.Background) value;
+            writeVarInt(VALUE_BACKGROUND);
+            writeValue(background.getColor());
+            writeString(background.getURL());
+            writeReference(background.getImageInfo());
+            writeInt(background.getRepeat());
+            writeInt(background.getHoriz());
+            writeInt(background.getVertical());
+            writeInt(background.getImageTargetWidth());
+            writeInt(background.getImageTargetHeight());
+        } else {
+            writeVarInt(VALUE_REFERENCE);
+            writeReference(value);
+        }
+    }
+
+    /**
+     * Writes a CTM.
+     * @param ctm the CTM, may be null
+     */
+    public void writeCTM(CTM ctm) {
+        writeBoolean(ctm != null);
+        if (ctm != null) {
+            for (double value : ctm.toArray()) {
+                writeDouble(value);
+            }
+        }
+    }
+
+    /**
+     * Writes an area and its descendants. Areas of classes that have no encoding are written
+     * as references.
+     * @param area the area, may be null
+     */
+    public void writeArea(Area area) {
+        if (area == null) {
+            writeVarInt(AREA_NULL);
+            return;
+        }
+        Class<?> clazz = area.getClass();
+        if (clazz == Block.class) {
+            writeVarInt(AREA_BLOCK);
+            writeBlock((Block) area);
+        } else if (clazz == BlockViewport.class) {
+            BlockViewport viewport = (BlockViewport) area;
+            writeVarInt(AREA_BLOCK_VIEWPORT);
+            writeBlock(viewport);
+            writeBoolean(viewport.hasClip());
+            writeCTM(viewport.getCTM());
+        } else if (clazz == SideFloat.class) {
+            writeVarInt(AREA_SIDE_FLOAT);
+            writeBlock((Block) area);
+        } else if (clazz == LineArea.class) {
+            LineArea line = (LineArea) area;
+            writeVarInt(AREA_LINE);
+            registerArea(line);
+            writeAreaState(line);
+            line.writeAdjustingInfo(this);
+            List<?> inlineAreas = line.getInlineAreas();
+            writeInt(inlineAreas.size());
+            for (Object inlineArea : inlineAreas) {
+                writeArea((Area) inlineArea);
+            }
+        } else if (clazz == RegionViewport.class) {
+            writeVarInt(AREA_REGION_VIEWPORT);
+            writeRegionViewport((RegionViewport) area);
+        } else {
+            int type = InlineAreaEncoding.getType(area);
+            if (type != AREA_NULL) {
+                writeVarInt(type);
+                InlineAreaEncoding.write(this, area, type);
+            } else {
+                writeVarInt(AREA_REFERENCE);
+                writeReference(area);
+            }
+        }
+    }
+
+    /**
+     * Writes a list of areas.
+     * @param list the areas, may be null
+     */
+    public void writeAreas(List<? extends Area> list) {
+        if (list == null) {
+            writeInt(-1);
+        } else {
+            writeInt(list.size());
+            for (Area area : list) {
+                writeArea(area);
+            }
+        }
+    }
+
+    /**
+     * Registers an area, so that it can be referred to by {@link #writeAreaReference(Area)}.
+     * Every area has to be registered when it is written, after the arguments needed to
+     * create it and before its state.
+     * @param area the area
+     */
+    public void registerArea(Area area) {
+        areas.put(area, areas.size());
+    }
+
+    /**
+     * Writes a reference to an area. The area is expected to be written before; otherwise the
+     * area is kept as a reference.
+     * @param area the area, may be null
+     */
+    public void writeAreaReference(Area area) {
+        if (area == null) {
+            writeVarInt(0);
+            return;
+        }
+        Integer index = areas.get(area);
+        if (index != null) {
+            writeVarInt(index + 2);
+        } else {
+            writeVarInt(1);
+            writeReference(area);
+        }
+    }
+
+    /**
+     * Writes the state every area has. Must be called before the children of the area are
+     * written.
+     * @param area the area
+     */
+    public void writeAreaState(Area area) {
+        int flags = 0;
+        if (area.traits != null) {
+            flags |= FLAG_TRAITS;
+        }
+        if (area.getChangeBarList() != null) {
+            flags |= FLAG_CHANGE_BARS;
+        }
+        if (area.isFromFootnote()) {
+            flags |= FLAG_FROM_FOOTNOTE;
+        }
+        if (area.foreignAttributes != null) {
+            flags |= FLAG_FOREIGN_ATTRIBUTES;
+        }
+        if (area.extensionAttachments != null) {
+            flags |= FLAG_EXTENSION_ATTACHMENTS;
+        }
+        writeVarInt(flags);
+        writeInt(area.getAreaClass());
+        writeInt(area.ipd);
+        writeInt(area.bpd);
+        writeInt(area.effectiveIPD);
+        writeInt(area.bidiLevel);
+        if (area.traits != null) {
+            writeVarInt(area.traits.size());
+            for (Map.Entry<Integer, Object> trait : area.traits.entrySet()) {
+                writeInt(trait.getKey());
+                writeValue(trait.getValue());
+            }
+        }
+        if (area.getChangeBarList() != null) {
+            writeReference(area.getChangeBarList());
+        }
+        writeForeignAttributes(area);
+        writeExtensionAttachments(area);
+    }
+
+    private void writeObjectState(AreaTreeObject obj) {
+        int flags = 0;
+        if (obj.foreignAttributes != null) {
+            flags |= FLAG_FOREIGN_ATTRIBUTES;
+        }
+        if (obj.extensionAttachments != null) {
+            flags |= FLAG_EXTENSION_ATTACHMENTS;
+        }
+        writeVarInt(flags);
+        writeForeignAttributes(obj);
+        writeExtensionAttachments(obj);
+    }
+
+    private void writeForeignAttributes(AreaTreeObject obj) {
+        if (obj.foreignAttributes != null) {
+            writeVarInt(obj.foreignAttributes.size());
+            for (Map.Entry<QName, String> attribute : obj.foreignAttributes.entrySet()) {
+                writeString(attribute.getKey().getNamespaceURI());
+                writeString(attribute.getKey().getQName());
+                writeString(attribute.getValue());
+            }
+        }
+    }
+
+    private void writeExtensionAttachments(AreaTreeObject obj) {
+        if (obj.extensionAttachments != null) {
+            writeVarInt(obj.extensionAttachments.size());
+            for (ExtensionAttachment attachment : obj.extensionAttachments) {
+                writeReference(attachment);
+            }
+        }
+    }
+
+    private void writeBlockParent(BlockParent blockParent) {
+        writeInt(blockParent.xOffset);
+        writeInt(blockParent.yOffset);
+        writeAreas(blockParent.children);
+    }
+
+    private void writeBlock(Block block) {
+        registerArea(block);
+        writeAreaState(block);
+        writeInt(block.getPositioning());
+        writeBoolean(block.allowBPDUpdate);
+        writeReference(block.getLocale());
+        writeString(block.getLocation());
+        writeBlockParent(block);
+    }
+
+    private void writeRegionViewport(RegionViewport viewport) {
+        writeRectangle(viewport.getViewArea());
+        registerArea(viewport);
+        writeAreaState(viewport);
+        writeBoolean(viewport.hasClip());
+        RegionReference reference = viewport.getRegionReference();
+        if (reference == null) {
+            writeVarInt(REGION_NULL);
+        } else if (reference.getClass() == RegionReference.class) {
+            writeVarInt(REGION_REFERENCE);
+            writeRegionReference(reference);
+        } else if (reference.getClass() == BodyRegion.class) {
+            BodyRegion body = (BodyRegion) reference;
+            writeVarInt(REGION_BODY);
+            writeInt(body.getColumnCount());
+            writeInt(body.getColumnGap());
+            writeRegionReference(body);
+            writeFloat(body.getBeforeFloat(), body.getBeforeFloat().getSeparator());
+            writeMainReference(body.getMainReference());
+            writeFloat(body.getFootnote(), body.getFootnote().getSeparator());
+            writeInt(body.getFootnote().getTop());
+        } else {
+            writeVarInt(REGION_OTHER);
+            writeReference(reference);
+        }
+    }
+
+    private void writeRegionReference(RegionReference reference) {
+        writeInt(reference.getRegionClass());
+        writeString(reference.getRegionName());
+        writeAreaReference(reference.getRegionViewport());
+        registerArea(reference);
+        writeAreaState(reference);
+        writeCTM(reference.getCTM());
+        writeAreas(reference.getBlocks());
+    }
+
+    private void writeFloat(BlockParent blockParent, Block separator) {
+        registerArea(blockParent);
+        writeAreaState(blockParent);
+        writeArea(separator);
+        writeBlockParent(blockParent);
+    }
+
+    private void writeMainReference(MainReference mainReference) {
+        registerArea(mainReference);
+        writeAreaState(mainReference);
+        List<Span> spans = mainReference.getSpans();
+        writeInt(spans.size());
+        for (Span span : spans) {
+            writeInt(span.getColumnCount());
+            writeInt(span.getColumnGap());
+            writeInt(span.getIPD());
+            registerArea(span);
+            writeAreaState(span);
+            writeInt(span.getCurrentFlowIndex());
+            for (int i = 0; i < span.getColumnCount(); i++) {
+                NormalFlow flow = span.getNormalFlow(i);
+                registerArea(flow);
+                writeAreaState(flow);
+                writeBlockParent(flow);
+            }
+        }
+    }
+
+    /**
+     * Writes a list of resolvables.
+     * @param list the resolvables, may be null
+     */
+    public void writeResolvables(List<Resolvable> list) {
+        if (list == null) {
+            writeInt(-1);
+        } else {
+            writeInt(list.size());
+            for (Resolvable resolvable : list) {
+                writeResolvable(resolvable);
+            }
+        }
+    }
+
+    /**
+     * Writes a resolvable. Areas are written as area references, link resolvers are encoded
+     * at the end of the page, other resolvables are written as references.
+     * @param resolvable the resolvable, may be null
+     */
+    public void writeResolvable(Resolvable resolvable) {
+        if (resolvable == null) {
+            writeVarInt(RESOLVABLE_NULL);
+        } else if (resolvable instanceof Area && areas.containsKey(resolvable)) {
+            writeVarInt(RESOLVABLE_AREA);
+            writeAreaReference((Area) resolvable);
+        } else if (resolvable.getClass() == LinkResolver.class) {
+            LinkResolver linkResolver = (LinkResolver) resolvable;
+            Integer index = linkResolverIndex.get(linkResolver);
+            if (index == null) {
+                index = linkResolvers.size();
+                linkResolvers.add(linkResolver);
+                linkResolverIndex.put(linkResolver, index);
+            }
+            writeVarInt(RESOLVABLE_LINK);
+            writeVarInt(index);
+        } else {
+            writeVarInt(RESOLVABLE_REFERENCE);
+            writeReference(resolvable);
+        }
+    }
+}
@@ -19,24 +19,14 @@
 
 package org.apache.fop.area;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
-import java.net.URI;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.xml.sax.SAXException;
 
-import org.apache.commons.io.IOUtils;
-
-import org.apache.xmlgraphics.io.TempResourceURIGenerator;
-
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.fonts.FontInfo;
@@ -44,17 +34,21 @@ import org.apache.fop.fonts.FontInfo;
 /**
  * A simple cached render pages model.
  * If the page is prepared for later rendering then this saves
- * the page contents to a file and once the page is resolved
- * the contents are reloaded.
+ * the page contents and once the page is resolved
+ * the contents are reloaded. The most recently saved pages are
+ * kept in memory, older ones are written to a {@link PageStore}.
+ * The number of pages kept in memory is set by
+ * {@link org.apache.fop.apps.FopFactoryBuilder#setPageCacheSize(int)}.
  */
 public class CachedRenderPagesModel extends RenderPagesModel {
 
-    private Map<PageViewport, URI> pageMap = new HashMap<PageViewport, URI>();
+    /** The maximum number of saved pages kept in memory */
+    private final int maxHotPages;
 
-    /** Base directory to save temporary file in, typically points to the user's temp dir. */
-    private final URI tempBaseURI;
-    private static final TempResourceURIGenerator TEMP_URI_GENERATOR
-            = new TempResourceURIGenerator("cached-pages");
+    /** The saved pages kept in memory, in the order they were saved */
+    private final Map<PageViewport, Page> hotPages = new LinkedHashMap<PageViewport, Page>();
+
+    private final PageStore pageStore;
 
     /**
      * Main Constructor
@@ -67,7 +61,8 @@ public class CachedRenderPagesModel extends RenderPagesModel {
     public CachedRenderPagesModel(FOUserAgent userAgent, String outputFormat,
             FontInfo fontInfo, OutputStream stream) throws FOPException {
         super(userAgent, outputFormat, fontInfo, stream);
-        tempBaseURI = TEMP_URI_GENERATOR.generate();
+        maxHotPages = userAgent.getPageCacheSize();
+        pageStore = new PageStore(userAgent.getResourceResolver());
     }
 
     /** {@inheritDoc} */
@@ -77,24 +72,11 @@ public class CachedRenderPagesModel extends RenderPagesModel {
             PageViewport pageViewport = (PageViewport)iter.next();
             if (pageViewport.isResolved() || renderUnresolved) {
                 if (pageViewport != newpage) {
-                    try {
-                        // load page from cache
-                        URI tempURI = pageMap.get(pageViewport);
-                        log.debug("Loading page from: " + tempURI);
-                        InputStream inStream = renderer.getUserAgent().getResourceResolver().getResource(tempURI);
-                        ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(inStream));
-                        try {
-                            pageViewport.loadPage(in);
-                        } finally {
-                            IOUtils.closeQuietly(inStream);
-                            IOUtils.closeQuietly(in);
-                        }
-                        pageMap.remove(pageViewport);
-                    } catch (Exception e) {
-                        AreaEventProducer eventProducer = AreaEventProducer.Provider.get(
-                                renderer.getUserAgent().getEventBroadcaster());
-                        eventProducer.pageLoadError(this, pageViewport.getPageNumberString(), e);
-                    }
+                    loadPage(pageViewport);
+                }
+                if (!renderer.supportsOutOfOrder()
+                        && pageViewport.getPageSequence().isFirstPage(pageViewport)) {
+                    renderer.startPageSequence(pageViewport.getPageSequence());
                 }
 
                 renderPage(pageViewport);
@@ -113,41 +95,60 @@ public class CachedRenderPagesModel extends RenderPagesModel {
         return renderer.supportsOutOfOrder() || prepared.isEmpty();
     }
 
+    private void loadPage(PageViewport pageViewport) {
+        Page page = hotPages.remove(pageViewport);
+        if (page == null) {
+            try {
+                // load page from the page store
+                page = pageStore.read(pageViewport);
+            } catch (Exception e) {
+                AreaEventProducer eventProducer = AreaEventProducer.Provider.get(
+                        renderer.getUserAgent().getEventBroadcaster());
+                eventProducer.pageLoadError(this, pageViewport.getPageNumberString(), e);
+            }
+        }
+        if (page != null) {
+            pageViewport.attachPage(page);
+        }
+    }
+
     /**
      * Save a page.
-     * It saves the contents of the page to a file.
+     * It detaches the contents of the page from its viewport. If too many
+     * pages are kept in memory, the least recently saved page is written
+     * to the page store.
      *
      * @param page the page to prepare
      */
     protected void savePage(PageViewport page) {
-        try {
-            // save page to cache
-            ObjectOutputStream tempstream;
-            String fname = "/fop-page-" + page.getPageIndex() + ".ser";
-            URI tempURI = URI.create(tempBaseURI + fname);
-            OutputStream outStream = renderer.getUserAgent().getResourceResolver().getOutputStream(tempURI);
-            tempstream = new ObjectOutputStream(new BufferedOutputStream(outStream));
+        hotPages.put(page, page.detachPage());
+        if (hotPages.size() > maxHotPages) {
+            Iterator<Map.Entry<PageViewport, Page>> iter = hotPages.entrySet().iterator();
+            Map.Entry<PageViewport, Page> eldest = iter.next();
+            iter.remove();
             try {
-                page.savePage(tempstream);
-            } finally {
-                IOUtils.closeQuietly(tempstream);
-            }
-            pageMap.put(page, tempURI);
-            if (log.isDebugEnabled()) {
-                log.debug("Page saved to temporary file: " + tempURI);
+                // save page to the page store
+                pageStore.write(eldest.getKey(), eldest.getValue());
+                if (log.isDebugEnabled()) {
+                    log.debug("Page saved to page store: " + eldest.getKey());
+                }
+            } catch (IOException ioe) {
+                AreaEventProducer eventProducer
+                    = AreaEventProducer.Provider.get(
+                        renderer.getUserAgent().getEventBroadcaster());
+                eventProducer.pageSaveError(this, eldest.getKey().getPageNumberString(), ioe);
             }
-        } catch (IOException ioe) {
-            AreaEventProducer eventProducer
-                = AreaEventProducer.Provider.get(
-                    renderer.getUserAgent().getEventBroadcaster());
-            eventProducer.pageSaveError(this, page.getPageNumberString(), ioe);
         }
     }
 
     /** {@inheritDoc} */
     @Override
     public void endDocument() throws SAXException {
-        super.endDocument();
+        try {
+            super.endDocument();
+        } finally {
+            hotPages.clear();
+            pageStore.close();
+        }
     }
 }
-
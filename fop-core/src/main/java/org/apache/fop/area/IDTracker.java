@@ -239,6 +239,41 @@ public class IDTracker {
         todo.add(res);
     }
 
+    /**
+     * Takes over the ID locations and the unresolved ID references collected by another
+     * tracker, as used when a page-sequence is laid out on its own. References held by this
+     * tracker are resolved against the complete list of pages of each ID taken over, and
+     * the references of the other tracker are resolved against the IDs known so far.
+     *
+     * @param tracker the tracker whose state is taken over
+     */
+    void takeOver(IDTracker tracker) {
+        for (String id : tracker.idLocations.keySet()) {
+            signalPendingID(id);
+        }
+        for (Map.Entry<String, List<PageViewport>> entry : tracker.idLocations.entrySet()) {
+            for (PageViewport pv : entry.getValue()) {
+                associateIDWithPageViewport(entry.getKey(), pv);
+            }
+        }
+        for (String id : tracker.idLocations.keySet()) {
+            signalIDProcessed(id);
+        }
+        for (Map.Entry<String, Set<Resolvable>> entry : tracker.unresolvedIDRefs.entrySet()) {
+            String idref = entry.getKey();
+            List<PageViewport> pvList = idLocations.get(idref);
+            for (Resolvable res : entry.getValue()) {
+                if (pvList != null && !unfinishedIDs.contains(idref)) {
+                    res.resolveIDRef(idref, pvList);
+                } else {
+                    addUnresolvedIDRef(idref, res);
+                }
+            }
+        }
+        unfinishedIDs.addAll(tracker.unfinishedIDs);
+        alreadyResolvedIDs.addAll(tracker.alreadyResolvedIDs);
+    }
+
     /**
      * Replace all id locations pointing to the old page view port with a new one. This is
      * necessary when a layouted page is replaced with a new one (e.g. last page handling).
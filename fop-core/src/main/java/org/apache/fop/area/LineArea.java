@@ -19,6 +19,7 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -282,6 +283,38 @@ public class LineArea extends Area {
         }
     }
 
+    /**
+     * Writes the adjustment information of this line.
+     * @param out the output of the page store
+     */
+    void writeAdjustingInfo(AreaTreeOutput out) {
+        out.writeBoolean(adjustingInfo != null);
+        if (adjustingInfo != null) {
+            out.writeInt(adjustingInfo.lineAlignment);
+            out.writeInt(adjustingInfo.difference);
+            out.writeInt(adjustingInfo.availableStretch);
+            out.writeInt(adjustingInfo.availableShrink);
+            out.writeDouble(adjustingInfo.variationFactor);
+            out.writeBoolean(adjustingInfo.bAddedToAreaTree);
+        }
+    }
+
+    /**
+     * Reads the adjustment information of this line.
+     * @param in the input of the page store
+     * @throws IOException if the encoded data is corrupt
+     */
+    void readAdjustingInfo(AreaTreeInput in) throws IOException {
+        if (in.readBoolean()) {
+            adjustingInfo = new LineAdjustingInfo(in.readInt(), in.readInt(), in.readInt(),
+                    in.readInt());
+            adjustingInfo.variationFactor = in.readDouble();
+            adjustingInfo.bAddedToAreaTree = in.readBoolean();
+        } else {
+            adjustingInfo = null;
+        }
+    }
+
     public int getEffectiveIPD() {
         int maxIPD = 0;
         if (inlineAreas != null) {
@@ -295,5 +328,22 @@ public class LineArea extends Area {
         return maxIPD;
     }
 
+    /** {@inheritDoc} */
+    public Object clone() throws CloneNotSupportedException {
+        LineArea line = (LineArea) super.clone();
+        line.inlineAreas = new ArrayList<InlineArea>(inlineAreas.size());
+        for (InlineArea inline : inlineAreas) {
+            InlineArea copy = (InlineArea) inline.clone();
+            copy.restoreParentArea(line);
+            line.inlineAreas.add(copy);
+        }
+        if (adjustingInfo != null) {
+            line.adjustingInfo = line.new LineAdjustingInfo(adjustingInfo.lineAlignment,
+                    adjustingInfo.difference, adjustingInfo.availableStretch,
+                    adjustingInfo.availableShrink);
+            line.adjustingInfo.variationFactor = adjustingInfo.variationFactor;
+            line.adjustingInfo.bAddedToAreaTree = adjustingInfo.bAddedToAreaTree;
+        }
+        return line;
+    }
 }
-
@@ -121,4 +121,26 @@ public class LinkResolver implements Resolvable, Serializable {
         }
     }
 
+    /**
+     * Writes the state of this resolver.
+     * @param out the output of the page store
+     */
+    void write(AreaTreeOutput out) {
+        out.writeBoolean(resolved);
+        out.writeString(idRef);
+        out.writeAreaReference(area);
+        out.writeResolvables(dependents);
+    }
+
+    /**
+     * Reads the state of this resolver.
+     * @param in the input of the page store
+     * @throws IOException if the encoded data is corrupt
+     */
+    void read(AreaTreeInput in) throws IOException {
+        resolved = in.readBoolean();
+        idRef = in.readString();
+        area = in.readAreaReference();
+        dependents = in.readResolvables();
+    }
 }
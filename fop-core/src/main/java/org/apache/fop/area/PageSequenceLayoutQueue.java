@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.datatypes.Numeric;
+import org.apache.fop.fo.Constants;
+import org.apache.fop.fo.FONode;
+import org.apache.fop.fo.flow.RetrieveMarker;
+import org.apache.fop.fo.pagination.AbstractPageSequence;
+import org.apache.fop.fo.pagination.PageSequence;
+import org.apache.fop.fo.pagination.StaticContent;
+import org.apache.fop.layoutmgr.PageSequenceLayoutManager;
+import org.apache.fop.layoutmgr.TopLevelLayoutManager;
+import org.apache.fop.util.WorkerThreadFactory;
+
+/**
+ * Lays out page-sequences on a pool of worker threads. A page-sequence whose layout does not
+ * depend on the preceding page-sequences is handed to a worker as soon as its FO subtree is
+ * complete. Each page-sequence is laid out against an area tree handler of its own which
+ * collects its pages and ID references. Once a page-sequence is laid out and the next one has
+ * started, it is finished (force-page-count) and its pages and IDs are handed to the area
+ * tree handler of the document, strictly in document order.
+ * <p>
+ * References to IDs in preceding page-sequences are only resolved when the pages are handed
+ * over, so the space reserved for them is the one used for forward references.
+ */
+class PageSequenceLayoutQueue {
+
+    private static final Log LOG = LogFactory.getLog(PageSequenceLayoutQueue.class);
+
+    private final AreaTreeHandler areaTreeHandler;
+
+    private final ThreadPoolExecutor executor;
+
+    /** The maximum number of page-sequences that may be waiting to be handed over */
+    private final int maxPending;
+
+    private final LinkedList<PendingPageSequence> pending = new LinkedList<PendingPageSequence>();
+
+    /**
+     * Creates a new queue.
+     * @param areaTreeHandler the area tree handler of the document
+     * @param threads the number of layout threads
+     */
+    PageSequenceLayoutQueue(AreaTreeHandler areaTreeHandler, int threads) {
+        this.areaTreeHandler = areaTreeHandler;
+        this.executor = WorkerThreadFactory.newExecutor("FOP layout", threads);
+        this.maxPending = threads * 2;
+    }
+
+    /**
+     * Indicates whether a page-sequence can be laid out without knowing the result of the
+     * layout of the preceding page-sequences. This is the case if it has an explicit
+     * initial-page-number and neither retrieves markers from the whole document nor uses a
+     * page master for page-position "last".
+     * @param pageSequence the page-sequence
+     * @return true if the page-sequence can be laid out on a worker thread
+     */
+    static boolean isIndependent(PageSequence pageSequence) {
+        if (pageSequence.getInitialPageNumber().getEnum() != 0
+                || pageSequence.referencesPagePositionLast()) {
+            return false;
+        }
+        for (FONode flow : pageSequence.getFlowMap().values()) {
+            if (flow instanceof StaticContent && retrievesDocumentMarkers(flow)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean retrievesDocumentMarkers(FONode node) {
+        if (node instanceof RetrieveMarker) {
+            return ((RetrieveMarker) node).getRetrieveBoundary() == Constants.EN_DOCUMENT;
+        }
+        FONode.FONodeIterator iter = node.getChildNodes();
+        if (iter != null) {
+            while (iter.hasNext()) {
+                if (retrievesDocumentMarkers(iter.next())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts the layout of a page-sequence on a worker thread. Blocks while too many
+     * page-sequences are waiting to be handed over.
+     * @param pageSequence the page-sequence, see {@link #isIndependent(PageSequence)}
+     * @return the layout manager laying out the page-sequence
+     */
+    TopLevelLayoutManager submit(PageSequence pageSequence) {
+        while (pending.size() >= maxPending) {
+            finishFirst();
+        }
+        try {
+            pageSequence.usePrivatePageSequenceMaster();
+        } catch (FOPException e) {
+            throw new RuntimeException(e);
+        }
+        PageSequenceAreaTreeHandler handler = new PageSequenceAreaTreeHandler(areaTreeHandler);
+        final PageSequenceLayoutManager pageSeqLM = areaTreeHandler.getLayoutManagerMaker()
+                .makePageSequenceLayoutManager(handler, pageSequence);
+        Future<?> layout = executor.submit(AreaTreeHandler.prepareLayoutStep(pageSequence,
+                new Runnable() {
+                    public void run() {
+                        pageSeqLM.activateLayout();
+                    }
+                }));
+        pending.add(new PendingPageSequence(pageSeqLM, handler, layout));
+        flush(false);
+        return pageSeqLM;
+    }
+
+    /**
+     * Records that the page-sequence laid out by the given layout manager can be finished,
+     * as the next page-sequence has started or the document has ended.
+     * @param pageSeqLM the layout manager of the page-sequence
+     * @param nextPageSeqInitialPageNumber the initial-page-number of the next page-sequence,
+     * null at the end of the document
+     * @return false if the page-sequence is not laid out by this queue
+     */
+    boolean finishPageSequence(TopLevelLayoutManager pageSeqLM,
+            Numeric nextPageSeqInitialPageNumber) {
+        if (pending.isEmpty() || pending.getLast().layoutManager != pageSeqLM) {
+            return false;
+        }
+        pending.getLast().setFinishable(nextPageSeqInitialPageNumber);
+        flush(false);
+        return true;
+    }
+
+    /**
+     * Hands the page-sequences that can be finished over to the area tree handler of
+     * the document.
+     * @param wait true to wait for the layout of all finishable page-sequences to complete,
+     * false to stop at the first page-sequence still being laid out
+     */
+    void flush(boolean wait) {
+        while (!pending.isEmpty()) {
+            PendingPageSequence first = pending.getFirst();
+            if (!first.finishable || !(wait || first.layout.isDone())) {
+                break;
+            }
+            finishFirst();
+        }
+    }
+
+    /**
+     * Hands all remaining page-sequences over and stops the worker threads.
+     */
+    void close() {
+        flush(true);
+        WorkerThreadFactory.shutdown(executor, false);
+    }
+
+    private void finishFirst() {
+        PendingPageSequence first = pending.removeFirst();
+        try {
+            first.layout.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            WorkerThreadFactory.shutdown(executor, true);
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            WorkerThreadFactory.shutdown(executor, true);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+        first.layoutManager.doForcePageCount(first.nextPageSeqInitialPageNumber);
+        first.layoutManager.finishPageSequence();
+        first.handler.handOver();
+    }
+
+    private static final class PendingPageSequence {
+
+        private final TopLevelLayoutManager layoutManager;
+        private final PageSequenceAreaTreeHandler handler;
+        private final Future<?> layout;
+        private boolean finishable;
+        private Numeric nextPageSeqInitialPageNumber;
+
+        PendingPageSequence(TopLevelLayoutManager layoutManager,
+                PageSequenceAreaTreeHandler handler, Future<?> layout) {
+            this.layoutManager = layoutManager;
+            this.handler = handler;
+            this.layout = layout;
+        }
+
+        void setFinishable(Numeric nextPageSeqInitialPageNumber) {
+            this.finishable = true;
+            this.nextPageSeqInitialPageNumber = nextPageSeqInitialPageNumber;
+        }
+    }
+
+    /**
+     * The area tree handler a single page-sequence is laid out against. It keeps its own
+     * pages and ID references until they are handed over to the area tree handler of the
+     * document.
+     */
+    private static final class PageSequenceAreaTreeHandler extends AreaTreeHandler {
+
+        private final AreaTreeHandler parent;
+
+        PageSequenceAreaTreeHandler(AreaTreeHandler parent) {
+            super(parent, new PageSequenceAreaTreeModel());
+            this.parent = parent;
+        }
+
+        @Override
+        public String generatePageViewportKey() {
+            return parent.generatePageViewportKey();
+        }
+
+        @Override
+        public void notifyPageSequenceFinished(AbstractPageSequence pageSequence,
+                int pageCount) {
+            parent.notifyPageSequenceFinished(pageSequence, pageCount);
+        }
+
+        void handOver() {
+            PageSequenceAreaTreeModel pages = (PageSequenceAreaTreeModel) getAreaTreeModel();
+            parent.getIDTracker().takeOver(getIDTracker());
+            AreaTreeModel target = parent.getAreaTreeModel();
+            target.startPageSequence(pages.getCurrentPageSequence());
+            for (PageViewport pageViewport : pages.pageViewports) {
+                target.addPage(pageViewport);
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Handed over " + pages.pageViewports.size() + " pages");
+            }
+        }
+    }
+
+    /**
+     * Keeps the pages of a single page-sequence. Only that page-sequence is visible when
+     * looking up markers on preceding pages.
+     */
+    private static final class PageSequenceAreaTreeModel extends AreaTreeModel {
+
+        private final List<PageViewport> pageViewports = new ArrayList<PageViewport>();
+
+        @Override
+        public void startPageSequence(org.apache.fop.area.PageSequence pageSequence) {
+            this.currentPageSequence = pageSequence;
+        }
+
+        @Override
+        public void addPage(PageViewport page) {
+            pageViewports.add(page);
+        }
+
+        @Override
+        public int getPageSequenceCount() {
+            return 1;
+        }
+
+        @Override
+        public int getPageCount(int seq) {
+            return pageViewports.size();
+        }
+
+        @Override
+        public PageViewport getPage(int seq, int count) {
+            return pageViewports.get(count);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.apache.fop.util.WorkerThreadFactory;
+
+/**
+ * Runs the layout and rendering of a document on a thread of its own, so that the FO tree
+ * of the next page-sequences can be built while the completed ones are laid out. The steps
+ * are run one after the other, in the order they were added. The number of completed
+ * page-sequences waiting for their layout is bounded: the thread building the FO tree
+ * blocks until the layout has caught up.
+ * <p>
+ * Once a step has failed, the remaining steps are skipped and the failure is thrown on the
+ * thread building the FO tree when it adds the next step or closes the pipeline.
+ */
+class PageSequencePipeline {
+
+    private final ThreadPoolExecutor executor;
+
+    /** One permit for every page-sequence that may be waiting for its layout */
+    private final Semaphore pageSequencePermits;
+
+    private volatile Throwable failure;
+
+    /** The time the thread building the FO tree has spent waiting for the layout */
+    private long waitTime;
+
+    /**
+     * Creates a new pipeline.
+     * @param size the number of completed page-sequences that may be waiting for their layout
+     */
+    PageSequencePipeline(int size) {
+        this.executor = WorkerThreadFactory.newExecutor("FOP layout pipeline", 1);
+        this.pageSequencePermits = new Semaphore(size);
+    }
+
+    /**
+     * Adds a step that does not complete a page-sequence, like the start of a page-sequence.
+     * @param step the step
+     */
+    void addStep(Runnable step) {
+        checkFailure();
+        executor.execute(new Step(step, false));
+    }
+
+    /**
+     * Adds the layout of a completed page-sequence. Blocks while too many page-sequences are
+     * waiting for their layout.
+     * @param layout the layout of the page-sequence
+     */
+    void addPageSequence(Runnable layout) {
+        checkFailure();
+        long start = System.nanoTime();
+        try {
+            pageSequencePermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            shutdown();
+            throw new RuntimeException(e);
+        }
+        waitTime += System.nanoTime() - start;
+        executor.execute(new Step(layout, true));
+    }
+
+    /**
+     * Waits until all steps have been run and stops the thread.
+     */
+    void close() {
+        long start = System.nanoTime();
+        Future<?> end = executor.submit(new Runnable() {
+            public void run() {
+            }
+        });
+        try {
+            end.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            shutdown();
+        }
+        waitTime += System.nanoTime() - start;
+        checkFailure();
+    }
+
+    /**
+     * Returns the time the thread building the FO tree has spent waiting for the layout.
+     * @return the time in nanoseconds
+     */
+    long getWaitTime() {
+        return waitTime;
+    }
+
+    private void checkFailure() {
+        Throwable cause = failure;
+        if (cause != null) {
+            shutdown();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private void shutdown() {
+        WorkerThreadFactory.shutdown(executor, false);
+    }
+
+    private final class Step implements Runnable {
+
+        private final Runnable step;
+        private final boolean completesPageSequence;
+
+        Step(Runnable step, boolean completesPageSequence) {
+            this.step = step;
+            this.completesPageSequence = completesPageSequence;
+        }
+
+        public void run() {
+            try {
+                if (failure == null) {
+                    step.run();
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+            } catch (Error e) {
+                failure = e;
+            } finally {
+                if (completesPageSequence) {
+                    pageSequencePermits.release();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+
+import org.apache.xmlgraphics.io.TempResourceURIGenerator;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+
+/**
+ * Stores the contents of pages in temporary resources obtained from the resource resolver.
+ * The pages are encoded with an {@link AreaTreeOutput} and appended to segments of about
+ * {@link #SEGMENT_SIZE} bytes. A segment is read back in one go when the first of its pages is
+ * needed, and released once all of its pages have been read.
+ */
+class PageStore implements Closeable {
+
+    /** The size after which a new segment is started */
+    private static final int SEGMENT_SIZE = 1024 * 1024;
+
+    private static final TempResourceURIGenerator TEMP_URI_GENERATOR
+            = new TempResourceURIGenerator("cached-pages");
+
+    private final InternalResourceResolver resourceResolver;
+
+    /** Base URI of the temporary resources */
+    private final URI tempBaseURI;
+
+    private final Map<PageViewport, Record> records = new HashMap<PageViewport, Record>();
+
+    private final List<Segment> segments = new ArrayList<Segment>();
+
+    private final AreaTreeOutput output = new AreaTreeOutput();
+
+    /** The segment pages are currently appended to */
+    private Segment current;
+
+    /**
+     * Creates a new page store.
+     * @param resourceResolver the resolver providing the temporary resources
+     */
+    PageStore(InternalResourceResolver resourceResolver) {
+        this.resourceResolver = resourceResolver;
+        this.tempBaseURI = TEMP_URI_GENERATOR.generate();
+    }
+
+    /**
+     * Writes the contents of a page to the store.
+     * @param pageViewport the page viewport the contents belong to
+     * @param page the page contents
+     * @throws IOException if an I/O error occurs
+     */
+    void write(PageViewport pageViewport, Page page) throws IOException {
+        try {
+            output.writePage(page);
+            if (current == null || current.size >= SEGMENT_SIZE) {
+                closeCurrent();
+                URI uri = URI.create(tempBaseURI + "/fop-pages-" + segments.size() + ".bin");
+                current = new Segment(uri);
+                current.out = new BufferedOutputStream(resourceResolver.getOutputStream(uri));
+                segments.add(current);
+            }
+            try {
+                output.writeTo(current.out);
+            } catch (IOException e) {
+                // the records already in the segment remain readable
+                Segment segment = current;
+                current = null;
+                IOUtils.closeQuietly(segment.out);
+                segment.out = null;
+                throw e;
+            }
+            records.put(pageViewport, new Record(current, current.size, output.size(),
+                    output.getReferences()));
+            current.size += output.size();
+            current.pageCount++;
+        } finally {
+            output.reset();
+        }
+    }
+
+    /**
+     * Reads the contents of a page from the store and removes them from the store.
+     * @param pageViewport the page viewport the contents belong to
+     * @return the page contents, null if the store doesn't hold the contents of the page
+     * @throws IOException if an I/O error occurs
+     */
+    Page read(PageViewport pageViewport) throws IOException {
+        Record record = records.remove(pageViewport);
+        if (record == null) {
+            return null;
+        }
+        Segment segment = record.segment;
+        try {
+            if (segment.data == null) {
+                if (segment == current) {
+                    closeCurrent();
+                }
+                segment.loaded = true;
+                segment.data = new byte[segment.size];
+                InputStream in = resourceResolver.getResource(segment.uri);
+                try {
+                    IOUtils.readFully(in, segment.data);
+                } finally {
+                    // the resolver deletes the temporary resource once it has been read
+                    IOUtils.closeQuietly(in);
+                }
+            }
+            return new AreaTreeInput(segment.data, record.offset, record.length,
+                    record.references).readPage();
+        } finally {
+            if (--segment.pageCount == 0) {
+                segment.data = null;
+            }
+        }
+    }
+
+    private void closeCurrent() throws IOException {
+        if (current != null) {
+            Segment segment = current;
+            current = null;
+            segment.out.close();
+            segment.out = null;
+        }
+    }
+
+    /**
+     * Closes the store and deletes the temporary resources that have not been read.
+     */
+    public void close() {
+        records.clear();
+        for (Segment segment : segments) {
+            IOUtils.closeQuietly(segment.out);
+            if (!segment.loaded) {
+                // the temporary resource is only deleted once it has been opened for reading
+                try {
+                    IOUtils.closeQuietly(resourceResolver.getResource(segment.uri));
+                } catch (IOException e) {
+                    // ignore, the resource may already be gone
+                }
+            }
+        }
+        segments.clear();
+        current = null;
+    }
+
+    /** A temporary resource holding the records of several pages */
+    private static final class Segment {
+
+        private final URI uri;
+        private OutputStream out;
+        private int size;
+        private int pageCount;
+        private byte[] data;
+        private boolean loaded;
+
+        private Segment(URI uri) {
+            this.uri = uri;
+        }
+    }
+
+    /** The location of the encoded contents of a page */
+    private static final class Record {
+
+        private final Segment segment;
+        private final int offset;
+        private final int length;
+        private final Object[] references;
+
+        private Record(Segment segment, int offset, int length, Object[] references) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.references = references;
+        }
+    }
+}
@@ -404,10 +404,22 @@ public class PageViewport extends AreaTreeObject implements Resolvable {
      * @throws IOException in case of an I/O error while serializing the page
      */
     public void savePage(ObjectOutputStream out) throws IOException {
-        // set the unresolved references so they are serialized
-        page.setUnresolvedReferences(unresolvedIDRefs);
-        out.writeObject(page);
+        out.writeObject(detachPage());
+    }
+
+    /**
+     * Detaches the page contents from this page viewport.
+     * The map of unresolved references is set on the page so that
+     * the contents can be attached again later.
+     * @return the page contents
+     */
+    Page detachPage() {
+        // set a copy of the unresolved references, the map is modified while the page is detached
+        page.setUnresolvedReferences(unresolvedIDRefs == null ? null
+                : new HashMap<String, List<Resolvable>>(unresolvedIDRefs));
+        Page detached = page;
         page = null;
+        return detached;
     }
 
     /**
@@ -420,7 +432,17 @@ public class PageViewport extends AreaTreeObject implements Resolvable {
      * @throws IOException if an I/O error occurred while loading the page
      */
     public void loadPage(ObjectInputStream in) throws IOException, ClassNotFoundException {
-        page = (Page) in.readObject();
+        attachPage((Page) in.readObject());
+    }
+
+    /**
+     * Attaches page contents that were detached with {@link #detachPage()}.
+     * If there are any unresolved references that were resolved
+     * while detached they will be resolved on the page contents.
+     * @param page the page contents
+     */
+    void attachPage(Page page) {
+        this.page = page;
         unresolvedIDRefs = page.getUnresolvedReferences();
         if (unresolvedIDRefs != null && pendingResolved != null) {
             for (Map.Entry<String, List<PageViewport>> e : pendingResolved.entrySet()) {
@@ -31,6 +31,7 @@ import org.xml.sax.SAXException;
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.fonts.FontInfo;
+import org.apache.fop.metrics.Metrics;
 import org.apache.fop.render.Renderer;
 import org.apache.fop.render.RendererEventProducer;
 
@@ -120,7 +121,7 @@ public class RenderPagesModel extends AreaTreeModel {
                 renderer.startPageSequence(getCurrentPageSequence());
             }
             try {
-                renderer.renderPage(page);
+                renderPageAndRecordTime(page);
             } catch (RuntimeException re) {
                 String err = "Error while rendering page " + page.getPageNumberString();
                 log.error(err, re);
@@ -184,13 +185,25 @@ public class RenderPagesModel extends AreaTreeModel {
         return renderer.supportsOutOfOrder() || prepared.isEmpty();
     }
 
+    private void renderPageAndRecordTime(PageViewport pageViewport)
+            throws IOException, FOPException {
+        Metrics metrics = renderer.getUserAgent().getMetrics();
+        if (metrics.isEnabled()) {
+            long start = System.nanoTime();
+            renderer.renderPage(pageViewport);
+            metrics.recordTime(Metrics.RENDER_PAGE, System.nanoTime() - start);
+        } else {
+            renderer.renderPage(pageViewport);
+        }
+    }
+
     /**
      * Renders the given page and notified about unresolved IDs if any.
      * @param pageViewport the page to be rendered.
      */
     protected void renderPage(PageViewport pageViewport) {
         try {
-            renderer.renderPage(pageViewport);
+            renderPageAndRecordTime(pageViewport);
         } catch (Exception e) {
             AreaEventProducer eventProducer = AreaEventProducer.Provider.get(
                     renderer.getUserAgent().getEventBroadcaster());
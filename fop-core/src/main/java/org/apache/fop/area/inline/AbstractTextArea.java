@@ -123,6 +123,23 @@ public abstract class AbstractTextArea extends InlineParent {
         textAdjustingInfo.spaceDifference = spaceDiff;
     }
 
+    /** @return the adjustment information of the text, may be null */
+    TextAdjustingInfo getTextAdjustingInfo() {
+        return textAdjustingInfo;
+    }
+
+    /**
+     * Creates the adjustment information of the text.
+     * @param stretch the available stretch of the text
+     * @param shrink the available shrink of the text
+     * @param adj the current adjustment of the area
+     * @param spaceDiff the space difference
+     */
+    void setTextAdjustingInfo(int stretch, int shrink, int adj, int spaceDiff) {
+        textAdjustingInfo = new TextAdjustingInfo(stretch, shrink, adj);
+        textAdjustingInfo.spaceDifference = spaceDiff;
+    }
+
     /**
      * recursively apply the variation factor to all descendant areas
      * @param variationFactor the variation factor that must be applied to adjustments
@@ -197,4 +214,15 @@ public abstract class AbstractTextArea extends InlineParent {
         /* Word and space areas don't have a properly set bpd; return this area's bpd instead. */
         return getBPD();
     }
+
+    /** {@inheritDoc} */
+    public Object clone() throws CloneNotSupportedException {
+        AbstractTextArea text = (AbstractTextArea) super.clone();
+        if (textAdjustingInfo != null) {
+            text.setTextAdjustingInfo(textAdjustingInfo.availableStretch,
+                    textAdjustingInfo.availableShrink, textAdjustingInfo.adjustment,
+                    textAdjustingInfo.spaceDifference);
+        }
+        return text;
+    }
 }
@@ -76,5 +76,14 @@ public class Container extends Area {
     public int getWidth() {
         return width;
     }
-}
 
+    /** {@inheritDoc} */
+    public Object clone() throws CloneNotSupportedException {
+        Container container = (Container) super.clone();
+        container.blocks = new ArrayList<Block>(blocks.size());
+        for (Block block : blocks) {
+            container.blocks.add((Block) block.clone());
+        }
+        return container;
+    }
+}
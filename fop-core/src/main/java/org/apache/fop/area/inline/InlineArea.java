@@ -201,6 +201,16 @@ public class InlineArea extends Area {
         return parentArea;
     }
 
+    /**
+     * Sets the parent area without the changes subclasses make when it is set by
+     * {@link #setParentArea(Area)}. Used to restore an area read from a page store, or to
+     * attach a copy of an area to the copy of its parent.
+     * @param parentArea the parent area
+     */
+    public final void restoreParentArea(Area parentArea) {
+        this.parentArea = parentArea;
+    }
+
     /**
      * Set the parent for the child area.
      *
@@ -348,4 +358,13 @@ public class InlineArea extends Area {
         return false;
     }
 
+    /** {@inheritDoc} */
+    public Object clone() throws CloneNotSupportedException {
+        InlineArea area = (InlineArea) super.clone();
+        if (adjustingInfo != null) {
+            area.adjustingInfo = area.new InlineAdjustingInfo(adjustingInfo.availableStretch,
+                    adjustingInfo.availableShrink, adjustingInfo.adjustment);
+        }
+        return area;
+    }
 }
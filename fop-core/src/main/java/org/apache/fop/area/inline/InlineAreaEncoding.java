@@ -0,0 +1,382 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area.inline;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.w3c.dom.Document;
+
+import org.apache.fop.area.Area;
+import org.apache.fop.area.AreaTreeInput;
+import org.apache.fop.area.AreaTreeOutput;
+import org.apache.fop.area.Block;
+import org.apache.fop.area.LinkResolver;
+import org.apache.fop.fonts.Font;
+
+/**
+ * Encodes the inline areas, and the areas that can be the content of an inline viewport, for
+ * the {@link AreaTreeOutput}. It lives in this package since most of the state of these areas
+ * is only accessible from here.
+ * <p>Note: this class should not be considered as part of FOP's external API.</p>
+ */
+public final class InlineAreaEncoding {
+
+    // the area types; the types below 16 are used by AreaTreeOutput
+    private static final int INLINE_AREA = 16;
+    private static final int INLINE_PARENT = 17;
+    private static final int TEXT_AREA = 18;
+    private static final int RESOLVED_PAGE_NUMBER = 19;
+    private static final int UNRESOLVED_PAGE_NUMBER = 20;
+    private static final int WORD_AREA = 21;
+    private static final int SPACE_AREA = 22;
+    private static final int ANCHOR = 23;
+    private static final int SPACE = 24;
+    private static final int LEADER = 25;
+    private static final int FILLED_AREA = 26;
+    private static final int BASIC_LINK_AREA = 27;
+    private static final int INLINE_BLOCK = 28;
+    private static final int INLINE_BLOCK_PARENT = 29;
+    private static final int INLINE_VIEWPORT = 30;
+    private static final int CONTAINER = 31;
+    private static final int IMAGE = 32;
+    private static final int FOREIGN_OBJECT = 33;
+
+    private static final Class<?>[] CLASSES = {InlineArea.class, InlineParent.class,
+            TextArea.class, ResolvedPageNumber.class, UnresolvedPageNumber.class, WordArea.class,
+            SpaceArea.class, Anchor.class, Space.class, Leader.class, FilledArea.class,
+            BasicLinkArea.class, InlineBlock.class, InlineBlockParent.class, InlineViewport.class,
+            Container.class, Image.class, ForeignObject.class};
+
+    private InlineAreaEncoding() {
+    }
+
+    /**
+     * Returns the type of an area. Only areas of the exact classes of this package have a
+     * type, since the state of subclasses would not be encoded.
+     * @param area the area
+     * @return the type, 0 if the area has no encoding
+     */
+    public static int getType(Area area) {
+        Class<?> clazz = area.getClass();
+        for (int i = 0; i < CLASSES.length; i++) {
+            if (CLASSES[i] == clazz) {
+                return INLINE_AREA + i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Writes an area and its descendants.
+     * @param out the output
+     * @param area the area
+     * @param type the type of the area as returned by {@link #getType(Area)}
+     */
+    public static void write(AreaTreeOutput out, Area area, int type) {
+        // the arguments needed to create the area
+        switch (type) {
+        case WORD_AREA:
+            WordArea word = (WordArea) area;
+            out.writeString(word.getWord());
+            out.writeBoolean(word.isReversed());
+            out.writeBoolean(word.isNextIsSpace());
+            break;
+        case SPACE_AREA:
+            SpaceArea space = (SpaceArea) area;
+            out.writeInt(space.space);
+            out.writeBoolean(space.isAdjustable());
+            break;
+        case UNRESOLVED_PAGE_NUMBER:
+            UnresolvedPageNumber pageNumber = (UnresolvedPageNumber) area;
+            out.writeString(pageNumber.getIDRefs()[0]);
+            out.writeBoolean(pageNumber.getPageType());
+            out.writeReference(pageNumber.getFont());
+            break;
+        case INLINE_BLOCK:
+            out.writeArea(((InlineBlock) area).getBlock());
+            break;
+        case IMAGE:
+            out.writeString(((Image) area).getURL());
+            break;
+        case FOREIGN_OBJECT:
+            ForeignObject foreignObject = (ForeignObject) area;
+            out.writeReference(foreignObject.getDocument());
+            out.writeString(foreignObject.getNameSpace());
+            break;
+        default:
+            break;
+        }
+        out.registerArea(area);
+        out.writeAreaState(area);
+        if (area instanceof InlineArea) {
+            writeInlineState(out, (InlineArea) area);
+        }
+        if (area instanceof InlineParent) {
+            InlineParent parent = (InlineParent) area;
+            out.writeBoolean(parent.autoSize);
+            out.writeInt(parent.minChildOffset);
+            out.writeInt(parent.getMaxAfterEdge());
+        }
+        if (area instanceof TextArea) {
+            writeTextState(out, (TextArea) area);
+        }
+        // the remaining state and the children
+        switch (type) {
+        case UNRESOLVED_PAGE_NUMBER:
+            UnresolvedPageNumber pageNumber = (UnresolvedPageNumber) area;
+            out.writeBoolean(pageNumber.isResolved());
+            out.writeString(pageNumber.getText());
+            break;
+        case WORD_AREA:
+            WordArea word = (WordArea) area;
+            out.writeIntArray(word.letterAdjust);
+            out.writeIntArray(word.levels);
+            if (word.gposAdjustments == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(word.gposAdjustments.length);
+                for (int[] adjustments : word.gposAdjustments) {
+                    out.writeIntArray(adjustments);
+                }
+            }
+            break;
+        case LEADER:
+            Leader leader = (Leader) area;
+            out.writeInt(leader.getRuleStyle());
+            out.writeInt(leader.getRuleThickness());
+            break;
+        case FILLED_AREA:
+            out.writeInt(((FilledArea) area).getUnitWidth());
+            break;
+        case BASIC_LINK_AREA:
+            out.writeResolvable(((BasicLinkArea) area).getResolver());
+            break;
+        case INLINE_BLOCK_PARENT:
+            out.writeArea(((InlineBlockParent) area).getChildArea());
+            break;
+        case INLINE_VIEWPORT:
+            InlineViewport viewport = (InlineViewport) area;
+            out.writeBoolean(viewport.hasClip());
+            out.writeRectangle(viewport.getContentPosition());
+            out.writeArea(viewport.getContent());
+            break;
+        case CONTAINER:
+            Container container = (Container) area;
+            out.writeInt(container.width);
+            out.writeAreas(container.blocks);
+            break;
+        default:
+            break;
+        }
+        if (area instanceof InlineParent) {
+            out.writeAreas(((InlineParent) area).inlines);
+        }
+    }
+
+    private static void writeInlineState(AreaTreeOutput out, InlineArea area) {
+        out.writeInt(area.blockProgressionOffset);
+        out.writeAreaReference(area.getParentArea());
+        InlineArea.InlineAdjustingInfo adjustingInfo = area.getAdjustingInfo();
+        out.writeBoolean(adjustingInfo != null);
+        if (adjustingInfo != null) {
+            out.writeInt(adjustingInfo.availableStretch);
+            out.writeInt(adjustingInfo.availableShrink);
+            out.writeInt(adjustingInfo.adjustment);
+        }
+    }
+
+    private static void writeTextState(AreaTreeOutput out, TextArea area) {
+        out.writeInt(area.getTextWordSpaceAdjust());
+        out.writeInt(area.getTextLetterSpaceAdjust());
+        out.writeInt(area.getBaselineOffset());
+        AbstractTextArea.TextAdjustingInfo adjustingInfo = area.getTextAdjustingInfo();
+        out.writeBoolean(adjustingInfo != null);
+        if (adjustingInfo != null) {
+            out.writeInt(adjustingInfo.availableStretch);
+            out.writeInt(adjustingInfo.availableShrink);
+            out.writeInt(adjustingInfo.adjustment);
+            out.writeInt(adjustingInfo.spaceDifference);
+        }
+        out.writeBoolean(area.isHyphenated());
+    }
+
+    /**
+     * Reads an area and its descendants.
+     * @param in the input
+     * @param type the type of the area
+     * @return the area
+     * @throws IOException if the encoded data is corrupt
+     */
+    public static Area read(AreaTreeInput in, int type) throws IOException {
+        Area area;
+        switch (type) {
+        case INLINE_AREA:
+            area = new InlineArea();
+            break;
+        case INLINE_PARENT:
+            area = new InlineParent();
+            break;
+        case TEXT_AREA:
+            area = new TextArea();
+            break;
+        case RESOLVED_PAGE_NUMBER:
+            area = new ResolvedPageNumber();
+            break;
+        case UNRESOLVED_PAGE_NUMBER:
+            String pageIDRef = in.readString();
+            boolean pageType = in.readBoolean();
+            area = new UnresolvedPageNumber(pageIDRef, (Font) in.readReference(), pageType);
+            break;
+        case WORD_AREA:
+            String word = in.readString();
+            boolean reversed = in.readBoolean();
+            area = new WordArea(0, -1, word, null, null, null, reversed, in.readBoolean());
+            break;
+        case SPACE_AREA:
+            char space = (char) in.readInt();
+            area = new SpaceArea(0, -1, space, in.readBoolean());
+            break;
+        case ANCHOR:
+            area = new Anchor();
+            break;
+        case SPACE:
+            area = new Space();
+            break;
+        case LEADER:
+            area = new Leader();
+            break;
+        case FILLED_AREA:
+            area = new FilledArea();
+            break;
+        case BASIC_LINK_AREA:
+            area = new BasicLinkArea();
+            break;
+        case INLINE_BLOCK:
+            area = new InlineBlock((Block) in.readArea());
+            break;
+        case INLINE_BLOCK_PARENT:
+            area = new InlineBlockParent();
+            break;
+        case INLINE_VIEWPORT:
+            area = new InlineViewport(null);
+            break;
+        case CONTAINER:
+            area = new Container();
+            break;
+        case IMAGE:
+            area = new Image(in.readString());
+            break;
+        case FOREIGN_OBJECT:
+            Document doc = (Document) in.readReference();
+            area = new ForeignObject(doc, in.readString());
+            break;
+        default:
+            throw new IOException("Invalid area type in a page record: " + type);
+        }
+        in.registerArea(area);
+        // the state is restored before any children are added
+        in.readAreaState(area);
+        if (area instanceof InlineArea) {
+            readInlineState(in, (InlineArea) area);
+        }
+        if (area instanceof InlineParent) {
+            InlineParent parent = (InlineParent) area;
+            parent.autoSize = in.readBoolean();
+            parent.minChildOffset = in.readInt();
+            parent.setMaxAfterEdge(in.readInt());
+        }
+        if (area instanceof TextArea) {
+            readTextState(in, (TextArea) area);
+        }
+        switch (type) {
+        case UNRESOLVED_PAGE_NUMBER:
+            boolean resolved = in.readBoolean();
+            ((UnresolvedPageNumber) area).restore(resolved, in.readString());
+            break;
+        case WORD_AREA:
+            WordArea word = (WordArea) area;
+            word.letterAdjust = in.readIntArray();
+            word.levels = in.readIntArray();
+            int length = in.readInt();
+            if (length >= 0) {
+                word.gposAdjustments = new int[length][];
+                for (int i = 0; i < length; i++) {
+                    word.gposAdjustments[i] = in.readIntArray();
+                }
+            }
+            break;
+        case LEADER:
+            Leader leader = (Leader) area;
+            leader.setRuleStyle(in.readInt());
+            leader.setRuleThickness(in.readInt());
+            break;
+        case FILLED_AREA:
+            ((FilledArea) area).setUnitWidth(in.readInt());
+            break;
+        case BASIC_LINK_AREA:
+            ((BasicLinkArea) area).setResolver((LinkResolver) in.readResolvable());
+            break;
+        case INLINE_BLOCK_PARENT:
+            ((InlineBlockParent) area).child = (Block) in.readArea();
+            break;
+        case INLINE_VIEWPORT:
+            InlineViewport viewport = (InlineViewport) area;
+            viewport.setClip(in.readBoolean());
+            viewport.setContentPosition(in.readRectangle());
+            viewport.setContent(in.readArea());
+            break;
+        case CONTAINER:
+            Container container = (Container) area;
+            container.width = in.readInt();
+            List<Block> blocks = in.readAreas();
+            container.blocks = blocks != null ? blocks : new ArrayList<Block>();
+            break;
+        default:
+            break;
+        }
+        if (area instanceof InlineParent) {
+            List<InlineArea> inlines = in.readAreas();
+            ((InlineParent) area).inlines = inlines != null ? inlines : new ArrayList<InlineArea>();
+        }
+        return area;
+    }
+
+    private static void readInlineState(AreaTreeInput in, InlineArea area) throws IOException {
+        area.blockProgressionOffset = in.readInt();
+        area.restoreParentArea(in.readAreaReference());
+        if (in.readBoolean()) {
+            area.setAdjustingInfo(in.readInt(), in.readInt(), in.readInt());
+        }
+    }
+
+    private static void readTextState(AreaTreeInput in, TextArea area) throws IOException {
+        area.setTextWordSpaceAdjust(in.readInt());
+        area.setTextLetterSpaceAdjust(in.readInt());
+        area.setBaselineOffset(in.readInt());
+        if (in.readBoolean()) {
+            area.setTextAdjustingInfo(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+        }
+        if (in.readBoolean()) {
+            area.setHyphenated();
+        }
+    }
+}
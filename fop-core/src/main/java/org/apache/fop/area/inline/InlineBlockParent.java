@@ -73,4 +73,12 @@ public class InlineBlockParent extends InlineArea {
         return child;
     }
 
+    /** {@inheritDoc} */
+    public Object clone() throws CloneNotSupportedException {
+        InlineBlockParent parent = (InlineBlockParent) super.clone();
+        if (child != null) {
+            parent.child = (Block) child.clone();
+        }
+        return parent;
+    }
 }
@@ -83,6 +83,19 @@ public class InlineParent extends InlineArea {
         }
     }
 
+    /** @return the offset of the after edge of the afterest child area */
+    int getMaxAfterEdge() {
+        return maxAfterEdge;
+    }
+
+    /**
+     * Sets the offset of the after edge of the afterest child area.
+     * @param maxAfterEdge the offset
+     */
+    void setMaxAfterEdge(int maxAfterEdge) {
+        this.maxAfterEdge = maxAfterEdge;
+    }
+
     @Override
     int getVirtualOffset() {
         return getBlockProgressionOffset() + minChildOffset;
@@ -166,4 +179,16 @@ public class InlineParent extends InlineArea {
             area.setFromFootnote(fromFootnote);
         }
     }
+
+    /** {@inheritDoc} */
+    public Object clone() throws CloneNotSupportedException {
+        InlineParent parent = (InlineParent) super.clone();
+        parent.inlines = new ArrayList<InlineArea>(inlines.size());
+        for (InlineArea inline : inlines) {
+            InlineArea copy = (InlineArea) inline.clone();
+            copy.restoreParentArea(parent);
+            parent.inlines.add(copy);
+        }
+        return parent;
+    }
 }
@@ -152,4 +152,16 @@ public class InlineViewport extends InlineArea implements Viewport {
     public int getEffectiveIPD() {
         return getIPD();
     }
+
+    /** {@inheritDoc} */
+    public Object clone() throws CloneNotSupportedException {
+        InlineViewport viewport = (InlineViewport) super.clone();
+        if (content != null) {
+            viewport.content = (Area) content.clone();
+        }
+        if (contentPosition != null) {
+            viewport.contentPosition = (Rectangle2D) contentPosition.clone();
+        }
+        return viewport;
+    }
 }
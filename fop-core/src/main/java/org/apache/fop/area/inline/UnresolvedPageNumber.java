@@ -139,6 +139,29 @@ public class UnresolvedPageNumber extends TextArea implements Resolvable {
         }
     }
 
+    /**
+     * @return {@link #FIRST} if the reference refers to the first area generated by a
+     * formatting object, {@link #LAST} if it refers to the last one
+     */
+    boolean getPageType() {
+        return pageType;
+    }
+
+    /** @return the font for formatting the page number, null once resolved */
+    Font getFont() {
+        return font;
+    }
+
+    /**
+     * Restores the state of a page number read from a page store.
+     * @param resolved true if the page number is resolved
+     * @param text the (resolved or unresolved) text
+     */
+    void restore(boolean resolved, String text) {
+        this.resolved = resolved;
+        this.text = text;
+    }
+
     /**
      * Check if this is resolved.
      *
@@ -30,6 +30,7 @@ import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 import org.xml.sax.helpers.DefaultHandler;
 
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -42,6 +43,7 @@ import org.apache.fop.apps.FormattingResults;
 import org.apache.fop.fo.ElementMapping.Maker;
 import org.apache.fop.fo.extensions.ExtensionElementMapping;
 import org.apache.fop.fo.pagination.Root;
+import org.apache.fop.metrics.Metrics;
 import org.apache.fop.render.pdf.extensions.PDFElementMapping;
 import org.apache.fop.util.ContentHandlerFactory;
 import org.apache.fop.util.ContentHandlerFactory.ObjectBuiltListener;
@@ -85,6 +87,11 @@ public class FOTreeBuilder extends DefaultHandler {
     private boolean used;
     private boolean empty = true;
 
+    // for the metrics: the output format, the output stream and the start of the document
+    private final String outputFormat;
+    private CountingOutputStream countingStream;
+    private long documentStartTime;
+
     private int depth;
     private boolean errorinstart;
 
@@ -103,11 +110,17 @@ public class FOTreeBuilder extends DefaultHandler {
             throws FOPException {
 
         this.userAgent = foUserAgent;
+        this.outputFormat = outputFormat;
         this.elementMappingRegistry = userAgent.getElementMappingRegistry();
+        OutputStream out = stream;
+        if (out != null && userAgent.getMetrics().isEnabled()) {
+            countingStream = new CountingOutputStream(out);
+            out = countingStream;
+        }
         //This creates either an AreaTreeHandler and ultimately a Renderer, or
         //one of the RTF-, MIF- etc. Handlers.
         foEventHandler = foUserAgent.getRendererFactory().createFOEventHandler(
-                foUserAgent, outputFormat, stream);
+                foUserAgent, outputFormat, out);
         if (userAgent.isAccessibilityEnabled()) {
             foEventHandler = new FO2StructureTreeConverter(
                     foUserAgent.getStructureTreeEventHandler(), foEventHandler);
@@ -146,6 +159,7 @@ public class FOTreeBuilder extends DefaultHandler {
         }
 
         used = true;
+        documentStartTime = System.nanoTime();
         empty = true;
         rootFObj = null;    // allows FOTreeBuilder to be reused
         if (LOG.isDebugEnabled()) {
@@ -170,6 +184,16 @@ public class FOTreeBuilder extends DefaultHandler {
             LOG.debug("Parsing of document complete");
         }
         foEventHandler.endDocument();
+
+        Metrics metrics = userAgent.getMetrics();
+        if (metrics.isEnabled()) {
+            metrics.recordTime(Metrics.DOCUMENT, System.nanoTime() - documentStartTime,
+                    Metrics.TAG_FORMAT, outputFormat);
+            if (countingStream != null) {
+                metrics.increment(Metrics.OUTPUT_BYTES, countingStream.getByteCount(),
+                        Metrics.TAG_FORMAT, outputFormat);
+            }
+        }
     }
 
     /** {@inheritDoc} */
@@ -19,6 +19,7 @@
 
 package org.apache.fop.fo;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -31,7 +32,7 @@ public class FOTreeBuilderContext {
      * The current set of id's in the FO tree.
      * This is used so we know if the FO tree contains duplicates.
      */
-    private Set idReferences = new HashSet();
+    private Set idReferences = Collections.synchronizedSet(new HashSet());
 
     /**
      * The property list maker.
@@ -48,6 +49,13 @@ public class FOTreeBuilderContext {
      */
     private boolean inMarker;
 
+    /**
+     * The XMLWhiteSpaceHandler used by a thread laying out page-sequences while the FO tree
+     * is being built on another thread
+     */
+    private final ThreadLocal<XMLWhiteSpaceHandler> layoutWhiteSpaceHandler
+            = new ThreadLocal<XMLWhiteSpaceHandler>();
+
     /**
      * Returns the set of ID references.
      * @return the ID references
@@ -79,7 +87,36 @@ public class FOTreeBuilderContext {
      * @return the whiteSpaceHandler
      */
     public XMLWhiteSpaceHandler getXMLWhiteSpaceHandler() {
-        return whiteSpaceHandler;
+        XMLWhiteSpaceHandler handler = layoutWhiteSpaceHandler.get();
+        return handler != null ? handler : whiteSpaceHandler;
+    }
+
+    /**
+     * Prepares a layout step that is run on another thread than the one building the FO tree.
+     * The nodes cloned from markers during that step are built in the state the FO tree
+     * builder is in when this method is called, as if the step was run right away, and not
+     * in the state of the page-sequence being parsed meanwhile.
+     *
+     * @param step the layout step
+     * @return the step to run on the other thread
+     */
+    public Runnable prepareLayoutStep(final Runnable step) {
+        final XMLWhiteSpaceHandler handler = new XMLWhiteSpaceHandler(getXMLWhiteSpaceHandler());
+        return new Runnable() {
+            public void run() {
+                XMLWhiteSpaceHandler previous = layoutWhiteSpaceHandler.get();
+                layoutWhiteSpaceHandler.set(handler);
+                try {
+                    step.run();
+                } finally {
+                    if (previous != null) {
+                        layoutWhiteSpaceHandler.set(previous);
+                    } else {
+                        layoutWhiteSpaceHandler.remove();
+                    }
+                }
+            }
+        };
     }
 
     /**
@@ -101,7 +138,8 @@ public class FOTreeBuilderContext {
      * @return true if a marker is being processed
      */
     protected boolean inMarker() {
-        return this.inMarker;
+        // layout steps only run once the page-sequence, and thus any marker, has been parsed
+        return this.inMarker && layoutWhiteSpaceHandler.get() == null;
     }
 
 }
@@ -234,9 +234,7 @@ public abstract class FObj extends FONode implements Constants {
     private void checkId(String id) throws ValidationException {
         if (!inMarker() && !id.equals("")) {
             Set<String> idrefs = getBuilderContext().getIDReferences();
-            if (!idrefs.contains(id)) {
-                idrefs.add(id);
-            } else {
+            if (!idrefs.add(id)) {
                 getFOValidationEventProducer().idNotUnique(this, getName(), id, true, locator);
             }
         }
@@ -81,6 +81,33 @@ public class XMLWhiteSpaceHandler {
     private Stack nestedBlockStack = new java.util.Stack<Block>();
     private CharIterator firstWhiteSpaceInSeq;
 
+    /**
+     * Creates a new handler.
+     */
+    public XMLWhiteSpaceHandler() {
+    }
+
+    /**
+     * Creates a handler in the same state as the given one.
+     * @param handler the handler to copy
+     */
+    XMLWhiteSpaceHandler(XMLWhiteSpaceHandler handler) {
+        this.inWhiteSpace = handler.inWhiteSpace;
+        this.afterLinefeed = handler.afterLinefeed;
+        this.nonWhiteSpaceCount = handler.nonWhiteSpaceCount;
+        this.linefeedTreatment = handler.linefeedTreatment;
+        this.whiteSpaceTreatment = handler.whiteSpaceTreatment;
+        this.whiteSpaceCollapse = handler.whiteSpaceCollapse;
+        this.endOfBlock = handler.endOfBlock;
+        this.nextChildIsBlockLevel = handler.nextChildIsBlockLevel;
+        this.charIter = handler.charIter;
+        if (handler.pendingInlines != null) {
+            this.pendingInlines = new java.util.ArrayList(handler.pendingInlines);
+        }
+        this.nestedBlockStack.addAll(handler.nestedBlockStack);
+        this.firstWhiteSpaceInSeq = handler.firstWhiteSpaceInSeq;
+    }
+
     /**
      * Handle white-space for the fo that is passed in, starting at
      * firstTextNode
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo.expr;
+
+import org.apache.fop.fo.properties.Property;
+import org.apache.fop.util.LRUCache;
+
+/**
+ * <p>Caches the result of parsing property expressions that don't depend on the context they
+ * appear in, like "12pt", "bold" or "2pt + 1mm", so an attribute value that appears many
+ * times in the documents of a FopFactory is only parsed once. Expressions using percentages,
+ * relative units, colors or functions are always parsed again. The cache can be used by
+ * several threads at the same time.</p>
+ * <p>The maximum number of expressions is set with
+ * {@link org.apache.fop.apps.FopFactoryBuilder#setPropertyExpressionCacheSize(int)}. Once the
+ * cache is full, the least recently used expression is removed to make room for a new one.</p>
+ */
+public class PropertyExpressionCache extends LRUCache<String, Property> {
+
+    /**
+     * Creates a new cache.
+     * @param size the maximum number of cached expressions, 0 to disable the cache
+     */
+    public PropertyExpressionCache(int size) {
+        super(size);
+    }
+}
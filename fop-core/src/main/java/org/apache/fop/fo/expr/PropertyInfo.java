@@ -128,6 +128,15 @@ public class PropertyInfo {
                     : null;
     }
 
+    /**
+     * Returns the cache of parsed property expressions of the FopFactory in use.
+     * @return the expression cache, or null if there is no user agent
+     */
+    PropertyExpressionCache getExpressionCache() {
+        FOUserAgent userAgent = getUserAgent();
+        return userAgent != null ? userAgent.getPropertyExpressionCache() : null;
+    }
+
     private PercentBase getFunctionPercentBase() {
         if (stkFunction != null) {
             Function f = (Function)stkFunction.peek();
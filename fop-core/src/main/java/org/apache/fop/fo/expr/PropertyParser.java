@@ -43,6 +43,7 @@ import org.apache.fop.fo.properties.StringProperty;
  */
 public final class PropertyParser extends PropertyTokenizer {
     private PropertyInfo propInfo;    // Maker and propertyList related info
+    private boolean contextFree = true; // false once propInfo is needed to evaluate
 
     private static final String RELUNIT = "em";
     private static final HashMap FUNCTION_TABLE = new HashMap();
@@ -89,8 +90,20 @@ public final class PropertyParser extends PropertyTokenizer {
      */
     public static Property parse(String expr, PropertyInfo propInfo)
             throws PropertyException {
+        PropertyExpressionCache cache = propInfo.getExpressionCache();
+        if (cache != null) {
+            Property cached = cache.get(expr);
+            if (cached != null) {
+                return cached;
+            }
+        }
         try {
-            return new PropertyParser(expr, propInfo).parseProperty();
+            PropertyParser parser = new PropertyParser(expr, propInfo);
+            Property prop = parser.parseProperty();
+            if (cache != null && parser.contextFree && !(prop instanceof ListProperty)) {
+                cache.put(expr, prop);
+            }
+            return prop;
         } catch (PropertyException exc) {
             exc.setPropertyInfo(propInfo);
             throw exc;
@@ -269,6 +282,7 @@ public final class PropertyParser extends PropertyTokenizer {
              * Get the length base value object from the Maker. If null, then
              * this property can't have % values. Treat it as a real number.
              */
+            contextFree = false;
             double pcval = Double.parseDouble(
                     currentTokenValue.substring(0, currentTokenValue.length() - 1)) / 100.0;
             PercentBase pcBase = this.propInfo.getPercentBase();
@@ -307,11 +321,13 @@ public final class PropertyParser extends PropertyTokenizer {
             String unitPart = currentTokenValue.substring(numLen);
             double numPart = Double.parseDouble(currentTokenValue.substring(0, numLen));
             if (RELUNIT.equals(unitPart)) {
+                contextFree = false;
                 prop = (Property) NumericOp.multiply(
                                     NumberProperty.getInstance(numPart),
                                     propInfo.currentFontSize());
             } else {
                 if ("px".equals(unitPart)) {
+                    contextFree = false;
                     //pass the ratio between target-resolution and
                     //the default resolution of 72dpi
                     float resolution = propInfo.getPropertyList().getFObj()
@@ -327,6 +343,10 @@ public final class PropertyParser extends PropertyTokenizer {
             break;
 
         case TOK_COLORSPEC:
+            if (!currentTokenValue.startsWith("#")) {
+                // named colors and color functions may depend on the user agent
+                contextFree = false;
+            }
             prop = ColorProperty.getInstance(propInfo.getUserAgent(), currentTokenValue);
             break;
 
@@ -336,6 +356,7 @@ public final class PropertyParser extends PropertyTokenizer {
                 throw new PropertyException("no such function: "
                                             + currentTokenValue);
             }
+            contextFree = false;
             next();
             // Push new function (for function context: getPercentBase())
             propInfo.pushFunction(function);
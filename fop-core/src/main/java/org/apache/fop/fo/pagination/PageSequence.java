@@ -459,10 +459,40 @@ public class PageSequence extends AbstractPageSequence implements WritingModeTra
 
     /**
      * Releases a page-sequence's children after the page-sequence has been fully processed.
+     * The page-sequence is also detached from the FO tree, so that its subtree (text,
+     * properties, markers) is not kept reachable from the fo:root until the end of the
+     * document.
      */
     public void releasePageSequence() {
         this.mainFlow = null;
         this.flowMap.clear();
+        getRoot().removePageSequence(this);
+        if (parent != null) {
+            parent.removeChild(this);
+        }
+        this.firstChild = null;
+        this.lastChild = null;
+        this.siblings = null;
+    }
+
+    /**
+     * Indicates whether the page-sequence-master referenced by this page-sequence uses a
+     * page master for page-position "last".
+     * @return true if a page master for page-position "last" is referenced
+     */
+    public boolean referencesPagePositionLast() {
+        return pageSequenceMaster != null && pageSequenceMaster.referencesPagePositionLast();
+    }
+
+    /**
+     * Gives this page-sequence its own copy of the page-sequence-master it refers to, so that
+     * it can be laid out concurrently with other page-sequences using the same master.
+     * @throws FOPException if the page-sequence-master cannot be copied
+     */
+    public void usePrivatePageSequenceMaster() throws FOPException {
+        if (pageSequenceMaster != null) {
+            pageSequenceMaster = pageSequenceMaster.copyForPageSequence();
+        }
     }
 
     public SimplePageMaster getLastSimplePageMaster(int page, boolean isFirstPage, boolean isBlank) {
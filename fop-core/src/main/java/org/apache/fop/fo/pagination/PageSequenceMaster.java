@@ -152,6 +152,39 @@ public class PageSequenceMaster extends FObj {
         }
     }
 
+    /**
+     * Creates a copy of this page-sequence-master that keeps its own sub-sequence state.
+     * Page-sequences that are laid out concurrently each need such a copy, as the state
+     * of a page-sequence-master is otherwise shared by all page-sequences referring to it.
+     * @return the copy, reset to its initial state
+     * @throws FOPException if the copy cannot be made
+     */
+    public PageSequenceMaster copyForPageSequence() throws FOPException {
+        PageSequenceMaster copy = (PageSequenceMaster) clone(parent, false);
+        copy.subSequenceSpecifiers = new java.util.ArrayList<SubSequenceSpecifier>(
+                subSequenceSpecifiers.size());
+        for (SubSequenceSpecifier subSequenceSpecifier : subSequenceSpecifiers) {
+            copy.subSequenceSpecifiers.add(
+                    (SubSequenceSpecifier) ((FONode) subSequenceSpecifier).clone(copy, false));
+        }
+        copy.reset();
+        return copy;
+    }
+
+    /**
+     * Indicates whether any of the sub-sequence specifiers has a page master for
+     * page-position "last", regardless of the current sub-sequence.
+     * @return true if a page master for page-position "last" is referenced
+     */
+    public boolean referencesPagePositionLast() {
+        for (SubSequenceSpecifier subSequenceSpecifier : subSequenceSpecifiers) {
+            if (subSequenceSpecifier.hasPagePositionLast()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Used to set the "cursor position" for the page masters to the previous item.
      * @return true if there is a previous item, false if the current one was the first one.
@@ -255,11 +255,25 @@ public class Root extends FObj implements CommonAccessibilityHolder {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <br>Synchronized, as finished page-sequences may be detached while the next ones are
+     * being added, see {@link PageSequence#releasePageSequence()}.
+     */
+    protected synchronized void addChildNode(FONode child) throws FOPException {
+        super.addChildNode(child);
+    }
+
+    /** {@inheritDoc} */
+    public synchronized void removeChild(FONode child) {
+        super.removeChild(child);
+    }
+
     /**
      * Returns the number of PageSequence instances.
      * @return the number of PageSequence instances
      */
-    public int getPageSequenceCount() {
+    public synchronized int getPageSequenceCount() {
         return pageSequences.size();
     }
 
@@ -269,7 +283,7 @@ public class Root extends FObj implements CommonAccessibilityHolder {
      * @param current the current PageSequence
      * @return succeeding PageSequence; null if none
      */
-    public PageSequence getSucceedingPageSequence(PageSequence current) {
+    public synchronized PageSequence getSucceedingPageSequence(PageSequence current) {
         int currentIndex = pageSequences.indexOf(current);
         if (currentIndex == -1) {
             return null;
@@ -286,16 +300,25 @@ public class Root extends FObj implements CommonAccessibilityHolder {
      *
      * @param pageSequence The page sequence to add
      */
-    public void addPageSequence(PageSequence pageSequence) {
+    public synchronized void addPageSequence(PageSequence pageSequence) {
         pageSequences.add(pageSequence);
     }
 
+    /**
+     * Removes the specified page sequence, once it has been fully processed.
+     *
+     * @param pageSequence The page sequence to remove
+     */
+    public synchronized void removePageSequence(PageSequence pageSequence) {
+        pageSequences.remove(pageSequence);
+    }
+
     /**
      * Returns the last page sequence (current while parsing).
      *
      * @return The last page sequence or null
      */
-    public PageSequence getLastPageSequence() {
+    public synchronized PageSequence getLastPageSequence() {
         if (getPageSequenceCount() > 0) {
             return pageSequences.get(getPageSequenceCount() - 1);
         } else {
@@ -41,7 +41,7 @@ public final class CommonHyphenation {
     private static final Log LOG = LogFactory.getLog(CommonHyphenation.class);
 
     private static final PropertyCache<CommonHyphenation> CACHE =
-            new PropertyCache<CommonHyphenation>();
+            new PropertyCache<CommonHyphenation>(CommonHyphenation.class);
 
     private int hash;
 
@@ -23,6 +23,7 @@ import org.apache.fop.datatypes.Length;
 import org.apache.fop.fo.Constants;
 import org.apache.fop.fo.PropertyList;
 import org.apache.fop.fo.expr.PropertyException;
+import org.apache.fop.util.CompareUtil;
 
 /**
  * Store all common margin properties for blocks.
@@ -30,6 +31,11 @@ import org.apache.fop.fo.expr.PropertyException;
  * Public "structure" allows direct member access.
  */
 public class CommonMarginBlock {
+
+    /** cache holding canonical instances (only those whose lengths are all absolute) */
+    private static final PropertyCache<CommonMarginBlock> CACHE
+            = new PropertyCache<CommonMarginBlock>(CommonMarginBlock.class);
+
     /**
      * The "margin-top" property.
      */
@@ -88,6 +94,44 @@ public class CommonMarginBlock {
         endIndent = pList.get(Constants.PR_END_INDENT).getLength();
     }
 
+    /**
+     * Returns a CommonMarginBlock instance for the given PropertyList. If all the margins,
+     * spaces and indents resolve to absolute lengths, a cached instance is returned.
+     *
+     * @param pList the {@link PropertyList} to use
+     * @return a CommonMarginBlock instance (cached if possible)
+     * @throws PropertyException in case of an error
+     */
+    public static CommonMarginBlock getInstance(PropertyList pList) throws PropertyException {
+        CommonMarginBlock newInstance = new CommonMarginBlock(pList);
+        if (isAbsolute(newInstance.marginTop)
+                && isAbsolute(newInstance.marginBottom)
+                && isAbsolute(newInstance.marginLeft)
+                && isAbsolute(newInstance.marginRight)
+                && isAbsolute(newInstance.spaceBefore)
+                && isAbsolute(newInstance.spaceAfter)
+                && isAbsolute(newInstance.startIndent)
+                && isAbsolute(newInstance.endIndent)) {
+            return CACHE.fetch(newInstance);
+        }
+        return newInstance;
+    }
+
+    private static boolean isAbsolute(Length length) {
+        return length == null || length.isAbsolute();
+    }
+
+    private static boolean isAbsolute(SpaceProperty space) {
+        return space == null
+                || (isAbsolute(space.getMinimum(null))
+                    && isAbsolute(space.getOptimum(null))
+                    && isAbsolute(space.getMaximum(null)));
+    }
+
+    private static boolean isAbsolute(Property property) {
+        return property == null || property.isAuto() || isAbsolute(property.getLength());
+    }
+
     /** {@inheritDoc} */
     public String toString() {
         return "CommonMarginBlock:\n"
@@ -100,4 +144,37 @@ public class CommonMarginBlock {
             + startIndent + ", " + endIndent + ")\n";
     }
 
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CommonMarginBlock)) {
+            return false;
+        }
+        CommonMarginBlock other = (CommonMarginBlock) obj;
+        return CompareUtil.equal(marginTop, other.marginTop)
+                && CompareUtil.equal(marginBottom, other.marginBottom)
+                && CompareUtil.equal(marginLeft, other.marginLeft)
+                && CompareUtil.equal(marginRight, other.marginRight)
+                && CompareUtil.equal(spaceBefore, other.spaceBefore)
+                && CompareUtil.equal(spaceAfter, other.spaceAfter)
+                && CompareUtil.equal(startIndent, other.startIndent)
+                && CompareUtil.equal(endIndent, other.endIndent);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 17;
+        hash = 37 * hash + CompareUtil.getHashCode(marginTop);
+        hash = 37 * hash + CompareUtil.getHashCode(marginBottom);
+        hash = 37 * hash + CompareUtil.getHashCode(marginLeft);
+        hash = 37 * hash + CompareUtil.getHashCode(marginRight);
+        hash = 37 * hash + CompareUtil.getHashCode(spaceBefore);
+        hash = 37 * hash + CompareUtil.getHashCode(spaceAfter);
+        hash = 37 * hash + CompareUtil.getHashCode(startIndent);
+        hash = 37 * hash + CompareUtil.getHashCode(endIndent);
+        return hash;
+    }
+
 }
@@ -26,6 +26,7 @@ import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.fo.Constants;
 import org.apache.fop.fo.PropertyList;
 import org.apache.fop.fo.expr.PropertyException;
+import org.apache.fop.util.CompareUtil;
 
 /**
  * Stores all information concerning text-decoration.
@@ -38,6 +39,10 @@ public class CommonTextDecoration {
     private static final int LINE_THROUGH = 4;
     private static final int BLINK        = 8;
 
+    /** cache holding canonical instances */
+    private static final PropertyCache<CommonTextDecoration> CACHE
+            = new PropertyCache<CommonTextDecoration>(CommonTextDecoration.class);
+
     private int decoration;
     private Color underColor;
     private Color overColor;
@@ -52,12 +57,13 @@ public class CommonTextDecoration {
     /**
      * Creates a CommonTextDecoration object from a property list.
      * @param pList the property list to build the object for
-     * @return a CommonTextDecoration object or null if the obj would only have default values
+     * @return a (cached) CommonTextDecoration object or null if the obj would only have
+     * default values
      * @throws PropertyException if there's a problem while processing the property
      */
     public static CommonTextDecoration createFromPropertyList(PropertyList pList)
                 throws PropertyException {
-        return calcTextDecoration(pList);
+        return CACHE.fetch(calcTextDecoration(pList));
     }
 
     private static CommonTextDecoration calcTextDecoration(PropertyList pList)
@@ -167,4 +173,29 @@ public class CommonTextDecoration {
         return this.throughColor;
     }
 
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CommonTextDecoration)) {
+            return false;
+        }
+        CommonTextDecoration other = (CommonTextDecoration) obj;
+        return decoration == other.decoration
+                && CompareUtil.equal(underColor, other.underColor)
+                && CompareUtil.equal(overColor, other.overColor)
+                && CompareUtil.equal(throughColor, other.throughColor);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 17;
+        hash = 37 * hash + decoration;
+        hash = 37 * hash + CompareUtil.getHashCode(underColor);
+        hash = 37 * hash + CompareUtil.getHashCode(overColor);
+        hash = 37 * hash + CompareUtil.getHashCode(throughColor);
+        return hash;
+    }
+
 }
@@ -31,7 +31,7 @@ public final class KeepProperty extends Property implements CompoundDatatype {
 
     /** class holding all canonical KeepProperty instances*/
     private static final PropertyCache<KeepProperty> CACHE
-            = new PropertyCache<KeepProperty>();
+            = new PropertyCache<KeepProperty>(KeepProperty.class);
 
     private boolean isCachedValue;
     private Property withinLine;
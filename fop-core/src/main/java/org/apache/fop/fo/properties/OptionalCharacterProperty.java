@@ -56,7 +56,7 @@ public final class OptionalCharacterProperty extends Property {
 
     /** cache containing all canonical OptionalCharacterProperty instances */
     private static final PropertyCache<OptionalCharacterProperty> CACHE
-            = new PropertyCache<OptionalCharacterProperty>();
+            = new PropertyCache<OptionalCharacterProperty>(OptionalCharacterProperty.class);
 
     private final Character character;
 
@@ -20,11 +20,15 @@
 package org.apache.fop.fo.properties;
 
 import java.lang.ref.WeakReference;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -34,26 +38,32 @@ import org.apache.commons.logging.LogFactory;
 /**
  * Thread-safe cache that minimizes the memory requirements by fetching an instance from the cache
  * that is equal to the given one. Internally the instances are stored in WeakReferences in order to
- * be reclaimed when they are no longer referenced.
+ * be reclaimed when they are no longer referenced. Lookups don't lock, and the number of hits and
+ * misses is counted for every cache (see {@link #getCaches()}).
  * @param <T> The type of values that are cached
  */
 public final class PropertyCache<T> {
 
     private static final Log LOG = LogFactory.getLog(PropertyCache.class);
 
+    /** All the caches in use, for statistics. */
+    private static final List<PropertyCache<?>> CACHES = new CopyOnWriteArrayList<PropertyCache<?>>();
+
     /**
      * Determines if the cache is used based on the value of the system property
      * org.apache.fop.fo.properties.use-cache
      */
     private final boolean useCache;
 
+    /** The name of the type of values that are cached. */
+    private final String name;
+
     /**
      * The underlying map that stores WeakReferences to the cached entries. The map keys are the
-     * hashCode of the cached entries. The map values are a WeakRefence to the cached entries. When
-     * two cached entries have the same hash code, the last one is kept but this should be an
-     * exception case (otherwise the hashCode() method of T needs to be fixed).
+     * hashCode of the cached entries. The map values are chains of WeakReferences to the cached
+     * entries having that hash code, so that entries whose hash codes collide are all kept.
      */
-    private final ConcurrentMap<Integer, WeakReference<T>> map;
+    private final ConcurrentMap<Integer, CacheEntry<T>> map;
 
     /**
      * Counts the number of entries put in the map in order to periodically check and remove the
@@ -68,14 +78,32 @@ public final class PropertyCache<T> {
 
     private final AtomicInteger hashCodeCollisionCounter;
 
+    private final LongAdder hitCounter;
+
+    private final LongAdder missCounter;
+
     /**
      * Creates a new cache. The "org.apache.fop.fo.properties.use-cache" system
      * property is used to determine whether properties should actually be
      * cached or not. If not, then the {@link #fetch(Object)} method will simply
      * return its argument. To enable the cache, set this property to "true"
      * (case insensitive).
+     * @param type the type of values that are cached
      */
+    public PropertyCache(Class<T> type) {
+        this(type.getName());
+    }
+
+    /**
+     * Creates a new cache whose statistics are reported for {@link Object}.
+     * @deprecated use {@link #PropertyCache(Class)} so the statistics name the cached type
+     */
+    @Deprecated
     public PropertyCache() {
+        this(Object.class.getName());
+    }
+
+    private PropertyCache(String name) {
         boolean useCache;
         try {
             useCache = Boolean.valueOf(
@@ -85,18 +113,26 @@ public final class PropertyCache<T> {
             LOG.info("Unable to access org.apache.fop.fo.properties.use-cache"
                    + " due to security restriction; defaulting to 'true'.");
         }
+        this.name = name;
         if (useCache) {
-            this.map = new ConcurrentHashMap<Integer, WeakReference<T>>();
+            this.map = new ConcurrentHashMap<Integer, CacheEntry<T>>();
             this.putCounter = new AtomicInteger();
             this.cleanupLock = new ReentrantLock();
             this.hashCodeCollisionCounter = new AtomicInteger();
+            this.hitCounter = new LongAdder();
+            this.missCounter = new LongAdder();
         } else {
             this.map = null;
             this.putCounter = null;
             this.cleanupLock = null;
             this.hashCodeCollisionCounter = null;
+            this.hitCounter = null;
+            this.missCounter = null;
         }
         this.useCache = useCache;
+        if (useCache) {
+            CACHES.add(this);
+        }
     }
 
     /**
@@ -117,22 +153,20 @@ public final class PropertyCache<T> {
 
         Integer hashCode = obj.hashCode();
 
-        WeakReference<T> weakRef = map.get(hashCode);
-        if (weakRef == null) {
-            weakRef = map.putIfAbsent(hashCode, new WeakReference<T>(obj));
-            attemptCleanup();
-
-            if (weakRef == null) {
-                return obj;
+        while (true) {
+            CacheEntry<T> first = map.get(hashCode);
+            boolean collision = false;
+            for (CacheEntry<T> entry = first; entry != null; entry = entry.next) {
+                T cached = entry.get();
+                if (cached != null) {
+                    if (cached == obj || cached.equals(obj)) {
+                        hitCounter.increment();
+                        return cached;
+                    }
+                    collision = true;
+                }
             }
-            // else another thread added a value, continue.
-        }
-
-        T cached = weakRef.get();
-        if (cached != null) {
-            if (eq(cached, obj)) {
-                return cached;
-            } else {
+            if (collision) {
                 /*
                  * Log a message when obj.getClass() does not implement correctly the equals() or
                  * hashCode() method. It is expected that only very few objects will have the
@@ -144,29 +178,25 @@ public final class PropertyCache<T> {
                 }
             }
 
+            CacheEntry<T> newFirst = new CacheEntry<T>(obj, first);
+            boolean added = first == null
+                    ? map.putIfAbsent(hashCode, newFirst) == null
+                    : map.replace(hashCode, first, newFirst);
+            if (added) {
+                missCounter.increment();
+                attemptCleanup();
+                return obj;
+            }
+            // else another thread changed the entries for this hash code; look them up again
         }
-
-        // Adds a new or replaces an existing entry with obj that has the same hash code
-        map.put(hashCode, new WeakReference<T>(obj));
-        attemptCleanup();
-        return obj;
-
-        /*
-         * Another thread might add first. We could check this using map.replace() instead of
-         * map.put() and then recursively call fetch(obj). But if in the meantime, garbage
-         * collection kicks in, we might end up with a StackOverflowException. Not caching an entry
-         * is tolerable, after all it's configurable.
-         */
     }
 
-
     private void attemptCleanup() {
         if ((putCounter.incrementAndGet() % 10000) != 0) {
             return;
         }
 
-        // Lock as there is no need for concurrent cleanup and protect us, on JDK5, from
-        // http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=6312056
+        // No need for concurrent cleanup
         if (cleanupLock.tryLock()) {
             try {
                 cleanReclaimedMapEntries();
@@ -177,26 +207,94 @@ public final class PropertyCache<T> {
     }
 
     private void cleanReclaimedMapEntries() {
-        Iterator<Map.Entry<Integer, WeakReference<T>>> iterator = map.entrySet().iterator();
+        Iterator<Map.Entry<Integer, CacheEntry<T>>> iterator = map.entrySet().iterator();
         while (iterator.hasNext()) {
-            Map.Entry<Integer, WeakReference<T>> entry = iterator.next();
-            WeakReference<T> weakRef = entry.getValue();
-            T r = weakRef.get();
-            if (r == null) {
-                iterator.remove();
+            Map.Entry<Integer, CacheEntry<T>> mapEntry = iterator.next();
+            CacheEntry<T> first = mapEntry.getValue();
+            CacheEntry<T> live = null;
+            boolean reclaimed = false;
+            for (CacheEntry<T> entry = first; entry != null; entry = entry.next) {
+                T r = entry.get();
+                if (r == null) {
+                    reclaimed = true;
+                } else {
+                    live = new CacheEntry<T>(r, live);
+                }
+            }
+            if (live == null) {
+                map.remove(mapEntry.getKey(), first);
+            } else if (reclaimed) {
+                map.replace(mapEntry.getKey(), first, live);
             }
         }
     }
 
-    private boolean eq(Object p, Object q) {
-        if (p == q) {
-            return true;
+    /**
+     * Returns the name of the type of values held by this cache.
+     * @return the name of the cached type
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of times {@link #fetch(Object)} returned an instance already in the
+     * cache.
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return useCache ? hitCounter.sum() : 0;
+    }
+
+    /**
+     * Returns the number of times {@link #fetch(Object)} added a new instance to the cache.
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return useCache ? missCounter.sum() : 0;
+    }
+
+    /**
+     * Returns the number of instances currently held by the cache.
+     * @return the number of live instances
+     */
+    public int size() {
+        if (!useCache) {
+            return 0;
         }
-        cleanupLock.lock();
-        try {
-            return p.equals(q);
-        } finally {
-            cleanupLock.unlock();
+        int size = 0;
+        for (CacheEntry<T> first : map.values()) {
+            for (CacheEntry<T> entry = first; entry != null; entry = entry.next) {
+                if (entry.get() != null) {
+                    size++;
+                }
+            }
+        }
+        return size;
+    }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return "PropertyCache[" + name + ": " + getHitCount() + " hits, " + getMissCount()
+                + " misses, " + size() + " instances]";
+    }
+
+    /**
+     * Returns all the enabled caches.
+     * @return an unmodifiable list of the caches
+     */
+    public static List<PropertyCache<?>> getCaches() {
+        return Collections.unmodifiableList(CACHES);
+    }
+
+    /** A weakly referenced cached instance, chained to the others having the same hash code. */
+    private static final class CacheEntry<T> extends WeakReference<T> {
+
+        private final CacheEntry<T> next;
+
+        CacheEntry(T referent, CacheEntry<T> next) {
+            super(referent);
+            this.next = next;
         }
     }
 }
@@ -32,6 +32,7 @@ import java.util.Map;
 import java.util.Set;
 
 import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.fonts.truetype.FontFileReader;
 import org.apache.fop.fonts.truetype.SVGGlyphData;
 
 
@@ -168,6 +169,15 @@ public abstract class CustomFont extends Typeface
         return resourceResolver.getResource(embedFileURI);
     }
 
+    /**
+     * Returns a reader for the embeddable font file. A local font file is memory-mapped.
+     * @return the font file reader
+     * @throws IOException if an I/O error occurs
+     */
+    public FontFileReader getFontFileReader() throws IOException {
+        return FontFileReader.open(resourceResolver, embedFileURI);
+    }
+
     /**
      * Returns the lookup name to an embeddable font file available as a
      * resource.
@@ -652,7 +662,7 @@ public abstract class CustomFont extends Typeface
      * Adds a character to additional encodings
      * @param ch character to map
      */
-    protected char mapUnencodedChar(char ch) {
+    protected synchronized char mapUnencodedChar(char ch) {
         if (this.unencodedCharacters != null) {
             SingleByteFont.UnencodedCharacter unencoded = this.unencodedCharacters.get(ch);
             if (unencoded != null) {
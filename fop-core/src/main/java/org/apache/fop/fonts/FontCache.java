@@ -19,19 +19,14 @@
 
 package org.apache.fop.fonts;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
-import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -43,17 +38,14 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.util.LogUtil;
+import org.apache.fop.util.MappedBufferUtil;
 
 /**
- * Fop cache (currently only used for font info caching)
+ * Fop cache (currently only used for font info caching). The cache is stored in a binary
+ * file, see {@link FontCacheFile}. When loading, only the index of the file is read; the
+ * font infos of a font file are decoded the first time they are requested.
  */
-public final class FontCache implements Serializable {
-
-    /**
-     * Serialization Version UID. Change this value if you want to make sure the
-     * user's cache file is purged after an update.
-     */
-    private static final long serialVersionUID = 9129238336422194339L;
+public final class FontCache {
 
     /** logging instance */
     private static Log log = LogFactory.getLog(FontCache.class);
@@ -65,7 +57,7 @@ public final class FontCache implements Serializable {
     private static final String DEFAULT_CACHE_FILENAME = "fop-fonts.cache";
 
     /** has this cache been changed since it was last read? */
-    private transient boolean changed;
+    private boolean changed;
 
     /** change lock */
     private final boolean[] changeLock = new boolean[1];
@@ -73,20 +65,17 @@ public final class FontCache implements Serializable {
     /**
      * master mapping of font url -&gt; font info. This needs to be a list, since a
      * TTC file may contain more than 1 font.
-     * @serial
      */
     private Map<String, CachedFontFile> fontfileMap;
 
     /**
      * mapping of font url -&gt; file modified date (for all fonts that have failed
      * to load)
-     * @serial
      */
     private Map<String, Long> failedFontMap;
 
-    private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
-        ois.defaultReadObject();
-    }
+    /** the memory-mapped cache file this cache was loaded from */
+    private ByteBuffer mappedFile;
 
     private static File getUserHome() {
         return toDirectory(System.getProperty("user.home"));
@@ -159,18 +148,20 @@ public final class FontCache implements Serializable {
                     log.trace("Loading font cache from "
                             + cacheFile.getCanonicalPath());
                 }
-                InputStream in = new BufferedInputStream(new FileInputStream(cacheFile));
-                ObjectInputStream oin = new ObjectInputStream(in);
-                try {
-                    return (FontCache) oin.readObject();
-                } finally {
-                    IOUtils.closeQuietly(oin);
-                }
-            } catch (ClassNotFoundException e) {
-                // We don't really care about the exception since it's just a
-                // cache file
-                log.warn("Could not read font cache. Discarding font cache file. Reason: "
-                        + e.getMessage());
+                final FontCache fontCache = new FontCache();
+                fontCache.mappedFile = FontCacheFile.read(cacheFile, new FontCacheFile.IndexHandler() {
+
+                    public void fontFile(String key, long lastModified,
+                            FontCacheFile.Record record) {
+                        fontCache.getFontFileMap().put(key,
+                                new CachedFontFile(lastModified, record));
+                    }
+
+                    public void failedFont(String key, long lastModified) {
+                        fontCache.getFailedFontMap().put(key, lastModified);
+                    }
+                });
+                return fontCache;
             } catch (IOException ioe) {
                 // We don't really care about the exception since it's just a
                 // cache file
@@ -198,7 +189,10 @@ public final class FontCache implements Serializable {
     }
 
     /**
-     * Writes the font cache to disk.
+     * Writes the font cache to disk. The cache is written to a temporary file first which
+     * then replaces the cache file, so other processes never read a partially written file.
+     * The mapping of the cache file this cache was loaded from is released before, since a
+     * mapped file can't be replaced on Windows.
      *
      * @param cacheFile
      *            the file to write to
@@ -210,13 +204,22 @@ public final class FontCache implements Serializable {
             if (changed) {
                 try {
                     log.trace("Writing font cache to " + cacheFile.getCanonicalPath());
-                    OutputStream out = new java.io.FileOutputStream(cacheFile);
+                    File tempFile = new File(cacheFile.getPath() + ".tmp");
+                    OutputStream out = new java.io.FileOutputStream(tempFile);
                     out = new java.io.BufferedOutputStream(out);
-                    ObjectOutputStream oout = new ObjectOutputStream(out);
                     try {
-                        oout.writeObject(this);
+                        FontCacheFile.write(out, getFontFileMap(), getFailedFontMap());
                     } finally {
-                        IOUtils.closeQuietly(oout);
+                        IOUtils.closeQuietly(out);
+                    }
+                    releaseMappedFile();
+                    if (!tempFile.renameTo(cacheFile)) {
+                        cacheFile.delete();
+                        if (!tempFile.renameTo(cacheFile)) {
+                            tempFile.delete();
+                            throw new IOException("Failed to replace font cache file "
+                                    + cacheFile);
+                        }
                     }
                 } catch (IOException ioe) {
                     LogUtil.handleException(log, ioe, true);
@@ -369,11 +372,13 @@ public final class FontCache implements Serializable {
     public EmbedFontInfo[] getFontInfos(String embedUrl, long lastModified) {
         CachedFontFile cff = getFontFile(embedUrl);
         if (cff.lastModified() == lastModified) {
-            return cff.getEmbedFontInfos();
-        } else {
-            removeFont(embedUrl);
-            return null;
+            EmbedFontInfo[] fontInfos = cff.getEmbedFontInfos();
+            if (fontInfos != null) {
+                return fontInfos;
+            }
         }
+        removeFont(embedUrl);
+        return null;
     }
 
     /**
@@ -438,6 +443,20 @@ public final class FontCache implements Serializable {
         }
     }
 
+    /**
+     * Copies the fonts that haven't been decoded yet out of the memory-mapped cache file and
+     * releases the mapping. Must be called with the change lock held.
+     */
+    private void releaseMappedFile() {
+        if (mappedFile != null) {
+            for (CachedFontFile cachedFontFile : getFontFileMap().values()) {
+                cachedFontFile.detachRecord();
+            }
+            MappedBufferUtil.unmap(mappedFile);
+            mappedFile = null;
+        }
+    }
+
     private Map<String, Long> getFailedFontMap() {
         if (failedFontMap == null) {
             failedFontMap = new HashMap<String, Long>();
@@ -453,6 +472,7 @@ public final class FontCache implements Serializable {
             if (log.isTraceEnabled()) {
                 log.trace("Font cache cleared.");
             }
+            releaseMappedFile();
             fontfileMap = null;
             failedFontMap = null;
             changed = true;
@@ -483,27 +503,59 @@ public final class FontCache implements Serializable {
         }
     }
 
-    private static class CachedFontFile implements Serializable {
-        private static final long serialVersionUID = 4524237324330578883L;
+    private static class CachedFontFile implements FontCacheFile.FontFileEntry {
 
         /** file modify date (if available) */
         private long lastModified = -1;
 
         private Map<String, EmbedFontInfo> filefontsMap;
 
+        /** the fonts as read from the cache file, until they are decoded */
+        private FontCacheFile.Record record;
+
+        private boolean corrupt;
+
         public CachedFontFile(long lastModified) {
             setLastModified(lastModified);
         }
 
-        private Map<String, EmbedFontInfo> getFileFontsMap() {
+        CachedFontFile(long lastModified, FontCacheFile.Record record) {
+            this(lastModified);
+            this.record = record;
+        }
+
+        private synchronized Map<String, EmbedFontInfo> getFileFontsMap() {
             if (filefontsMap == null) {
                 filefontsMap = new HashMap<String, EmbedFontInfo>();
+                if (record != null) {
+                    try {
+                        for (EmbedFontInfo efi : record.decode()) {
+                            filefontsMap.put(efi.getPostScriptName(), efi);
+                        }
+                    } catch (IOException ioe) {
+                        log.warn("I/O exception while reading font cache ("
+                                + ioe.getMessage() + "). Discarding cached fonts.");
+                        corrupt = true;
+                    }
+                    record = null;
+                }
             }
             return filefontsMap;
         }
 
-        void put(EmbedFontInfo efi) {
+        public synchronized FontCacheFile.Record getRecord() {
+            return record;
+        }
+
+        synchronized void detachRecord() {
+            if (record != null) {
+                record = record.detach();
+            }
+        }
+
+        synchronized void put(EmbedFontInfo efi) {
             getFileFontsMap().put(efi.getPostScriptName(), efi);
+            corrupt = false;
         }
 
         public boolean containsFont(EmbedFontInfo efi) {
@@ -511,9 +563,17 @@ public final class FontCache implements Serializable {
                     && getFileFontsMap().containsKey(efi.getPostScriptName());
         }
 
-        public EmbedFontInfo[] getEmbedFontInfos() {
-            return getFileFontsMap().values().toArray(
-                    new EmbedFontInfo[getFileFontsMap().size()]);
+        /**
+         * Returns the cached fonts.
+         *
+         * @return the fonts, null if they could not be read from the cache file
+         */
+        public synchronized EmbedFontInfo[] getEmbedFontInfos() {
+            Map<String, EmbedFontInfo> fileFontsMap = getFileFontsMap();
+            if (corrupt) {
+                return null;
+            }
+            return fileFontsMap.values().toArray(new EmbedFontInfo[fileFontsMap.size()]);
         }
 
         /**
@@ -0,0 +1,376 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+
+import org.apache.fop.util.MappedBufferUtil;
+
+/**
+ * The binary file format of the font cache. The file starts with a header, followed by an
+ * index of the cached font files and the fonts that failed to load, followed by one record
+ * per font file holding its {@link EmbedFontInfo} instances:
+ * <pre>
+ * int      magic number
+ * int      format version
+ * int      length of the index
+ * index:
+ *   int    number of font files
+ *   per font file: UTF key, long last modified, int record offset, int record length
+ *   int    number of failed fonts
+ *   per failed font: UTF key, long last modified
+ * records:
+ *   per font file: int number of fonts, followed by the fonts
+ * </pre>
+ * Record offsets are relative to the end of the index. The file is memory-mapped when read,
+ * only the index is decoded up front; a record is only decoded once its fonts are requested.
+ */
+final class FontCacheFile {
+
+    /** "FOPC" */
+    private static final int MAGIC = 0x464F5043;
+
+    /**
+     * Version of the file format. Change this value whenever the format of a record changes,
+     * so that cache files written by other versions are discarded.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_LENGTH = 12;
+
+    private FontCacheFile() {
+    }
+
+    /**
+     * A record of the cache file which has not been decoded yet.
+     */
+    static final class Record {
+
+        private final ByteBuffer file;
+        private final int offset;
+        private final int length;
+
+        private Record(ByteBuffer file, int offset, int length) {
+            this.file = file;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        private byte[] getBytes() {
+            byte[] bytes = new byte[length];
+            ByteBuffer src = file.duplicate();
+            src.position(offset);
+            src.get(bytes);
+            return bytes;
+        }
+
+        /**
+         * Returns a copy of this record which doesn't refer to the memory-mapped cache file,
+         * so the mapping can be released.
+         * @return the copy
+         */
+        Record detach() {
+            return new Record(ByteBuffer.wrap(getBytes()), 0, length);
+        }
+
+        /**
+         * Decodes the fonts of this record.
+         * @return the fonts
+         * @throws IOException if the record is corrupt
+         */
+        List<EmbedFontInfo> decode() throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(getBytes()));
+            int count = in.readInt();
+            List<EmbedFontInfo> fontInfos = new ArrayList<EmbedFontInfo>(count);
+            for (int i = 0; i < count; i++) {
+                fontInfos.add(readFontInfo(in));
+            }
+            return fontInfos;
+        }
+    }
+
+    /**
+     * Receives the entries of the index of a cache file.
+     */
+    interface IndexHandler {
+
+        /**
+         * Called for every cached font file.
+         * @param key the cache key of the font file
+         * @param lastModified the last modified date/time of the font file
+         * @param record the record holding the fonts of the font file
+         */
+        void fontFile(String key, long lastModified, Record record);
+
+        /**
+         * Called for every font file that failed to load.
+         * @param key the cache key of the font file
+         * @param lastModified the last modified date/time of the font file
+         */
+        void failedFont(String key, long lastModified);
+    }
+
+    /**
+     * Memory-maps a cache file and reads its index. The records passed to the handler refer
+     * to the returned mapping until they are {@link Record#detach() detached}.
+     * @param cacheFile the cache file
+     * @param handler receives the entries of the index
+     * @return the mapping of the cache file
+     * @throws IOException if an I/O error occurs or if the file is not a cache file of the
+     * current format version
+     */
+    static ByteBuffer read(File cacheFile, IndexHandler handler) throws IOException {
+        ByteBuffer file;
+        RandomAccessFile raf = new RandomAccessFile(cacheFile, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() < HEADER_LENGTH || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Invalid font cache file size: " + channel.size());
+            }
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            IOUtils.closeQuietly(raf);
+        }
+        boolean success = false;
+        try {
+            readIndex(file, handler);
+            success = true;
+            return file;
+        } finally {
+            if (!success) {
+                MappedBufferUtil.unmap(file);
+            }
+        }
+    }
+
+    private static void readIndex(ByteBuffer file, IndexHandler handler) throws IOException {
+        if (file.getInt(0) != MAGIC) {
+            throw new IOException("Not a font cache file");
+        }
+        int version = file.getInt(4);
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported font cache format version " + version);
+        }
+        int indexLength = file.getInt(8);
+        int recordsStart = HEADER_LENGTH + indexLength;
+        if (indexLength < 0 || recordsStart > file.capacity()) {
+            throw new IOException("Invalid font cache index length: " + indexLength);
+        }
+        byte[] index = new byte[indexLength];
+        ByteBuffer src = file.duplicate();
+        src.position(HEADER_LENGTH);
+        src.get(index);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(index));
+        int fontFileCount = in.readInt();
+        for (int i = 0; i < fontFileCount; i++) {
+            String key = in.readUTF();
+            long lastModified = in.readLong();
+            int offset = recordsStart + in.readInt();
+            int length = in.readInt();
+            if (length < 0 || offset < recordsStart || offset + length > file.capacity()) {
+                throw new IOException("Invalid font cache record for " + key);
+            }
+            handler.fontFile(key, lastModified, new Record(file, offset, length));
+        }
+        int failedFontCount = in.readInt();
+        for (int i = 0; i < failedFontCount; i++) {
+            handler.failedFont(in.readUTF(), in.readLong());
+        }
+    }
+
+    /**
+     * Writes a cache file.
+     * @param out the stream to write to
+     * @param fontFiles maps the cache key of each font file to its last modified date/time
+     * and its fonts, either decoded or as an undecoded {@link Record}
+     * @param failedFonts maps the cache key of each font file that failed to load to its last
+     * modified date/time
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(OutputStream out, Map<String, ? extends FontFileEntry> fontFiles,
+            Map<String, Long> failedFonts) throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream recordsOut = new DataOutputStream(records);
+        ByteArrayOutputStream index = new ByteArrayOutputStream();
+        DataOutputStream indexOut = new DataOutputStream(index);
+        indexOut.writeInt(fontFiles.size());
+        for (Map.Entry<String, ? extends FontFileEntry> entry : fontFiles.entrySet()) {
+            FontFileEntry fontFile = entry.getValue();
+            int offset = recordsOut.size();
+            Record record = fontFile.getRecord();
+            if (record != null) {
+                recordsOut.write(record.getBytes());
+            } else {
+                EmbedFontInfo[] fontInfos = fontFile.getEmbedFontInfos();
+                if (fontInfos == null) {
+                    fontInfos = new EmbedFontInfo[0];
+                }
+                recordsOut.writeInt(fontInfos.length);
+                for (EmbedFontInfo fontInfo : fontInfos) {
+                    writeFontInfo(recordsOut, fontInfo);
+                }
+            }
+            indexOut.writeUTF(entry.getKey());
+            indexOut.writeLong(fontFile.lastModified());
+            indexOut.writeInt(offset);
+            indexOut.writeInt(recordsOut.size() - offset);
+        }
+        indexOut.writeInt(failedFonts.size());
+        for (Map.Entry<String, Long> entry : failedFonts.entrySet()) {
+            indexOut.writeUTF(entry.getKey());
+            indexOut.writeLong(entry.getValue());
+        }
+        indexOut.flush();
+        recordsOut.flush();
+
+        DataOutputStream dout = new DataOutputStream(out);
+        dout.writeInt(MAGIC);
+        dout.writeInt(FORMAT_VERSION);
+        dout.writeInt(index.size());
+        index.writeTo(dout);
+        records.writeTo(dout);
+        dout.flush();
+    }
+
+    /**
+     * A font file entry of the cache, as needed to write it.
+     */
+    interface FontFileEntry {
+
+        /** @return the last modified date/time of the font file */
+        long lastModified();
+
+        /** @return the undecoded record holding the fonts, null if they have been decoded */
+        Record getRecord();
+
+        /** @return the fonts of the font file, null if they could not be read */
+        EmbedFontInfo[] getEmbedFontInfos();
+    }
+
+    private static void writeFontInfo(DataOutputStream out, EmbedFontInfo fontInfo)
+            throws IOException {
+        FontUris fontUris = fontInfo.getFontUris();
+        writeURI(out, fontUris.getEmbed());
+        writeURI(out, fontUris.getMetrics());
+        writeURI(out, fontUris.getAfm());
+        writeURI(out, fontUris.getPfm());
+        out.writeBoolean(fontInfo.getKerning());
+        out.writeBoolean(fontInfo.getAdvanced());
+        writeString(out, fontInfo.getEncodingMode() != null
+                ? fontInfo.getEncodingMode().name() : null);
+        writeString(out, fontInfo.getEmbeddingMode() != null
+                ? fontInfo.getEmbeddingMode().name() : null);
+        out.writeBoolean(fontInfo.getSimulateStyle());
+        out.writeBoolean(fontInfo.getEmbedAsType1());
+        out.writeBoolean(fontInfo.getUseSVG());
+        out.writeBoolean(fontInfo.isLazyLoad());
+        writeString(out, fontInfo.getPostScriptName());
+        writeString(out, fontInfo.getSubFontName());
+        List<FontTriplet> triplets = fontInfo.getFontTriplets();
+        if (triplets == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(triplets.size());
+            for (FontTriplet triplet : triplets) {
+                writeString(out, triplet.getName());
+                writeString(out, triplet.getStyle());
+                out.writeInt(triplet.getWeight());
+                out.writeInt(triplet.getPriority());
+            }
+        }
+    }
+
+    private static EmbedFontInfo readFontInfo(DataInputStream in) throws IOException {
+        FontUris fontUris = new FontUris(readURI(in), readURI(in), readURI(in), readURI(in));
+        boolean kerning = in.readBoolean();
+        boolean advanced = in.readBoolean();
+        String encodingMode = readString(in);
+        String embeddingMode = readString(in);
+        boolean simulateStyle = in.readBoolean();
+        boolean embedAsType1 = in.readBoolean();
+        boolean useSVG = in.readBoolean();
+        boolean lazyLoad = in.readBoolean();
+        String postScriptName = readString(in);
+        String subFontName = readString(in);
+        List<FontTriplet> triplets = null;
+        int tripletCount = in.readInt();
+        if (tripletCount >= 0) {
+            triplets = new ArrayList<FontTriplet>(tripletCount);
+            for (int i = 0; i < tripletCount; i++) {
+                triplets.add(new FontTriplet(readString(in), readString(in), in.readInt(),
+                        in.readInt()));
+            }
+        }
+        EmbedFontInfo fontInfo;
+        try {
+            fontInfo = new EmbedFontInfo(fontUris, kerning, advanced, triplets, subFontName,
+                    encodingMode != null ? EncodingMode.valueOf(encodingMode) : null,
+                    embeddingMode != null ? EmbeddingMode.valueOf(embeddingMode) : null,
+                    simulateStyle, embedAsType1, useSVG, lazyLoad);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid font cache record: " + e.getMessage());
+        }
+        fontInfo.setPostScriptName(postScriptName);
+        return fontInfo;
+    }
+
+    private static void writeURI(DataOutputStream out, URI uri) throws IOException {
+        writeString(out, uri != null ? uri.toASCIIString() : null);
+    }
+
+    private static URI readURI(DataInputStream in) throws IOException {
+        String uri = readString(in);
+        if (uri == null) {
+            return null;
+        }
+        try {
+            return new URI(uri);
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid URI in font cache: " + uri);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        out.writeBoolean(str != null);
+        if (str != null) {
+            out.writeUTF(str);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -39,6 +39,10 @@ import org.apache.commons.logging.LogFactory;
  * <br>
  * Currently font supported font-variant small-caps is not
  * implemented.
+ * <p>
+ * The font information of a document is shared by the threads laying out page-sequences
+ * and painting pages in parallel. The methods looking up and registering the fonts used are
+ * synchronized, the fonts themselves follow the rules described in {@link Typeface}.
  */
 public class FontInfo {
 
@@ -280,7 +284,7 @@ public class FontInfo {
      * Tells this class that the font with the given internal name has been used.
      * @param internalName the internal font name (F1, F2 etc.)
      */
-    public void useFont(String internalName) {
+    public synchronized void useFont(String internalName) {
         usedFonts.put(internalName, fonts.get(internalName));
     }
 
@@ -298,7 +302,7 @@ public class FontInfo {
      * @param fontSize the font size
      * @return the requested Font instance
      */
-    public Font getFontInstance(FontTriplet triplet, int fontSize) {
+    public synchronized Font getFontInstance(FontTriplet triplet, int fontSize) {
         Map<Integer, Font> sizes = getFontInstanceCache().get(triplet);
         if (sizes == null) {
             sizes = new HashMap<Integer, Font>();
@@ -569,7 +573,7 @@ public class FontInfo {
      * @param fontName internal key
      * @return font metrics
      */
-    public FontMetrics getMetricsFor(String fontName) {
+    public synchronized FontMetrics getMetricsFor(String fontName) {
         Typeface metrics = fonts.get(fontName);
         usedFonts.put(fontName, metrics);
         return metrics;
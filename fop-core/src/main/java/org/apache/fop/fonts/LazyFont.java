@@ -54,7 +54,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
     private final boolean embedded;
     private final InternalResourceResolver resourceResolver;
 
-    private boolean isMetricsLoaded;
+    private volatile boolean isMetricsLoaded;
     private Typeface realFont;
     private FontDescriptor realFontDescriptor;
 
@@ -98,6 +98,12 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
     }
 
     private void load(boolean fail) {
+        if (!isMetricsLoaded) {
+            loadMetrics(fail);
+        }
+    }
+
+    private synchronized void loadMetrics(boolean fail) {
         if (!isMetricsLoaded) {
             try {
                 if (fontUris.getMetrics() != null) {
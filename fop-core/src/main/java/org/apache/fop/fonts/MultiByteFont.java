@@ -194,7 +194,10 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
     /** {@inheritDoc} */
     public int getWidth(int i, int size) {
         if (isEmbeddable()) {
-            int glyphIndex = cidSet.getOriginalGlyphIndex(i);
+            int glyphIndex;
+            synchronized (this) {
+                glyphIndex = cidSet.getOriginalGlyphIndex(i);
+            }
             return size * width[glyphIndex];
         } else {
             return size * width[i];
@@ -209,7 +212,12 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
     }
 
     public Rectangle getBoundingBox(int glyphIndex, int size) {
-        int index = isEmbeddable() ? cidSet.getOriginalGlyphIndex(glyphIndex) : glyphIndex;
+        int index = glyphIndex;
+        if (isEmbeddable()) {
+            synchronized (this) {
+                index = cidSet.getOriginalGlyphIndex(glyphIndex);
+            }
+        }
         Rectangle bbox = boundingBoxes[index];
         return new Rectangle(bbox.x * size, bbox.y * size, bbox.width * size, bbox.height * size);
     }
@@ -221,7 +229,7 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      * @return the glyph index (or 0 if the glyph is not available)
      */
     // [TBD] - needs optimization, i.e., change from linear search to binary search
-    public int findGlyphIndex(int c) {
+    public synchronized int findGlyphIndex(int c) {
         int idx = c;
         int retIdx = SingleByteEncoding.NOT_FOUND_CODE_POINT;
 
@@ -310,7 +318,7 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      * @return unicode scalar value
      */
     // [TBD] - needs optimization, i.e., change from linear search to binary search
-    private int findCharacterFromGlyphIndex(int gi, boolean augment) {
+    private synchronized int findCharacterFromGlyphIndex(int gi, boolean augment) {
         int cc = 0;
         for (CMapSegment segment : cmap) {
             int s = segment.getGlyphStartIndex();
@@ -362,7 +370,7 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
 
     /** {@inheritDoc} */
     @Override
-    public char mapChar(char c) {
+    public synchronized char mapChar(char c) {
         notifyMapOperation();
         int glyphIndex = findGlyphIndex(c);
         if (glyphIndex == SingleByteEncoding.NOT_FOUND_CODE_POINT) {
@@ -382,7 +390,7 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
 
     /** {@inheritDoc} */
     @Override
-    public int mapCodePoint(int cp) {
+    public synchronized int mapCodePoint(int cp) {
         notifyMapOperation();
         int glyphIndex = findGlyphIndex(cp);
         if (glyphIndex == SingleByteEncoding.NOT_FOUND_CODE_POINT) {
@@ -112,14 +112,18 @@ public class SingleByteFont extends CustomFont {
             if (idx >= 0 && idx < width.length) {
                 return size * width[idx];
             }
-        } else if (this.additionalEncodings != null) {
-            int encodingIndex = (i / 256) - 1;
-            SimpleSingleByteEncoding encoding = getAdditionalEncoding(encodingIndex);
-            int codePoint = i % 256;
-            NamedCharacter nc = encoding.getCharacterForIndex(codePoint);
-            UnencodedCharacter uc
-                = this.unencodedCharacters.get(nc.getSingleUnicodeValue());
-            return size * uc.getWidth();
+        } else {
+            synchronized (this) {
+                if (this.additionalEncodings != null) {
+                    int encodingIndex = (i / 256) - 1;
+                    SimpleSingleByteEncoding encoding = getAdditionalEncoding(encodingIndex);
+                    int codePoint = i % 256;
+                    NamedCharacter nc = encoding.getCharacterForIndex(codePoint);
+                    UnencodedCharacter uc
+                        = this.unencodedCharacters.get(nc.getSingleUnicodeValue());
+                    return size * uc.getWidth();
+                }
+            }
         }
         return 0;
     }
@@ -138,13 +142,18 @@ public class SingleByteFont extends CustomFont {
             if (idx >= 0 && idx < boundingBoxes.length) {
                 bbox =  boundingBoxes[idx];
             }
-        } else if (this.additionalEncodings != null) {
-            int encodingIndex = (glyphIndex / 256) - 1;
-            SimpleSingleByteEncoding encoding = getAdditionalEncoding(encodingIndex);
-            int codePoint = glyphIndex % 256;
-            NamedCharacter nc = encoding.getCharacterForIndex(codePoint);
-            UnencodedCharacter uc = this.unencodedCharacters.get(nc.getSingleUnicodeValue());
-            bbox = uc.getBBox();
+        } else {
+            synchronized (this) {
+                if (this.additionalEncodings != null) {
+                    int encodingIndex = (glyphIndex / 256) - 1;
+                    SimpleSingleByteEncoding encoding = getAdditionalEncoding(encodingIndex);
+                    int codePoint = glyphIndex % 256;
+                    NamedCharacter nc = encoding.getCharacterForIndex(codePoint);
+                    UnencodedCharacter uc
+                        = this.unencodedCharacters.get(nc.getSingleUnicodeValue());
+                    bbox = uc.getBBox();
+                }
+            }
         }
         return bbox == null ? null : new Rectangle(bbox.x * size, bbox.y * size, bbox.width * size, bbox.height * size);
     }
@@ -205,7 +214,7 @@ public class SingleByteFont extends CustomFont {
 
     /** {@inheritDoc} */
     @Override
-    public char mapChar(char c) {
+    public synchronized char mapChar(char c) {
         notifyMapOperation();
         char d = lookupChar(c);
         if (d == SingleByteEncoding.NOT_FOUND_CODE_POINT) {
@@ -251,7 +260,7 @@ public class SingleByteFont extends CustomFont {
 
     /** {@inheritDoc} */
     @Override
-    public boolean hasChar(char c) {
+    public synchronized boolean hasChar(char c) {
         char d = mapping.mapChar(c);
         if (d != SingleByteEncoding.NOT_FOUND_CODE_POINT) {
             return true;
@@ -29,6 +29,12 @@ import org.apache.xmlgraphics.fonts.Glyphs;
 
 /**
  * Base class for font classes
+ * <p>
+ * A typeface may be used by several threads at the same time: page-sequences may be laid
+ * out in parallel and pages may be painted on several threads. The metrics must not change
+ * once they are loaded, and the state that is updated while the document is processed, like
+ * the characters used for subsetting or the missing glyphs already reported, is guarded by
+ * the monitor of the typeface. Subclasses must follow the same rule.
  */
 public abstract class Typeface implements FontMetrics {
 
@@ -43,10 +49,9 @@ public abstract class Typeface implements FontMetrics {
 
     /**
      * Used to identify whether a font has been used (a character map operation
-     * is used as the trigger). This could just as well be a boolean but is a
-     * long out of statistical interest.
+     * is used as the trigger).
      */
-    private long charMapOps;
+    private volatile boolean mapped;
 
     /** An optional event listener that receives events such as missing glyphs etc. */
     protected FontEventListener eventListener;
@@ -71,7 +76,9 @@ public abstract class Typeface implements FontMetrics {
      * was used at all or not.
      */
     protected void notifyMapOperation() {
-        this.charMapOps++;
+        if (!mapped) {
+            mapped = true;
+        }
     }
 
     /**
@@ -80,7 +87,7 @@ public abstract class Typeface implements FontMetrics {
      * @return true if the font had to do any character mapping operations
      */
     public boolean hadMappingOperations() {
-        return (this.charMapOps > 0);
+        return mapped;
     }
 
     /**
@@ -127,7 +134,7 @@ public abstract class Typeface implements FontMetrics {
      * @param c
      *            the character which is missing.
      */
-    protected void warnMissingGlyph(char c) {
+    protected synchronized void warnMissingGlyph(char c) {
         // Give up, character is not available
         Character ch = c;
         if (warnedChars == null) {
@@ -19,20 +19,29 @@
 
 package org.apache.fop.fonts.truetype;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import org.apache.commons.io.IOUtils;
 
+import org.apache.fop.apps.io.InternalResourceResolver;
+
 /**
- * Reads a TrueType font file into a byte array and
- * provides file like functions for array access.
+ * Reads a TrueType font file and provides file like functions for access to its bytes.
+ * Font files available on the local file system are memory-mapped, so only the pages
+ * holding the tables that are actually parsed or subset are read from disk. Other fonts
+ * are read into a byte array.
  */
 public class FontFileReader {
 
     private final int fsize; // file size
     private int current;    // current position in file
-    private final byte[] file;
+    private ByteBuffer file;
 
     /**
      * Constructor
@@ -41,11 +50,66 @@ public class FontFileReader {
      * @throws IOException In case of an I/O problem
      */
     public FontFileReader(InputStream in) throws IOException {
-        this.file = IOUtils.toByteArray(in);
-        this.fsize = this.file.length;
+        this.file = ByteBuffer.wrap(IOUtils.toByteArray(in));
+        this.fsize = this.file.capacity();
         this.current = 0;
     }
 
+    /**
+     * Constructor that memory-maps the given font file. The file is never written to, the
+     * first call to {@link #writeTTFUShort(long, int)} copies its contents to the heap.
+     *
+     * @param fontFile the font file
+     * @throws IOException In case of an I/O problem
+     */
+    public FontFileReader(File fontFile) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(fontFile, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Font file too large: " + fontFile);
+            }
+            // the mapping stays valid after the channel is closed
+            this.file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            IOUtils.closeQuietly(raf);
+        }
+        this.fsize = this.file.capacity();
+        this.current = 0;
+    }
+
+    /**
+     * Creates a reader for the font file with the given URI. A font file on the local file
+     * system is memory-mapped, any other font is read through the resource resolver.
+     *
+     * @param resourceResolver the resource resolver
+     * @param fontURI the URI of the font file
+     * @return the reader
+     * @throws IOException In case of an I/O problem
+     */
+    public static FontFileReader open(InternalResourceResolver resourceResolver, URI fontURI)
+            throws IOException {
+        File fontFile = toLocalFile(resourceResolver.resolveFromBase(fontURI));
+        if (fontFile != null) {
+            return new FontFileReader(fontFile);
+        }
+        InputStream in = resourceResolver.getResource(fontURI);
+        try {
+            return new FontFileReader(in);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    private static File toLocalFile(URI uri) {
+        if (!"file".equals(uri.getScheme()) || uri.isOpaque() || uri.getAuthority() != null
+                || uri.getFragment() != null || uri.getQuery() != null) {
+            return null;
+        }
+        File file = new File(uri);
+        return file.isFile() ? file : null;
+    }
+
 
     /**
      * Set current file position to offset
@@ -100,7 +164,7 @@ public class FontFileReader {
             throw new java.io.EOFException("Reached EOF, file size=" + fsize);
         }
 
-        final byte ret = file[current++];
+        final byte ret = file.get(current++);
         return ret;
     }
 
@@ -167,8 +231,11 @@ public class FontFileReader {
         final byte b1 = (byte)((val >> 8) & 0xff);
         final byte b2 = (byte)(val & 0xff);
         final int fileIndex = (int) pos;
-        file[fileIndex] = b1;
-        file[fileIndex + 1] = b2;
+        if (file.isReadOnly()) {
+            file = ByteBuffer.wrap(copyBytes(0, fsize));
+        }
+        file.put(fileIndex, b1);
+        file.put(fileIndex + 1, b2);
     }
 
     /**
@@ -239,15 +306,14 @@ public class FontFileReader {
      */
     public final String readTTFString() throws IOException {
         int i = current;
-        while (file[i++] != 0) {
+        while (file.get(i++) != 0) {
             if (i >= fsize) {
                 throw new java.io.EOFException("Reached EOF, file size="
                                                + fsize);
             }
         }
 
-        byte[] tmp = new byte[i - current - 1];
-        System.arraycopy(file, current, tmp, 0, i - current - 1);
+        byte[] tmp = copyBytes(current, i - current - 1);
         return new String(tmp, "ISO-8859-1");
     }
 
@@ -264,8 +330,7 @@ public class FontFileReader {
             throw new java.io.EOFException("Reached EOF, file size=" + fsize);
         }
 
-        byte[] tmp = new byte[len];
-        System.arraycopy(file, current, tmp, 0, len);
+        byte[] tmp = copyBytes(current, len);
         current += len;
         final String encoding;
         if ((tmp.length > 0) && (tmp[0] == 0)) {
@@ -289,8 +354,7 @@ public class FontFileReader {
             throw new java.io.EOFException("Reached EOF, file size=" + fsize);
         }
 
-        byte[] tmp = new byte[len];
-        System.arraycopy(file, current, tmp, 0, len);
+        byte[] tmp = copyBytes(current, len);
         current += len;
         final String encoding;
         encoding = "UTF-16BE"; //Use this for all known encoding IDs for now
@@ -311,15 +375,35 @@ public class FontFileReader {
             throw new java.io.IOException("Reached EOF");
         }
 
+        return copyBytes(offset, length);
+    }
+
+    private byte[] copyBytes(int offset, int length) {
         byte[] ret = new byte[length];
-        System.arraycopy(file, offset, ret, 0, length);
+        ByteBuffer src = file.duplicate();
+        src.position(offset);
+        src.get(ret);
         return ret;
     }
+
     /**
-     * Returns the full byte array representation of the file.
+     * Returns the full byte array representation of the file. For a memory-mapped file this
+     * reads the whole file, prefer {@link #getBytes(int, int)} or {@link #getByteBuffer()}.
      * @return byte array.
      */
     public byte[] getAllBytes() {
-        return file;
+        if (file.hasArray()) {
+            return file.array();
+        }
+        return copyBytes(0, fsize);
+    }
+
+    /**
+     * Returns a read-only view of the contents of the file, independent of the current
+     * file position.
+     * @return the contents of the file
+     */
+    public ByteBuffer getByteBuffer() {
+        return file.asReadOnlyBuffer();
     }
 }
@@ -25,7 +25,6 @@ import java.util.List;
 import org.apache.fontbox.cff.CFFFont;
 import org.apache.fontbox.cff.CFFParser;
 import org.apache.fontbox.cff.CFFType1Font;
-import org.apache.fontbox.cff.DataInputByteArray;
 import org.apache.pdfbox.io.RandomAccessReadBuffer;
 
 public class OTFFile extends OpenFont {
@@ -101,7 +100,7 @@ public class OTFFile extends OpenFont {
         fontFile = in;
         fontFile.seekSet(0);
         CFFParser parser = new CFFParser();
-        fileFont = parser.parse(new RandomAccessReadBuffer(in.getAllBytes())).get(0);
+        fileFont = parser.parse(new RandomAccessReadBuffer(in.getByteBuffer())).get(0);
         embedFontName = fileFont.getName();
     }
 
@@ -122,30 +121,25 @@ public class OTFFile extends OpenFont {
      * @return The byte data found in the CFF table
      */
     public static byte[] getCFFData(FontFileReader fontFile) throws IOException {
-        byte[] cff = fontFile.getAllBytes();
-        DataInputByteArray input = new DataInputByteArray(fontFile.getAllBytes());
-        input.readBytes(4); //OTTO
-        short numTables = input.readShort();
-        input.readShort(); //searchRange
-        input.readShort(); //entrySelector
-        input.readShort(); //rangeShift
-
-        for (int q = 0; q < numTables; q++) {
-            String tagName = new String(input.readBytes(4));
-            readLong(input); //Checksum
-            long offset = readLong(input);
-            long length = readLong(input);
-            if (tagName.equals("CFF ")) {
-                cff = new byte[(int)length];
-                System.arraycopy(fontFile.getAllBytes(), (int)offset, cff, 0, cff.length);
-                break;
+        long pos = fontFile.getCurrentPos();
+        try {
+            fontFile.seekSet(4); //OTTO
+            int numTables = fontFile.readTTFUShort();
+            fontFile.skip(6); //searchRange, entrySelector, rangeShift
+
+            for (int q = 0; q < numTables; q++) {
+                String tagName = fontFile.readTTFString(4);
+                fontFile.skip(4); //Checksum
+                long offset = fontFile.readTTFULong();
+                long length = fontFile.readTTFULong();
+                if (tagName.equals("CFF ")) {
+                    return fontFile.getBytes((int) offset, (int) length);
+                }
             }
+        } finally {
+            fontFile.seekSet(pos);
         }
-        return cff;
-    }
-
-    private static long readLong(DataInputByteArray input) throws IOException {
-        return (input.readUnsignedShort() << 16) | input.readUnsignedShort();
+        return fontFile.getAllBytes();
     }
 
     public boolean isType1() {
@@ -1802,7 +1802,6 @@ public abstract class OpenFont {
      */
     public void stream(TTFOutputStream ttfOut) throws IOException {
         SortedSet<Map.Entry<OFTableName, OFDirTabEntry>> sortedDirTabs = sortDirTabMap(dirTabs);
-        byte[] file = fontFile.getAllBytes();
         TTFTableOutputStream tableOut = ttfOut.getTableOutputStream();
         TTFGlyphOutputStream glyphOut = ttfOut.getGlyphOutputStream();
         ttfOut.startFontStream();
@@ -1810,10 +1809,12 @@ public abstract class OpenFont {
             int offset = (int) entry.getValue().getOffset();
             int paddedLength = (int) entry.getValue().getLength();
             paddedLength += getPadSize(offset + paddedLength);
+            // only copy the tables being streamed, the font file may be memory-mapped
+            byte[] table = fontFile.getBytes(offset, paddedLength);
             if (entry.getKey().equals(OFTableName.GLYF)) {
-                streamGlyf(glyphOut, file, offset, paddedLength);
+                streamGlyf(glyphOut, table, 0, paddedLength);
             } else {
-                tableOut.streamTable(file, offset, paddedLength);
+                tableOut.streamTable(table, 0, paddedLength);
             }
         }
         ttfOut.endFontStream();
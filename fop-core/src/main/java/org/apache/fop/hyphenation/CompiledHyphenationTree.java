@@ -0,0 +1,539 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.xml.sax.InputSource;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * <p>A read-only hyphenation tree whose patterns are held in a compact binary form, usually a
+ * memory-mapped compiled pattern file (".hyc"). The nodes of the ternary tree, the keys and
+ * the interletter values are read in place from the buffer, so loading a pattern file costs
+ * no deserialization, the data lives outside the Java heap, and a single instance can be
+ * shared by any number of threads and FopFactory instances. Looking up a word allocates
+ * nothing beyond what {@link HyphenationTree} allocates for the result.</p>
+ *
+ * <p>The file starts with a magic number and a format version, followed by the node arrays
+ * (lo, hi, eq and split char), the key characters, the packed interletter values, the
+ * character classes sorted by character and the hyphenation exceptions.</p>
+ */
+public class CompiledHyphenationTree extends HyphenationTree {
+
+    private static final long serialVersionUID = 2409613815393316227L;
+
+    /** The magic number of a compiled pattern file ("FOPH") */
+    static final int MAGIC = 0x464F5048;
+
+    /** The version of the compiled pattern format */
+    static final int VERSION = 1;
+
+    private final transient int nodeCount;
+    private final transient CharBuffer nodeLo;
+    private final transient CharBuffer nodeHi;
+    private final transient CharBuffer nodeEq;
+    private final transient CharBuffer splitChars;
+    private final transient CharBuffer keys;
+    private final transient ByteBuffer values;
+    private final transient CharBuffer classChars;
+    private final transient CharBuffer classValues;
+
+    /**
+     * Creates a hyphenation tree on compiled pattern data.
+     * @param data the compiled pattern data, which must not be modified afterwards
+     * @throws IOException if the data is not valid compiled pattern data
+     */
+    public CompiledHyphenationTree(ByteBuffer data) throws IOException {
+        // the tree's own arrays are never used
+        classmap = null;
+        vspace = null;
+        ByteBuffer buf = data.duplicate().order(ByteOrder.BIG_ENDIAN);
+        try {
+            if (buf.getInt() != MAGIC) {
+                throw new IOException("Not a compiled hyphenation pattern file");
+            }
+            int version = buf.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version of compiled hyphenation patterns: "
+                        + version);
+            }
+            root = buf.getChar();
+            nodeCount = buf.getInt();
+            nodeLo = sliceChars(buf, nodeCount);
+            nodeHi = sliceChars(buf, nodeCount);
+            nodeEq = sliceChars(buf, nodeCount);
+            splitChars = sliceChars(buf, nodeCount);
+            keys = sliceChars(buf, buf.getInt());
+            int valueLength = buf.getInt();
+            values = slice(buf, valueLength);
+            int classCount = buf.getInt();
+            classChars = sliceChars(buf, classCount);
+            classValues = sliceChars(buf, classCount);
+            int exceptionCount = buf.getInt();
+            for (int i = 0; i < exceptionCount; i++) {
+                String word = readString(buf);
+                int segmentCount = buf.getInt();
+                ArrayList<String> segments = new ArrayList<String>(segmentCount);
+                for (int j = 0; j < segmentCount; j++) {
+                    segments.add(readString(buf));
+                }
+                stoplist.put(word, segments);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated compiled hyphenation pattern file");
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt compiled hyphenation pattern file");
+        }
+        length = nodeCount;
+        freenode = (char) nodeCount;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buf, int length) {
+        ByteBuffer slice = buf.slice();
+        slice.limit(length);
+        buf.position(buf.position() + length);
+        return slice;
+    }
+
+    private static CharBuffer sliceChars(ByteBuffer buf, int length) {
+        return slice(buf, 2 * length).asCharBuffer();
+    }
+
+    private static String readString(ByteBuffer buf) {
+        char[] chars = new char[buf.getInt()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = buf.getChar();
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Maps a compiled pattern file into memory.
+     * @param file the compiled pattern file
+     * @return the hyphenation tree
+     * @throws IOException if the file can't be read or is not a compiled pattern file
+     */
+    public static CompiledHyphenationTree map(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            // the mapping stays valid after the channel has been closed
+            return new CompiledHyphenationTree(
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            IOUtils.closeQuietly(raf);
+        }
+    }
+
+    /**
+     * Reads compiled pattern data from a stream into memory outside the Java heap. Used when
+     * the patterns don't come from a file, for example from a jar file.
+     * @param in the stream to read from
+     * @return the hyphenation tree
+     * @throws IOException if the stream can't be read or doesn't hold compiled pattern data
+     */
+    public static CompiledHyphenationTree read(InputStream in) throws IOException {
+        return load(IOUtils.toByteArray(in));
+    }
+
+    /**
+     * Compiles a hyphenation tree into the binary form held by this class.
+     * @param tree the hyphenation tree
+     * @return the compiled hyphenation tree
+     */
+    public static CompiledHyphenationTree compile(HyphenationTree tree) {
+        if (tree instanceof CompiledHyphenationTree) {
+            return (CompiledHyphenationTree) tree;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(tree, out);
+            return load(out.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static CompiledHyphenationTree load(byte[] data) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocateDirect(data.length);
+        buf.put(data);
+        buf.flip();
+        return new CompiledHyphenationTree(buf);
+    }
+
+    /**
+     * Writes a hyphenation tree as compiled pattern data.
+     * @param tree the hyphenation tree
+     * @param out the stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(HyphenationTree tree, OutputStream out) throws IOException {
+        if (tree instanceof CompiledHyphenationTree) {
+            throw new IllegalArgumentException("The hyphenation tree is already compiled");
+        }
+        DataOutputStream dout = new DataOutputStream(out);
+        dout.writeInt(MAGIC);
+        dout.writeInt(VERSION);
+        dout.writeChar(tree.root);
+        int nodeCount = tree.freenode;
+        dout.writeInt(nodeCount);
+        writeChars(dout, tree.lo, nodeCount);
+        writeChars(dout, tree.hi, nodeCount);
+        writeChars(dout, tree.eq, nodeCount);
+        writeChars(dout, tree.sc, nodeCount);
+        dout.writeInt(tree.kv.length());
+        writeChars(dout, tree.kv.getArray(), tree.kv.length());
+        dout.writeInt(tree.vspace.length());
+        dout.write(tree.vspace.getArray(), 0, tree.vspace.length());
+
+        // the classes map single characters, so they are stored as a sorted table
+        StringBuilder classChars = new StringBuilder();
+        StringBuilder classValues = new StringBuilder();
+        char[] key = new char[2];
+        for (int c = 1; c <= Character.MAX_VALUE; c++) {
+            key[0] = (char) c;
+            int value = tree.classmap.find(key, 0);
+            if (value >= 0) {
+                classChars.append((char) c);
+                classValues.append((char) value);
+            }
+        }
+        dout.writeInt(classChars.length());
+        dout.writeChars(classChars.toString());
+        dout.writeChars(classValues.toString());
+
+        // only the strings of the exceptions are used for hyphenating
+        Map<?, ?> stoplist = tree.stoplist;
+        dout.writeInt(stoplist.size());
+        for (Map.Entry<?, ?> entry : stoplist.entrySet()) {
+            writeString(dout, (String) entry.getKey());
+            List<String> segments = new ArrayList<String>();
+            for (Object o : (List<?>) entry.getValue()) {
+                if (o instanceof String) {
+                    segments.add((String) o);
+                }
+            }
+            dout.writeInt(segments.size());
+            for (String segment : segments) {
+                writeString(dout, segment);
+            }
+        }
+        dout.flush();
+    }
+
+    private static void writeChars(DataOutputStream out, char[] chars, int length)
+            throws IOException {
+        for (int i = 0; i < length; i++) {
+            out.writeChar(chars[i]);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        out.writeInt(s.length());
+        out.writeChars(s);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void init() {
+        root = 0;
+        freenode = 1;
+        length = 0;
+        lo = new char[0];
+        hi = lo;
+        eq = lo;
+        sc = lo;
+        kv = new CharVector(lo);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected int getCharClass(char c) {
+        int low = 0;
+        int high = classChars.limit() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midChar = classChars.get(mid);
+            if (midChar < c) {
+                low = mid + 1;
+            } else if (midChar > c) {
+                high = mid - 1;
+            } else {
+                return classValues.get(mid);
+            }
+        }
+        return -1;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void searchPatterns(char[] word, int index, byte[] il) {
+        int i = index;
+        char sp = word[i];
+        int p = root;
+
+        while (p > 0 && p < nodeCount) {
+            char split = splitChars.get(p);
+            if (split == 0xFFFF) {
+                if (compareKey(word, i, nodeLo.get(p)) == 0) {
+                    applyValues(nodeEq.get(p), index, il);
+                }
+                return;
+            }
+            int d = sp - split;
+            if (d == 0) {
+                if (sp == 0) {
+                    break;
+                }
+                sp = word[++i];
+                p = nodeEq.get(p);
+                int q = p;
+
+                // look for a pattern ending at this position
+                while (q > 0 && q < nodeCount) {
+                    char qSplit = splitChars.get(q);
+                    if (qSplit == 0xFFFF) {
+                        break;
+                    }
+                    if (qSplit == 0) {
+                        applyValues(nodeEq.get(q), index, il);
+                        break;
+                    } else {
+                        q = nodeLo.get(q);
+                    }
+                }
+            } else {
+                p = d < 0 ? nodeLo.get(p) : nodeHi.get(p);
+            }
+        }
+    }
+
+    /**
+     * Compares a word with a key, see {@link HyphenationTree#hstrcmp(char[], int, char[], int)}.
+     */
+    private int compareKey(char[] s, int si, int ti) {
+        for (; s[si] == keys.get(ti); si++, ti++) {
+            if (s[si] == 0) {
+                return 0;
+            }
+        }
+        char t = keys.get(ti);
+        if (t == 0) {
+            return 0;
+        }
+        return s[si] - t;
+    }
+
+    /**
+     * Raises the interletter values with the packed values at the given index, with the
+     * same results as applying {@link HyphenationTree#getValues(int)}.
+     */
+    private void applyValues(int k, int index, byte[] il) {
+        int j = index;
+        byte v = values.get(k++);
+        while (v != 0) {
+            j = applyValue((byte) ((v >>> 4) - 1), j, il);
+            int low = v & 0x0f;
+            if (low == 0) {
+                break;
+            }
+            j = applyValue((byte) (low - 1), j, il);
+            v = values.get(k++);
+        }
+    }
+
+    private static int applyValue(byte value, int j, byte[] il) {
+        if (j < il.length && value > il[j]) {
+            il[j] = value;
+        }
+        return j + 1;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int find(char[] key, int start) {
+        int p = root;
+        int i = start;
+        while (p != 0) {
+            char split = splitChars.get(p);
+            if (split == 0xFFFF) {
+                int ti = nodeLo.get(p);
+                for (; key[i] == keys.get(ti); i++, ti++) {
+                    if (key[i] == 0) {
+                        return nodeEq.get(p);
+                    }
+                }
+                return -1;
+            }
+            char c = key[i];
+            int d = c - split;
+            if (d == 0) {
+                if (c == 0) {
+                    return nodeEq.get(p);
+                }
+                i++;
+                p = nodeEq.get(p);
+            } else if (d < 0) {
+                p = nodeLo.get(p);
+            } else {
+                p = nodeHi.get(p);
+            }
+        }
+        return -1;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected String unpackValues(int k) {
+        StringBuilder buf = new StringBuilder();
+        byte v = values.get(k++);
+        while (v != 0) {
+            buf.append((char) ((v >>> 4) - 1 + '0'));
+            char c = (char) (v & 0x0f);
+            if (c == 0) {
+                break;
+            }
+            buf.append((char) (c - 1 + '0'));
+            v = values.get(k++);
+        }
+        return buf.toString();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected byte[] getValues(int k) {
+        String unpacked = unpackValues(k);
+        byte[] res = new byte[unpacked.length()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = (byte) (unpacked.charAt(i) - '0');
+        }
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void printStats() {
+        System.out.println("Value space size = " + values.limit());
+        System.out.println("Node count = " + nodeCount);
+        System.out.println("Key Array length = " + keys.limit());
+    }
+
+    /**
+     * Not supported, compiled hyphenation trees are read-only.
+     * {@inheritDoc}
+     */
+    @Override
+    public void loadPatterns(InputSource source) {
+        throw new UnsupportedOperationException(
+                "Compiled hyphenation patterns are read-only");
+    }
+
+    /**
+     * Not supported, compiled hyphenation trees are read-only.
+     * {@inheritDoc}
+     */
+    @Override
+    public void addClass(String chargroup) {
+        throw new UnsupportedOperationException(
+                "Compiled hyphenation patterns are read-only");
+    }
+
+    /**
+     * Not supported, compiled hyphenation trees are read-only.
+     * {@inheritDoc}
+     */
+    @Override
+    public void addException(String word, ArrayList hyphenatedword) {
+        throw new UnsupportedOperationException(
+                "Compiled hyphenation patterns are read-only");
+    }
+
+    /**
+     * Not supported, compiled hyphenation trees are read-only.
+     * {@inheritDoc}
+     */
+    @Override
+    public void addPattern(String pattern, String ivalue) {
+        throw new UnsupportedOperationException(
+                "Compiled hyphenation patterns are read-only");
+    }
+
+    /**
+     * Not supported, compiled hyphenation trees are read-only.
+     * {@inheritDoc}
+     */
+    @Override
+    public void insert(String key, char val) {
+        throw new UnsupportedOperationException(
+                "Compiled hyphenation patterns are read-only");
+    }
+
+    /**
+     * Not supported, compiled hyphenation trees are read-only.
+     * {@inheritDoc}
+     */
+    @Override
+    public void insert(char[] key, int start, char val) {
+        throw new UnsupportedOperationException(
+                "Compiled hyphenation patterns are read-only");
+    }
+
+    /** Does nothing, compiled hyphenation trees are balanced when they are written. */
+    @Override
+    public void balance() {
+    }
+
+    /** Does nothing, compiled hyphenation trees have no spare room. */
+    @Override
+    public void trimToSize() {
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object clone() {
+        // read-only, so the instance can stand in for its clone
+        return this;
+    }
+
+    /**
+     * Compiled hyphenation trees are not serializable, write the compiled data instead.
+     * @return never returns
+     * @throws java.io.NotSerializableException always
+     */
+    private Object writeReplace() throws java.io.NotSerializableException {
+        throw new java.io.NotSerializableException(getClass().getName());
+    }
+}
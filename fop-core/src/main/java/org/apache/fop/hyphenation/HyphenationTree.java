@@ -339,9 +339,7 @@ public class HyphenationTree extends TernaryTree implements PatternConsumer {
     private boolean isMultiPartWord(char[] w, int len) {
         int wordParts = 0;
         for (int i = 0; i < len; i++) {
-            char[] c = new char[2];
-            c[0] = w[i];
-            int nc = classmap.find(c, 0);
+            int nc = getCharClass(w[i]);
             if (nc > 0) {
                 if (wordParts > 1) {
                     return true;
@@ -376,12 +374,10 @@ public class HyphenationTree extends TernaryTree implements PatternConsumer {
     }
 
     private List<Integer> getNonLetterBreaks(char[] word) {
-        char[] c = new char[2];
         List<Integer> breakPoints = new ArrayList<Integer>();
         boolean foundLetter = false;
         for (int i = 0; i < word.length; i++) {
-            c[0] = word[i];
-            if (classmap.find(c, 0) < 0) {
+            if (getCharClass(word[i]) < 0) {
                 if (foundLetter) {
                     breakPoints.add(i);
                 }
@@ -474,13 +470,11 @@ public class HyphenationTree extends TernaryTree implements PatternConsumer {
         char[] word = new char[len + 3];
 
         // normalize word
-        char[] c = new char[2];
         int iIgnoreAtBeginning = 0;
         int iLength = len;
         boolean bEndOfLetters = false;
         for (i = 1; i <= len; i++) {
-            c[0] = w[offset + i - 1];
-            int nc = classmap.find(c, 0);
+            int nc = getCharClass(w[offset + i - 1]);
             if (nc < 0) {    // found a non-letter character ...
                 if (i == (1 + iIgnoreAtBeginning)) {
                     // ... before any letter character
@@ -557,6 +551,15 @@ public class HyphenationTree extends TernaryTree implements PatternConsumer {
         }
     }
 
+    /**
+     * Returns the normalization character of the character class a character belongs to.
+     * @param c the character
+     * @return the normalization character, or -1 if the character is not a word character
+     */
+    protected int getCharClass(char c) {
+        return classmap.find(new char[] {c, 0}, 0);
+    }
+
     /**
      * Add a character class to the tree. It is used by
      * {@link PatternParser PatternParser} as callback to
@@ -23,6 +23,8 @@ import java.util.Hashtable;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.fop.apps.FopFactoryConfig;
+
 /**
  * <p>This is a cache for HyphenationTree instances.</p>
  */
@@ -32,6 +34,25 @@ public class HyphenationTreeCache {
     private Hashtable hyphenTrees = new Hashtable();
     /** Used to avoid multiple error messages for the same language if a pattern file is missing. */
     private Set missingHyphenationTrees;
+    /** Contains the hyphenation of words */
+    private final HyphenationWordCache wordCache;
+
+    /**
+     * Creates a new cache holding the hyphenation of up to
+     * {@link FopFactoryConfig#DEFAULT_HYPHENATION_WORD_CACHE_SIZE} words.
+     */
+    public HyphenationTreeCache() {
+        this(FopFactoryConfig.DEFAULT_HYPHENATION_WORD_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a new cache.
+     * @param wordCacheSize the maximum number of words whose hyphenation is cached, 0 to
+     * disable the word cache
+     */
+    public HyphenationTreeCache(int wordCacheSize) {
+        this.wordCache = new HyphenationWordCache(wordCacheSize);
+    }
 
     /**
      * Looks in the cache if a hyphenation tree is available and returns it if it is found.
@@ -52,6 +73,14 @@ public class HyphenationTreeCache {
         }
     }
 
+    /**
+     * Returns the cache of hyphenated words.
+     * @return the word cache
+     */
+    public HyphenationWordCache getWordCache() {
+        return wordCache;
+    }
+
     /**
      * Constructs the key for the hyphenation pattern file.
      * @param lang the language
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import org.apache.fop.util.LRUCache;
+
+/**
+ * <p>Caches the hyphenation of words, so a word that appears many times in the documents of a
+ * FopFactory is only hyphenated once. The words of all languages, countries and pairs of
+ * minimum character counts share one least-recently-used cache, whose size is set with
+ * {@link org.apache.fop.apps.FopFactoryBuilder#setHyphenationWordCacheSize(int)}. The cache
+ * can be used by several threads at the same time.</p>
+ */
+public class HyphenationWordCache {
+
+    /** Marks words which have no hyphenation points */
+    private static final Hyphenation NO_HYPHENATION = new Hyphenation("", new int[0]);
+
+    private final LRUCache<String, Hyphenation> words;
+
+    /**
+     * Creates a new cache.
+     * @param size the maximum number of cached words, 0 to disable the cache
+     */
+    public HyphenationWordCache(int size) {
+        this.words = new LRUCache<String, Hyphenation>(size);
+    }
+
+    /**
+     * Indicates whether the cache is enabled.
+     * @return true if words are cached
+     */
+    public boolean isEnabled() {
+        return words.isEnabled();
+    }
+
+    private static String constructKey(String lang, String country, String word,
+            int leftMin, int rightMin) {
+        return HyphenationTreeCache.constructLlccKey(lang, country) + '/' + leftMin + '/'
+                + rightMin + '/' + word;
+    }
+
+    /**
+     * Looks up the hyphenation of a word.
+     * @param lang the language
+     * @param country the country (may be null or "none")
+     * @param word the word
+     * @param leftMin the minimum number of characters before the first hyphenation point
+     * @param rightMin the minimum number of characters after the last hyphenation point
+     * @return the cached result, {@link #isNoHyphenation(Hyphenation) no hyphenation} if the
+     * word is known to have no hyphenation points, or null if the word is not in the cache
+     */
+    public Hyphenation get(String lang, String country, String word, int leftMin, int rightMin) {
+        if (!isEnabled()) {
+            return null;
+        }
+        return words.get(constructKey(lang, country, word, leftMin, rightMin));
+    }
+
+    /**
+     * Caches the hyphenation of a word.
+     * @param lang the language
+     * @param country the country (may be null or "none")
+     * @param word the word
+     * @param leftMin the minimum number of characters before the first hyphenation point
+     * @param rightMin the minimum number of characters after the last hyphenation point
+     * @param hyph the hyphenation of the word, null if it has no hyphenation points
+     */
+    public void put(String lang, String country, String word, int leftMin, int rightMin,
+            Hyphenation hyph) {
+        if (isEnabled()) {
+            words.put(constructKey(lang, country, word, leftMin, rightMin),
+                    hyph != null ? hyph : NO_HYPHENATION);
+        }
+    }
+
+    /**
+     * Indicates whether a cached result stands for a word without hyphenation points.
+     * @param hyph a result of {@link #get(String, String, String, int, int)}
+     * @return true if the word has no hyphenation points
+     */
+    public static boolean isNoHyphenation(Hyphenation hyph) {
+        return hyph == NO_HYPHENATION;
+    }
+
+    /**
+     * Returns the number of lookups that found the word in the cache.
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return words.getHitCount();
+    }
+
+    /**
+     * Returns the number of lookups that didn't find the word in the cache.
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return words.getMissCount();
+    }
+}
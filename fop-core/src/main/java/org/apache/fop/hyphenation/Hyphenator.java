@@ -20,11 +20,16 @@
 package org.apache.fop.hyphenation;
 
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URL;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.xml.sax.InputSource;
 
@@ -36,6 +41,7 @@ import org.apache.fop.ResourceEventProducer;
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.events.EventBroadcaster;
+import org.apache.fop.metrics.Metrics;
 
 /**
  * <p>This class is the main entry point to the hyphenation package.
@@ -53,6 +59,16 @@ public final class Hyphenator {
 
     public static final String HYPTYPE = Hyphenator.class.toString() + "HYP";
     public static final String XMLTYPE = Hyphenator.class.toString() + "XML";
+    public static final String HYCTYPE = Hyphenator.class.toString() + "HYC";
+
+    /**
+     * Compiled hyphenation trees shared by all FopFactory instances of the JVM, keyed by the
+     * location of the pattern file they were loaded from. The trees are immutable and hold
+     * their data outside the Java heap. The tree of a file that has changed since it was
+     * loaded is replaced.
+     */
+    private static final ConcurrentMap<String, SharedTree> SHARED_TREES
+            = new ConcurrentHashMap<String, SharedTree>();
 
     private Hyphenator() {
     }
@@ -99,7 +115,8 @@ public final class Hyphenator {
                 log.error("Couldn't find hyphenation pattern " + llccKey);
             } else {
                 ResourceEventProducer producer = ResourceEventProducer.Provider.get(eventBroadcaster);
-                String name = key.replace(HYPTYPE, "").replace(XMLTYPE, "");
+                String name = key.replace(HYPTYPE, "").replace(XMLTYPE, "")
+                        .replace(HYCTYPE, "");
                 producer.hyphenationNotFound(cache, name);
             }
             cache.noteMissing(llccKey);
@@ -107,33 +124,16 @@ public final class Hyphenator {
         return hTree;
     }
 
-    private static InputStream getResourceStream(String key) {
-        InputStream is = null;
-        // Try to use Context Class Loader to load the properties file.
-        try {
-            java.lang.reflect.Method getCCL = Thread.class.getMethod(
-                    "getContextClassLoader", new Class[0]);
-            if (getCCL != null) {
-                ClassLoader contextClassLoader = (ClassLoader)getCCL.invoke(
-                        Thread.currentThread(),
-                        new Object[0]);
-                is = contextClassLoader.getResourceAsStream("hyph/" + key
-                                                            + ".hyp");
-            }
-        } catch (NoSuchMethodException e) {
-            //ignore, fallback further down
-        } catch (IllegalAccessException e) {
-            //ignore, fallback further down
-        } catch (java.lang.reflect.InvocationTargetException e) {
-            //ignore, fallback further down
+    private static URL getResource(String name) {
+        URL url = null;
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        if (contextClassLoader != null) {
+            url = contextClassLoader.getResource(name);
         }
-
-        if (is == null) {
-            is = Hyphenator.class.getResourceAsStream("/hyph/" + key
-                                                      + ".hyp");
+        if (url == null) {
+            url = Hyphenator.class.getResource("/" + name);
         }
-
-        return is;
+        return url;
     }
 
     private static HyphenationTree readHyphenationTree(InputStream in) {
@@ -150,21 +150,60 @@ public final class Hyphenator {
     }
 
     /**
-     * Returns a hyphenation tree. This method looks in the resources (getResourceStream) for
-     * the hyphenation patterns.
+     * Returns a hyphenation tree. This method looks in the resources for compiled (".hyc")
+     * or serialized (".hyp") hyphenation patterns. Serialized patterns are converted to the
+     * compiled form. The trees are shared by all FopFactory instances of the JVM.
      * @param key the language/country key
      * @return the hyphenation tree or null if it wasn't found in the resources
      */
     public static HyphenationTree getFopHyphenationTree(String key) {
-        InputStream is = getResourceStream(key);
-        if (is == null) {
+        URL url = getResource("hyph/" + key + ".hyc");
+        boolean compiled = url != null;
+        if (!compiled) {
+            url = getResource("hyph/" + key + ".hyp");
+        }
+        if (url == null) {
             if (log.isDebugEnabled()) {
                 log.debug("Couldn't find precompiled hyphenation pattern "
                           + key + " in resources");
             }
             return null;
         }
-        return readHyphenationTree(is);
+        String sharedKey = url.toExternalForm();
+        SharedTree sharedTree = SHARED_TREES.get(sharedKey);
+        HyphenationTree hTree = sharedTree != null ? sharedTree.tree : null;
+        if (hTree == null) {
+            InputStream in = null;
+            try {
+                if (compiled && "file".equals(url.getProtocol())) {
+                    hTree = CompiledHyphenationTree.map(new File(url.toURI()));
+                } else {
+                    in = url.openStream();
+                    hTree = compiled ? CompiledHyphenationTree.read(in)
+                            : compile(readHyphenationTree(in));
+                }
+            } catch (IOException ioe) {
+                log.error("I/O error while loading precompiled hyphenation pattern file", ioe);
+            } catch (URISyntaxException use) {
+                log.error("Invalid URL for precompiled hyphenation pattern file " + url, use);
+            } finally {
+                IOUtils.closeQuietly(in);
+            }
+            hTree = share(sharedKey, hTree);
+        }
+        return hTree;
+    }
+
+    private static HyphenationTree compile(HyphenationTree hTree) {
+        return hTree != null ? CompiledHyphenationTree.compile(hTree) : null;
+    }
+
+    private static HyphenationTree share(String sharedKey, HyphenationTree hTree) {
+        if (hTree == null) {
+            return null;
+        }
+        SharedTree shared = SHARED_TREES.putIfAbsent(sharedKey, new SharedTree(hTree, -1, -1));
+        return shared != null ? shared.tree : hTree;
     }
 
     /**
@@ -179,27 +218,31 @@ public final class Hyphenator {
         HyphenationTree hTree = null;
         // I use here the following convention. The file name specified in
         // the configuration is taken as the base name. First we try
-        // name + ".hyp" assuming a serialized HyphenationTree. If that fails
+        // name + ".hyc" assuming compiled patterns, then name + ".hyp"
+        // assuming a serialized HyphenationTree. If that fails
         // we try name + ".xml", assumming a raw hyphenation pattern file.
 
-        // first try serialized object
-        String name = key + ".hyp";
+        // first try compiled patterns
+        String name = key + ".hyc";
+        if (key.endsWith(HYCTYPE)) {
+            name = key.replace(HYCTYPE, "");
+        }
+        if (!key.endsWith(HYPTYPE) && !key.endsWith(XMLTYPE)) {
+            hTree = getUserBinaryHyphenationTree(name, resourceResolver, true);
+            if (hTree != null || key.endsWith(HYCTYPE)) {
+                return hTree;
+            }
+        }
+
+        // then try serialized object
+        name = key + ".hyp";
         if (key.endsWith(HYPTYPE)) {
             name = key.replace(HYPTYPE, "");
         }
         if (!key.endsWith(XMLTYPE)) {
-            try {
-                InputStream in = getHyphenationTreeStream(name, resourceResolver);
-                try {
-                    hTree = readHyphenationTree(in);
-                } finally {
-                    IOUtils.closeQuietly(in);
-                }
+            hTree = getUserBinaryHyphenationTree(name, resourceResolver, false);
+            if (hTree != null || key.endsWith(HYPTYPE)) {
                 return hTree;
-            } catch (IOException ioe) {
-                if (log.isDebugEnabled()) {
-                    log.debug("I/O problem while trying to load " + name, ioe);
-                }
             }
         }
 
@@ -234,6 +277,67 @@ public final class Hyphenator {
         }
     }
 
+    /**
+     * Loads compiled or serialized patterns and converts serialized patterns to the compiled
+     * form. Compiled pattern files on the local file system are memory-mapped and, like
+     * converted pattern files, shared across the JVM as long as the file doesn't change.
+     */
+    private static HyphenationTree getUserBinaryHyphenationTree(String name,
+            InternalResourceResolver resourceResolver, boolean compiled) {
+        File file = null;
+        try {
+            URI uri = resourceResolver.resolveFromBase(InternalResourceResolver.cleanURI(name));
+            if ("file".equals(uri.getScheme())) {
+                file = new File(uri);
+            }
+        } catch (URISyntaxException use) {
+            //ignore, fallback to the resource resolver
+        } catch (IllegalArgumentException iae) {
+            //ignore, fallback to the resource resolver
+        }
+        String sharedKey = null;
+        long lastModified = 0;
+        long length = 0;
+        if (file != null) {
+            if (!file.isFile()) {
+                return null;
+            }
+            sharedKey = file.toURI().toString();
+            SharedTree shared = SHARED_TREES.get(sharedKey);
+            if (shared != null && shared.isUpToDate(file)) {
+                return shared.tree;
+            }
+            lastModified = file.lastModified();
+            length = file.length();
+        }
+        HyphenationTree hTree = null;
+        InputStream in = null;
+        try {
+            if (compiled && file != null) {
+                hTree = CompiledHyphenationTree.map(file);
+            } else {
+                in = getHyphenationTreeStream(name, resourceResolver);
+                if (in == null) {
+                    return null;
+                }
+                hTree = compiled ? CompiledHyphenationTree.read(in)
+                        : compile(readHyphenationTree(in));
+            }
+        } catch (IOException ioe) {
+            if (log.isDebugEnabled()) {
+                log.debug("I/O problem while trying to load " + name, ioe);
+            }
+            return null;
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+        if (sharedKey != null && hTree != null) {
+            // replaces the tree of an older version of the file
+            SHARED_TREES.put(sharedKey, new SharedTree(hTree, lastModified, length));
+        }
+        return hTree;
+    }
+
     private static InputStream getHyphenationTreeStream(String name,
             InternalResourceResolver resourceResolver) throws IOException {
         try {
@@ -248,11 +352,45 @@ public final class Hyphenator {
                                         Map hyphPatNames,
                                         String word,
                                         int leftMin, int rightMin, FOUserAgent foUserAgent) {
+        HyphenationTreeCache cache = foUserAgent.getHyphenationTreeCache();
+        HyphenationWordCache wordCache = cache != null ? cache.getWordCache() : null;
+        if (wordCache != null && wordCache.isEnabled()) {
+            Hyphenation hyph = wordCache.get(lang, country, word, leftMin, rightMin);
+            Metrics metrics = foUserAgent.getMetrics();
+            if (metrics.isEnabled()) {
+                metrics.increment(hyph != null ? Metrics.HYPHENATION_CACHE_HITS
+                        : Metrics.HYPHENATION_CACHE_MISSES, 1);
+            }
+            if (hyph != null) {
+                return HyphenationWordCache.isNoHyphenation(hyph) ? null : hyph;
+            }
+        }
         HyphenationTree hTree = getHyphenationTree(lang, country, resourceResolver, hyphPatNames, foUserAgent);
         if (hTree == null) {
             return null;
         }
-        return hTree.hyphenate(word, leftMin, rightMin);
+        Hyphenation hyph = hTree.hyphenate(word, leftMin, rightMin);
+        if (wordCache != null) {
+            wordCache.put(lang, country, word, leftMin, rightMin, hyph);
+        }
+        return hyph;
     }
 
+    /** A shared tree and the modification time and length of the file it was loaded from */
+    private static final class SharedTree {
+
+        private final HyphenationTree tree;
+        private final long lastModified;
+        private final long length;
+
+        SharedTree(HyphenationTree tree, long lastModified, long length) {
+            this.tree = tree;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        boolean isUpToDate(File file) {
+            return file.lastModified() == lastModified && file.length() == length;
+        }
+    }
 }
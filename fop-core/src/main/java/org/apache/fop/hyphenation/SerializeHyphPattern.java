@@ -19,19 +19,25 @@
 
 package org.apache.fop.hyphenation;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 
 /**
  * <p>Serialize hyphenation patterns.</p>
- * <p>For all xml files in the source directory a pattern file is built in the target directory.</p>
+ * <p>For all xml files in the source directory a pattern file is built in the target directory.
+ * The pattern files are either serialized objects (".hyp") or, if requested, compiled pattern
+ * files (".hyc") which can be memory-mapped by {@link CompiledHyphenationTree}.</p>
  * <p>This class may be called from the ant build file in a java task.</p>
  */
 public class SerializeHyphPattern {
 
     private boolean errorDump;
+    private boolean compiled;
 
     /**
      * Controls the amount of error information dumped.
@@ -41,6 +47,14 @@ public class SerializeHyphPattern {
         this.errorDump = errorDump;
     }
 
+    /**
+     * Controls the format of the pattern files.
+     * @param compiled True to write compiled ".hyc" files instead of serialized ".hyp" files
+     */
+    public void setCompiled(boolean compiled) {
+        this.compiled = compiled;
+    }
+
     /**
      * Compile all xml files in sourceDir, and write output hyp files in targetDir
      * @param sourceDir Directory with pattern xml files
@@ -57,7 +71,7 @@ public class SerializeHyphPattern {
             for (String sourceFile : sourceFiles) {
                 File infile = new File(sourceDir, sourceFile);
                 String outfilename = sourceFile.substring(0, sourceFile.length()
-                        - extension.length()) + ".hyp";
+                        - extension.length()) + (compiled ? ".hyc" : ".hyp");
                 File outfile = new File(targetDir, outfilename);
                 serializeFile(infile, outfile);
             }
@@ -75,6 +89,15 @@ public class SerializeHyphPattern {
             HyphenationTree hTree = buildPatternFile(infile);
             // serialize class
             try {
+                if (compiled) {
+                    OutputStream out = new BufferedOutputStream(new FileOutputStream(outfile));
+                    try {
+                        CompiledHyphenationTree.write(hTree, out);
+                    } finally {
+                        out.close();
+                    }
+                    return;
+                }
                 // @SuppressFBWarnings("OS_OPEN_STREAM_EXCEPTION_PATH")
                 ObjectOutputStream out = new ObjectOutputStream(
                         new java.io.BufferedOutputStream(
@@ -131,10 +154,11 @@ public class SerializeHyphPattern {
 
     /**
      * Entry point for ant java task
-     * @param args sourceDir, targetDir
+     * @param args sourceDir, targetDir and optionally "-compiled"
      */
     public static void main(String[] args) {
         SerializeHyphPattern ser = new SerializeHyphPattern();
+        ser.setCompiled(args.length > 2 && "-compiled".equals(args[2]));
         ser.serializeDir(new File(args[0]), new File(args[1]));
     }
 
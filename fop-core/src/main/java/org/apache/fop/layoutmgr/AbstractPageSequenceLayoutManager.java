@@ -225,8 +225,25 @@ public abstract class AbstractPageSequenceLayoutManager extends AbstractLayoutMa
      * could be found.
      */
     public RetrieveMarker resolveRetrieveMarker(RetrieveMarker rm) {
+        Marker mark = findMarker(rm);
+        if (mark == null) {
+            log.debug("found no marker with name: " + rm.getRetrieveClassName());
+            return null;
+        } else {
+            rm.bindMarker(mark);
+            return rm;
+        }
+    }
+
+    /**
+     * Finds the Marker that the given RetrieveMarker retrieves on the current page,
+     * without binding it.
+     *
+     * @param rm the RetrieveMarker instance
+     * @return the Marker, or null if none could be found
+     */
+    Marker findMarker(RetrieveMarker rm) {
         AreaTreeModel areaTreeModel = areaTreeHandler.getAreaTreeModel();
-        String name = rm.getRetrieveClassName();
         int boundary = rm.getRetrieveBoundary();
 
         // get marker from the current markers on area tree
@@ -259,13 +276,7 @@ public abstract class AbstractPageSequenceLayoutManager extends AbstractLayoutMa
             }
         }
 
-        if (mark == null) {
-            log.debug("found no marker with name: " + name);
-            return null;
-        } else {
-            rm.bindMarker(mark);
-            return rm;
-        }
+        return mark;
     }
 
     /**
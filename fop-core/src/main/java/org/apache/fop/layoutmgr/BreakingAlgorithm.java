@@ -192,6 +192,24 @@ public abstract class BreakingAlgorithm {
     private boolean partOverflowRecoveryActivated = true;
     private KnuthNode lastRecovered;
 
+    /** The number of elements handled by the main loop, over all the runs of the algorithm */
+    private long iterationCount;
+
+    /** The maximum number of active nodes per line, 0 if unbounded */
+    private int maxActiveNodesPerLine;
+
+    /** The number of lines looked ahead before the breaks of earlier lines are committed */
+    private int lookahead;
+
+    /** The last line whose breaks have been committed in the current run */
+    private int committedLine;
+
+    /** The number of active nodes dropped by the bounds, over all the runs of the algorithm */
+    private long prunedNodeCount;
+
+    /** The number of lines committed early, over all the runs of the algorithm */
+    private long committedLineCount;
+
     /**
      * Create a new instance.
      *
@@ -554,8 +572,12 @@ public abstract class BreakingAlgorithm {
         // main loop
         for (int elementIndex = startIndex; elementIndex < par.size(); elementIndex++) {
 
+            iterationCount++;
             previousIsBox = handleElementAt(
                     elementIndex, previousIsBox, allowedBreaks).isBox();
+            if (lookahead > 0 && activeNodeCount > 0) {
+                commitStableBreaks();
+            }
 
             if (activeNodeCount == 0) {
                 if (handlingFloat()) {
@@ -665,6 +687,7 @@ public abstract class BreakingAlgorithm {
         this.lastTooLong = null;
         this.startLine = 0;
         this.endLine = 0;
+        this.committedLine = 0;
         this.activeLines = new KnuthNode[20];
     }
 
@@ -1356,6 +1379,75 @@ public abstract class BreakingAlgorithm {
         }
         activeLines[headIdx + 1] = node;
         activeNodeCount++;
+        if (maxActiveNodesPerLine > 0) {
+            pruneLine(line);
+        }
+    }
+
+    /**
+     * Removes the active node with the highest demerits from the given line if the line has
+     * more active nodes than allowed.
+     * @param line the line number
+     */
+    private void pruneLine(int line) {
+        int count = 0;
+        KnuthNode worst = null;
+        for (KnuthNode node = getNode(line); node != null; node = node.next) {
+            count++;
+            if (worst == null || node.totalDemerits > worst.totalDemerits) {
+                worst = node;
+            }
+        }
+        if (count > maxActiveNodesPerLine) {
+            removeNode(line, worst);
+            prunedNodeCount++;
+        }
+    }
+
+    /**
+     * Commits the breaks of the best active node of the last line up to {@link #lookahead}
+     * lines back, once these are further back than the breaks committed so far: the active
+     * nodes that are not based on these breaks are removed.
+     */
+    private void commitStableBreaks() {
+        int lastLine = endLine - 1;
+        while (lastLine > startLine && getNode(lastLine) == null) {
+            lastLine--;
+        }
+        int stableLine = lastLine - lookahead;
+        if (stableLine <= committedLine) {
+            return;
+        }
+        KnuthNode bestNode = null;
+        for (KnuthNode node = getNode(lastLine); node != null; node = node.next) {
+            if (bestNode == null || node.totalDemerits < bestNode.totalDemerits) {
+                bestNode = node;
+            }
+        }
+        if (bestNode == null) {
+            return;
+        }
+        KnuthNode stableNode = bestNode;
+        while (stableNode.line > stableLine && stableNode.previous != null) {
+            stableNode = stableNode.previous;
+        }
+        committedLineCount += stableLine - committedLine;
+        committedLine = stableLine;
+        for (int line = startLine; line < endLine; line++) {
+            KnuthNode node = getNode(line);
+            while (node != null) {
+                KnuthNode next = node.next;
+                KnuthNode ancestor = node;
+                while (ancestor.line > stableNode.line && ancestor.previous != null) {
+                    ancestor = ancestor.previous;
+                }
+                if (ancestor != stableNode) {
+                    removeNode(line, node);
+                    prunedNodeCount++;
+                }
+                node = next;
+            }
+        }
     }
 
     /**
@@ -1463,6 +1555,44 @@ public abstract class BreakingAlgorithm {
         return this.alignmentLast;
     }
 
+    /**
+     * @return the number of elements handled by all the runs of {@link #findBreakingPoints}
+     * so far, including the elements handled again after a restart
+     */
+    public long getIterationCount() {
+        return this.iterationCount;
+    }
+
+    /**
+     * Bounds the number of active nodes, trading the optimality of the breaks for speed. By
+     * default both bounds are disabled and the algorithm finds the optimal (total-fit) breaks.
+     * @param maxActiveNodesPerLine the maximum number of active nodes per line; when a line
+     * gets more, the node with the highest demerits is dropped. 0 for no limit.
+     * @param lookahead the number of lines after which the breaks of the best active node are
+     * committed: the active nodes not based on these breaks are dropped. 0 to never commit
+     * before the end of the sequence.
+     */
+    public void setBoundedLookahead(int maxActiveNodesPerLine, int lookahead) {
+        this.maxActiveNodesPerLine = maxActiveNodesPerLine;
+        this.lookahead = lookahead;
+    }
+
+    /**
+     * @return the number of active nodes dropped because of the bounds set with
+     * {@link #setBoundedLookahead(int, int)}, over all the runs of {@link #findBreakingPoints}
+     */
+    public long getPrunedNodeCount() {
+        return this.prunedNodeCount;
+    }
+
+    /**
+     * @return the number of lines whose breaks were committed before the end of the sequence,
+     * over all the runs of {@link #findBreakingPoints}
+     */
+    public long getCommittedLineCount() {
+        return this.committedLineCount;
+    }
+
     protected boolean handlingFloat() {
         return false;
     }
@@ -27,11 +27,13 @@ import java.util.ListIterator;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.fo.Constants;
 import org.apache.fop.fo.FObj;
 import org.apache.fop.layoutmgr.AbstractBreaker.FloatPosition;
 import org.apache.fop.layoutmgr.AbstractBreaker.PageBreakPosition;
 import org.apache.fop.layoutmgr.WhitespaceManagementPenalty.Variant;
+import org.apache.fop.metrics.Metrics;
 import org.apache.fop.traits.MinOptMax;
 import org.apache.fop.util.ListUtil;
 
@@ -1171,6 +1173,27 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         return topLevelLM.getFObj();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public int findBreakingPoints(KnuthSequence par, int startIndex, double threshold,
+            boolean force, int allowedBreaks) {
+        FOUserAgent userAgent = getFObj().getUserAgent();
+        setBoundedLookahead(userAgent.getPageBreakingMaxActiveNodes(),
+                userAgent.getPageBreakingLookahead());
+        long iterations = getIterationCount();
+        long prunedNodes = getPrunedNodeCount();
+        long committedPages = getCommittedLineCount();
+        int breaks = super.findBreakingPoints(par, startIndex, threshold, force, allowedBreaks);
+        Metrics metrics = userAgent.getMetrics();
+        if (metrics.isEnabled()) {
+            metrics.increment(Metrics.PAGE_BREAKING_ITERATIONS, getIterationCount() - iterations);
+            metrics.increment(Metrics.PAGE_BREAKING_PRUNED_NODES, getPrunedNodeCount() - prunedNodes);
+            metrics.increment(Metrics.PAGE_BREAKING_COMMITTED_PAGES,
+                    getCommittedLineCount() - committedPages);
+        }
+        return breaks;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected int getLineWidth(int line) {
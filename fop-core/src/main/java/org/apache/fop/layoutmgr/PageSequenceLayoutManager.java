@@ -39,6 +39,7 @@ import org.apache.fop.fo.pagination.RegionBody;
 import org.apache.fop.fo.pagination.SideRegion;
 import org.apache.fop.fo.pagination.StaticContent;
 import org.apache.fop.layoutmgr.inline.ContentLayoutManager;
+import org.apache.fop.metrics.Metrics;
 import org.apache.fop.traits.MinOptMax;
 
 /**
@@ -63,6 +64,9 @@ public class PageSequenceLayoutManager extends AbstractPageSequenceLayoutManager
     private int startIntrusionAdjustment;
     private int endIntrusionAdjustment;
 
+    /** Caches the layout of the side regions, created on first use */
+    private StaticContentCache staticContentCache;
+
     /**
      * Constructor
      *
@@ -74,6 +78,16 @@ public class PageSequenceLayoutManager extends AbstractPageSequenceLayoutManager
         this.pageProvider = new PageProvider(ath, pseq);
     }
 
+    /** @return the cache for the layout of the side regions, null if it is disabled */
+    StaticContentCache getStaticContentCache() {
+        if (staticContentCache == null
+                && StaticContentCache.isEnabled(getPageSequence().getUserAgent())) {
+            staticContentCache = new StaticContentCache(this,
+                    getPageSequence().getFOEventHandler().getFontInfo());
+        }
+        return staticContentCache;
+    }
+
     /** @return the PageProvider applicable to this page-sequence. */
     public PageProvider getPageProvider() {
         return this.pageProvider;
@@ -103,6 +117,7 @@ public class PageSequenceLayoutManager extends AbstractPageSequenceLayoutManager
 
     /** {@inheritDoc} */
     public void activateLayout() {
+        long start = System.nanoTime();
         initialize();
 
         // perform step 5.8 of refinement process (Unicode BIDI Processing)
@@ -145,6 +160,11 @@ public class PageSequenceLayoutManager extends AbstractPageSequenceLayoutManager
         }
 
         finishPage();
+
+        Metrics metrics = getPageSequence().getUserAgent().getMetrics();
+        if (metrics.isEnabled()) {
+            metrics.recordTime(Metrics.LAYOUT, System.nanoTime() - start);
+        }
     }
 
     public void initialize() {
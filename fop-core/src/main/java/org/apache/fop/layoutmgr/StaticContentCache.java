@@ -0,0 +1,347 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.area.Area;
+import org.apache.fop.area.Block;
+import org.apache.fop.area.BlockParent;
+import org.apache.fop.area.LineArea;
+import org.apache.fop.area.PageViewport;
+import org.apache.fop.area.RegionReference;
+import org.apache.fop.area.Trait;
+import org.apache.fop.area.inline.InlineArea;
+import org.apache.fop.area.inline.InlineBlockParent;
+import org.apache.fop.area.inline.InlineParent;
+import org.apache.fop.area.inline.InlineViewport;
+import org.apache.fop.area.inline.ResolvedPageNumber;
+import org.apache.fop.fo.FONode;
+import org.apache.fop.fo.FObj;
+import org.apache.fop.fo.flow.AbstractPageNumberCitation;
+import org.apache.fop.fo.flow.BasicLink;
+import org.apache.fop.fo.flow.Marker;
+import org.apache.fop.fo.flow.RetrieveMarker;
+import org.apache.fop.fo.flow.RetrieveTableMarker;
+import org.apache.fop.fo.pagination.SideRegion;
+import org.apache.fop.fo.pagination.StaticContent;
+import org.apache.fop.fonts.Font;
+import org.apache.fop.fonts.FontInfo;
+import org.apache.fop.fonts.FontTriplet;
+
+/**
+ * Caches the areas generated for the side regions of a page-sequence. Headers and footers
+ * usually differ from page to page in nothing but the page number, so the areas laid out for
+ * a region are reused on the following pages as long as the region has the same dimensions
+ * and its retrieve-markers retrieve the same markers. Page numbers are updated in the reused
+ * areas if the new number has the same width as the cached one, so line breaks are never
+ * affected. Content with ids, page number citations, internal links or table markers is
+ * always laid out again.
+ * <p>
+ * The cache is enabled through {@link org.apache.fop.apps.FopFactoryBuilder#setStaticContentCaching}.
+ * The cached areas are copies, so the areas added to the pages are never shared.
+ */
+final class StaticContentCache {
+
+    /** Returned by {@link #restore(Key, RegionReference)} if the region must be laid out */
+    static final int MISS = -1;
+
+    /** The number of misses in a row after which a region is not cached anymore */
+    private static final int MAX_MISSES = 8;
+
+    private final AbstractPageSequenceLayoutManager pslm;
+    private final FontInfo fontInfo;
+
+    /** The retrieve-markers of cacheable static-contents and markers, null if not cacheable */
+    private final Map<FONode, List<RetrieveMarker>> scanned
+            = new IdentityHashMap<FONode, List<RetrieveMarker>>();
+
+    private final Map<SideRegion, Entry> entries = new IdentityHashMap<SideRegion, Entry>();
+
+    /**
+     * Creates a new cache for a page-sequence.
+     * @param pslm the page-sequence layout manager
+     * @param fontInfo the font information used to measure page numbers
+     */
+    StaticContentCache(AbstractPageSequenceLayoutManager pslm, FontInfo fontInfo) {
+        this.pslm = pslm;
+        this.fontInfo = fontInfo;
+    }
+
+    /**
+     * Indicates whether the side regions can be cached for a document.
+     * @param userAgent the user agent of the document
+     * @return true if the cache is to be used
+     */
+    static boolean isEnabled(FOUserAgent userAgent) {
+        //the structure tree references the FO nodes of every area
+        return userAgent.isStaticContentCachingEnabled() && !userAgent.isAccessibilityEnabled();
+    }
+
+    /**
+     * Creates the key under which the layout of a side region on the current page is cached.
+     * @param staticContent the static-content flowing into the region
+     * @param region the side region
+     * @param target the region reference the areas are added to
+     * @return the key, or null if the layout of the region may not be cached
+     */
+    Key createKey(StaticContent staticContent, SideRegion region, RegionReference target) {
+        Entry entry = entries.get(region);
+        if (entry != null && entry.disabled) {
+            return null;
+        }
+        List<RetrieveMarker> retrieveMarkers = scan(staticContent);
+        if (retrieveMarkers == null) {
+            return null;
+        }
+        Marker[] markers = new Marker[retrieveMarkers.size()];
+        for (int i = 0; i < markers.length; i++) {
+            markers[i] = pslm.findMarker(retrieveMarkers.get(i));
+            if (markers[i] != null) {
+                List<RetrieveMarker> nested = scan(markers[i]);
+                if (nested == null || !nested.isEmpty()) {
+                    return null;
+                }
+            }
+        }
+        PageViewport pv = pslm.getCurrentPV();
+        return new Key(region, target.getIPD(), target.getBPD(),
+                (int) pv.getViewArea().getWidth(), (int) pv.getViewArea().getHeight(), markers);
+    }
+
+    /**
+     * Adds the cached areas of a side region to the region reference of the current page.
+     * @param key the key for the region on the current page
+     * @param target the region reference to add the areas to
+     * @return the overflow amount of the cached layout, or {@link #MISS} if the region has
+     * to be laid out
+     */
+    int restore(Key key, RegionReference target) {
+        Entry entry = entries.get(key.region);
+        if (entry == null || !entry.key.equals(key)) {
+            return miss(entry);
+        }
+        List<Area> blocks = copy(entry.blocks);
+        String pageNumber = pslm.getCurrentPV().getPageNumberString();
+        List<ResolvedPageNumber> pageNumbers = new ArrayList<ResolvedPageNumber>();
+        for (Area block : blocks) {
+            collectPageNumbers(block, pageNumbers);
+        }
+        for (ResolvedPageNumber pn : pageNumbers) {
+            if (getWordLevel(pn) > 0 || getStringWidth(pn, pn.getText())
+                    != getStringWidth(pn, pageNumber)) {
+                return miss(entry);
+            }
+        }
+        for (ResolvedPageNumber pn : pageNumbers) {
+            int level = getWordLevel(pn);
+            pn.removeText();
+            pn.addWord(pageNumber, 0, level);
+        }
+        for (Area block : blocks) {
+            target.addBlock((Block) block);
+        }
+        entry.misses = 0;
+        return entry.overflowAmount;
+    }
+
+    private int miss(Entry entry) {
+        if (entry != null && ++entry.misses >= MAX_MISSES) {
+            entry.disabled = true;
+            entry.blocks = null;
+        }
+        return MISS;
+    }
+
+    /**
+     * Stores the areas laid out for a side region.
+     * @param key the key for the region on the current page
+     * @param target the region reference holding the areas
+     * @param overflowAmount the overflow amount reported by the layout
+     */
+    void store(Key key, RegionReference target, int overflowAmount) {
+        Entry entry = entries.get(key.region);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(key.region, entry);
+        } else if (entry.disabled) {
+            return;
+        }
+        entry.blocks = copy(target.getBlocks());
+        entry.key = key;
+        entry.overflowAmount = overflowAmount;
+    }
+
+    private List<RetrieveMarker> scan(FONode node) {
+        if (scanned.containsKey(node)) {
+            return scanned.get(node);
+        }
+        List<RetrieveMarker> retrieveMarkers = new ArrayList<RetrieveMarker>();
+        if (!scan(node, retrieveMarkers)) {
+            retrieveMarkers = null;
+        }
+        scanned.put(node, retrieveMarkers);
+        return retrieveMarkers;
+    }
+
+    private static boolean scan(FONode node, List<RetrieveMarker> retrieveMarkers) {
+        if (node instanceof FObj && ((FObj) node).hasId()
+                || node instanceof AbstractPageNumberCitation
+                || node instanceof RetrieveTableMarker
+                || node instanceof BasicLink && ((BasicLink) node).hasInternalDestination()) {
+            return false;
+        }
+        if (node instanceof RetrieveMarker) {
+            //the children are the clone of whatever marker was retrieved last
+            retrieveMarkers.add((RetrieveMarker) node);
+            return true;
+        }
+        for (FONode.FONodeIterator it = node.getChildNodes(); it != null && it.hasNext();) {
+            if (!scan(it.next(), retrieveMarkers)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void collectPageNumbers(Area area, List<ResolvedPageNumber> pageNumbers) {
+        if (area == null) {
+            return;
+        } else if (area instanceof ResolvedPageNumber) {
+            pageNumbers.add((ResolvedPageNumber) area);
+        } else if (area instanceof BlockParent) {
+            List children = ((BlockParent) area).getChildAreas();
+            if (children != null) {
+                for (Object child : children) {
+                    collectPageNumbers((Area) child, pageNumbers);
+                }
+            }
+        } else if (area instanceof LineArea) {
+            for (Object child : ((LineArea) area).getInlineAreas()) {
+                collectPageNumbers((Area) child, pageNumbers);
+            }
+        } else if (area instanceof InlineParent) {
+            for (InlineArea child : ((InlineParent) area).getChildAreas()) {
+                collectPageNumbers(child, pageNumbers);
+            }
+        } else if (area instanceof InlineBlockParent) {
+            collectPageNumbers(((InlineBlockParent) area).getChildArea(), pageNumbers);
+        } else if (area instanceof InlineViewport) {
+            collectPageNumbers(((InlineViewport) area).getContent(), pageNumbers);
+        }
+    }
+
+    private static int getWordLevel(ResolvedPageNumber pn) {
+        int level = -1;
+        for (InlineArea word : pn.getChildAreas()) {
+            level = Math.max(level, word.getBidiLevel());
+        }
+        return level;
+    }
+
+    private int getStringWidth(ResolvedPageNumber pn, String str) {
+        Font font = fontInfo.getFontInstance((FontTriplet) pn.getTrait(Trait.FONT),
+                pn.getTraitAsInteger(Trait.FONT_SIZE));
+        int width = 0;
+        for (int count = 0; count < str.length(); count++) {
+            width += font.getCharWidth(str.charAt(count));
+        }
+        return width;
+    }
+
+    private static List<Area> copy(List<Area> blocks) {
+        List<Area> copies = new ArrayList<Area>(blocks.size());
+        try {
+            for (Area block : blocks) {
+                copies.add((Area) block.clone());
+            }
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        return copies;
+    }
+
+    /** Identifies the layout of a side region on a page */
+    static final class Key {
+
+        private final SideRegion region;
+        private final int ipd;
+        private final int bpd;
+        private final int pageWidth;
+        private final int pageHeight;
+        private final Marker[] markers;
+
+        Key(SideRegion region, int ipd, int bpd, int pageWidth, int pageHeight, Marker[] markers) {
+            this.region = region;
+            this.ipd = ipd;
+            this.bpd = bpd;
+            this.pageWidth = pageWidth;
+            this.pageHeight = pageHeight;
+            this.markers = markers;
+        }
+
+        /** {@inheritDoc} */
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            if (region != other.region || ipd != other.ipd || bpd != other.bpd
+                    || pageWidth != other.pageWidth || pageHeight != other.pageHeight
+                    || markers.length != other.markers.length) {
+                return false;
+            }
+            for (int i = 0; i < markers.length; i++) {
+                if (markers[i] != other.markers[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** {@inheritDoc} */
+        public int hashCode() {
+            int hash = System.identityHashCode(region);
+            hash = 31 * hash + ipd;
+            hash = 31 * hash + bpd;
+            hash = 31 * hash + pageWidth;
+            hash = 31 * hash + pageHeight;
+            for (Marker marker : markers) {
+                hash = 31 * hash + System.identityHashCode(marker);
+            }
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+        private Key key;
+        private List<Area> blocks;
+        private int overflowAmount;
+        private int misses;
+        private boolean disabled;
+    }
+}
@@ -121,6 +121,9 @@ public class StaticContentLayoutManager extends BlockStackingLayoutManager {
         int targetAlign = EN_AUTO;
         boolean autoHeight = false;
         StaticContentBreaker breaker;
+        StaticContentCache cache = null;
+        StaticContentCache.Key cacheKey = null;
+        RegionReference region = targetRegion;
 
         if (getStaticContentFO().getFlowName().equals("xsl-footnote-separator")) {
             targetIPD = targetBlock.getIPD();
@@ -133,28 +136,48 @@ public class StaticContentLayoutManager extends BlockStackingLayoutManager {
             targetIPD = targetRegion.getIPD();
             targetBPD = targetRegion.getBPD();
             targetAlign = regionFO.getDisplayAlign();
+            cache = getPSLM().getStaticContentCache();
+            if (cache != null) {
+                cacheKey = cache.createKey(getStaticContentFO(), regionFO, region);
+            }
+        }
+        if (cacheKey != null) {
+            int overflowAmount = cache.restore(cacheKey, region);
+            if (overflowAmount != StaticContentCache.MISS) {
+                if (overflowAmount != 0) {
+                    notifyOverflow(overflowAmount);
+                }
+                return;
+            }
         }
         setContentAreaIPD(targetIPD);
         setContentAreaBPD(targetBPD);
         breaker = new StaticContentBreaker(this, targetIPD, targetAlign);
         breaker.doLayout(targetBPD, autoHeight);
+        if (cacheKey != null) {
+            cache.store(cacheKey, region, breaker.getOverflowAmount());
+        }
         if (breaker.isOverflow()) {
             if (!autoHeight) {
-                String page = getPSLM().getCurrentPage().getPageViewport().getPageNumberString();
-
-                BlockLevelEventProducer eventProducer = BlockLevelEventProducer.Provider.get(
-                        getStaticContentFO().getUserAgent().getEventBroadcaster());
-                boolean canRecover = (regionFO.getOverflow() != EN_ERROR_IF_OVERFLOW);
-                boolean needClip = (regionFO.getOverflow() == Constants.EN_HIDDEN
-                        || regionFO.getOverflow() == Constants.EN_ERROR_IF_OVERFLOW);
-                eventProducer.staticRegionOverflow(this, regionFO.getName(),
-                        page,
-                        breaker.getOverflowAmount(), needClip, canRecover,
-                        getStaticContentFO().getLocator());
+                notifyOverflow(breaker.getOverflowAmount());
             }
         }
     }
 
+    private void notifyOverflow(int overflowAmount) {
+        String page = getPSLM().getCurrentPage().getPageViewport().getPageNumberString();
+
+        BlockLevelEventProducer eventProducer = BlockLevelEventProducer.Provider.get(
+                getStaticContentFO().getUserAgent().getEventBroadcaster());
+        boolean canRecover = (regionFO.getOverflow() != EN_ERROR_IF_OVERFLOW);
+        boolean needClip = (regionFO.getOverflow() == Constants.EN_HIDDEN
+                || regionFO.getOverflow() == Constants.EN_ERROR_IF_OVERFLOW);
+        eventProducer.staticRegionOverflow(this, regionFO.getName(),
+                page,
+                overflowAmount, needClip, canRecover,
+                getStaticContentFO().getLocator());
+    }
+
     /**
      * Convenience method that returns the Static Content node.
      * @return the static content node
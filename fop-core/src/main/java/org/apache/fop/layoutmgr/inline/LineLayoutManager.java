@@ -71,6 +71,7 @@ import org.apache.fop.layoutmgr.NonLeafPosition;
 import org.apache.fop.layoutmgr.Position;
 import org.apache.fop.layoutmgr.PositionIterator;
 import org.apache.fop.layoutmgr.SpaceSpecifier;
+import org.apache.fop.metrics.Metrics;
 import org.apache.fop.traits.MinOptMax;
 
 /**
@@ -328,6 +329,18 @@ public class LineLayoutManager extends InlineStackingLayoutManager
             activePossibility = -1;
         }
 
+        @Override
+        public int findBreakingPoints(KnuthSequence par, int startIndex, double threshold,
+                boolean force, int allowedBreaks) {
+            long iterations = getIterationCount();
+            int breaks = super.findBreakingPoints(par, startIndex, threshold, force, allowedBreaks);
+            Metrics metrics = thisLLM.getFObj().getUserAgent().getMetrics();
+            if (metrics.isEnabled()) {
+                metrics.increment(Metrics.LINE_BREAKING_ITERATIONS, getIterationCount() - iterations);
+            }
+            return breaks;
+        }
+
         @Override
         public void updateData1(int lineCount, double demerits) {
             lineLayouts.addPossibility(lineCount, demerits);
@@ -1445,6 +1458,7 @@ public class LineLayoutManager extends InlineStackingLayoutManager
         // TextLM which generate the hyphenation buffer,
         // since these properties inherit and could be specified
         // on an inline or wrapper below the block level.
+        long start = System.nanoTime();
         Hyphenation hyph = Hyphenator.hyphenate(hyphenationProperties.language.getString(),
                                hyphenationProperties.country.getString(),
                                getFObj().getUserAgent().getHyphenationResourceResolver(),
@@ -1453,6 +1467,10 @@ public class LineLayoutManager extends InlineStackingLayoutManager
                                hyphenationProperties.hyphenationRemainCharacterCount.getValue(),
                                hyphenationProperties.hyphenationPushCharacterCount.getValue(),
                                getFObj().getUserAgent());
+        Metrics metrics = getFObj().getUserAgent().getMetrics();
+        if (metrics.isEnabled()) {
+            metrics.recordTime(Metrics.HYPHENATION, System.nanoTime() - start);
+        }
         // They hyph structure contains the information we need
         // Now start from prev: reset to that position, ask that LM to get
         // a Position for the first hyphenation offset. If the offset isn't in
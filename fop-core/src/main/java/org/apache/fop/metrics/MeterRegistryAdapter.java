@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Base class for feeding the metrics to a registry of meters, like the one of Micrometer. The
+ * meters are created once for each name and set of tags, and then reused. For example, with
+ * Micrometer:
+ * <pre>
+ * final MeterRegistry registry = ...;
+ * userAgent.setMetrics(new MeterRegistryAdapter() {
+ *     protected Timer createTimer(String name, String[] tags) {
+ *         final io.micrometer.core.instrument.Timer timer = registry.timer(name, tags);
+ *         return new Timer() {
+ *             public void record(long nanos) {
+ *                 timer.record(nanos, TimeUnit.NANOSECONDS);
+ *             }
+ *         };
+ *     }
+ *
+ *     protected Counter createCounter(String name, String[] tags) {
+ *         final io.micrometer.core.instrument.Counter counter = registry.counter(name, tags);
+ *         return new Counter() {
+ *             public void increment(long amount) {
+ *                 counter.increment(amount);
+ *             }
+ *         };
+ *     }
+ * });
+ * </pre>
+ */
+public abstract class MeterRegistryAdapter implements Metrics {
+
+    /** A timer of the registry. */
+    public interface Timer {
+
+        /**
+         * Records a duration.
+         * @param nanos the duration in nanoseconds
+         */
+        void record(long nanos);
+    }
+
+    /** A counter of the registry. */
+    public interface Counter {
+
+        /**
+         * Increments the counter.
+         * @param amount the amount to add
+         */
+        void increment(long amount);
+    }
+
+    private final ConcurrentMap<MeterId, Timer> timers = new ConcurrentHashMap<MeterId, Timer>();
+
+    private final ConcurrentMap<MeterId, Counter> counters
+            = new ConcurrentHashMap<MeterId, Counter>();
+
+    /**
+     * Creates a timer in the registry.
+     * @param name the name of the timer
+     * @param tags the tags, as key/value pairs
+     * @return the timer
+     */
+    protected abstract Timer createTimer(String name, String[] tags);
+
+    /**
+     * Creates a counter in the registry.
+     * @param name the name of the counter
+     * @param tags the tags, as key/value pairs
+     * @return the counter
+     */
+    protected abstract Counter createCounter(String name, String[] tags);
+
+    /** {@inheritDoc} */
+    public boolean isEnabled() {
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    public void recordTime(String name, long nanos, String... tags) {
+        MeterId id = new MeterId(name, tags);
+        Timer timer = timers.get(id);
+        if (timer == null) {
+            String[] copy = tags.clone();
+            timer = createTimer(name, copy);
+            Timer existing = timers.putIfAbsent(new MeterId(name, copy), timer);
+            if (existing != null) {
+                timer = existing;
+            }
+        }
+        timer.record(nanos);
+    }
+
+    /** {@inheritDoc} */
+    public void increment(String name, long amount, String... tags) {
+        MeterId id = new MeterId(name, tags);
+        Counter counter = counters.get(id);
+        if (counter == null) {
+            String[] copy = tags.clone();
+            counter = createCounter(name, copy);
+            Counter existing = counters.putIfAbsent(new MeterId(name, copy), counter);
+            if (existing != null) {
+                counter = existing;
+            }
+        }
+        counter.increment(amount);
+    }
+
+    private static final class MeterId {
+
+        private final String name;
+
+        private final String[] tags;
+
+        MeterId(String name, String[] tags) {
+            this.name = name;
+            this.tags = tags;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof MeterId)) {
+                return false;
+            }
+            MeterId other = (MeterId) obj;
+            return name.equals(other.name) && Arrays.equals(tags, other.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + Arrays.hashCode(tags);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.metrics;
+
+/**
+ * Receives the timings and counts measured while processing documents. An implementation is
+ * registered with {@link org.apache.fop.apps.FOUserAgent#setMetrics(Metrics)}. The same
+ * instance may be used by several documents and threads at the same time, so implementations
+ * must be thread-safe.
+ * <p>
+ * Tags are given as key/value pairs, for example <code>"format", "application/pdf"</code>.
+ */
+public interface Metrics {
+
+    /** Timer: the processing of a whole document, from the first to the last SAX event */
+    String DOCUMENT = "fop.document";
+
+    /**
+     * Timer: the part of {@link #DOCUMENT} that was not spent laying out page-sequences, that is
+     * mostly building the FO tree
+     */
+    String PARSE = "fop.parse";
+
+    /**
+     * Timer: the layout of one page-sequence. Unless the page-sequences are laid out in
+     * parallel, this includes rendering the pages that are completed during layout.
+     */
+    String LAYOUT = "fop.layout";
+
+    /** Timer: the rendering of one page */
+    String RENDER_PAGE = "fop.render.page";
+
+    /** Counter: the Knuth elements considered while breaking paragraphs into lines */
+    String LINE_BREAKING_ITERATIONS = "fop.layout.line-breaking.iterations";
+
+    /** Counter: the Knuth elements considered while breaking the flow into pages */
+    String PAGE_BREAKING_ITERATIONS = "fop.layout.page-breaking.iterations";
+
+    /**
+     * Counter: the candidate page breaks dropped because of the page breaking bounds
+     * (see {@link org.apache.fop.apps.FopFactoryBuilder#setPageBreakingMaxActiveNodes(int)})
+     */
+    String PAGE_BREAKING_PRUNED_NODES = "fop.layout.page-breaking.pruned-nodes";
+
+    /**
+     * Counter: the pages whose breaks were committed before the end of their page-sequence
+     * (see {@link org.apache.fop.apps.FopFactoryBuilder#setPageBreakingLookahead(int)})
+     */
+    String PAGE_BREAKING_COMMITTED_PAGES = "fop.layout.page-breaking.committed-pages";
+
+    /** Timer: the hyphenation of one word */
+    String HYPHENATION = "fop.hyphenation";
+
+    /** Counter: the words whose hyphenation was found in the word cache */
+    String HYPHENATION_CACHE_HITS = "fop.hyphenation.cache.hits";
+
+    /** Counter: the words whose hyphenation was not found in the word cache */
+    String HYPHENATION_CACHE_MISSES = "fop.hyphenation.cache.misses";
+
+    /** Timer: the loading and decoding of one image */
+    String IMAGE_LOAD = "fop.image.load";
+
+    /** Timer: the subsetting and embedding of the fonts of a document */
+    String FONT_SUBSET = "fop.font.subset";
+
+    /** Counter: the bytes written to the output stream */
+    String OUTPUT_BYTES = "fop.output.bytes";
+
+    /** Tag holding the MIME type of the output format */
+    String TAG_FORMAT = "format";
+
+    /**
+     * Indicates whether this instance records anything. If it doesn't, callers can skip
+     * measuring.
+     * @return true if the metrics are recorded
+     */
+    boolean isEnabled();
+
+    /**
+     * Records a duration.
+     * @param name the name of the timer
+     * @param nanos the duration in nanoseconds
+     * @param tags the tags, as key/value pairs
+     */
+    void recordTime(String name, long nanos, String... tags);
+
+    /**
+     * Increments a counter.
+     * @param name the name of the counter
+     * @param amount the amount to add
+     * @param tags the tags, as key/value pairs
+     */
+    void increment(String name, long amount, String... tags);
+}
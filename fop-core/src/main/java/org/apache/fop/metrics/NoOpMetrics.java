@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.metrics;
+
+/**
+ * This implementation ignores all metrics. It is the default.
+ */
+public final class NoOpMetrics implements Metrics {
+
+    /** The singleton instance of this class. */
+    public static final Metrics INSTANCE = new NoOpMetrics();
+
+    private NoOpMetrics() { }
+
+    /** {@inheritDoc} */
+    public boolean isEnabled() {
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    public void recordTime(String name, long nanos, String... tags) {
+    }
+
+    /** {@inheritDoc} */
+    public void increment(String name, long amount, String... tags) {
+    }
+}
@@ -19,6 +19,9 @@
 
 package org.apache.fop.pdf;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Base class for PDF font streams.
@@ -37,4 +40,31 @@ public abstract class AbstractPDFFontStream extends AbstractPDFStream {
         return PDFFilterList.FONT_FILTER;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected boolean supportsParallelEncoding() {
+        return true;
+    }
+
+    /**
+     * Writes the font data to a stream. Data that is not on the heap, like a memory-mapped
+     * font file, is copied in small chunks.
+     * @param data the font data
+     * @param out the stream to write to
+     * @throws IOException in case of an I/O problem
+     */
+    protected static void writeFontData(ByteBuffer data, OutputStream out) throws IOException {
+        if (data.hasArray()) {
+            out.write(data.array(), data.arrayOffset() + data.position(), data.remaining());
+        } else {
+            ByteBuffer src = data.duplicate();
+            byte[] chunk = new byte[Math.min(src.remaining(), 64 * 1024)];
+            while (src.hasRemaining()) {
+                int length = Math.min(src.remaining(), chunk.length);
+                src.get(chunk, 0, length);
+                out.write(chunk, 0, length);
+            }
+        }
+    }
+
 }
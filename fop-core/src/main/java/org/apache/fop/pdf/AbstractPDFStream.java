@@ -22,6 +22,10 @@ package org.apache.fop.pdf;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.commons.io.output.CountingOutputStream;
 
@@ -41,6 +45,11 @@ public abstract class AbstractPDFStream extends PDFObject {
 
     private PDFNumber refLength = new PDFNumber();
 
+    /** The stream encoded in the background, null if the stream is encoded on output */
+    private Future<StreamCache> encodedStreamFuture;
+
+    private boolean filterListPrepared;
+
     protected AbstractPDFStream() {
         this(true);
     }
@@ -87,6 +96,8 @@ public abstract class AbstractPDFStream extends PDFObject {
                 getDocumentSafely().getFilterMap(),
                 getDefaultFilterName());
         }
+        getFilterList().setFlateCompression(
+                getDocumentSafely().getFlateCompression(getDefaultFilterName()));
         prepareImplicitFilters();
         getDocument().applyEncryption(this);
     }
@@ -166,8 +177,7 @@ public abstract class AbstractPDFStream extends PDFObject {
      */
     protected StreamCache encodeStream() throws IOException {
         //Allocate a temporary buffer to find out the size of the encoded stream
-        final StreamCache encodedStream = StreamCacheFactory.getInstance()
-                .createStreamCache(getSizeHint());
+        final StreamCache encodedStream = getStreamCacheFactory().createStreamCache(getSizeHint());
         OutputStream filteredOutput
                 = getFilterList().applyFilters(encodedStream.getOutputStream());
         outputRawStreamData(filteredOutput);
@@ -176,6 +186,16 @@ public abstract class AbstractPDFStream extends PDFObject {
         return encodedStream;
     }
 
+    /**
+     * Returns the factory creating the caches for the data of this stream.
+     * @return the stream cache factory of the document, the default factory if the stream
+     * doesn't belong to a document yet
+     */
+    StreamCacheFactory getStreamCacheFactory() {
+        PDFDocument doc = getDocument();
+        return doc != null ? doc.getStreamCacheFactory() : StreamCacheFactory.getInstance();
+    }
+
     /**
      * Encodes and writes a stream directly to an OutputStream. The length of
      * the stream, in this case, is set on a PDFNumber object that has to be
@@ -217,14 +237,28 @@ public abstract class AbstractPDFStream extends PDFObject {
      */
     @Override
     public int output(OutputStream stream) throws IOException {
-        setupFilterList();
+        if (!filterListPrepared) {
+            setupFilterList();
+        }
 
         CountingOutputStream cout = new CountingOutputStream(stream);
         StringBuilder textBuffer = new StringBuilder(64);
 
         StreamCache encodedStream = null;
         final Object lengthEntry;
-        if (encodeOnTheFly) {
+        if (encodedStreamFuture != null) {
+            encodedStream = getEncodedStream();
+            if (encodeOnTheFly) {
+                //keep the indirect /Length object so the output matches the serial encoding
+                if (!refLength.hasObjectNumber()) {
+                    registerChildren();
+                }
+                refLength.setNumber(encodedStream.getSize());
+                lengthEntry = refLength;
+            } else {
+                lengthEntry = encodedStream.getSize();
+            }
+        } else if (encodeOnTheFly) {
             if (!refLength.hasObjectNumber()) {
                 registerChildren();
             }
@@ -250,6 +284,65 @@ public abstract class AbstractPDFStream extends PDFObject {
         return cout.getCount();
     }
 
+    /**
+     * Indicates whether the stream can be encoded on a background thread before it is
+     * written. This requires the raw stream data to be complete once the stream has been
+     * registered and that encoding the data doesn't change any other object of the document.
+     * @return true if the stream can be encoded in parallel to the output of other objects
+     */
+    protected boolean supportsParallelEncoding() {
+        return false;
+    }
+
+    /**
+     * Starts encoding the stream on the given executor if the stream supports it and it is
+     * compressed by a {@link FlateFilter}. The filters are set up on the calling thread.
+     * @param executor the executor encoding the stream
+     * @return true if the stream is being encoded in the background
+     */
+    boolean encodeInBackground(ExecutorService executor) {
+        if (encodedStreamFuture != null) {
+            return true;
+        }
+        if (!supportsParallelEncoding()) {
+            return false;
+        }
+        if (!filterListPrepared) {
+            setupFilterList();
+            filterListPrepared = true;
+        }
+        if (!getFilterList().hasFlateFilterToApply()) {
+            return false;
+        }
+        encodedStreamFuture = executor.submit(new Callable<StreamCache>() {
+            public StreamCache call() throws IOException {
+                return encodeStream();
+            }
+        });
+        return true;
+    }
+
+    private StreamCache getEncodedStream() throws IOException {
+        try {
+            return encodedStreamFuture.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while encoding stream", ie);
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("Error while encoding stream", cause);
+        } finally {
+            encodedStreamFuture = null;
+        }
+    }
+
     @Override
     public void setDocument(PDFDocument doc) {
         dictionary.setDocument(doc);
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.util.zip.Deflater;
+
+/**
+ * The compression level and strategy used by the {@link FlateFilter}.
+ */
+public final class FlateCompression {
+
+    /** The default compression level and strategy of the Deflate algorithm */
+    public static final FlateCompression DEFAULT
+            = new FlateCompression(Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY);
+
+    private final int level;
+
+    private final int strategy;
+
+    /**
+     * Creates a new instance.
+     * @param level the compression level (0-9 or {@link Deflater#DEFAULT_COMPRESSION})
+     * @param strategy the compression strategy ({@link Deflater#DEFAULT_STRATEGY},
+     * {@link Deflater#FILTERED} or {@link Deflater#HUFFMAN_ONLY})
+     */
+    public FlateCompression(int level, int strategy) {
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        if (strategy != Deflater.DEFAULT_STRATEGY && strategy != Deflater.FILTERED
+                && strategy != Deflater.HUFFMAN_ONLY) {
+            throw new IllegalArgumentException("Invalid compression strategy: " + strategy);
+        }
+        this.level = level;
+        this.strategy = strategy;
+    }
+
+    /**
+     * Creates a new instance from its textual representation.
+     * @param level the compression level (0-9), null for the default level
+     * @param strategy the compression strategy ("default", "filtered" or "huffman-only"),
+     * null for the default strategy
+     * @return the compression settings
+     * @throws IllegalArgumentException if the level or strategy are invalid
+     */
+    public static FlateCompression valueOf(String level, String strategy) {
+        int deflateLevel = Deflater.DEFAULT_COMPRESSION;
+        if (level != null) {
+            try {
+                deflateLevel = Integer.parseInt(level.trim());
+            } catch (NumberFormatException nfe) {
+                throw new IllegalArgumentException("Invalid compression level: " + level);
+            }
+        }
+        int deflateStrategy = Deflater.DEFAULT_STRATEGY;
+        if (strategy != null) {
+            String s = strategy.trim();
+            if ("filtered".equals(s)) {
+                deflateStrategy = Deflater.FILTERED;
+            } else if ("huffman-only".equals(s)) {
+                deflateStrategy = Deflater.HUFFMAN_ONLY;
+            } else if (!"default".equals(s)) {
+                throw new IllegalArgumentException("Invalid compression strategy: " + strategy);
+            }
+        }
+        return new FlateCompression(deflateLevel, deflateStrategy);
+    }
+
+    /** @return the compression level */
+    public int getLevel() {
+        return level;
+    }
+
+    /** @return the compression strategy */
+    public int getStrategy() {
+        return strategy;
+    }
+
+    /** @return true if this is the default level and strategy of the Deflate algorithm */
+    public boolean isDefault() {
+        return level == Deflater.DEFAULT_COMPRESSION && strategy == Deflater.DEFAULT_STRATEGY;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof FlateCompression)) {
+            return false;
+        }
+        FlateCompression other = (FlateCompression) obj;
+        return level == other.level && strategy == other.strategy;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+        return level * 31 + strategy;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "FlateCompression[level=" + level + ", strategy=" + strategy + "]";
+    }
+}
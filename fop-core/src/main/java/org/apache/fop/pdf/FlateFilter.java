@@ -79,6 +79,7 @@ public class FlateFilter extends PDFFilter {
     private int colors;
     private int bitsPerComponent;
     private int columns;
+    private FlateCompression compression = FlateCompression.DEFAULT;
 
     /**
      * Get the name of this filter.
@@ -208,12 +209,41 @@ public class FlateFilter extends PDFFilter {
     }
 
 
+    /**
+     * Set the compression level and strategy used when this filter compresses the data.
+     *
+     * @param compression the compression settings
+     */
+    public void setCompression(FlateCompression compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * Get the compression level and strategy used when this filter compresses the data.
+     *
+     * @return the compression settings
+     */
+    public FlateCompression getCompression() {
+        return compression;
+    }
+
     /** {@inheritDoc} */
     public OutputStream applyFilter(OutputStream out) throws IOException {
         if (isApplied()) {
             return out;
-        } else {
+        } else if (compression.isDefault()) {
             return new FlateEncodeOutputStream(out);
+        } else {
+            return new ConfiguredFlateEncodeOutputStream(out, compression);
+        }
+    }
+
+    private static final class ConfiguredFlateEncodeOutputStream extends FlateEncodeOutputStream {
+
+        ConfiguredFlateEncodeOutputStream(OutputStream out, FlateCompression compression) {
+            super(out);
+            def.setLevel(compression.getLevel());
+            def.setStrategy(compression.getStrategy());
         }
     }
 
@@ -57,6 +57,19 @@ public class ObjectStream extends PDFStream {
         return reference;
     }
 
+    /**
+     * Releases the objects of this stream once the stream has been written. The stream is
+     * still referred to by the stream that extends it.
+     */
+    void clearObjects() {
+        objects.clear();
+    }
+
+    @Override
+    protected String getDefaultFilterName() {
+        return PDFFilterList.OBJECT_STREAM_FILTER;
+    }
+
     @Override
     protected void outputRawStreamData(OutputStream out) throws IOException {
         int currentOffset = 0;
@@ -19,6 +19,8 @@
 
 package org.apache.fop.pdf;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -27,7 +29,9 @@ import org.apache.fop.pdf.xref.CompressedObjectReference;
 /**
  * Manages a collection of object streams, creating new streams as necessary to keep the
  * number of objects in each stream at the recommended value. Streams are related to each
- * other through the use of the Extends entry in the stream dictionary.
+ * other through the use of the Extends entry in the stream dictionary. A stream that is full
+ * doesn't change anymore and is written with the next objects of the document, so the number
+ * of objects kept in memory is bounded by the capacity of a stream.
  */
 class ObjectStreamManager {
 
@@ -41,6 +45,9 @@ class ObjectStreamManager {
 
     private ObjectStream currentObjectStream;
 
+    /** The object streams that have not been written yet, the last one is the current stream */
+    private final List<ObjectStream> pendingObjectStreams = new ArrayList<ObjectStream>();
+
     ObjectStreamManager(PDFDocument pdfDocument) {
         this.pdfDocument = pdfDocument;
         createObjectStream();
@@ -60,7 +67,34 @@ class ObjectStreamManager {
                 ? new ObjectStream()
                 : new ObjectStream(currentObjectStream);
         pdfDocument.assignObjectNumber(currentObjectStream);
-        pdfDocument.addTrailerObject(currentObjectStream);
+        pendingObjectStreams.add(currentObjectStream);
+    }
+
+    /**
+     * Writes the object streams that are full.
+     * @param stream the stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    void outputFullObjectStreams(OutputStream stream) throws IOException {
+        outputObjectStreams(stream, pendingObjectStreams.size() - 1);
+    }
+
+    /**
+     * Writes all the object streams that have not been written yet, including the current one.
+     * No objects must be added after calling this method.
+     * @param stream the stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    void outputObjectStreams(OutputStream stream) throws IOException {
+        outputObjectStreams(stream, pendingObjectStreams.size());
+    }
+
+    private void outputObjectStreams(OutputStream stream, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            ObjectStream objectStream = pendingObjectStreams.remove(0);
+            pdfDocument.streamIndirectObject(objectStream, stream);
+            objectStream.clearObjects();
+        }
     }
 
     List<CompressedObjectReference> getCompressedObjectReferences() {
@@ -21,6 +21,7 @@ package org.apache.fop.pdf;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import org.apache.fop.fonts.CustomFont;
 import org.apache.fop.fonts.EmbeddingMode;
@@ -31,7 +32,7 @@ import org.apache.fop.fonts.FontType;
  */
 public class PDFCFFStreamType0C extends AbstractPDFFontStream {
 
-    private byte[] cffData;
+    private ByteBuffer cffData;
     private String type;
 
     /**
@@ -50,7 +51,7 @@ public class PDFCFFStreamType0C extends AbstractPDFFontStream {
 
     protected int getSizeHint() throws IOException {
         if (this.cffData != null) {
-            return cffData.length;
+            return cffData.remaining();
         } else {
             return 0; //no hint available
         }
@@ -58,7 +59,7 @@ public class PDFCFFStreamType0C extends AbstractPDFFontStream {
 
     /** {@inheritDoc} */
     protected void outputRawStreamData(OutputStream out) throws IOException {
-        out.write(this.cffData);
+        writeFontData(this.cffData, out);
     }
 
     /** {@inheritDoc} */
@@ -74,8 +75,17 @@ public class PDFCFFStreamType0C extends AbstractPDFFontStream {
      * @throws IOException in case of an I/O problem
      */
     public void setData(byte[] data, int size) throws IOException {
-        this.cffData = new byte[size];
-        System.arraycopy(data, 0, this.cffData, 0, size);
+        byte[] copy = new byte[size];
+        System.arraycopy(data, 0, copy, 0, size);
+        this.cffData = ByteBuffer.wrap(copy);
+    }
+
+    /**
+     * Sets the CFF font data without copying it, for example a memory-mapped font file.
+     * @param data the font payload, which must not be changed afterwards
+     */
+    public void setData(ByteBuffer data) {
+        this.cffData = data;
     }
 
 }
@@ -34,6 +34,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -44,6 +45,7 @@ import org.apache.fop.pdf.StandardStructureAttributes.Table.Scope;
 import org.apache.fop.pdf.xref.CrossReferenceStream;
 import org.apache.fop.pdf.xref.CrossReferenceTable;
 import org.apache.fop.pdf.xref.TrailerDictionary;
+import org.apache.fop.util.WorkerThreadFactory;
 
 /* image support modified from work of BoBoGi */
 /* font support based on work by Takayuki Takeuchi */
@@ -141,6 +143,14 @@ public class PDFDocument {
 
     private Map<String, List<String>> filterMap = new HashMap<String, List<String>>();
 
+    private Map<String, FlateCompression> compressionMap;
+
+    private int compressionThreads;
+
+    private ExecutorService compressionExecutor;
+
+    private StreamCacheFactory streamCacheFactory = StreamCacheFactory.getInstance();
+
     private List<PDFGState> gstates = new ArrayList<PDFGState>();
 
     private List<PDFFunction> functions = new ArrayList<PDFFunction>();
@@ -349,6 +359,63 @@ public class PDFDocument {
         return this.filterMap;
     }
 
+    /**
+     * Sets the compression level and strategy of the Flate filter for each stream type. The
+     * settings for {@link PDFFilterList#DEFAULT_FILTER} apply to the types without an entry.
+     *
+     * @param map the map of compression settings for each stream type
+     */
+    public void setCompressionMap(Map<String, FlateCompression> map) {
+        this.compressionMap = map;
+    }
+
+    /**
+     * Returns the compression level and strategy of the Flate filter for the given stream type.
+     *
+     * @param type the stream type (see {@link PDFFilterList})
+     * @return the compression settings, null if the defaults of the Flate filter apply
+     */
+    public FlateCompression getFlateCompression(String type) {
+        if (compressionMap == null) {
+            return null;
+        }
+        FlateCompression compression = compressionMap.get(type);
+        if (compression == null) {
+            compression = compressionMap.get(PDFFilterList.DEFAULT_FILTER);
+        }
+        return compression;
+    }
+
+    /**
+     * Sets the number of threads used to compress content, image and font streams while the
+     * document is written. Streams are still written in order. With 0 or 1 threads the
+     * streams are compressed while they are written.
+     *
+     * @param threads the number of compression threads
+     */
+    public void setCompressionThreads(int threads) {
+        this.compressionThreads = threads;
+    }
+
+    /**
+     * Sets the factory creating the caches that hold the data of the streams of this document.
+     *
+     * @param factory the stream cache factory
+     */
+    public void setStreamCacheFactory(StreamCacheFactory factory) {
+        this.streamCacheFactory = factory;
+    }
+
+    /**
+     * Returns the factory creating the caches that hold the data of the streams of this
+     * document.
+     *
+     * @return the stream cache factory
+     */
+    public StreamCacheFactory getStreamCacheFactory() {
+        return this.streamCacheFactory;
+    }
+
     /**
      * Returns the {@link PDFPages} object associated with the root object.
      *
@@ -1048,10 +1115,68 @@ public class PDFDocument {
             objects.addAll(indirectObjects);
         }
 
+        boolean parallelEncoding = isParallelEncodingEnabled();
         while (objects.size() > 0) {
+            if (parallelEncoding) {
+                encodeUpcomingStreams();
+            }
             PDFObject object = objects.remove(0);
             streamIndirectObject(object, stream);
         }
+        if (objectStreamManager != null) {
+            //full object streams don't change anymore, write them to release their objects
+            objectStreamManager.outputFullObjectStreams(stream);
+        }
+    }
+
+    private boolean isParallelEncodingEnabled() {
+        //encryption and linearization depend on the order in which streams are processed
+        return compressionThreads > 1 && !isEncryptionActive() && !linearizationEnabled;
+    }
+
+    /**
+     * Starts compressing the streams at the head of the object list in the background, so
+     * they are ready when their turn to be written comes.
+     */
+    private void encodeUpcomingStreams() {
+        if (compressionExecutor == null) {
+            //idle threads stop by themselves, so an abandoned document doesn't keep them
+            compressionExecutor = WorkerThreadFactory.newExecutor("FOP PDF compression",
+                    compressionThreads);
+        }
+        //only look ahead a few objects to keep both the scan and the buffered data bounded
+        int pending = 0;
+        int window = compressionThreads * 2;
+        int scanned = 0;
+        Iterator<PDFObject> iter = objects.iterator();
+        while (iter.hasNext() && pending < window && scanned++ < window * 8) {
+            PDFObject object = iter.next();
+            if (object instanceof AbstractPDFStream
+                    && ((AbstractPDFStream) object).encodeInBackground(compressionExecutor)) {
+                pending++;
+            }
+        }
+    }
+
+    /**
+     * Stops the threads compressing streams in the background. This is done when the trailer
+     * is written, and has to be done when the document is abandoned before that. The document
+     * must not be written anymore afterwards.
+     */
+    public void stopBackgroundEncoding() {
+        WorkerThreadFactory.shutdown(compressionExecutor, true);
+        compressionExecutor = null;
+    }
+
+    /**
+     * Stops the threads compressing streams in the background and releases the temporary
+     * resources holding the data of the streams. This is done when the trailer is written,
+     * and has to be done when the document is abandoned before that. The document must not
+     * be written anymore afterwards.
+     */
+    public void close() {
+        stopBackgroundEncoding();
+        streamCacheFactory.close();
     }
 
     private void addToObjectStream(CompressedObject object) {
@@ -1159,9 +1284,13 @@ public class PDFDocument {
      * @throws IOException if there is an exception writing to the output stream
      */
     public void outputTrailer(OutputStream stream) throws IOException {
-        createDestinations();
-        output(stream);
-        outputTrailerObjectsAndXref(stream);
+        try {
+            createDestinations();
+            output(stream);
+            outputTrailerObjectsAndXref(stream);
+        } finally {
+            close();
+        }
     }
 
     private void createDestinations() {
@@ -1191,6 +1320,9 @@ public class PDFDocument {
             trailerOutputHelper.outputStructureTreeElements(stream);
         }
         streamIndirectObjects(trailerObjects, stream);
+        if (objectStreamManager != null) {
+            objectStreamManager.outputObjectStreams(stream);
+        }
         TrailerDictionary trailerDictionary = createTrailerDictionary(true);
         long startxref = trailerOutputHelper.outputCrossReferenceObject(stream, trailerDictionary, 0,
                 indirectObjectOffsets.size(), indirectObjectOffsets.size());
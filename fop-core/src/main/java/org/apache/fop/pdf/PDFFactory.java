@@ -27,6 +27,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -1385,29 +1386,38 @@ public class PDFFactory {
 
         InputStream in = null;
         try {
-            in = font.getInputStream();
-            if (in == null) {
-                return null;
-            }
             AbstractPDFStream embeddedFont = null;
             if (desc.getFontType() == FontType.TYPE0) {
                 MultiByteFont mbfont = (MultiByteFont) font;
-                FontFileReader reader = new FontFileReader(in);
-                byte[] fontBytes;
+                FontFileReader reader = font.getFontFileReader();
                 String header = OFFontLoader.readHeader(reader);
                 boolean isCFF = mbfont.isOTFFile();
                 if (font.getEmbeddingMode() == EmbeddingMode.FULL) {
-                    fontBytes = reader.getAllBytes();
                     if (isCFF) {
                         //Ensure version 1.6 for full OTF CFF embedding
                         document.setPDFVersion(Version.V1_6);
                     }
+                    //the font file is written from the mapped file, not copied to the heap
+                    embeddedFont = getFontStream(font, reader.getByteBuffer(), isCFF);
                 } else {
-                    fontBytes = getFontSubsetBytes(reader, mbfont, header, fontPrefix, desc,
-                            isCFF);
+                    byte[] fontBytes = getFontSubsetBytes(reader, mbfont, header, fontPrefix,
+                            desc, isCFF);
+                    embeddedFont = getFontStream(font, fontBytes, isCFF);
                 }
-                embeddedFont = getFontStream(font, fontBytes, isCFF);
-            } else if (desc.getFontType() == FontType.TYPE1) {
+                return embeddedFont;
+            } else if (desc.getFontType() == FontType.TYPE1C
+                    && font.getEmbeddingMode() == EmbeddingMode.SUBSET) {
+                FontFileReader reader = font.getFontFileReader();
+                String header = OFFontLoader.readHeader(reader);
+                byte[] fontBytes = getFontSubsetBytes(reader, (MultiByteFont) font, header,
+                        fontPrefix, desc, true);
+                return getFontStream(font, fontBytes, true);
+            }
+            in = font.getInputStream();
+            if (in == null) {
+                return null;
+            }
+            if (desc.getFontType() == FontType.TYPE1) {
                 if (font.getEmbeddingMode() != EmbeddingMode.SUBSET) {
                     embeddedFont = fullyEmbedType1Font(in);
                 } else {
@@ -1422,17 +1432,10 @@ public class PDFFactory {
                     ((PDFT1Stream) embeddedFont).setData(pfb);
                 }
             } else if (desc.getFontType() == FontType.TYPE1C) {
-                if (font.getEmbeddingMode() == EmbeddingMode.SUBSET) {
-                    FontFileReader reader = new FontFileReader(in);
-                    String header = OFFontLoader.readHeader(reader);
-                    byte[] fontBytes = getFontSubsetBytes(reader, (MultiByteFont) font, header, fontPrefix, desc, true);
-                    embeddedFont = getFontStream(font, fontBytes, true);
-                } else {
-                    byte[] file = IOUtils.toByteArray(in);
-                    PDFCFFStream embeddedFont2 = new PDFCFFStream("Type1C");
-                    embeddedFont2.setData(file);
-                    return embeddedFont2;
-                }
+                byte[] file = IOUtils.toByteArray(in);
+                PDFCFFStream embeddedFont2 = new PDFCFFStream("Type1C");
+                embeddedFont2.setData(file);
+                return embeddedFont2;
             } else if (desc.getFontType() == FontType.CIDTYPE0) {
                 byte[] file = IOUtils.toByteArray(in);
                 PDFCFFStream embeddedFont2 = new PDFCFFStream("CIDFontType0C");
@@ -1497,6 +1500,18 @@ public class PDFFactory {
         return embeddedFont;
     }
 
+    private AbstractPDFStream getFontStream(CustomFont font, ByteBuffer fontData, boolean isCFF) {
+        if (isCFF) {
+            PDFCFFStreamType0C embeddedFont = new PDFCFFStreamType0C(font);
+            embeddedFont.setData(fontData);
+            return embeddedFont;
+        } else {
+            PDFTTFStream embeddedFont = new PDFTTFStream(fontData.remaining());
+            embeddedFont.setData(fontData);
+            return embeddedFont;
+        }
+    }
+
     private CustomFont getCustomFont(FontDescriptor desc) {
         Typeface tempFont;
         if (desc instanceof LazyFont) {
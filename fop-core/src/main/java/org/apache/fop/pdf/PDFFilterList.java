@@ -47,6 +47,8 @@ public class PDFFilterList {
     public static final String FONT_FILTER = "font";
     /** Key for the filter used for metadata */
     public static final String METADATA_FILTER = "metadata";
+    /** Key for the filter used for object streams */
+    public static final String OBJECT_STREAM_FILTER = "object-stream";
 
     private List<PDFFilter> filters = new java.util.ArrayList<PDFFilter>();
 
@@ -198,6 +200,38 @@ public class PDFFilterList {
         }
     }
 
+    /**
+     * Sets the compression level and strategy of the Flate filters in this list that haven't
+     * been applied yet.
+     * @param compression the compression settings, null to keep the current settings
+     */
+    public void setFlateCompression(FlateCompression compression) {
+        if (compression == null) {
+            return;
+        }
+        for (PDFFilter filter : filters) {
+            if (filter instanceof FlateFilter && !filter.isApplied()) {
+                ((FlateFilter) filter).setCompression(compression);
+            }
+        }
+    }
+
+    /**
+     * Indicates whether this list holds a Flate filter that still has to be applied.
+     * @return true if the data will be compressed by a Flate filter
+     */
+    boolean hasFlateFilterToApply() {
+        if (disableAllFilters) {
+            return false;
+        }
+        for (PDFFilter filter : filters) {
+            if (filter instanceof FlateFilter && !filter.isApplied()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     List<PDFFilter> getFilters() {
         return Collections.unmodifiableList(filters);
     }
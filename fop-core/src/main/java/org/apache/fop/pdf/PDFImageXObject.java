@@ -174,6 +174,13 @@ public class PDFImageXObject extends PDFXObject {
         return pdfimage.getFilterHint();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected boolean supportsParallelEncoding() {
+        //with PDF/VT the image data is also needed for the GTS_XID entry
+        return !getDocumentSafely().getProfile().isPDFVTActive();
+    }
+
     /** {@inheritDoc} */
     protected boolean multipleFiltersAllowed() {
         return pdfimage.multipleFiltersAllowed();
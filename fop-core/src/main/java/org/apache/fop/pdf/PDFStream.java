@@ -44,6 +44,7 @@ public class PDFStream extends AbstractPDFStream {
 
     private transient Writer streamWriter;
     private transient char[] charBuffer;
+    private transient StreamCacheFactory streamCacheFactory;
 
     /**
      * Create an empty stream object
@@ -68,8 +69,13 @@ public class PDFStream extends AbstractPDFStream {
     }
 
     private void setUp() {
+        setUp(StreamCacheFactory.getInstance());
+    }
+
+    private void setUp(StreamCacheFactory factory) {
         try {
-            data = StreamCacheFactory.getInstance().createStreamCache();
+            data = factory.createStreamCache();
+            this.streamCacheFactory = factory;
             this.streamWriter = new OutputStreamWriter(
                     getBufferOutputStream(), PDFDocument.ENCODING);
             //Buffer to minimize calls to the converter
@@ -183,6 +189,32 @@ public class PDFStream extends AbstractPDFStream {
         data.outputContents(out);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected boolean supportsParallelEncoding() {
+        return true;
+    }
+
+    /**
+     * Switches to a cache of the document's stream cache factory, as long as no data has been
+     * added to the stream.
+     * {@inheritDoc}
+     */
+    @Override
+    public void setDocument(PDFDocument doc) {
+        super.setDocument(doc);
+        //data is null while the superclass is being constructed
+        if (doc != null && data != null && doc.getStreamCacheFactory() != streamCacheFactory
+                && getDataLength() == 0) {
+            try {
+                data.clear();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            setUp(doc.getStreamCacheFactory());
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -191,6 +223,10 @@ public class PDFStream extends AbstractPDFStream {
 
         //Now that the data has been written, it can be discarded.
 //        this.data = null;
+        if (streamCacheFactory.isPooled() && !getDocumentSafely().isLinearizationEnabled()) {
+            //return the buffers to the pool so they are reused for the following pages
+            data.clear();
+        }
         return len;
     }
 
@@ -21,6 +21,7 @@ package org.apache.fop.pdf;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Special PDFStream for embeddable TrueType fonts.
@@ -28,7 +29,7 @@ import java.io.OutputStream;
 public class PDFTTFStream extends AbstractPDFFontStream {
 
     private int origLength;
-    private byte[] ttfData;
+    private ByteBuffer ttfData;
 
     /**
      * Main constructor
@@ -42,7 +43,7 @@ public class PDFTTFStream extends AbstractPDFFontStream {
     /** {@inheritDoc} */
     protected int getSizeHint() throws IOException {
         if (this.ttfData != null) {
-            return ttfData.length;
+            return ttfData.remaining();
         } else {
             return 0; //no hint available
         }
@@ -66,7 +67,7 @@ public class PDFTTFStream extends AbstractPDFFontStream {
 
     /** {@inheritDoc} */
     protected void outputRawStreamData(OutputStream out) throws IOException {
-        out.write(this.ttfData);
+        writeFontData(this.ttfData, out);
     }
 
     /** {@inheritDoc} */
@@ -82,8 +83,17 @@ public class PDFTTFStream extends AbstractPDFFontStream {
      * @throws IOException in case of an I/O problem
      */
     public void setData(byte[] data, int size) throws IOException {
-        this.ttfData = new byte[size];
-        System.arraycopy(data, 0, this.ttfData, 0, size);
+        byte[] copy = new byte[size];
+        System.arraycopy(data, 0, copy, 0, size);
+        this.ttfData = ByteBuffer.wrap(copy);
+    }
+
+    /**
+     * Sets the TrueType font data without copying it, for example a memory-mapped font file.
+     * @param data the font payload, which must not be changed afterwards
+     */
+    public void setData(ByteBuffer data) {
+        this.ttfData = data;
     }
 
 }
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * StreamCache implementation that keeps the data off-heap in fixed size, direct buffers taken
+ * from a pool shared by all documents of the JVM. The buffers are returned to the pool when
+ * the cache is cleared, so they are reused for the streams of the following pages and
+ * documents. Once the pool has reached its maximum memory, further data is written to the
+ * {@link StreamCacheSpill} of the document.
+ */
+public class PooledStreamCache implements StreamCache {
+
+    private final StreamCacheBufferPool pool;
+
+    private final StreamCacheSpill spill;
+
+    /** The pooled buffers, registered with the pool in case the cache is never cleared */
+    private final List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+
+    /** The chunks written to the spill */
+    private final List<StreamCacheSpill.Chunk> spilledChunks
+            = new ArrayList<StreamCacheSpill.Chunk>();
+
+    private final OutputStream output = new SegmentOutputStream();
+
+    private boolean registered;
+
+    private ByteBuffer current;
+
+    /** The buffer collecting the data of the next chunk to be spilled */
+    private ByteBuffer spillBuffer;
+
+    private int size;
+
+    PooledStreamCache(StreamCacheBufferPool pool, StreamCacheSpill spill) {
+        this.pool = pool;
+        this.spill = spill;
+    }
+
+    /** {@inheritDoc} */
+    public OutputStream getOutputStream() throws IOException {
+        return output;
+    }
+
+    /** {@inheritDoc} */
+    public void write(byte[] data) throws IOException {
+        output.write(data);
+    }
+
+    /** {@inheritDoc} */
+    public int outputContents(OutputStream out) throws IOException {
+        byte[] chunk = null;
+        for (ByteBuffer segment : buffers) {
+            chunk = writeSegment(segment, out, chunk);
+        }
+        for (StreamCacheSpill.Chunk spilled : spilledChunks) {
+            spill.read(spilled, out);
+        }
+        if (spillBuffer != null) {
+            out.write(spillBuffer.array(), spillBuffer.arrayOffset(), spillBuffer.position());
+        }
+        return size;
+    }
+
+    private static byte[] writeSegment(ByteBuffer segment, OutputStream out, byte[] chunk)
+            throws IOException {
+        ByteBuffer src = (ByteBuffer) segment.duplicate().flip();
+        if (!src.hasRemaining()) {
+            return chunk;
+        }
+        byte[] buf = chunk;
+        if (buf == null) {
+            buf = new byte[StreamCacheBufferPool.SEGMENT_SIZE];
+        }
+        while (src.hasRemaining()) {
+            int len = Math.min(buf.length, src.remaining());
+            src.get(buf, 0, len);
+            out.write(buf, 0, len);
+        }
+        return buf;
+    }
+
+    /** {@inheritDoc} */
+    public int getSize() throws IOException {
+        return size;
+    }
+
+    /** {@inheritDoc} */
+    public void clear() throws IOException {
+        pool.release(buffers);
+        spill.release(spilledChunks);
+        spillBuffer = null;
+        current = null;
+        size = 0;
+    }
+
+    private void nextSegment() throws IOException {
+        if (spillBuffer == null) {
+            ByteBuffer buffer = pool.acquire();
+            if (buffer != null) {
+                if (!registered) {
+                    pool.register(this, buffers);
+                    registered = true;
+                }
+                buffers.add(buffer);
+                current = buffer;
+                return;
+            }
+            spillBuffer = ByteBuffer.allocate(StreamCacheBufferPool.SEGMENT_SIZE);
+        } else {
+            spilledChunks.add(spill.write(spillBuffer));
+            spillBuffer.clear();
+        }
+        current = spillBuffer;
+    }
+
+    private final class SegmentOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            if (current == null || !current.hasRemaining()) {
+                nextSegment();
+            }
+            current.put((byte) b);
+            size++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            int pos = off;
+            int remaining = len;
+            while (remaining > 0) {
+                if (current == null || !current.hasRemaining()) {
+                    nextSegment();
+                }
+                int n = Math.min(remaining, current.remaining());
+                current.put(b, pos, n);
+                pos += n;
+                remaining -= n;
+                size += n;
+            }
+        }
+    }
+}
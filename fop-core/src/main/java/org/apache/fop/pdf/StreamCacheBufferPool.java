@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of fixed size, direct buffers used by {@link PooledStreamCache}. The pool is shared by
+ * all documents of the JVM and allocates at most a fixed amount of memory, which can be set
+ * with the system property {@value #MAX_MEMORY_PROPERTY} (in bytes, 64 MB by default).
+ * Buffers are returned to the pool when a cache is cleared, or when a cache that was never
+ * cleared has been garbage collected.
+ */
+final class StreamCacheBufferPool {
+
+    /** The system property setting the maximum memory of the shared pool (in bytes) */
+    static final String MAX_MEMORY_PROPERTY = "org.apache.fop.pdf.stream-cache.max-memory";
+
+    /** The size of a buffer of the pool */
+    static final int SEGMENT_SIZE = 8192;
+
+    private static final long DEFAULT_MAX_MEMORY = 64L * 1024 * 1024;
+
+    private static final StreamCacheBufferPool INSTANCE = new StreamCacheBufferPool(
+            Long.getLong(MAX_MEMORY_PROPERTY, DEFAULT_MAX_MEMORY));
+
+    private final long maxMemory;
+
+    private final AtomicLong allocatedMemory = new AtomicLong();
+
+    private final Queue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<ByteBuffer>();
+
+    private final ReferenceQueue<Object> collectedOwners = new ReferenceQueue<Object>();
+
+    /** Keeps the references reachable until their owners have been collected */
+    private final Set<OwnerReference> owners
+            = Collections.newSetFromMap(new ConcurrentHashMap<OwnerReference, Boolean>());
+
+    StreamCacheBufferPool(long maxMemory) {
+        this.maxMemory = maxMemory;
+    }
+
+    /** @return the pool shared by all documents of the JVM */
+    static StreamCacheBufferPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the list holding the buffers of a cache, so the buffers are returned to the
+     * pool if the cache is garbage collected without having been cleared.
+     * @param owner the cache
+     * @param buffers the list of buffers of the cache
+     */
+    void register(Object owner, List<ByteBuffer> buffers) {
+        owners.add(new OwnerReference(owner, collectedOwners, buffers));
+    }
+
+    /**
+     * Takes a buffer from the pool, allocating a new one if the pool is empty and the maximum
+     * memory hasn't been reached.
+     * @return an empty buffer of {@link #SEGMENT_SIZE} bytes, null if the maximum memory has
+     * been reached
+     */
+    ByteBuffer acquire() {
+        reclaimCollectedBuffers();
+        ByteBuffer buffer = freeBuffers.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        while (true) {
+            long allocated = allocatedMemory.get();
+            if (allocated + SEGMENT_SIZE > maxMemory) {
+                return null;
+            }
+            if (allocatedMemory.compareAndSet(allocated, allocated + SEGMENT_SIZE)) {
+                return ByteBuffer.allocateDirect(SEGMENT_SIZE);
+            }
+        }
+    }
+
+    /**
+     * Returns buffers to the pool and empties the given list.
+     * @param buffers the buffers to return
+     */
+    void release(List<ByteBuffer> buffers) {
+        for (ByteBuffer buffer : buffers) {
+            buffer.clear();
+            freeBuffers.offer(buffer);
+        }
+        buffers.clear();
+    }
+
+    /** @return the memory allocated by the pool, in use or not */
+    long getAllocatedMemory() {
+        return allocatedMemory.get();
+    }
+
+    /** @return the number of buffers that are ready to be reused */
+    int getFreeBufferCount() {
+        return freeBuffers.size();
+    }
+
+    private void reclaimCollectedBuffers() {
+        Reference<?> ref;
+        while ((ref = collectedOwners.poll()) != null) {
+            OwnerReference ownerRef = (OwnerReference) ref;
+            owners.remove(ownerRef);
+            release(ownerRef.buffers);
+        }
+    }
+
+    private static final class OwnerReference extends PhantomReference<Object> {
+
+        private final List<ByteBuffer> buffers;
+
+        OwnerReference(Object owner, ReferenceQueue<Object> queue, List<ByteBuffer> buffers) {
+            super(owner, queue);
+            this.buffers = buffers;
+        }
+    }
+}
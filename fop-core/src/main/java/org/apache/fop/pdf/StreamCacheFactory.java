@@ -21,12 +21,17 @@ package org.apache.fop.pdf;
 
 import java.io.IOException;
 
+import org.apache.fop.apps.io.InternalResourceResolver;
+
 /**
  * This class is serves as a factory from
  */
 public final class StreamCacheFactory {
 
-    private static StreamCacheFactory memoryInstance = new StreamCacheFactory();
+    private static StreamCacheFactory memoryInstance = new StreamCacheFactory(null);
+
+    /** The spill of the pooled caches, null if the caches are not pooled */
+    private final StreamCacheSpill spill;
 
     /**
      * Returns an instance of a StreamCacheFactory with the requested features.
@@ -36,11 +41,42 @@ public final class StreamCacheFactory {
         return memoryInstance;
     }
 
+    /**
+     * Creates a StreamCacheFactory for a single document, creating {@link PooledStreamCache}s
+     * which keep their data in direct buffers that are reused across pages and documents.
+     * Data not fitting into the buffers is written to temporary resources which are deleted
+     * when the factory is closed.
+     * @param resourceResolver the resolver providing the temporary resources
+     * @return StreamCacheFactory the pooled factory
+     */
+    public static StreamCacheFactory newPooledInstance(InternalResourceResolver resourceResolver) {
+        return new StreamCacheFactory(new StreamCacheSpill(resourceResolver));
+    }
+
     /**
      * Creates a new StreamCacheFactory.
-     * @param cacheToFile True if file shall be cached using a temporary file
+     * @param spill the spill of the pooled caches, null if the caches are not pooled
+     */
+    private StreamCacheFactory(StreamCacheSpill spill) {
+        this.spill = spill;
+    }
+
+    /**
+     * Indicates whether the caches created by this factory are pooled.
+     * @return true if this factory creates {@link PooledStreamCache}s
+     */
+    public boolean isPooled() {
+        return spill != null;
+    }
+
+    /**
+     * Deletes the temporary resources holding the data of the pooled caches. The caches
+     * created by this factory must not be used anymore afterwards.
      */
-    private StreamCacheFactory() {
+    public void close() {
+        if (spill != null) {
+            spill.close();
+        }
     }
 
     /**
@@ -50,6 +86,9 @@ public final class StreamCacheFactory {
      * @return a new StreamCache for caching streams
      */
     public StreamCache createStreamCache() throws IOException {
+        if (spill != null) {
+            return new PooledStreamCache(StreamCacheBufferPool.getInstance(), spill);
+        }
         return new InMemoryStreamCache();
     }
 
@@ -61,6 +100,9 @@ public final class StreamCacheFactory {
      * @return a new StreamCache for caching streams
      */
     public StreamCache createStreamCache(int hintSize) throws IOException {
+        if (spill != null) {
+            return new PooledStreamCache(StreamCacheBufferPool.getInstance(), spill);
+        }
         return new InMemoryStreamCache(hintSize);
     }
 }
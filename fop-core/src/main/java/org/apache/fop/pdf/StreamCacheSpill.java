@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+
+import org.apache.xmlgraphics.io.TempResourceURIGenerator;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+
+/**
+ * Holds the data of the {@link PooledStreamCache}s of a document that didn't fit into the
+ * buffer pool. The data is appended in chunks to segments of about {@link #SEGMENT_SIZE} bytes
+ * which are temporary resources obtained from the resource resolver. A segment is read back in
+ * one go when the first of its chunks is needed, and released once all of its chunks have been
+ * released. The caches of a document may be encoded concurrently, so all methods are
+ * synchronized.
+ */
+final class StreamCacheSpill implements Closeable {
+
+    /** The size after which a new segment is started */
+    private static final int SEGMENT_SIZE = 1024 * 1024;
+
+    private static final TempResourceURIGenerator TEMP_URI_GENERATOR
+            = new TempResourceURIGenerator("stream-cache");
+
+    private final InternalResourceResolver resourceResolver;
+
+    /** Base URI of the temporary resources */
+    private final URI tempBaseURI;
+
+    private final List<Segment> segments = new ArrayList<Segment>();
+
+    /** The segment chunks are currently appended to */
+    private Segment current;
+
+    private boolean closed;
+
+    /**
+     * Creates a new spill.
+     * @param resourceResolver the resolver providing the temporary resources
+     */
+    StreamCacheSpill(InternalResourceResolver resourceResolver) {
+        this.resourceResolver = resourceResolver;
+        this.tempBaseURI = TEMP_URI_GENERATOR.generate();
+    }
+
+    /**
+     * Appends the content of a buffer, from its start to its position, to the spill.
+     * @param buffer the buffer
+     * @return the chunk holding the data
+     * @throws IOException if an I/O error occurs
+     */
+    synchronized Chunk write(ByteBuffer buffer) throws IOException {
+        checkOpen();
+        if (current == null || current.size >= SEGMENT_SIZE) {
+            closeCurrent();
+            URI uri = URI.create(tempBaseURI + "/fop-streams-" + segments.size() + ".bin");
+            current = new Segment(uri);
+            current.out = new BufferedOutputStream(resourceResolver.getOutputStream(uri));
+            segments.add(current);
+        }
+        int length = buffer.position();
+        try {
+            current.out.write(buffer.array(), buffer.arrayOffset(), length);
+        } catch (IOException e) {
+            // the chunks already in the segment remain readable
+            Segment segment = current;
+            current = null;
+            IOUtils.closeQuietly(segment.out);
+            segment.out = null;
+            throw e;
+        }
+        Chunk chunk = new Chunk(current, current.size, length);
+        current.size += length;
+        current.chunkCount++;
+        return chunk;
+    }
+
+    /**
+     * Writes the data of a chunk to a stream.
+     * @param chunk the chunk
+     * @param out the stream
+     * @throws IOException if an I/O error occurs
+     */
+    synchronized void read(Chunk chunk, OutputStream out) throws IOException {
+        checkOpen();
+        Segment segment = chunk.segment;
+        if (segment.data == null) {
+            if (segment == current) {
+                closeCurrent();
+            }
+            segment.loaded = true;
+            segment.data = new byte[segment.size];
+            InputStream in = resourceResolver.getResource(segment.uri);
+            try {
+                IOUtils.readFully(in, segment.data);
+            } finally {
+                // the resolver deletes the temporary resource once it has been read
+                IOUtils.closeQuietly(in);
+            }
+        }
+        out.write(segment.data, chunk.offset, chunk.length);
+    }
+
+    /**
+     * Releases chunks that are not needed anymore, and empties the given list.
+     * @param chunks the chunks
+     */
+    synchronized void release(List<Chunk> chunks) {
+        for (Chunk chunk : chunks) {
+            if (--chunk.segment.chunkCount == 0) {
+                chunk.segment.data = null;
+            }
+        }
+        chunks.clear();
+    }
+
+    private void closeCurrent() throws IOException {
+        if (current != null) {
+            Segment segment = current;
+            current = null;
+            segment.out.close();
+            segment.out = null;
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("The stream cache spill has already been closed");
+        }
+    }
+
+    /**
+     * Closes the spill and deletes the temporary resources that have not been read.
+     */
+    public synchronized void close() {
+        closed = true;
+        for (Segment segment : segments) {
+            IOUtils.closeQuietly(segment.out);
+            segment.data = null;
+            if (!segment.loaded) {
+                // the temporary resource is only deleted once it has been opened for reading
+                try {
+                    IOUtils.closeQuietly(resourceResolver.getResource(segment.uri));
+                } catch (IOException e) {
+                    // ignore, the resource may already be gone
+                }
+            }
+        }
+        segments.clear();
+        current = null;
+    }
+
+    /** A temporary resource holding the chunks of several caches */
+    private static final class Segment {
+
+        private final URI uri;
+        private OutputStream out;
+        private int size;
+        private int chunkCount;
+        private byte[] data;
+        private boolean loaded;
+
+        private Segment(URI uri) {
+            this.uri = uri;
+        }
+    }
+
+    /** The location of a part of the data of a cache */
+    static final class Chunk {
+
+        private final Segment segment;
+        private final int offset;
+        private final int length;
+
+        private Chunk(Segment segment, int offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
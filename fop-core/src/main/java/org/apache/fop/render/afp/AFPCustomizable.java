@@ -159,6 +159,14 @@ public interface AFPCustomizable {
      */
     void setDefaultResourceGroupUri(URI uri);
 
+    /**
+     * Sets whether the pages are written to the output as soon as they are complete instead of
+     * at the end of the document. Print-file level resources that are created after the first
+     * page then go to the default external resource group.
+     * @param streamPages true to stream the pages
+     */
+    void setStreamPages(boolean streamPages);
+
     /**
      * Sets the resource level defaults. The object passed in provides information which resource
      * level shall be used by default for various kinds of resources.
@@ -313,6 +313,7 @@ public class AFPDocumentHandler extends AbstractBinaryWritingIFDocumentHandler
             }
 
             dataStream.endPage();
+            resourceManager.endPage();
         } catch (IOException ioe) {
             throw new IFException("I/O error in endPage()", ioe);
         }
@@ -570,6 +571,11 @@ public class AFPDocumentHandler extends AbstractBinaryWritingIFDocumentHandler
         resourceManager.setDefaultResourceGroupUri(uri);
     }
 
+    /** {@inheritDoc} */
+    public void setStreamPages(boolean streamPages) {
+        resourceManager.setStreamPages(streamPages);
+    }
+
     /** {@inheritDoc} */
     public void setResourceLevelDefaults(AFPResourceLevelDefaults defaults) {
         resourceManager.setResourceLevelDefaults(defaults);
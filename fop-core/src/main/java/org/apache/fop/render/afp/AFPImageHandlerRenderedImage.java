@@ -22,10 +22,13 @@ package org.apache.fop.render.afp;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Rectangle;
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_ColorSpace;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
 import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
 import java.awt.image.MultiPixelPackedSampleModel;
 import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
@@ -33,6 +36,8 @@ import java.awt.image.SampleModel;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -49,6 +54,7 @@ import org.apache.xmlgraphics.ps.ImageEncodingHelper;
 import org.apache.xmlgraphics.util.MimeConstants;
 import org.apache.xmlgraphics.util.UnitConv;
 
+import org.apache.fop.afp.AFPDataObjectCache;
 import org.apache.fop.afp.AFPDataObjectInfo;
 import org.apache.fop.afp.AFPImageObjectInfo;
 import org.apache.fop.afp.AFPObjectAreaInfo;
@@ -133,14 +139,26 @@ public class AFPImageHandlerRenderedImage extends AFPImageHandler implements Ima
         boolean included = afpContext.getResourceManager().tryIncludeObject(imageObjectInfo);
         if (!included) {
             long start = System.currentTimeMillis();
-            RenderedImage ri = imageRend.getRenderedImage();
-            if (ri.getColorModel().hasAlpha()) {
-                byte[] maskImage = buildMaskImage((BufferedImage) ri, afpContext.getPaintingState());
-                imageObjectInfo.setTransparencyMask(maskImage);
+            //an identical image may have been encoded for another document
+            AFPDataObjectCache cache = getDataObjectCache(afpContext);
+            String cacheKey = null;
+            if (cache != null) {
+                cacheKey = encoder.createCacheKey(paintingState);
             }
+            if (cacheKey == null || !cache.restore(cacheKey, imageObjectInfo)) {
+                RenderedImage ri = imageRend.getRenderedImage();
+                if (ri.getColorModel().hasAlpha()) {
+                    byte[] maskImage = buildMaskImage((BufferedImage) ri,
+                            afpContext.getPaintingState());
+                    imageObjectInfo.setTransparencyMask(maskImage);
+                }
 
-            //encode only if the same image has not been encoded, yet
-            encoder.encodeImage(imageObjectInfo, paintingState);
+                //encode only if the same image has not been encoded, yet
+                encoder.encodeImage(imageObjectInfo, paintingState);
+                if (cacheKey != null) {
+                    cache.store(cacheKey, imageObjectInfo);
+                }
+            }
             if (log.isDebugEnabled()) {
                 long duration = System.currentTimeMillis() - start;
                 log.debug("Image encoding took " + duration + "ms.");
@@ -151,6 +169,14 @@ public class AFPImageHandlerRenderedImage extends AFPImageHandler implements Ima
         }
     }
 
+    private AFPDataObjectCache getDataObjectCache(AFPRenderingContext afpContext) {
+        if (afpContext.getUserAgent() == null) {
+            return null;
+        }
+        AFPDataObjectCache cache = afpContext.getUserAgent().getAFPDataObjectCache();
+        return cache.isEnabled() ? cache : null;
+    }
+
     private byte[] buildMaskImage(BufferedImage image, AFPPaintingState paintingState) {
         if (!paintingState.isMaskEnabled()) {
             return null;
@@ -273,6 +299,109 @@ public class AFPImageHandlerRenderedImage extends AFPImageHandler implements Ima
             objectAreaInfo.setHeightRes(resolution);
         }
 
+        /**
+         * Computes the key of the encoded image in the {@link AFPDataObjectCache} from the
+         * pixels of the image and the settings used to encode it.
+         * @param paintingState the painting state
+         * @return the cache key
+         */
+        private String createCacheKey(AFPPaintingState paintingState) {
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (Exception e) {
+                throw new RuntimeException("Internal error", e);
+            }
+            RenderedImage renderedImage = imageRendered.getRenderedImage();
+            StringBuilder settings = new StringBuilder();
+            settings.append(useFS10).append(',').append(usePageSegments)
+                    .append(',').append(resample).append(',').append(resampledDim)
+                    .append(',').append(paintingState.getBitsPerPixel())
+                    .append(',').append(paintingState.isColorImages())
+                    .append(',').append(paintingState.isCMYKImagesSupported())
+                    .append(',').append(paintingState.getResolution())
+                    .append(',').append(paintingState.getDitheringQuality())
+                    .append(',').append(paintingState.isUseIocaImages())
+                    .append(',').append(paintingState.canEmbedJpeg())
+                    .append(',').append(paintingState.getBitmapEncodingQuality())
+                    .append(',').append(paintingState.getFS45())
+                    .append(',').append(paintingState.getWrapPSeg())
+                    .append(',').append(paintingState.isMaskEnabled())
+                    .append(',').append(renderedImage.getWidth())
+                    .append(',').append(renderedImage.getHeight());
+            describeColorModel(renderedImage.getColorModel(), settings);
+            try {
+                digest.update(settings.toString().getBytes("UTF-8"));
+            } catch (IOException e) {
+                throw new RuntimeException("Internal error", e);
+            }
+            ColorSpace cs = renderedImage.getColorModel().getColorSpace();
+            if (cs instanceof ICC_ColorSpace) {
+                digest.update(((ICC_ColorSpace) cs).getProfile().getData());
+            }
+            digestPixels(renderedImage, digest);
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        }
+
+        private static void describeColorModel(ColorModel cm, StringBuilder settings) {
+            settings.append(',').append(cm.getClass().getName())
+                    .append(',').append(cm.getPixelSize())
+                    .append(',').append(cm.getTransparency())
+                    .append(',').append(cm.isAlphaPremultiplied())
+                    .append(',').append(cm.getColorSpace().getType());
+            for (int i = 0; i < cm.getNumComponents(); i++) {
+                settings.append(',').append(cm.getComponentSize(i));
+            }
+            if (cm instanceof IndexColorModel) {
+                IndexColorModel icm = (IndexColorModel) cm;
+                int[] rgbs = new int[icm.getMapSize()];
+                icm.getRGBs(rgbs);
+                for (int rgb : rgbs) {
+                    settings.append(',').append(Integer.toHexString(rgb));
+                }
+            }
+        }
+
+        /** Digests the pixels of the image, one row of every tile at a time */
+        private static void digestPixels(RenderedImage image, MessageDigest digest) {
+            Rectangle bounds = new Rectangle(image.getMinX(), image.getMinY(),
+                    image.getWidth(), image.getHeight());
+            for (int ty = 0; ty < image.getNumYTiles(); ty++) {
+                for (int tx = 0; tx < image.getNumXTiles(); tx++) {
+                    Raster tile = image.getTile(image.getMinTileX() + tx,
+                            image.getMinTileY() + ty);
+                    Rectangle r = tile.getBounds().intersection(bounds);
+                    if (r.isEmpty()) {
+                        continue;
+                    }
+                    int length = r.width * tile.getNumDataElements();
+                    int size = length * DataBuffer.getDataTypeSize(tile.getTransferType()) / 8;
+                    ByteBuffer buffer = ByteBuffer.allocate(size);
+                    Object row = null;
+                    for (int y = r.y; y < r.y + r.height; y++) {
+                        row = tile.getDataElements(r.x, y, r.width, 1, row);
+                        buffer.clear();
+                        if (row instanceof byte[]) {
+                            buffer.put((byte[]) row, 0, length);
+                        } else if (row instanceof short[]) {
+                            buffer.asShortBuffer().put((short[]) row, 0, length);
+                        } else if (row instanceof int[]) {
+                            buffer.asIntBuffer().put((int[]) row, 0, length);
+                        } else if (row instanceof float[]) {
+                            buffer.asFloatBuffer().put((float[]) row, 0, length);
+                        } else {
+                            buffer.asDoubleBuffer().put((double[]) row, 0, length);
+                        }
+                        digest.update(buffer.array(), 0, size);
+                    }
+                }
+            }
+        }
+
         private AFPDataObjectInfo encodeImage(
             AFPImageObjectInfo imageObjectInfo,
              AFPPaintingState paintingState)
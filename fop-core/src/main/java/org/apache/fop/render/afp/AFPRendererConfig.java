@@ -65,6 +65,7 @@ import static org.apache.fop.render.afp.AFPRendererOption.LINE_WIDTH_CORRECTION;
 import static org.apache.fop.render.afp.AFPRendererOption.RENDERER_RESOLUTION;
 import static org.apache.fop.render.afp.AFPRendererOption.RESOURCE_GROUP_URI;
 import static org.apache.fop.render.afp.AFPRendererOption.SHADING;
+import static org.apache.fop.render.afp.AFPRendererOption.STREAM_PAGES;
 
 /**
  * The AFP renderer config object.
@@ -161,6 +162,10 @@ public final class AFPRendererConfig implements RendererConfig {
         return getParam(RESOURCE_GROUP_URI, URI.class);
     }
 
+    public Boolean isStreamPages() {
+        return getParam(STREAM_PAGES, Boolean.class);
+    }
+
     public AFPResourceLevelDefaults getResourceLevelDefaults() {
         return getParam(DEFAULT_RESOURCE_LEVELS, AFPResourceLevelDefaults.class);
     }
@@ -287,6 +292,7 @@ public final class AFPRendererConfig implements RendererConfig {
             //TODO remove
             createResourceGroupFile();
             createResourceLevel();
+            setParam(STREAM_PAGES, cfg.getChild(STREAM_PAGES.getName()).getValueAsBoolean(false));
         }
 
         private void setParam(AFPRendererOption option, Object value) {
@@ -123,6 +123,9 @@ public class AFPRendererConfigurator extends PrintRendererConfigurator {
         if (config.getDefaultResourceGroupUri() != null) {
             documentHandler.setDefaultResourceGroupUri(config.getDefaultResourceGroupUri());
         }
+        if (config.isStreamPages() != null) {
+            documentHandler.setStreamPages(config.isStreamPages());
+        }
         AFPResourceLevelDefaults resourceLevelDefaults = config.getResourceLevelDefaults();
         if (resourceLevelDefaults != null) {
             documentHandler.setResourceLevelDefaults(resourceLevelDefaults);
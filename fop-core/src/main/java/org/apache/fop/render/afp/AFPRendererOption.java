@@ -41,6 +41,7 @@ public enum AFPRendererOption implements RendererConfigOption {
     JPEG_USE_IOCA_IMAGES("use-ioca-images", Boolean.class),
     RENDERER_RESOLUTION("renderer-resolution", Integer.class),
     RESOURCE_GROUP_URI("resource-group-file", URI.class),
+    STREAM_PAGES("stream-pages", Boolean.class),
     SHADING("shading", AFPShadingMode.class),
     LINE_WIDTH_CORRECTION("line-width-correction", Float.class),
     GOCA("goca", Boolean.class),
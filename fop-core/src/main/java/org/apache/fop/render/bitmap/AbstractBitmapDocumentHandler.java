@@ -24,9 +24,15 @@ import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.LinkedList;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
@@ -45,6 +51,7 @@ import org.apache.fop.render.intermediate.IFException;
 import org.apache.fop.render.intermediate.IFPainter;
 import org.apache.fop.render.java2d.Java2DPainter;
 import org.apache.fop.render.java2d.Java2DUtil;
+import org.apache.fop.util.WorkerThreadFactory;
 
 /**
  * Abstract {@link org.apache.fop.render.intermediate.IFDocumentHandler} implementation
@@ -72,6 +79,14 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
     private Dimension currentPageDimensions;
     private BufferedImage currentImage;
 
+    /** Paints the pages if they are painted on several threads */
+    private ThreadPoolExecutor paintingExecutor;
+    /** The pages being painted or waiting to be encoded, in page order */
+    private final LinkedList<Future<RenderedImage>> pendingPages
+            = new LinkedList<Future<RenderedImage>>();
+    private PageGeometry currentPageGeometry;
+    private RecordingPainter currentRecording;
+
     private BitmapRenderingSettings bitmapSettings = new BitmapRenderingSettings();
 
     private double scaleFactor = 1.0;
@@ -153,6 +168,11 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
                         getUserAgent().getOutputFile());
             }
             this.pageCount = 0;
+            int threads = getSettings().getRenderingThreads();
+            if (threads > 0) {
+                this.paintingExecutor = WorkerThreadFactory.newExecutor("FOP page painting",
+                        threads);
+            }
         } catch (IOException e) {
             throw new IFException("I/O error in startDocument()", e);
         }
@@ -165,6 +185,9 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
     /** {@inheritDoc} */
     public void endDocument() throws IFException {
         try {
+            while (!pendingPages.isEmpty()) {
+                finishFirstPage();
+            }
             if (this.multiImageWriter != null) {
                 this.multiImageWriter.close();
             }
@@ -172,6 +195,9 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
             this.imageWriter = null;
         } catch (IOException ioe) {
             throw new IFException("I/O error in endDocument()", ioe);
+        } finally {
+            WorkerThreadFactory.shutdown(paintingExecutor, true);
+            paintingExecutor = null;
         }
         super.endDocument();
     }
@@ -195,6 +221,28 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
 
     /** {@inheritDoc} */
     public IFPainter startPageContent() throws IFException {
+        PageGeometry geometry = computePageGeometry();
+        if (paintingExecutor != null || isPaintedInBands(geometry)) {
+            this.currentPageGeometry = geometry;
+            this.currentRecording = new RecordingPainter(getContext(), getFontInfo());
+            return this.currentRecording;
+        }
+
+        //Set up bitmap to paint on
+        if (currentImage == null || currentImage.getWidth() != geometry.bitmapWidth
+                || currentImage.getHeight() != geometry.bitmapHeight) {
+            currentImage = createBufferedImage(geometry.bitmapWidth, geometry.bitmapHeight);
+        }
+        Graphics2D graphics2D = createGraphics(this.currentImage, geometry, 0);
+        return new Java2DPainter(graphics2D, getContext(), getFontInfo(), this);
+    }
+
+    private boolean isPaintedInBands(PageGeometry geometry) {
+        int bandHeight = getSettings().getBandHeight();
+        return bandHeight > 0 && bandHeight < geometry.bitmapHeight;
+    }
+
+    private PageGeometry computePageGeometry() {
         int bitmapWidth;
         int bitmapHeight;
         double scale;
@@ -227,26 +275,31 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
             bitmapWidth = (int) ((this.currentPageDimensions.width * scale / 1000f) + 0.5f);
             bitmapHeight = (int) ((this.currentPageDimensions.height * scale / 1000f) + 0.5f);
         }
+        return new PageGeometry(bitmapWidth, bitmapHeight, scale, offset);
+    }
 
-        //Set up bitmap to paint on
-        if (currentImage == null || currentImage.getWidth() != bitmapWidth
-                || currentImage.getHeight() != bitmapHeight) {
-            currentImage = createBufferedImage(bitmapWidth, bitmapHeight);
-        }
-        Graphics2D graphics2D = this.currentImage.createGraphics();
+    /**
+     * Creates the graphics painting a page, or a horizontal band of a page, on an image.
+     * @param image the image
+     * @param geometry the geometry of the page
+     * @param bandY the vertical position of the image in the page
+     * @return the graphics
+     */
+    private Graphics2D createGraphics(BufferedImage image, PageGeometry geometry, int bandY) {
+        Graphics2D graphics2D = image.createGraphics();
 
         // draw page background
         if (!getSettings().hasTransparentPageBackground()) {
             graphics2D.setBackground(getSettings().getPageBackgroundColor());
             graphics2D.setPaint(getSettings().getPageBackgroundColor());
-            graphics2D.fillRect(0, 0, bitmapWidth, bitmapHeight);
+            graphics2D.fillRect(0, 0, image.getWidth(), image.getHeight());
         }
 
         //Set rendering hints
         graphics2D.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS,
                 RenderingHints.VALUE_FRACTIONALMETRICS_ON);
         if (getSettings().isAntiAliasingEnabled()
-                && this.currentImage.getColorModel().getPixelSize() > 1) {
+                && image.getColorModel().getPixelSize() > 1) {
             graphics2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
                     RenderingHints.VALUE_ANTIALIAS_ON);
             graphics2D.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
@@ -268,12 +321,16 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
                 RenderingHints.VALUE_STROKE_PURE);
 
         //Set up initial coordinate system for the page
-        if (offset != null) {
-            graphics2D.translate(offset.getX(), offset.getY());
+        if (bandY != 0) {
+            //The bounds of the band clip the painting, an explicit clip would change the
+            //way Batik paints SVG images
+            graphics2D.translate(0, -bandY);
         }
-        graphics2D.scale(scale / 1000f, scale / 1000f);
-
-        return new Java2DPainter(graphics2D, getContext(), getFontInfo(), this);
+        if (geometry.offset != null) {
+            graphics2D.translate(geometry.offset.getX(), geometry.offset.getY());
+        }
+        graphics2D.scale(geometry.scale / 1000f, geometry.scale / 1000f);
+        return graphics2D;
     }
 
     /**
@@ -288,37 +345,132 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
 
     /** {@inheritDoc} */
     public void endPageContent() throws IFException {
+        if (paintingExecutor != null) {
+            while (pendingPages.size() >= getSettings().getMaxRastersInFlight()) {
+                finishFirstPage();
+            }
+            pendingPages.add(paintingExecutor.submit(new PagePainting(currentPageGeometry,
+                    currentRecording, this.pageCount, getContext().getPageNumber())));
+            this.currentPageGeometry = null;
+            this.currentRecording = null;
+            return;
+        }
         try {
-            if (this.multiImageWriter == null) {
-                switch (this.pageCount) {
-                case 1:
-                    this.imageWriter.writeImage(
-                            this.currentImage, this.outputStream,
-                            getSettings().getWriterParams());
-                    IOUtils.closeQuietly(this.outputStream);
-                    this.outputStream = null;
-                    break;
-                default:
-                    OutputStream out = this.multiFileUtil.createOutputStream(this.pageCount - 1);
-                    if (out == null) {
-                        BitmapRendererEventProducer eventProducer
-                            = BitmapRendererEventProducer.Provider.get(
-                                    getUserAgent().getEventBroadcaster());
-                        eventProducer.stoppingAfterFirstPageNoFilename(this);
-                    } else {
-                        try {
-                            this.imageWriter.writeImage(
-                                    this.currentImage, out,
-                                    getSettings().getWriterParams());
-                        } finally {
-                            IOUtils.closeQuietly(out);
-                        }
-                    }
-                }
+            if (currentRecording != null) {
+                RenderedImage image = paintPage(currentPageGeometry, currentRecording,
+                        getContext().getPageNumber());
+                this.currentPageGeometry = null;
+                this.currentRecording = null;
+                writeImage(image, this.pageCount);
             } else {
-                this.multiImageWriter.writeImage(this.currentImage,
+                writeImage(this.currentImage, this.pageCount);
+            }
+        } catch (IOException ioe) {
+            throw new IFException("I/O error while encoding BufferedImage", ioe);
+        }
+    }
+
+    /**
+     * Paints a recorded page. If the page is painted in bands, the bands are painted while
+     * the returned image is encoded.
+     * @param geometry the geometry of the page
+     * @param recording the painting calls of the page
+     * @param pageNumber the page number
+     * @return the image of the page
+     */
+    private RenderedImage paintPage(final PageGeometry geometry,
+            final RecordingPainter recording, final int pageNumber) throws IFException {
+        if (!isPaintedInBands(geometry)) {
+            return paint(geometry, recording, pageNumber, 0, geometry.bitmapHeight);
+        }
+        BufferedImage firstBand = paint(geometry, recording, pageNumber, 0,
+                getSettings().getBandHeight());
+        return new BandedRenderedImage(geometry.bitmapWidth, geometry.bitmapHeight, firstBand) {
+            protected BufferedImage paintBand(int y) {
+                try {
+                    return paint(geometry, recording, pageNumber, y, getTileHeight());
+                } catch (IFException e) {
+                    throw new RuntimeException("Error while painting a band of page "
+                            + pageNumber, e);
+                }
+            }
+        };
+    }
+
+    private BufferedImage paint(PageGeometry geometry, RecordingPainter recording,
+            int pageNumber, int y, int height) throws IFException {
+        BufferedImage image = createBufferedImage(geometry.bitmapWidth, height);
+        Graphics2D graphics2D = createGraphics(image, geometry, y);
+        IFContext paintingContext = new IFContext(getUserAgent());
+        paintingContext.setPageNumber(pageNumber);
+        try {
+            recording.replay(new Java2DPainter(graphics2D, paintingContext, getFontInfo(), this),
+                    paintingContext);
+        } finally {
+            graphics2D.dispose();
+        }
+        return image;
+    }
+
+    private void writeImage(RenderedImage image, int pageNumber) throws IOException {
+        if (this.multiImageWriter == null) {
+            switch (pageNumber) {
+            case 1:
+                this.imageWriter.writeImage(
+                        image, this.outputStream,
                         getSettings().getWriterParams());
+                IOUtils.closeQuietly(this.outputStream);
+                this.outputStream = null;
+                break;
+            default:
+                OutputStream out = this.multiFileUtil.createOutputStream(pageNumber - 1);
+                if (out == null) {
+                    BitmapRendererEventProducer eventProducer
+                        = BitmapRendererEventProducer.Provider.get(
+                                getUserAgent().getEventBroadcaster());
+                    eventProducer.stoppingAfterFirstPageNoFilename(this);
+                } else {
+                    try {
+                        this.imageWriter.writeImage(
+                                image, out,
+                                getSettings().getWriterParams());
+                    } finally {
+                        IOUtils.closeQuietly(out);
+                    }
+                }
+            }
+        } else {
+            this.multiImageWriter.writeImage(image,
+                    getSettings().getWriterParams());
+        }
+    }
+
+    /**
+     * Waits until the first pending page has been painted and encodes it if the pages go to
+     * a single file.
+     */
+    private void finishFirstPage() throws IFException {
+        Future<RenderedImage> first = pendingPages.removeFirst();
+        try {
+            RenderedImage image = first.get();
+            if (image != null) {
+                this.multiImageWriter.writeImage(image, getSettings().getWriterParams());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IFException("Interrupted while painting a page", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IFException) {
+                throw (IFException) cause;
+            } else if (cause instanceof IOException) {
+                throw new IFException("I/O error while encoding BufferedImage", (IOException) cause);
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
             }
+            throw new IFException("Error while painting a page", (Exception) cause);
         } catch (IOException ioe) {
             throw new IFException("I/O error while encoding BufferedImage", ioe);
         }
@@ -335,4 +487,48 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
                     + extension + " (" + extension.getClass().getName() + ")");
     }
 
+    private static final class PageGeometry {
+
+        private final int bitmapWidth;
+        private final int bitmapHeight;
+        private final double scale;
+        private final Point2D offset;
+
+        PageGeometry(int bitmapWidth, int bitmapHeight, double scale, Point2D offset) {
+            this.bitmapWidth = bitmapWidth;
+            this.bitmapHeight = bitmapHeight;
+            this.scale = scale;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * Paints a recorded page into a bitmap of its own. The bitmap is encoded right away if
+     * every page goes to a file of its own, otherwise it is returned to be encoded in order.
+     * A page painted in bands is only painted while it is encoded.
+     */
+    private final class PagePainting implements Callable<RenderedImage> {
+
+        private final PageGeometry geometry;
+        private final RecordingPainter recording;
+        private final int pageCount;
+        private final int pageNumber;
+
+        PagePainting(PageGeometry geometry, RecordingPainter recording, int pageCount,
+                int pageNumber) {
+            this.geometry = geometry;
+            this.recording = recording;
+            this.pageCount = pageCount;
+            this.pageNumber = pageNumber;
+        }
+
+        public RenderedImage call() throws IFException, IOException {
+            RenderedImage image = paintPage(geometry, recording, pageNumber);
+            if (multiImageWriter == null) {
+                writeImage(image, pageCount);
+                return null;
+            }
+            return image;
+        }
+    }
 }
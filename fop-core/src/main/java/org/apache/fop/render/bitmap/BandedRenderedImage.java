@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.bitmap;
+
+import java.awt.Image;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Vector;
+
+/**
+ * {@link RenderedImage} made of horizontal bands that are painted when their pixels are
+ * requested. Image writers fetch the pixels of an image from top to bottom, so an image can
+ * be encoded while only one of its bands is kept in memory. A band that has been discarded
+ * is painted again if it is requested once more.
+ */
+abstract class BandedRenderedImage implements RenderedImage {
+
+    private final int width;
+    private final int height;
+    private final int bandHeight;
+    private final ColorModel colorModel;
+    private final SampleModel sampleModel;
+
+    private int currentBand;
+    private Raster currentRaster;
+
+    /**
+     * Creates a new image.
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param firstBand the band at the top of the image, which determines the height of the
+     * bands and the color and sample models of the image
+     */
+    BandedRenderedImage(int width, int height, BufferedImage firstBand) {
+        this.width = width;
+        this.height = height;
+        this.bandHeight = firstBand.getHeight();
+        this.colorModel = firstBand.getColorModel();
+        this.sampleModel = firstBand.getSampleModel();
+        this.currentBand = 0;
+        this.currentRaster = firstBand.getRaster();
+    }
+
+    /**
+     * Paints a band of the image. The band must have the same height, color and sample
+     * models as the first one.
+     * @param y the vertical position of the band in the image
+     * @return the band
+     */
+    protected abstract BufferedImage paintBand(int y);
+
+    /** {@inheritDoc} */
+    public Vector<RenderedImage> getSources() {
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    public Object getProperty(String name) {
+        return Image.UndefinedProperty;
+    }
+
+    /** {@inheritDoc} */
+    public String[] getPropertyNames() {
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    public ColorModel getColorModel() {
+        return colorModel;
+    }
+
+    /** {@inheritDoc} */
+    public SampleModel getSampleModel() {
+        return sampleModel;
+    }
+
+    /** {@inheritDoc} */
+    public int getWidth() {
+        return width;
+    }
+
+    /** {@inheritDoc} */
+    public int getHeight() {
+        return height;
+    }
+
+    /** {@inheritDoc} */
+    public int getMinX() {
+        return 0;
+    }
+
+    /** {@inheritDoc} */
+    public int getMinY() {
+        return 0;
+    }
+
+    /** {@inheritDoc} */
+    public int getNumXTiles() {
+        return 1;
+    }
+
+    /** {@inheritDoc} */
+    public int getNumYTiles() {
+        return (height + bandHeight - 1) / bandHeight;
+    }
+
+    /** {@inheritDoc} */
+    public int getMinTileX() {
+        return 0;
+    }
+
+    /** {@inheritDoc} */
+    public int getMinTileY() {
+        return 0;
+    }
+
+    /** {@inheritDoc} */
+    public int getTileWidth() {
+        return width;
+    }
+
+    /** {@inheritDoc} */
+    public int getTileHeight() {
+        return bandHeight;
+    }
+
+    /** {@inheritDoc} */
+    public int getTileGridXOffset() {
+        return 0;
+    }
+
+    /** {@inheritDoc} */
+    public int getTileGridYOffset() {
+        return 0;
+    }
+
+    /** {@inheritDoc} */
+    public Raster getTile(int tileX, int tileY) {
+        if (tileX != 0 || tileY < 0 || tileY >= getNumYTiles()) {
+            throw new IllegalArgumentException("No such tile: " + tileX + ", " + tileY);
+        }
+        if (tileY != currentBand) {
+            //Release the previous band before painting the next one
+            currentRaster = null;
+            int y = tileY * bandHeight;
+            currentRaster = paintBand(y).getRaster().createTranslatedChild(0, y);
+            currentBand = tileY;
+        }
+        return currentRaster;
+    }
+
+    /** {@inheritDoc} */
+    public Raster getData() {
+        return getData(new Rectangle(0, 0, width, height));
+    }
+
+    /** {@inheritDoc} */
+    public Raster getData(Rectangle rect) {
+        SampleModel sm = sampleModel.createCompatibleSampleModel(rect.width, rect.height);
+        WritableRaster raster = Raster.createWritableRaster(sm, new Point(rect.x, rect.y));
+        return copyData(raster);
+    }
+
+    /** {@inheritDoc} */
+    public WritableRaster copyData(WritableRaster raster) {
+        if (raster == null) {
+            raster = colorModel.createCompatibleWritableRaster(width, height);
+        }
+        Rectangle bounds = raster.getBounds().intersection(new Rectangle(0, 0, width, height));
+        if (bounds.isEmpty()) {
+            return raster;
+        }
+        int firstBand = bounds.y / bandHeight;
+        int lastBand = (bounds.y + bounds.height - 1) / bandHeight;
+        for (int band = firstBand; band <= lastBand; band++) {
+            Raster tile = getTile(0, band);
+            Rectangle r = tile.getBounds().intersection(bounds);
+            //the position of the child raster is the position of the data to set
+            raster.setDataElements(0, 0,
+                    tile.createChild(r.x, r.y, r.width, r.height, r.x, r.y, null));
+        }
+        return raster;
+    }
+}
@@ -36,11 +36,14 @@ import org.apache.fop.util.ColorUtil;
 
 import static org.apache.fop.render.bitmap.BitmapRendererOption.ANTI_ALIASING;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.BACKGROUND_COLOR;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.BAND_HEIGHT;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.COLOR_MODE;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.JAVA2D_TRANSPARENT_PAGE_BACKGROUND;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.MAX_RASTERS_IN_FLIGHT;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_QUALITY;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_QUALITY_ELEMENT;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_SPEED;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_THREADS;
 
 /**
  * The Bitmap renderer config data object.
@@ -76,6 +79,18 @@ public class BitmapRendererConfig implements RendererConfig {
         return (Integer) get(COLOR_MODE);
     }
 
+    public Integer getRenderingThreads() {
+        return (Integer) get(RENDERING_THREADS);
+    }
+
+    public Integer getMaxRastersInFlight() {
+        return (Integer) get(MAX_RASTERS_IN_FLIGHT);
+    }
+
+    public Integer getBandHeight() {
+        return (Integer) get(BAND_HEIGHT);
+    }
+
     public boolean hasTransparentBackround() {
         Object result = get(JAVA2D_TRANSPARENT_PAGE_BACKGROUND);
         return (Boolean) (result != null ? result
@@ -133,6 +148,13 @@ public class BitmapRendererConfig implements RendererConfig {
                 String color = getValue(cfg, COLOR_MODE);
                 setParam(config, COLOR_MODE,
                         getBufferedImageIntegerFromColor(BitmapRendererOption.getValue(color)));
+
+                setParam(config, RENDERING_THREADS, getChild(cfg, RENDERING_THREADS)
+                        .getValueAsInteger((Integer) RENDERING_THREADS.getDefaultValue()));
+                setParam(config, MAX_RASTERS_IN_FLIGHT, getChild(cfg, MAX_RASTERS_IN_FLIGHT)
+                        .getValueAsInteger((Integer) MAX_RASTERS_IN_FLIGHT.getDefaultValue()));
+                setParam(config, BAND_HEIGHT, getChild(cfg, BAND_HEIGHT)
+                        .getValueAsInteger((Integer) BAND_HEIGHT.getDefaultValue()));
             }
         }
 
@@ -83,6 +83,15 @@ public class BitmapRendererConfigurator extends Java2DRendererConfigurator {
         if (config.getColorMode() != null) {
             settings.setBufferedImageType(config.getColorMode());
         }
+        if (config.getRenderingThreads() != null) {
+            settings.setRenderingThreads(config.getRenderingThreads());
+        }
+        if (config.getMaxRastersInFlight() != null) {
+            settings.setMaxRastersInFlight(config.getMaxRastersInFlight());
+        }
+        if (config.getBandHeight() != null) {
+            settings.setBandHeight(config.getBandHeight());
+        }
     }
 
     @Override
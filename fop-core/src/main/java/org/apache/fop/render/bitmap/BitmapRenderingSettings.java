@@ -24,8 +24,11 @@ import org.apache.xmlgraphics.image.writer.ImageWriterParams;
 import org.apache.fop.render.java2d.Java2DRenderingSettings;
 
 import static org.apache.fop.render.bitmap.BitmapRendererOption.ANTI_ALIASING;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.BAND_HEIGHT;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.COLOR_MODE;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.MAX_RASTERS_IN_FLIGHT;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_QUALITY;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_THREADS;
 
 /**
  * This class holds settings used when rendering to bitmaps.
@@ -44,6 +47,15 @@ public class BitmapRenderingSettings extends Java2DRenderingSettings {
     /** true if qualityRendering is set */
     private boolean qualityRendering = (Boolean) RENDERING_QUALITY.getDefaultValue();
 
+    /** the number of threads painting pages, 0 to paint them while they are rendered */
+    private int renderingThreads = (Integer) RENDERING_THREADS.getDefaultValue();
+
+    /** the maximum number of pages being painted or waiting to be encoded */
+    private int maxRastersInFlight = (Integer) MAX_RASTERS_IN_FLIGHT.getDefaultValue();
+
+    /** the height of the bands the pages are painted in, 0 to paint them as a whole */
+    private int bandHeight = (Integer) BAND_HEIGHT.getDefaultValue();
+
     /**
      * Default constructor. Initializes the settings to their default values.
      */
@@ -107,6 +119,60 @@ public class BitmapRenderingSettings extends Java2DRenderingSettings {
         return this.qualityRendering;
     }
 
+    /**
+     * Sets the number of threads painting the pages. If greater than 0, the painting calls of
+     * every page are recorded and the page is painted on one of these threads, while the
+     * pages are still encoded in order.
+     * @param threads the number of threads, 0 to paint the pages while they are rendered
+     */
+    public void setRenderingThreads(int threads) {
+        this.renderingThreads = threads;
+    }
+
+    /**
+     * Returns the number of threads painting the pages.
+     * @return the number of threads, 0 if the pages are painted while they are rendered
+     */
+    public int getRenderingThreads() {
+        return this.renderingThreads;
+    }
+
+    /**
+     * Sets the maximum number of pages being painted or waiting to be encoded when the pages
+     * are painted on several threads. This bounds the memory used for their bitmaps.
+     * @param max the maximum number of pages, 0 for twice the number of threads
+     */
+    public void setMaxRastersInFlight(int max) {
+        this.maxRastersInFlight = max;
+    }
+
+    /**
+     * Returns the maximum number of pages being painted or waiting to be encoded.
+     * @return the maximum number of pages
+     */
+    public int getMaxRastersInFlight() {
+        return maxRastersInFlight > 0 ? maxRastersInFlight : 2 * renderingThreads;
+    }
+
+    /**
+     * Sets the height of the horizontal bands the pages are painted in. If greater than 0,
+     * the painting calls of every page are recorded and replayed for one band after the
+     * other while the page is encoded, so only one band is kept in memory instead of the
+     * whole page.
+     * @param bandHeight the height of a band in pixels, 0 to paint the pages as a whole
+     */
+    public void setBandHeight(int bandHeight) {
+        this.bandHeight = bandHeight;
+    }
+
+    /**
+     * Returns the height of the horizontal bands the pages are painted in.
+     * @return the height of a band in pixels, 0 if the pages are painted as a whole
+     */
+    public int getBandHeight() {
+        return this.bandHeight;
+    }
+
     /**
      * Sets the compression method for the image writer.
      * @param compressionMethod the compression method name
@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.bitmap;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Paint;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.w3c.dom.Document;
+
+import org.apache.fop.fonts.FontInfo;
+import org.apache.fop.render.intermediate.IFContext;
+import org.apache.fop.render.intermediate.IFException;
+import org.apache.fop.render.intermediate.IFPainter;
+import org.apache.fop.render.intermediate.IFUtil;
+import org.apache.fop.traits.BorderProps;
+import org.apache.fop.traits.RuleStyle;
+
+/**
+ * {@link IFPainter} implementation that records the painting calls of a page so they can be
+ * replayed later, possibly several times and on another thread. The foreign attributes
+ * applicable to images are recorded with them. Images are painted one at a time, while
+ * holding the lock of the font information, since painting them (SVG in particular) goes
+ * through state that is shared with the other pages of the document.
+ */
+class RecordingPainter implements IFPainter {
+
+    private final IFContext context;
+
+    private final FontInfo fontInfo;
+
+    private final List<PaintOperation> operations = new ArrayList<PaintOperation>();
+
+    /**
+     * Creates a new recording painter.
+     * @param context the context of the document handler
+     * @param fontInfo the font information used for painting
+     */
+    RecordingPainter(IFContext context, FontInfo fontInfo) {
+        this.context = context;
+        this.fontInfo = fontInfo;
+    }
+
+    /**
+     * Replays the recorded painting calls.
+     * @param painter the painter to replay the calls on
+     * @param paintingContext the context used by the painter
+     * @throws IFException if an error occurs while painting
+     */
+    void replay(IFPainter painter, IFContext paintingContext) throws IFException {
+        for (PaintOperation operation : operations) {
+            operation.paint(painter, paintingContext);
+        }
+    }
+
+    private interface PaintOperation {
+        void paint(IFPainter painter, IFContext paintingContext) throws IFException;
+    }
+
+    private static AffineTransform[] copy(AffineTransform[] transforms) {
+        AffineTransform[] copy = new AffineTransform[transforms.length];
+        for (int i = 0; i < transforms.length; i++) {
+            copy[i] = new AffineTransform(transforms[i]);
+        }
+        return copy;
+    }
+
+    private static Rectangle copy(Rectangle rect) {
+        return rect != null ? new Rectangle(rect) : null;
+    }
+
+    /** {@inheritDoc} */
+    public void startViewport(AffineTransform transform, final Dimension size,
+            final Rectangle clipRect) throws IFException {
+        final AffineTransform t = new AffineTransform(transform);
+        operations.add(new PaintOperation() {
+            public void paint(IFPainter painter, IFContext paintingContext) throws IFException {
+                painter.startViewport(t, size, clipRect);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void startViewport(AffineTransform[] transforms, final Dimension size,
+            final Rectangle clipRect) throws IFException {
+        final AffineTransform[] t = copy(transforms);
+        operations.add(new PaintOperation() {
+            public void paint(IFPainter painter, IFContext paintingContext) throws IFException {
+                painter.startViewport(t, size, clipRect);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void endViewport() throws IFException {
+        operations.add(new PaintOperation() {
+            public void paint(IFPainter painter, IFContext paintingContext) throws IFException {
+                painter.endViewport();
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void startGroup(AffineTransform[] transforms, final String layer) throws IFException {
+        final AffineTransform[] t = copy(transforms);
+        operations.add(new PaintOperation() {
+            public void paint(IFPainter painter, IFContext paintingContext) throws IFException {
+                painter.startGroup(t, layer);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void startGroup(AffineTransform transform, final String layer) throws IFException {
+        final AffineTransform t = new AffineTransform(transform);
+        operations.add(new PaintOperation() {
+            public void paint(IFPainter painter, IFContext paintingContext) throws IFException {
+                painter.startGroup(t, layer);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void endGroup() throws IFException {
+        operations.add(new PaintOperation() {
+            public void paint(IFPainter painter, IFContext paintingContext) throws IFException {
+                painter.endGroup();
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void setFont(final String family, final String style, final Integer weight,
+            final String variant, final Integer size, final Color color) throws IFException {
+        operations.add(new PaintOperation() {
+            public void paint(IFPainter painter, IFContext paintingContext) throws IFException {
+                painter.setFont(family, style, weight, variant, size, color);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void drawText(int x, int y, int letterSpacing, int wordSpacing, int[][] dp,
+            String text) throws IFException {
+        addDrawText(x, y, letterSpacing, wordSpacing, dp, text, null);
+    }
+
+    /** {@inheritDoc} */
+    public void drawText(int x, int y, int letterSpacing, int wordSpacing, int[][] dp,
+            String text, boolean nextIsSpace) throws IFException {
+        addDrawText(x, y, letterSpacing, wordSpacing, dp, text, nextIsSpace);
+    }
+
+    private void addDrawText(final int x, final int y, final int letterSpacing,
+            final int wordSpacing, int[][] dp, final String text, final Boolean nextIsSpace) {
+        //The adjustments may be a buffer that is reused for the next text
+        final int[][] dpCopy = dp != null ? IFUtil.copyDP(dp, 0, dp.length) : null;
+        operations.add(new PaintOperation() {
+            public void paint(IFPainter painter, IFContext paintingContext) throws IFException {
+                if (nextIsSpace == null) {
+                    painter.drawText(x, y, letterSpacing, wordSpacing, dpCopy, text);
+                } else {
+                    painter.drawText(x, y, letterSpacing, wordSpacing, dpCopy, text,
+                            nextIsSpace);
+                }
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void clipRect(Rectangle rect) throws IFException {
+        final Rectangle r = copy(rect);
+        operations.add(new PaintOperation() {
+            public void paint(IFPainter painter, IFContext paintingContext) throws IFException {
+                painter.clipRect(r);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void clipBackground(Rectangle rect, final BorderProps bpsBefore,
+            final BorderProps bpsAfter, final BorderProps bpsStart, final BorderProps bpsEnd)
+            throws IFException {
+        final Rectangle r = copy(rect);
+        operations.add(new PaintOperation() {
+            public void paint(IFPainter painter, IFContext paintingContext) throws IFException {
+                painter.clipBackground(r, bpsBefore, bpsAfter, bpsStart, bpsEnd);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public boolean isBackgroundRequired(BorderProps bpsBefore, BorderProps bpsAfter,
+            BorderProps bpsStart, BorderProps bpsEnd) {
+        //Same as Java2DPainter
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    public void fillRect(Rectangle rect, final Paint fill) throws IFException {
+        final Rectangle r = copy(rect);
+        operations.add(new PaintOperation() {
+            public void paint(IFPainter painter, IFContext paintingContext) throws IFException {
+                painter.fillRect(r, fill);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void drawBorderRect(Rectangle rect, final BorderProps top, final BorderProps bottom,
+            final BorderProps left, final BorderProps right, final Color innerBackgroundColor)
+            throws IFException {
+        final Rectangle r = copy(rect);
+        operations.add(new PaintOperation() {
+            public void paint(IFPainter painter, IFContext paintingContext) throws IFException {
+                painter.drawBorderRect(r, top, bottom, left, right, innerBackgroundColor);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void drawLine(Point start, Point end, final int width, final Color color,
+            final RuleStyle style) throws IFException {
+        final Point s = new Point(start);
+        final Point e = new Point(end);
+        operations.add(new PaintOperation() {
+            public void paint(IFPainter painter, IFContext paintingContext) throws IFException {
+                painter.drawLine(s, e, width, color, style);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void drawImage(final String uri, Rectangle rect) throws IFException {
+        final Rectangle r = copy(rect);
+        final Map foreignAttributes = context.getForeignAttributes();
+        operations.add(new PaintOperation() {
+            public void paint(IFPainter painter, IFContext paintingContext) throws IFException {
+                paintingContext.setForeignAttributes(foreignAttributes);
+                synchronized (fontInfo) {
+                    painter.drawImage(uri, r);
+                }
+                paintingContext.resetForeignAttributes();
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void drawImage(final Document doc, Rectangle rect) throws IFException {
+        final Rectangle r = copy(rect);
+        final Map foreignAttributes = context.getForeignAttributes();
+        operations.add(new PaintOperation() {
+            public void paint(IFPainter painter, IFContext paintingContext) throws IFException {
+                paintingContext.setForeignAttributes(foreignAttributes);
+                synchronized (fontInfo) {
+                    painter.drawImage(doc, r);
+                }
+                paintingContext.resetForeignAttributes();
+            }
+        });
+    }
+}
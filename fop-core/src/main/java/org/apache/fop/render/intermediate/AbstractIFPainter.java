@@ -51,6 +51,7 @@ import org.apache.fop.fonts.FontInfo;
 import org.apache.fop.fonts.FontTriplet;
 import org.apache.fop.fonts.MultiByteFont;
 import org.apache.fop.fonts.truetype.SVGGlyphData;
+import org.apache.fop.metrics.Metrics;
 import org.apache.fop.pdf.PDFConformanceException;
 import org.apache.fop.render.ImageHandler;
 import org.apache.fop.render.ImageHandlerRegistry;
@@ -160,9 +161,14 @@ public abstract class AbstractIFPainter<T extends IFDocumentHandler> implements
 
         ImageFlavor[] flavors = imageHandlerRegistry.getSupportedFlavors(context);
         info.getCustomObjects().put("warningincustomobject", true);
+        long start = System.nanoTime();
         org.apache.xmlgraphics.image.loader.Image img = manager.getImage(
                     info, flavors,
                     hints, sessionContext);
+        Metrics metrics = getUserAgent().getMetrics();
+        if (metrics.isEnabled()) {
+            metrics.recordTime(Metrics.IMAGE_LOAD, System.nanoTime() - start);
+        }
 
         if (info.getCustomObjects().get("warning") != null) {
             ResourceEventProducer eventProducer = ResourceEventProducer.Provider.get(
@@ -194,7 +200,7 @@ public abstract class AbstractIFPainter<T extends IFDocumentHandler> implements
         if (conversionMode != null) {
             hints.put(ImageHandlerUtil.CONVERSION_MODE, conversionMode);
         }
-        hints.put("page-number", documentHandler.getContext().getPageNumber());
+        hints.put("page-number", getContext().getPageNumber());
         return hints;
     }
 
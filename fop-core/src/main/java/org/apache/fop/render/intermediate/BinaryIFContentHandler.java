@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.intermediate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+
+/**
+ * ContentHandler that encodes the intermediate format as a compact binary opcode stream
+ * instead of XML. Every SAX event is written as a one byte opcode followed by its
+ * operands. Names, namespaces and short attribute values such as font families, colors,
+ * transforms and border specifications are interned: they are written once and referred to
+ * by their index afterwards. Attribute values that are integers are written as variable
+ * length integers. The stream is read by {@link BinaryIFParser}.
+ * <p>
+ * Format: the magic bytes "FOPIF", a format version byte, then the opcodes. An integer
+ * operand is an unsigned variable length integer (7 bits per byte, least significant
+ * group first). A string operand is an integer which is 0 for null, 1 for a new string
+ * (followed by its length in bytes and its UTF-8 encoding) or the index of an interned
+ * string plus 2. An attribute value is a tag followed by either an integer (zigzag
+ * encoded), a string operand or a literal string that is not interned.
+ */
+public class BinaryIFContentHandler implements ContentHandler {
+
+    /** The magic bytes starting a binary intermediate format stream */
+    static final byte[] MAGIC = {'F', 'O', 'P', 'I', 'F'};
+    /** The version of the binary encoding */
+    static final int FORMAT_VERSION = 1;
+
+    static final int OP_START_PREFIX_MAPPING = 1;
+    static final int OP_END_PREFIX_MAPPING = 2;
+    static final int OP_START_ELEMENT = 3;
+    static final int OP_END_ELEMENT = 4;
+    static final int OP_CHARACTERS = 5;
+    static final int OP_PROCESSING_INSTRUCTION = 6;
+    static final int OP_END_DOCUMENT = 7;
+    static final int OP_IGNORABLE_WHITESPACE = 8;
+
+    static final int STRING_NULL = 0;
+    static final int STRING_NEW = 1;
+    static final int STRING_REF = 2;
+
+    static final int VALUE_INT = 0;
+    static final int VALUE_STRING = 1;
+    static final int VALUE_LITERAL = 2;
+
+    /** Attribute values longer than this are not interned */
+    private static final int MAX_INTERNED_VALUE_LENGTH = 64;
+    /** Strings are no longer interned once the table has reached this size */
+    static final int MAX_INTERNED_STRINGS = 1 << 16;
+
+    private final OutputStream out;
+
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+    /**
+     * Creates a new instance.
+     * @param out the stream to write the binary intermediate format to
+     */
+    public BinaryIFContentHandler(OutputStream out) {
+        this.out = new BufferedOutputStream(out);
+    }
+
+    /** {@inheritDoc} */
+    public void setDocumentLocator(Locator locator) {
+    }
+
+    /** {@inheritDoc} */
+    public void startDocument() throws SAXException {
+        try {
+            out.write(MAGIC);
+            out.write(FORMAT_VERSION);
+        } catch (IOException ioe) {
+            throw new SAXException(ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void endDocument() throws SAXException {
+        try {
+            out.write(OP_END_DOCUMENT);
+            out.flush();
+        } catch (IOException ioe) {
+            throw new SAXException(ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void startPrefixMapping(String prefix, String uri) throws SAXException {
+        try {
+            out.write(OP_START_PREFIX_MAPPING);
+            writeString(prefix);
+            writeString(uri);
+        } catch (IOException ioe) {
+            throw new SAXException(ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void endPrefixMapping(String prefix) throws SAXException {
+        try {
+            out.write(OP_END_PREFIX_MAPPING);
+            writeString(prefix);
+        } catch (IOException ioe) {
+            throw new SAXException(ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void startElement(String uri, String localName, String qName, Attributes atts)
+            throws SAXException {
+        try {
+            out.write(OP_START_ELEMENT);
+            writeString(uri);
+            writeString(getLocalName(localName, qName));
+            writeString(qName);
+            int count = atts.getLength();
+            writeInt(count);
+            for (int i = 0; i < count; i++) {
+                writeString(atts.getURI(i));
+                writeString(getLocalName(atts.getLocalName(i), atts.getQName(i)));
+                writeString(atts.getQName(i));
+                writeString(atts.getType(i));
+                writeValue(atts.getValue(i));
+            }
+        } catch (IOException ioe) {
+            throw new SAXException(ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        try {
+            out.write(OP_END_ELEMENT);
+        } catch (IOException ioe) {
+            throw new SAXException(ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        try {
+            out.write(OP_CHARACTERS);
+            writeUTF8(new String(ch, start, length));
+        } catch (IOException ioe) {
+            throw new SAXException(ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        try {
+            out.write(OP_IGNORABLE_WHITESPACE);
+            writeUTF8(new String(ch, start, length));
+        } catch (IOException ioe) {
+            throw new SAXException(ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void processingInstruction(String target, String data) throws SAXException {
+        try {
+            out.write(OP_PROCESSING_INSTRUCTION);
+            writeString(target);
+            writeString(data);
+        } catch (IOException ioe) {
+            throw new SAXException(ioe);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void skippedEntity(String name) throws SAXException {
+    }
+
+    /**
+     * Returns the local name as an XML parser would report it, i.e. derived from the
+     * qualified name. Some generators (ex. XMP) don't report consistent local names.
+     */
+    private static String getLocalName(String localName, String qName) {
+        if (qName == null || qName.length() == 0) {
+            return localName;
+        }
+        return qName.substring(qName.indexOf(':') + 1);
+    }
+
+    private void writeValue(String value) throws IOException {
+        if (isInteger(value)) {
+            out.write(VALUE_INT);
+            int i = Integer.parseInt(value);
+            writeInt((i << 1) ^ (i >> 31));
+        } else if (value.length() <= MAX_INTERNED_VALUE_LENGTH) {
+            out.write(VALUE_STRING);
+            writeString(value);
+        } else {
+            out.write(VALUE_LITERAL);
+            writeUTF8(value);
+        }
+    }
+
+    /** Only canonical integers are encoded as such, so that the value is restored as is. */
+    private static boolean isInteger(String value) {
+        int len = value.length();
+        int start = (len > 0 && value.charAt(0) == '-') ? 1 : 0;
+        if (len == start || len - start > 9) {
+            return false;
+        }
+        if (value.charAt(start) == '0' && len - start > 1) {
+            return false;
+        }
+        if (start == 1 && len == 2 && value.charAt(1) == '0') {
+            return false;
+        }
+        for (int i = start; i < len; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeString(String str) throws IOException {
+        if (str == null) {
+            writeInt(STRING_NULL);
+            return;
+        }
+        Integer index = strings.get(str);
+        if (index != null) {
+            writeInt(STRING_REF + index);
+        } else {
+            writeInt(STRING_NEW);
+            writeUTF8(str);
+            if (strings.size() < MAX_INTERNED_STRINGS) {
+                strings.put(str, strings.size());
+            }
+        }
+    }
+
+    private void writeUTF8(String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeInt(int value) throws IOException {
+        int v = value;
+        while ((v & ~0x7F) != 0) {
+            out.write((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.write(v);
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.intermediate;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import org.apache.fop.apps.FOUserAgent;
+
+/**
+ * Parser for the binary intermediate format written by {@link BinaryIFSerializer}. The
+ * decoded events are processed exactly like the XML intermediate format, so any
+ * {@link IFDocumentHandler} can be driven from the binary format.
+ */
+public class BinaryIFParser {
+
+    private final IFParser parser = new IFParser();
+
+    /**
+     * Parses a binary intermediate file and paints it.
+     * @param in the stream to read the binary intermediate format from
+     * @param documentHandler the intermediate format document handler used to process the IF events
+     * @param userAgent the user agent
+     * @throws IOException if an I/O error occurs or the stream is not in the binary
+     * intermediate format
+     * @throws IFException if an IF-related error occurs inside the target document handler
+     */
+    public void parse(InputStream in, IFDocumentHandler documentHandler, FOUserAgent userAgent)
+            throws IOException, IFException {
+        try {
+            decode(in, parser.getContentHandler(documentHandler, userAgent));
+        } catch (SAXException se) {
+            //Unpack original IFException if applicable
+            Throwable cause = se.getCause();
+            if (cause instanceof IFException) {
+                throw (IFException) cause;
+            }
+            throw new IFException("Error while parsing the binary intermediate format", se);
+        }
+    }
+
+    /**
+     * Decodes a binary intermediate format stream into SAX events.
+     * @param in the stream to read the binary intermediate format from
+     * @param handler the handler receiving the SAX events
+     * @throws IOException if an I/O error occurs or the stream is not in the binary
+     * intermediate format
+     * @throws SAXException if the handler throws an exception
+     */
+    public static void decode(InputStream in, ContentHandler handler)
+            throws IOException, SAXException {
+        new Decoder(in, handler).decode();
+    }
+
+    private static final class Decoder {
+
+        private final InputStream in;
+        private final ContentHandler handler;
+
+        private final List<String> strings = new ArrayList<String>();
+        private final List<String[]> elementStack = new ArrayList<String[]>();
+        private final AttributesImpl atts = new AttributesImpl();
+        private byte[] buf = new byte[256];
+        private char[] chars = new char[256];
+
+        Decoder(InputStream in, ContentHandler handler) {
+            this.in = new BufferedInputStream(in);
+            this.handler = handler;
+        }
+
+        void decode() throws IOException, SAXException {
+            byte[] magic = BinaryIFContentHandler.MAGIC;
+            for (byte b : magic) {
+                if (readByte() != b) {
+                    throw new IOException("Not a binary intermediate format stream");
+                }
+            }
+            int version = readByte();
+            if (version != BinaryIFContentHandler.FORMAT_VERSION) {
+                throw new IOException("Unsupported binary intermediate format version: "
+                        + version);
+            }
+            handler.startDocument();
+            while (true) {
+                int op = readByte();
+                switch (op) {
+                case BinaryIFContentHandler.OP_START_PREFIX_MAPPING:
+                    handler.startPrefixMapping(readString(), readString());
+                    break;
+                case BinaryIFContentHandler.OP_END_PREFIX_MAPPING:
+                    handler.endPrefixMapping(readString());
+                    break;
+                case BinaryIFContentHandler.OP_START_ELEMENT:
+                    startElement();
+                    break;
+                case BinaryIFContentHandler.OP_END_ELEMENT:
+                    if (elementStack.isEmpty()) {
+                        throw new IOException("Unbalanced end element");
+                    }
+                    String[] name = elementStack.remove(elementStack.size() - 1);
+                    handler.endElement(name[0], name[1], name[2]);
+                    break;
+                case BinaryIFContentHandler.OP_CHARACTERS:
+                    characters(false);
+                    break;
+                case BinaryIFContentHandler.OP_IGNORABLE_WHITESPACE:
+                    characters(true);
+                    break;
+                case BinaryIFContentHandler.OP_PROCESSING_INSTRUCTION:
+                    handler.processingInstruction(readString(), readString());
+                    break;
+                case BinaryIFContentHandler.OP_END_DOCUMENT:
+                    handler.endDocument();
+                    return;
+                default:
+                    throw new IOException("Invalid opcode in binary intermediate format: " + op);
+                }
+            }
+        }
+
+        private void startElement() throws IOException, SAXException {
+            String uri = readString();
+            String localName = readString();
+            String qName = readString();
+            atts.clear();
+            int count = readInt();
+            for (int i = 0; i < count; i++) {
+                String attUri = readString();
+                String attLocalName = readString();
+                String attQName = readString();
+                String type = readString();
+                atts.addAttribute(attUri, attLocalName, attQName, type, readValue());
+            }
+            elementStack.add(new String[] {uri, localName, qName});
+            handler.startElement(uri, localName, qName, atts);
+        }
+
+        private void characters(boolean ignorable) throws IOException, SAXException {
+            String text = readUTF8();
+            int length = text.length();
+            if (chars.length < length) {
+                chars = new char[length];
+            }
+            text.getChars(0, length, chars, 0);
+            if (ignorable) {
+                handler.ignorableWhitespace(chars, 0, length);
+            } else {
+                handler.characters(chars, 0, length);
+            }
+        }
+
+        private String readValue() throws IOException {
+            int tag = readByte();
+            switch (tag) {
+            case BinaryIFContentHandler.VALUE_INT:
+                int v = readInt();
+                return Integer.toString((v >>> 1) ^ -(v & 1));
+            case BinaryIFContentHandler.VALUE_STRING:
+                return readString();
+            case BinaryIFContentHandler.VALUE_LITERAL:
+                return readUTF8();
+            default:
+                throw new IOException("Invalid attribute value in binary intermediate format: "
+                        + tag);
+            }
+        }
+
+        private String readString() throws IOException {
+            int code = readInt();
+            if (code == BinaryIFContentHandler.STRING_NULL) {
+                return null;
+            } else if (code == BinaryIFContentHandler.STRING_NEW) {
+                String str = readUTF8();
+                if (strings.size() < BinaryIFContentHandler.MAX_INTERNED_STRINGS) {
+                    strings.add(str);
+                }
+                return str;
+            } else {
+                int index = code - BinaryIFContentHandler.STRING_REF;
+                if (index >= strings.size()) {
+                    throw new IOException("Invalid string reference in binary intermediate"
+                            + " format: " + index);
+                }
+                return strings.get(index);
+            }
+        }
+
+        private String readUTF8() throws IOException {
+            int length = readInt();
+            if (buf.length < length) {
+                buf = new byte[Math.max(length, buf.length * 2)];
+            }
+            int pos = 0;
+            while (pos < length) {
+                int n = in.read(buf, pos, length - pos);
+                if (n < 0) {
+                    throw new EOFException("Unexpected end of binary intermediate format");
+                }
+                pos += n;
+            }
+            return new String(buf, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private int readInt() throws IOException {
+            int value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = readByte();
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0 && shift < 35);
+            return value;
+        }
+
+        private int readByte() throws IOException {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Unexpected end of binary intermediate format");
+            }
+            return b;
+        }
+    }
+}
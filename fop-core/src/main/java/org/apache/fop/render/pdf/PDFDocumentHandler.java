@@ -42,6 +42,7 @@ import org.apache.xmlgraphics.xmp.Metadata;
 import org.apache.fop.accessibility.StructureTreeEventHandler;
 import org.apache.fop.apps.MimeConstants;
 import org.apache.fop.fo.extensions.xmp.XMPMetadata;
+import org.apache.fop.metrics.Metrics;
 import org.apache.fop.pdf.PDFAnnotList;
 import org.apache.fop.pdf.PDFArray;
 import org.apache.fop.pdf.PDFDocument;
@@ -204,21 +205,33 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
 
     /** {@inheritDoc} */
     public void endDocument() throws IFException {
-        documentNavigationHandler.registerIncompleteActions();
-        pdfDoc.getResources().addFonts(pdfDoc, fontInfo);
+        PDFDocument doc = pdfDoc;
         try {
-            if (pdfDoc.isLinearizationEnabled()) {
-                generator.flushPDFDoc();
-            } else {
-                pdfDoc.outputTrailer(this.outputStream);
+            documentNavigationHandler.registerIncompleteActions();
+            long start = System.nanoTime();
+            pdfDoc.getResources().addFonts(pdfDoc, fontInfo);
+            Metrics metrics = getUserAgent().getMetrics();
+            if (metrics.isEnabled()) {
+                metrics.recordTime(Metrics.FONT_SUBSET, System.nanoTime() - start,
+                        Metrics.TAG_FORMAT, getMimeType());
             }
-            this.pdfDoc = null;
-
-            pdfResources = null;
-            this.generator = null;
-            currentPage = null;
-        } catch (IOException ioe) {
-            throw new IFException("I/O error in endDocument()", ioe);
+            try {
+                if (pdfDoc.isLinearizationEnabled()) {
+                    generator.flushPDFDoc();
+                } else {
+                    pdfDoc.outputTrailer(this.outputStream);
+                }
+                this.pdfDoc = null;
+
+                pdfResources = null;
+                this.generator = null;
+                currentPage = null;
+            } catch (IOException ioe) {
+                throw new IFException("I/O error in endDocument()", ioe);
+            }
+        } finally {
+            //also releases the resources of the document if it is abandoned
+            doc.close();
         }
         super.endDocument();
         signPDF();
@@ -36,6 +36,7 @@ import org.apache.fop.configuration.ConfigurationException;
 import org.apache.fop.fonts.DefaultFontConfig;
 import org.apache.fop.fonts.DefaultFontConfig.DefaultFontConfigParser;
 import org.apache.fop.fonts.FontEventAdapter;
+import org.apache.fop.pdf.FlateCompression;
 import org.apache.fop.pdf.PDFEncryptionParams;
 import org.apache.fop.pdf.PDFFilterList;
 import org.apache.fop.pdf.PDFSignParams;
@@ -56,6 +57,8 @@ import static org.apache.fop.render.pdf.PDFEncryptionOption.NO_PRINT;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.NO_PRINTHQ;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.OWNER_PASSWORD;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.USER_PASSWORD;
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION;
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION_THREADS;
 import static org.apache.fop.render.pdf.PDFRendererOption.DISABLE_SRGB_COLORSPACE;
 import static org.apache.fop.render.pdf.PDFRendererOption.FILTER_LIST;
 import static org.apache.fop.render.pdf.PDFRendererOption.FORM_XOBJECT;
@@ -68,6 +71,7 @@ import static org.apache.fop.render.pdf.PDFRendererOption.PDF_A_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_UA_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_VT_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_X_MODE;
+import static org.apache.fop.render.pdf.PDFRendererOption.POOLED_STREAM_CACHE;
 import static org.apache.fop.render.pdf.PDFRendererOption.VERSION;
 
 /**
@@ -145,6 +149,9 @@ public final class PDFRendererConfig implements RendererConfig {
         private void configure(Configuration cfg, FOUserAgent userAgent, boolean strict) throws FOPException {
             try {
                 buildFilterMapFromConfiguration(cfg);
+                buildCompressionMapFromConfiguration(cfg);
+                parseAndPut(COMPRESSION_THREADS, cfg);
+                parseAndPut(POOLED_STREAM_CACHE, cfg);
                 parseAndPut(PDF_A_MODE, cfg);
                 parseAndPut(PDF_UA_MODE, cfg);
                 parseAndPut(PDF_X_MODE, cfg);
@@ -265,6 +272,35 @@ public final class PDFRendererConfig implements RendererConfig {
             put(FILTER_LIST, filterMap);
         }
 
+        private void buildCompressionMapFromConfiguration(Configuration cfg)
+                throws ConfigurationException {
+            Configuration[] compressionCfgs = cfg.getChildren(COMPRESSION.getName());
+            Map<String, FlateCompression> compressionMap = new HashMap<String, FlateCompression>();
+            for (Configuration compressionCfg : compressionCfgs) {
+                String type = compressionCfg.getAttribute("type", PDFFilterList.DEFAULT_FILTER);
+                if (compressionMap.get(type) != null) {
+                    throw new ConfigurationException("A compression of type '"
+                            + type + "' has already been defined");
+                }
+                FlateCompression compression;
+                try {
+                    compression = FlateCompression.valueOf(
+                            compressionCfg.getAttribute("level", null),
+                            compressionCfg.getAttribute("strategy", null));
+                } catch (IllegalArgumentException iae) {
+                    throw new ConfigurationException(iae.getMessage() + " (compression of type '"
+                            + type + "')");
+                }
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Using Flate compression for type " + type + ": " + compression);
+                }
+                compressionMap.put(type, compression);
+            }
+            if (!compressionMap.isEmpty()) {
+                put(COMPRESSION, compressionMap);
+            }
+        }
+
         private String parseConfig(Configuration cfg, RendererConfigOption option) {
             Configuration child = cfg.getChild(option.getName());
             String value = child.getValue(null);
@@ -111,6 +111,33 @@ public enum PDFRendererOption implements RendererConfigOption {
             return Boolean.valueOf(value);
         }
     },
+    /** The Flate compression level and strategy for each stream type, datatype: Map */
+    COMPRESSION("compression", null) {
+        @Override
+        Object deserialize(String value) {
+            throw new UnsupportedOperationException();
+        }
+    },
+    /**
+     * Rendering Options key for the number of threads compressing streams while the document
+     * is written, default: 0 (streams are compressed while they are written)
+     */
+    COMPRESSION_THREADS("compression-threads", 0) {
+        @Override
+        Integer deserialize(String value) {
+            return Integer.valueOf(value);
+        }
+    },
+    /**
+     * Rendering Options key for keeping the data of PDF streams in direct buffers that are
+     * pooled across pages and documents, default: false
+     */
+    POOLED_STREAM_CACHE("pooled-stream-cache", false) {
+        @Override
+        Boolean deserialize(String value) {
+            return Boolean.valueOf(value);
+        }
+    },
     /** Rendering Options key for the ICC profile for the output intent. */
     OUTPUT_PROFILE("output-profile") {
         @Override
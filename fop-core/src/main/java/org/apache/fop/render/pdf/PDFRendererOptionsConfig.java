@@ -24,6 +24,7 @@ import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.fop.pdf.FlateCompression;
 import org.apache.fop.pdf.PDFAMode;
 import org.apache.fop.pdf.PDFEncryptionParams;
 import org.apache.fop.pdf.PDFSignParams;
@@ -32,6 +33,8 @@ import org.apache.fop.pdf.PDFVTMode;
 import org.apache.fop.pdf.PDFXMode;
 import org.apache.fop.pdf.Version;
 
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION;
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION_THREADS;
 import static org.apache.fop.render.pdf.PDFRendererOption.DISABLE_SRGB_COLORSPACE;
 import static org.apache.fop.render.pdf.PDFRendererOption.FILTER_LIST;
 import static org.apache.fop.render.pdf.PDFRendererOption.FORM_XOBJECT;
@@ -44,6 +47,7 @@ import static org.apache.fop.render.pdf.PDFRendererOption.PDF_A_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_UA_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_VT_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_X_MODE;
+import static org.apache.fop.render.pdf.PDFRendererOption.POOLED_STREAM_CACHE;
 import static org.apache.fop.render.pdf.PDFRendererOption.VERSION;
 
 /**
@@ -107,6 +111,18 @@ public final class PDFRendererOptionsConfig {
         return (Map<String, List<String>>) properties.get(FILTER_LIST);
     }
 
+    public Map<String, FlateCompression> getCompressionMap() {
+        return (Map<String, FlateCompression>) properties.get(COMPRESSION);
+    }
+
+    public Integer getCompressionThreads() {
+        return (Integer) properties.get(COMPRESSION_THREADS);
+    }
+
+    public Boolean getPooledStreamCacheEnabled() {
+        return (Boolean) properties.get(POOLED_STREAM_CACHE);
+    }
+
     public PDFAMode getPDFAMode() {
         return (PDFAMode) properties.get(PDF_A_MODE);
     }
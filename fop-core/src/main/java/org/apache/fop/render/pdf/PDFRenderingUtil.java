@@ -77,6 +77,7 @@ import org.apache.fop.pdf.PDFSetOCGStateAction;
 import org.apache.fop.pdf.PDFSignParams;
 import org.apache.fop.pdf.PDFTransitionAction;
 import org.apache.fop.pdf.PDFXMode;
+import org.apache.fop.pdf.StreamCacheFactory;
 import org.apache.fop.pdf.Version;
 import org.apache.fop.pdf.VersionController;
 import org.apache.fop.render.pdf.extensions.PDFActionExtension;
@@ -608,6 +609,12 @@ class PDFRenderingUtil {
         updateInfo();
         updatePDFProfiles();
         pdfDoc.setFilterMap(rendererConfig.getFilterMap());
+        pdfDoc.setCompressionMap(rendererConfig.getCompressionMap());
+        pdfDoc.setCompressionThreads(rendererConfig.getCompressionThreads());
+        if (rendererConfig.getPooledStreamCacheEnabled()) {
+            pdfDoc.setStreamCacheFactory(StreamCacheFactory.newPooledInstance(
+                    userAgent.getResourceResolver()));
+        }
         pdfDoc.outputHeader(out);
 
         //Setup encryption if necessary
@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.ps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+
+import org.apache.xmlgraphics.io.TempResourceURIGenerator;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+
+/**
+ * Keeps the PostScript generated for a document until the resources it needs are known. The
+ * places where resources have to be inserted are marked with slots while the document is
+ * generated, so the document can be written out in a single pass without parsing its DSC
+ * structure again. The document is kept in memory in chunks up to a given size, beyond that
+ * it is moved to a temporary file.
+ */
+class PSDocumentBuffer extends OutputStream {
+
+    /** The default number of bytes kept in memory */
+    static final int DEFAULT_MEMORY_LIMIT = 32 * 1024 * 1024;
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final TempResourceURIGenerator TEMP_URI_GENERATOR
+            = new TempResourceURIGenerator("ps-buffer");
+
+    private final InternalResourceResolver resourceResolver;
+
+    private final int memoryLimit;
+
+    private final List<byte[]> chunks = new ArrayList<byte[]>();
+
+    private byte[] currentChunk;
+
+    private int currentChunkLength;
+
+    private long size;
+
+    private URI tempURI;
+
+    private OutputStream tempStream;
+
+    private final List<Slot> slots = new ArrayList<Slot>();
+
+    /**
+     * Creates a new buffer.
+     * @param resourceResolver the resource resolver used for the temporary file
+     * @param memoryLimit the number of bytes kept in memory before the document is moved to
+     * a temporary file
+     */
+    PSDocumentBuffer(InternalResourceResolver resourceResolver, int memoryLimit) {
+        this.resourceResolver = resourceResolver;
+        this.memoryLimit = memoryLimit;
+    }
+
+    /** {@inheritDoc} */
+    public void write(int b) throws IOException {
+        if (tempStream != null) {
+            tempStream.write(b);
+        } else {
+            if (currentChunk == null || currentChunkLength == currentChunk.length) {
+                addChunk();
+            }
+            currentChunk[currentChunkLength++] = (byte) b;
+        }
+        size++;
+        checkMemoryLimit();
+    }
+
+    /** {@inheritDoc} */
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (tempStream != null) {
+            tempStream.write(b, off, len);
+        } else {
+            int written = 0;
+            while (written < len) {
+                if (currentChunk == null || currentChunkLength == currentChunk.length) {
+                    addChunk();
+                }
+                int count = Math.min(len - written, currentChunk.length - currentChunkLength);
+                System.arraycopy(b, off + written, currentChunk, currentChunkLength, count);
+                currentChunkLength += count;
+                written += count;
+            }
+        }
+        size += len;
+        checkMemoryLimit();
+    }
+
+    private void addChunk() {
+        if (currentChunk != null) {
+            chunks.add(currentChunk);
+        }
+        currentChunk = new byte[CHUNK_SIZE];
+        currentChunkLength = 0;
+    }
+
+    private void checkMemoryLimit() throws IOException {
+        if (tempStream == null && size > memoryLimit) {
+            tempURI = TEMP_URI_GENERATOR.generate();
+            tempStream = new BufferedOutputStream(resourceResolver.getOutputStream(tempURI));
+            for (byte[] chunk : chunks) {
+                tempStream.write(chunk);
+            }
+            tempStream.write(currentChunk, 0, currentChunkLength);
+            chunks.clear();
+            currentChunk = null;
+        }
+    }
+
+    /**
+     * Marks the current position as a place where content is inserted when the document is
+     * written out.
+     * @param content the object describing the content to insert
+     */
+    void addSlot(Object content) {
+        slots.add(new Slot(size, content));
+    }
+
+    /**
+     * Returns the number of bytes written so far.
+     * @return the size of the document
+     */
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * Indicates whether the document has been moved to a temporary file.
+     * @return true if the document is kept in a temporary file
+     */
+    boolean isInTempFile() {
+        return tempStream != null;
+    }
+
+    /**
+     * Starts reading the document. No more bytes may be written afterwards.
+     * @return the reader
+     * @throws IOException if an I/O error occurs
+     */
+    Reader read() throws IOException {
+        InputStream in;
+        if (tempStream != null) {
+            tempStream.close();
+            in = new BufferedInputStream(resourceResolver.getResource(tempURI));
+        } else {
+            List<InputStream> streams = new ArrayList<InputStream>(chunks.size() + 1);
+            for (byte[] chunk : chunks) {
+                streams.add(new ByteArrayInputStream(chunk));
+            }
+            if (currentChunk != null) {
+                streams.add(new ByteArrayInputStream(currentChunk, 0, currentChunkLength));
+            }
+            in = new SequenceInputStream(Collections.enumeration(streams));
+        }
+        return new Reader(in);
+    }
+
+    private static final class Slot {
+
+        private final long position;
+        private final Object content;
+
+        Slot(long position, Object content) {
+            this.position = position;
+            this.content = content;
+        }
+    }
+
+    /**
+     * Copies the document to an output stream, stopping at every slot so that its content
+     * can be inserted.
+     */
+    final class Reader {
+
+        private final InputStream in;
+
+        private final Iterator<Slot> slotIter = slots.iterator();
+
+        private long position;
+
+        private Slot slot;
+
+        private Reader(InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Copies the document up to the next slot.
+         * @param out the output stream
+         * @return false if there are no more slots and the rest of the document was copied
+         * @throws IOException if an I/O error occurs
+         */
+        boolean copyToNextSlot(OutputStream out) throws IOException {
+            if (slotIter.hasNext()) {
+                slot = slotIter.next();
+                copy(out, slot.position - position);
+                return true;
+            } else {
+                slot = null;
+                copy(out, size - position);
+                return false;
+            }
+        }
+
+        /**
+         * Returns the content of the slot reached by {@link #copyToNextSlot(OutputStream)}.
+         * @return the content of the slot
+         */
+        Object getSlotContent() {
+            return slot.content;
+        }
+
+        /**
+         * Copies the next line of the document, including the line feed.
+         * @param out the output stream
+         * @return the line without the line feed, null at the end of the document
+         * @throws IOException if an I/O error occurs
+         */
+        String copyLine(OutputStream out) throws IOException {
+            if (position == size) {
+                return null;
+            }
+            StringBuilder line = new StringBuilder();
+            while (position < size) {
+                int b = in.read();
+                if (b < 0) {
+                    throw new IOException("Unexpected end of the buffered document");
+                }
+                position++;
+                out.write(b);
+                if (b == '\n') {
+                    break;
+                }
+                line.append((char) b);
+            }
+            return line.toString();
+        }
+
+        private void copy(OutputStream out, long length) throws IOException {
+            long copied = IOUtils.copyLarge(in, out, 0, length);
+            if (copied < length) {
+                throw new IOException("Unexpected end of the buffered document");
+            }
+            position += length;
+        }
+
+        /**
+         * Releases the document.
+         */
+        void close() {
+            IOUtils.closeQuietly(in);
+            chunks.clear();
+            currentChunk = null;
+        }
+    }
+}
@@ -22,10 +22,8 @@ package org.apache.fop.render.ps;
 import java.awt.Dimension;
 import java.awt.geom.Dimension2D;
 import java.awt.geom.Rectangle2D;
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.util.ArrayList;
@@ -36,11 +34,10 @@ import java.util.Map;
 
 import javax.xml.transform.Source;
 
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import org.apache.xmlgraphics.io.TempResourceURIGenerator;
 import org.apache.xmlgraphics.java2d.Dimension2DDouble;
 import org.apache.xmlgraphics.ps.DSCConstants;
 import org.apache.xmlgraphics.ps.PSDictionary;
@@ -49,12 +46,11 @@ import org.apache.xmlgraphics.ps.PSGenerator;
 import org.apache.xmlgraphics.ps.PSPageDeviceDictionary;
 import org.apache.xmlgraphics.ps.PSProcSets;
 import org.apache.xmlgraphics.ps.PSResource;
-import org.apache.xmlgraphics.ps.dsc.DSCException;
-import org.apache.xmlgraphics.ps.dsc.ResourceTracker;
 import org.apache.xmlgraphics.ps.dsc.events.DSCCommentBoundingBox;
 import org.apache.xmlgraphics.ps.dsc.events.DSCCommentHiResBoundingBox;
 
 import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.metrics.Metrics;
 import org.apache.fop.render.intermediate.AbstractBinaryWritingIFDocumentHandler;
 import org.apache.fop.render.intermediate.IFContext;
 import org.apache.fop.render.intermediate.IFDocumentHandlerConfigurator;
@@ -85,10 +81,8 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
     /** The PostScript generator used to output the PostScript */
     PSGenerator gen;
 
-    /** the temporary file in case of two-pass processing */
-    private URI tempURI;
-    private static final TempResourceURIGenerator TEMP_URI_GENERATOR
-            = new TempResourceURIGenerator("ps-optimize");
+    /** the buffered document in case resources are optimized */
+    private PSDocumentBuffer documentBuffer;
 
     private int currentPageNumber;
     private PageDefinition currentPageDefinition;
@@ -151,29 +145,26 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
     public void startDocument() throws IFException {
         super.startDocument();
         this.fontResources = new FontResourceCache(getFontInfo());
-        try {
-            final OutputStream out;
-            if (psUtil.isOptimizeResources()) {
-                tempURI = TEMP_URI_GENERATOR.generate();
-                out = new BufferedOutputStream(getUserAgent().getResourceResolver().getOutputStream(tempURI));
-            } else {
-                out = this.outputStream;
-            }
-
-            //Setup for PostScript generation
-            this.gen = new FOPPSGeneratorImpl(out);
-            this.gen.setPSLevel(psUtil.getLanguageLevel());
-            this.gen.setAcrobatDownsample(psUtil.isAcrobatDownsample());
-            this.currentPageNumber = 0;
-            this.documentBoundingBox = new Rectangle2D.Double();
-
-            //Initial default page device dictionary settings
-            this.pageDeviceDictionary = new PSPageDeviceDictionary();
-            pageDeviceDictionary.setFlushOnRetrieval(!psUtil.isDSCComplianceEnabled());
-            pageDeviceDictionary.put("/ImagingBBox", "null");
-        } catch (IOException e) {
-            throw new IFException("I/O error in startDocument()", e);
+        final OutputStream out;
+        if (psUtil.isOptimizeResources()) {
+            documentBuffer = new PSDocumentBuffer(getUserAgent().getResourceResolver(),
+                    PSDocumentBuffer.DEFAULT_MEMORY_LIMIT);
+            out = documentBuffer;
+        } else {
+            out = this.outputStream;
         }
+
+        //Setup for PostScript generation
+        this.gen = new FOPPSGeneratorImpl(out);
+        this.gen.setPSLevel(psUtil.getLanguageLevel());
+        this.gen.setAcrobatDownsample(psUtil.isAcrobatDownsample());
+        this.currentPageNumber = 0;
+        this.documentBoundingBox = new Rectangle2D.Double();
+
+        //Initial default page device dictionary settings
+        this.pageDeviceDictionary = new PSPageDeviceDictionary();
+        pageDeviceDictionary.setFlushOnRetrieval(!psUtil.isDSCComplianceEnabled());
+        pageDeviceDictionary.put("/ImagingBBox", "null");
     }
 
     public interface FOPPSGenerator {
@@ -205,6 +196,20 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         public Map<Integer, URI> getImages() {
             return images;
         }
+
+        /**
+         * Forms are only known to be inlined or not at the end of the document, so their
+         * inclusion is left to the {@link ResourceHandler} when resources are optimized.
+         */
+        @Override
+        public void writeDSCComment(String name, Object param) throws IOException {
+            if (documentBuffer != null && DSCConstants.INCLUDE_RESOURCE.equals(name)
+                    && param instanceof PSImageFormResource) {
+                documentBuffer.addSlot(param);
+            } else {
+                super.writeDSCComment(name, param);
+            }
+        }
     }
 
     private void writeHeader() throws IOException {
@@ -213,12 +218,18 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         gen.writeDSCComment(DSCConstants.CREATOR, new String[] {getUserAgent().getProducer()});
         gen.writeDSCComment(DSCConstants.CREATION_DATE, new Object[] {new java.util.Date()});
         gen.writeDSCComment(DSCConstants.LANGUAGE_LEVEL, gen.getPSLevel());
-        gen.writeDSCComment(DSCConstants.PAGES, new Object[] {DSCConstants.ATEND});
-        gen.writeDSCComment(DSCConstants.BBOX, DSCConstants.ATEND);
-        gen.writeDSCComment(DSCConstants.HIRES_BBOX, DSCConstants.ATEND);
-        gen.writeDSCComment(DSCConstants.DOCUMENT_SUPPLIED_RESOURCES,
-                new Object[] {DSCConstants.ATEND});
+        if (documentBuffer == null) {
+            gen.writeDSCComment(DSCConstants.PAGES, new Object[] {DSCConstants.ATEND});
+            gen.writeDSCComment(DSCConstants.BBOX, DSCConstants.ATEND);
+            gen.writeDSCComment(DSCConstants.HIRES_BBOX, DSCConstants.ATEND);
+            gen.writeDSCComment(DSCConstants.DOCUMENT_SUPPLIED_RESOURCES,
+                    new Object[] {DSCConstants.ATEND});
+        }
         writeExtensions(COMMENT_DOCUMENT_HEADER);
+        if (documentBuffer != null) {
+            //The page count, bounding box and resources are known at the end of the document
+            documentBuffer.addSlot(ResourceHandler.HEADER_COMMENTS);
+        }
         gen.writeDSCComment(DSCConstants.END_COMMENTS);
 
         //Defaults
@@ -238,9 +249,16 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         gen.writeDSCComment(DSCConstants.BEGIN_SETUP);
         PSRenderingUtil.writeSetupCodeList(gen, setupCodeList, "SetupCode");
         if (!psUtil.isOptimizeResources()) {
+            long start = System.nanoTime();
             this.fontResources.addAll(PSFontUtils.writeFontDict(gen, fontInfo, eventProducer));
+            Metrics metrics = getUserAgent().getMetrics();
+            if (metrics.isEnabled()) {
+                metrics.recordTime(Metrics.FONT_SUBSET, System.nanoTime() - start,
+                        Metrics.TAG_FORMAT, getMimeType());
+            }
         } else {
-            gen.commentln("%FOPFontSetup"); //Place-holder, will be replaced in the second pass
+            //The fonts are written once the document is complete
+            documentBuffer.addSlot(ResourceHandler.FONT_SETUP);
         }
         gen.writeDSCComment(DSCConstants.END_SETUP);
     }
@@ -260,16 +278,21 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
             //Write trailer
             gen.writeDSCComment(DSCConstants.TRAILER);
             writeExtensions(COMMENT_DOCUMENT_TRAILER);
-            gen.writeDSCComment(DSCConstants.PAGES, this.currentPageNumber);
-            new DSCCommentBoundingBox(this.documentBoundingBox).generate(gen);
-            new DSCCommentHiResBoundingBox(this.documentBoundingBox).generate(gen);
-            gen.getResourceTracker().writeResources(false, gen);
+            if (documentBuffer == null) {
+                gen.writeDSCComment(DSCConstants.PAGES, this.currentPageNumber);
+                new DSCCommentBoundingBox(this.documentBoundingBox).generate(gen);
+                new DSCCommentHiResBoundingBox(this.documentBoundingBox).generate(gen);
+                gen.getResourceTracker().writeResources(false, gen);
+            } else {
+                //Only registers the needed resources, they are listed in the header comments
+                gen.getResourceTracker().writeResources(false,
+                        new PSGenerator(NullOutputStream.NULL_OUTPUT_STREAM));
+            }
             gen.writeDSCComment(DSCConstants.EOF);
             gen.flush();
             log.debug("Rendering to PostScript complete.");
-            if (psUtil.isOptimizeResources()) {
-                IOUtils.closeQuietly(gen.getOutputStream());
-                rewritePostScriptFile();
+            if (documentBuffer != null) {
+                writeOptimizedDocument();
             }
             if (pageDeviceDictionary != null) {
                 pageDeviceDictionary.clear();
@@ -281,28 +304,19 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
     }
 
     /**
-     * Used for two-pass production. This will rewrite the PostScript file from the temporary
-     * file while adding all needed resources.
+     * Used when resources are optimized. This will write the buffered document to the output
+     * stream while adding all needed resources.
      * @throws IOException In case of an I/O error.
      */
-    private void rewritePostScriptFile() throws IOException {
+    private void writeOptimizedDocument() throws IOException {
         log.debug("Processing PostScript resources...");
         long startTime = System.currentTimeMillis();
-        ResourceTracker resTracker = gen.getResourceTracker();
-        InputStream in = new BufferedInputStream(getUserAgent().getResourceResolver().getResource(tempURI));
-        try {
-            try {
-                ResourceHandler handler = new ResourceHandler(getUserAgent(), eventProducer,
-                        this.fontInfo, resTracker, this.formResources);
-                handler.process(in, this.outputStream,
-                        this.currentPageNumber, this.documentBoundingBox, psUtil);
-                this.outputStream.flush();
-            } catch (DSCException e) {
-                throw new RuntimeException(e.getMessage());
-            }
-        } finally {
-            IOUtils.closeQuietly(in);
-        }
+        ResourceHandler handler = new ResourceHandler(getUserAgent(), eventProducer,
+                this.fontInfo, gen.getResourceTracker(), this.formResources);
+        handler.process(documentBuffer, this.outputStream, gen.getPSLevel(),
+                this.currentPageNumber, this.documentBoundingBox, psUtil);
+        this.outputStream.flush();
+        documentBuffer = null;
         if (log.isDebugEnabled()) {
             long duration = System.currentTimeMillis() - startTime;
             log.debug("Resource Processing complete in " + duration + " ms.");
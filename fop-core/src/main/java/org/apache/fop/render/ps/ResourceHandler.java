@@ -62,15 +62,17 @@ import org.apache.xmlgraphics.ps.dsc.tools.DSCTools;
 
 import org.apache.fop.ResourceEventProducer;
 import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.MimeConstants;
 import org.apache.fop.fonts.FontInfo;
+import org.apache.fop.metrics.Metrics;
 import org.apache.fop.render.ImageHandler;
 import org.apache.fop.render.ImageHandlerRegistry;
 
 /**
- * This class is used when two-pass production is used to generate the PostScript file (setting
- * "optimize-resources"). It uses the DSC parser from XML Graphics Commons to go over the
- * temporary file generated by the PSRenderer and adds all used fonts and images as resources
- * to the PostScript file.
+ * This class is used when resources are optimized to generate the PostScript file (setting
+ * "optimize-resources"). It writes the document buffered by the PSDocumentHandler and adds all
+ * used fonts and images as resources to the PostScript file. It can also use the DSC parser
+ * from XML Graphics Commons to go over a previously generated PostScript file.
  */
 public class ResourceHandler implements DSCParserConstants, PSSupportedFlavors {
 
@@ -84,6 +86,11 @@ public class ResourceHandler implements DSCParserConstants, PSSupportedFlavors {
 
     private ResourceTracker resTracker;
 
+    /** Marks the end of the header comments in a {@link PSDocumentBuffer} */
+    static final Object HEADER_COMMENTS = "HeaderComments";
+    /** Marks the place of the font setup in a {@link PSDocumentBuffer} */
+    static final Object FONT_SETUP = "FontSetup";
+
     //key: URI, values PSImageFormResource
     private Map globalFormResources = new java.util.HashMap();
     //key: PSResource, values PSImageFormResource
@@ -185,26 +192,7 @@ public class ResourceHandler implements DSCParserConstants, PSSupportedFlavors {
                 reportInvalidDSC();
             }
             if (DSCTools.headerCommentsEndHere(event)) {
-                //Set number of pages
-                DSCCommentPages pages = new DSCCommentPages(pageCount);
-                pages.generate(gen);
-                new DSCCommentBoundingBox(documentBoundingBox).generate(gen);
-                new DSCCommentHiResBoundingBox(documentBoundingBox).generate(gen);
-
-                PSFontUtils.determineSuppliedFonts(resTracker, fontInfo, fontInfo.getUsedFonts());
-                registerSuppliedForms(resTracker, globalFormResources);
-
-                //Supplied Resources
-                DSCCommentDocumentSuppliedResources supplied
-                    = new DSCCommentDocumentSuppliedResources(
-                            resTracker.getDocumentSuppliedResources());
-                supplied.generate(gen);
-
-                //Needed Resources
-                DSCCommentDocumentNeededResources needed
-                    = new DSCCommentDocumentNeededResources(
-                            resTracker.getDocumentNeededResources());
-                needed.generate(gen);
+                writeHeaderComments(gen, pageCount, documentBoundingBox);
 
                 //Write original comment that ends the header comments
                 event.generate(gen);
@@ -225,8 +213,7 @@ public class ResourceHandler implements DSCParserConstants, PSSupportedFlavors {
         if (fontSetupPlaceholder == null) {
             throw new DSCException("Didn't find %FOPFontSetup comment in stream");
         }
-        PSFontUtils.writeFontDict(gen, fontInfo, fontInfo.getUsedFonts(), eventProducer);
-        generateForms(globalFormResources, gen);
+        writeFontSetup(gen);
 
         //Skip the prolog and to the first page
         DSCComment pageOrTrailer = parser.nextDSCComment(DSCConstants.PAGE, gen);
@@ -255,6 +242,87 @@ public class ResourceHandler implements DSCParserConstants, PSSupportedFlavors {
         gen.flush();
     }
 
+    /**
+     * Writes a document buffered by the PSDocumentHandler adding all needed resources
+     * (fonts and images) at the places marked while the document was generated.
+     * @param document the buffered document
+     * @param out the OutputStream to write the finished file to
+     * @param psLevel the PostScript language level of the document
+     * @param pageCount the number of pages
+     * @param documentBoundingBox the document's bounding box
+     * @param psUtil the PostScript rendering utility
+     * @throws IOException In case of an I/O error
+     */
+    void process(PSDocumentBuffer document, OutputStream out, int psLevel,
+                 int pageCount, Rectangle2D documentBoundingBox, PSRenderingUtil psUtil)
+                    throws IOException {
+        PSGenerator gen = new PSGenerator(out);
+        gen.setPSLevel(psLevel);
+        gen.setAcrobatDownsample(psUtil.isAcrobatDownsample());
+
+        PSDocumentBuffer.Reader reader = document.read();
+        try {
+            while (reader.copyToNextSlot(out)) {
+                Object slot = reader.getSlotContent();
+                if (slot == HEADER_COMMENTS) {
+                    writeHeaderComments(gen, pageCount, documentBoundingBox);
+                } else if (slot == FONT_SETUP) {
+                    writeFontSetup(gen);
+                } else if (inlineFormResources.containsKey(slot)) {
+                    //Create an inline form
+                    //Wrap in save/restore pair to release memory
+                    gen.writeln("save");
+                    generateFormForImage(gen, (PSImageFormResource) inlineFormResources.get(slot));
+                    String line = reader.copyLine(out);
+                    if (line == null || !line.endsWith(" execform")) {
+                        throw new IOException(
+                            "Expected a PostScript line in the form: <form> execform");
+                    }
+                    gen.writeln("restore");
+                }
+                //Global forms are part of the font setup
+            }
+        } finally {
+            reader.close();
+        }
+        gen.flush();
+    }
+
+    private void writeHeaderComments(PSGenerator gen, int pageCount,
+            Rectangle2D documentBoundingBox) throws IOException {
+        //Set number of pages
+        DSCCommentPages pages = new DSCCommentPages(pageCount);
+        pages.generate(gen);
+        new DSCCommentBoundingBox(documentBoundingBox).generate(gen);
+        new DSCCommentHiResBoundingBox(documentBoundingBox).generate(gen);
+
+        PSFontUtils.determineSuppliedFonts(resTracker, fontInfo, fontInfo.getUsedFonts());
+        registerSuppliedForms(resTracker, globalFormResources);
+
+        //Supplied Resources
+        DSCCommentDocumentSuppliedResources supplied
+            = new DSCCommentDocumentSuppliedResources(
+                    resTracker.getDocumentSuppliedResources());
+        supplied.generate(gen);
+
+        //Needed Resources
+        DSCCommentDocumentNeededResources needed
+            = new DSCCommentDocumentNeededResources(
+                    resTracker.getDocumentNeededResources());
+        needed.generate(gen);
+    }
+
+    private void writeFontSetup(PSGenerator gen) throws IOException {
+        long start = System.nanoTime();
+        PSFontUtils.writeFontDict(gen, fontInfo, fontInfo.getUsedFonts(), eventProducer);
+        Metrics metrics = userAgent.getMetrics();
+        if (metrics.isEnabled()) {
+            metrics.recordTime(Metrics.FONT_SUBSET, System.nanoTime() - start,
+                    Metrics.TAG_FORMAT, MimeConstants.MIME_POSTSCRIPT);
+        }
+        generateForms(globalFormResources, gen);
+    }
+
     private static void reportInvalidDSC() throws DSCException {
         throw new DSCException("File is not DSC-compliant: Unexpected end of file");
     }
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache holding a bounded number of entries, which removes the least recently used entry
+ * when a new one is added to the full cache. The number of lookups that found or didn't find
+ * their key is counted. The cache can be used by several threads at the same time.
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class LRUCache<K, V> {
+
+    private final int maxSize;
+
+    private final Map<K, V> entries;
+
+    private long hitCount;
+
+    private long missCount;
+
+    /**
+     * Creates a new cache.
+     * @param maxSize the maximum number of entries, 0 to disable the cache
+     */
+    public LRUCache(final int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = -2693427412364925816L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Indicates whether the cache is enabled.
+     * @return true if entries are cached
+     */
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Looks up the value of a key.
+     * @param key the key
+     * @return the cached value, or null if the key is not in the cache
+     */
+    public synchronized V get(K key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        V value = entries.get(key);
+        if (value != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return value;
+    }
+
+    /**
+     * Caches the value of a key, removing the least recently used entry if the cache is full.
+     * @param key the key
+     * @param value the value, not null
+     */
+    public synchronized void put(K key, V value) {
+        if (isEnabled()) {
+            entries.put(key, value);
+        }
+    }
+
+    /**
+     * Returns the number of entries in the cache.
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups that found their key in the cache.
+     * @return the number of cache hits
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups that didn't find their key in the cache.
+     * @return the number of cache misses
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+}
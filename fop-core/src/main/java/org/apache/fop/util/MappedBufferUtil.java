@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Releases memory-mapped files. A mapping is otherwise only released when its buffer is
+ * garbage collected, and as long as a file is mapped it can't be deleted or replaced on
+ * Windows.
+ */
+public final class MappedBufferUtil {
+
+    /** logging instance */
+    private static final Log LOG = LogFactory.getLog(MappedBufferUtil.class);
+
+    private static final Unmapper UNMAPPER = AccessController.doPrivileged(
+            new PrivilegedAction<Unmapper>() {
+                public Unmapper run() {
+                    return createUnmapper();
+                }
+            });
+
+    private MappedBufferUtil() {
+    }
+
+    /**
+     * Releases the mapping of a buffer. The buffer, and every buffer that shares its content,
+     * must not be accessed anymore afterwards. Buffers that are not mapped are ignored.
+     * @param buffer the buffer, may be null
+     * @return true if the mapping was released, false if it will only be released when the
+     * buffer is garbage collected
+     */
+    public static boolean unmap(final ByteBuffer buffer) {
+        if (!(buffer instanceof MappedByteBuffer) || UNMAPPER == null) {
+            return false;
+        }
+        return AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+            public Boolean run() {
+                try {
+                    UNMAPPER.unmap(buffer);
+                    return Boolean.TRUE;
+                } catch (Exception e) {
+                    LOG.debug("Unable to release a memory-mapped buffer: " + e.getMessage());
+                    return Boolean.FALSE;
+                }
+            }
+        });
+    }
+
+    private static Unmapper createUnmapper() {
+        try {
+            // Java 9 and later
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            final Object unsafe = theUnsafe.get(null);
+            return new Unmapper() {
+                public void unmap(ByteBuffer buffer) throws Exception {
+                    invokeCleaner.invoke(unsafe, buffer);
+                }
+            };
+        } catch (Exception e) {
+            // fall through
+        }
+        try {
+            // Java 8
+            final Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            final Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            return new Unmapper() {
+                public void unmap(ByteBuffer buffer) throws Exception {
+                    Object bufferCleaner = cleaner.invoke(buffer);
+                    if (bufferCleaner != null) {
+                        clean.invoke(bufferCleaner);
+                    }
+                }
+            };
+        } catch (Exception e) {
+            LOG.debug("Memory-mapped buffers can't be released explicitly: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private interface Unmapper {
+        void unmap(ByteBuffer buffer) throws Exception;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the worker threads FOP uses to lay out, compress or paint in the background. The
+ * threads are daemon threads, so a pool that is not shut down never keeps the JVM alive, and
+ * the threads of an idle pool are stopped after a while.
+ * <p>
+ * Every pool belongs to a single document. The tasks of a pool may wait for each other, so
+ * they must not share threads with the tasks of other documents.
+ */
+public final class WorkerThreadFactory implements ThreadFactory {
+
+    /** The number of seconds an idle worker thread is kept */
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final String name;
+
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    /**
+     * Creates a new thread factory.
+     * @param name the name of the threads, followed by their number
+     */
+    public WorkerThreadFactory(String name) {
+        this.name = name;
+    }
+
+    /** {@inheritDoc} */
+    public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, name + " " + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Creates a pool running the tasks on a fixed number of worker threads, in the order they
+     * were submitted.
+     * @param name the name of the threads
+     * @param threads the number of threads
+     * @return the pool
+     */
+    public static ThreadPoolExecutor newExecutor(String name, int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new WorkerThreadFactory(name));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Shuts a pool down. This may be called several times.
+     * @param executor the pool, may be null
+     * @param cancel true to drop the tasks that haven't started and interrupt the running
+     * ones, false to let them complete
+     */
+    public static void shutdown(final ExecutorService executor, final boolean cancel) {
+        if (executor == null) {
+            return;
+        }
+        AccessController.doPrivileged(new PrivilegedAction<Object>() {
+            public Object run() {
+                if (cancel) {
+                    executor.shutdownNow();
+                } else {
+                    executor.shutdown();
+                }
+                return null;
+            }
+        });
+    }
+}
@@ -18,25 +18,37 @@
 /* $Id$ */
 package org.apache.fop;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import org.apache.commons.io.IOUtils;
 
 import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.FopFactoryBuilder;
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.apps.io.ResourceResolverFactory;
+import org.apache.fop.hyphenation.CompiledHyphenationTree;
 import org.apache.fop.hyphenation.Hyphenation;
 import org.apache.fop.hyphenation.HyphenationException;
 import org.apache.fop.hyphenation.HyphenationTree;
+import org.apache.fop.hyphenation.HyphenationWordCache;
 import org.apache.fop.hyphenation.Hyphenator;
 
 public class HyphenationTestCase {
@@ -99,4 +111,161 @@ public class HyphenationTestCase {
         frxml.delete();
         f.delete();
     }
+
+    @Test
+    public void testCompiledTree() throws HyphenationException {
+        HyphenationTree hTree = new HyphenationTree();
+        hTree.loadPatterns(new File("test/resources/fop/fr.xml").getAbsolutePath());
+        HyphenationTree compiled = CompiledHyphenationTree.compile(hTree);
+        String[] words = {"hello", "oello", "hyphenation", "anticonstitutionnellement",
+                "\u00e9lectricit\u00e9", "porte-monnaie", "aujourd'hui", "x", ""};
+        for (String word : words) {
+            for (int min = 0; min < 4; min++) {
+                Hyphenation expected = hTree.hyphenate(word, min, min);
+                Hyphenation actual = compiled.hyphenate(word, min, min);
+                assertEquals(word, String.valueOf(expected), String.valueOf(actual));
+            }
+        }
+    }
+
+    @Test
+    public void testHyphenatorCompiled() throws HyphenationException, IOException {
+        File f = File.createTempFile("hyc", "fop");
+        f.delete();
+        f.mkdir();
+        InternalResourceResolver resourceResolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                f.toURI());
+
+        HyphenationTree hTree = new HyphenationTree();
+        hTree.loadPatterns(new File("test/resources/fop/fr.xml").getAbsolutePath());
+        File hyc = new File(f, "fr.hyc");
+        FileOutputStream out = new FileOutputStream(hyc);
+        CompiledHyphenationTree.write(hTree, out);
+        out.close();
+
+        Hyphenation hyph = Hyphenator.hyphenate("fr.hyc" + Hyphenator.HYCTYPE, null, resourceResolver, null,
+                "oello", 0, 0, fopFactory.newFOUserAgent());
+        assertEquals(hyph.toString(), "oel-lo");
+        hyph = Hyphenator.hyphenate("fr", null, resourceResolver, null,
+                "hello", 0, 0, fopFactory.newFOUserAgent());
+        assertEquals(hyph.toString(), "-hel-lo");
+
+        hyc.delete();
+        f.delete();
+    }
+
+    @Test
+    public void testChangedCompiledFileIsReloaded() throws HyphenationException, IOException {
+        File f = File.createTempFile("hyc", "fop");
+        f.delete();
+        f.mkdir();
+        InternalResourceResolver resourceResolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                f.toURI());
+        File hyc = new File(f, "fr.hyc");
+        writeCompiledTree(new File("test/resources/fop/fr.xml"), hyc);
+        HyphenationTree first = Hyphenator.getUserHyphenationTree("fr.hyc" + Hyphenator.HYCTYPE,
+                resourceResolver);
+        assertSame(first, Hyphenator.getUserHyphenationTree("fr.hyc" + Hyphenator.HYCTYPE,
+                resourceResolver));
+        assertEquals("-hel-lo", first.hyphenate("hello", 0, 0).toString());
+
+        File xml = new File(f, "changed.xml");
+        FileOutputStream fos = new FileOutputStream(xml);
+        fos.write(("<hyphenation-info><classes>h e l o</classes>"
+                + "<patterns>l1l</patterns></hyphenation-info>").getBytes("UTF-8"));
+        fos.close();
+        // replace the file instead of overwriting it, the first tree still maps the old one
+        File changed = new File(f, "changed.hyc");
+        writeCompiledTree(xml, changed);
+        changed.setLastModified(hyc.lastModified() + 2000);
+        Files.move(changed.toPath(), hyc.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        HyphenationTree second = Hyphenator.getUserHyphenationTree("fr.hyc" + Hyphenator.HYCTYPE,
+                resourceResolver);
+        assertNotSame(first, second);
+        assertEquals("hel-lo", second.hyphenate("hello", 0, 0).toString());
+        assertSame(second, Hyphenator.getUserHyphenationTree("fr.hyc" + Hyphenator.HYCTYPE,
+                resourceResolver));
+
+        xml.delete();
+        hyc.delete();
+        f.delete();
+    }
+
+    private static void writeCompiledTree(File patterns, File hyc) throws HyphenationException, IOException {
+        HyphenationTree hTree = new HyphenationTree();
+        hTree.loadPatterns(patterns.getAbsolutePath());
+        FileOutputStream out = new FileOutputStream(hyc);
+        try {
+            CompiledHyphenationTree.write(hTree, out);
+        } finally {
+            out.close();
+        }
+    }
+
+    @Test
+    public void testCompiledTreeVersion() throws HyphenationException, IOException {
+        HyphenationTree hTree = new HyphenationTree();
+        hTree.loadPatterns(new File("test/resources/fop/fr.xml").getAbsolutePath());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompiledHyphenationTree.write(hTree, out);
+        byte[] data = out.toByteArray();
+        data[7]++;
+        try {
+            CompiledHyphenationTree.read(new ByteArrayInputStream(data));
+            fail("Unsupported version must be rejected");
+        } catch (IOException ioe) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testWordCache() {
+        File f = new File("test/resources/fop");
+        InternalResourceResolver resourceResolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                f.toURI());
+        HyphenationWordCache wordCache = fopFactory.getHyphenationTreeCache().getWordCache();
+        Hyphenation first = Hyphenator.hyphenate("fr.xml" + Hyphenator.XMLTYPE, null, resourceResolver, null,
+                "hello", 0, 0, fopFactory.newFOUserAgent());
+        assertEquals(0, wordCache.getHitCount());
+        assertEquals(1, wordCache.getMissCount());
+        Hyphenation second = Hyphenator.hyphenate("fr.xml" + Hyphenator.XMLTYPE, null, resourceResolver, null,
+                "hello", 0, 0, fopFactory.newFOUserAgent());
+        assertSame(first, second);
+        assertEquals(1, wordCache.getHitCount());
+        Hyphenation other = Hyphenator.hyphenate("fr.xml" + Hyphenator.XMLTYPE, null, resourceResolver, null,
+                "hello", 2, 2, fopFactory.newFOUserAgent());
+        assertEquals("hel-lo", other.toString());
+        assertEquals(2, wordCache.getMissCount());
+    }
+
+    @Test
+    public void testWordCacheDisabled() {
+        File f = new File("test/resources/fop");
+        InternalResourceResolver resourceResolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                f.toURI());
+        FopFactory factory = new FopFactoryBuilder(new File(".").toURI())
+                .setHyphenationWordCacheSize(0).build();
+        HyphenationWordCache wordCache = factory.getHyphenationTreeCache().getWordCache();
+        assertFalse(wordCache.isEnabled());
+        Hyphenator.hyphenate("fr.xml" + Hyphenator.XMLTYPE, null, resourceResolver, null,
+                "hello", 0, 0, factory.newFOUserAgent());
+        assertNull(wordCache.get("fr", null, "hello", 0, 0));
+        assertEquals(0, wordCache.getMissCount());
+    }
+
+    @Test
+    public void testWordCacheEviction() throws HyphenationException {
+        HyphenationTree hTree = new HyphenationTree();
+        hTree.loadPatterns(new File("test/resources/fop/fr.xml").getAbsolutePath());
+        HyphenationWordCache wordCache = new HyphenationWordCache(2);
+        wordCache.put("fr", null, "hello", 0, 0, hTree.hyphenate("hello", 0, 0));
+        wordCache.put("fr", null, "oello", 0, 0, hTree.hyphenate("oello", 0, 0));
+        wordCache.put("fr", null, "x", 0, 0, null);
+        assertNull(wordCache.get("fr", null, "hello", 0, 0));
+        assertEquals("oel-lo", wordCache.get("fr", null, "oello", 0, 0).toString());
+        assertTrue(HyphenationWordCache.isNoHyphenation(wordCache.get("fr", null, "x", 0, 0)));
+        assertNull(wordCache.get("de", null, "oello", 0, 0));
+        assertEquals(2, wordCache.getHitCount());
+        assertEquals(2, wordCache.getMissCount());
+    }
 }
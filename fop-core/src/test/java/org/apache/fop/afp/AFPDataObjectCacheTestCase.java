@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.afp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.afp.ioca.ImageContent;
+
+public class AFPDataObjectCacheTestCase {
+
+    private static AFPImageObjectInfo createImage(int size) {
+        AFPImageObjectInfo info = new AFPImageObjectInfo();
+        info.setData(new byte[size]);
+        info.setMimeType("image/x-afp+fs11");
+        info.setBitsPerPixel(8);
+        info.setCompression(ImageContent.COMPID_JPEG);
+        info.setSubtractive(true);
+        info.setCreatePageSegment(true);
+        return info;
+    }
+
+    @Test
+    public void testRestore() {
+        AFPDataObjectCache cache = new AFPDataObjectCache(100);
+        AFPImageObjectInfo stored = createImage(10);
+        stored.setTransparencyMask(new byte[5]);
+        cache.store("a", stored);
+        assertEquals(15, cache.getUsedSize());
+
+        AFPImageObjectInfo restored = new AFPImageObjectInfo();
+        assertFalse(cache.restore("b", restored));
+        assertTrue(cache.restore("a", restored));
+        assertSame(stored.getData(), restored.getData());
+        assertSame(stored.getTransparencyMask(), restored.getTransparencyMask());
+        assertEquals("image/x-afp+fs11", restored.getMimeType());
+        assertEquals(8, restored.getBitsPerPixel());
+        assertEquals(ImageContent.COMPID_JPEG, restored.getCompression());
+        assertTrue(restored.isSubtractive());
+        assertTrue(restored.isCreatePageSegment());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreRemoved() {
+        AFPDataObjectCache cache = new AFPDataObjectCache(100);
+        cache.store("a", createImage(40));
+        cache.store("b", createImage(40));
+        assertTrue(cache.restore("a", new AFPImageObjectInfo()));
+        cache.store("c", createImage(40));
+        assertEquals(80, cache.getUsedSize());
+        assertTrue(cache.restore("a", new AFPImageObjectInfo()));
+        assertFalse(cache.restore("b", new AFPImageObjectInfo()));
+        assertTrue(cache.restore("c", new AFPImageObjectInfo()));
+    }
+
+    @Test
+    public void testObjectsLargerThanTheCacheAreNotStored() {
+        AFPDataObjectCache cache = new AFPDataObjectCache(100);
+        cache.store("a", createImage(40));
+        cache.store("b", createImage(101));
+        assertEquals(40, cache.getUsedSize());
+        assertTrue(cache.restore("a", new AFPImageObjectInfo()));
+        assertFalse(cache.restore("b", new AFPImageObjectInfo()));
+    }
+
+    @Test
+    public void testDisabledCache() {
+        AFPDataObjectCache cache = new AFPDataObjectCache(0);
+        assertFalse(cache.isEnabled());
+        cache.store("a", createImage(10));
+        assertEquals(0, cache.getUsedSize());
+        assertFalse(cache.restore("a", new AFPImageObjectInfo()));
+    }
+}
@@ -29,13 +29,18 @@ import java.io.IOException;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import org.apache.xmlgraphics.image.loader.ImageInfo;
 import org.apache.xmlgraphics.image.loader.ImageSize;
 import org.apache.xmlgraphics.image.loader.impl.ImageRendered;
 
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.FopFactoryBuilder;
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.apps.io.ResourceResolverFactory;
 
@@ -114,6 +119,59 @@ public class AFPImageHandlerRenderedImageTestCase {
         assertEquals(assertionMessage, afpContent, sb.toString());
     }
 
+    @Test
+    public void testEncodedImageIsReusedAcrossDocuments() throws IOException {
+        FOUserAgent userAgent = new FopFactoryBuilder(new File(".").toURI())
+                .setAFPDataObjectCacheSize(1024 * 1024).build().newFOUserAgent();
+        AFPDataObjectCache cache = userAgent.getAFPDataObjectCache();
+        BufferedImage img = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        img.setRGB(10, 20, 0xff8000);
+        byte[] first = renderDocument(userAgent, img);
+        assertEquals(0, cache.getHitCount());
+        byte[] second = renderDocument(userAgent, img);
+        assertEquals(1, cache.getHitCount());
+        assertArrayEquals(first, second);
+
+        BufferedImage other = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        other.setRGB(10, 21, 0xff8000);
+        renderDocument(userAgent, other);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testDataObjectCacheIsDisabledByDefault() throws IOException {
+        FOUserAgent userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+        AFPDataObjectCache cache = userAgent.getAFPDataObjectCache();
+        assertFalse(cache.isEnabled());
+        BufferedImage img = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        renderDocument(userAgent, img);
+        renderDocument(userAgent, img);
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getUsedSize());
+    }
+
+    private byte[] renderDocument(FOUserAgent userAgent, BufferedImage img) throws IOException {
+        AFPResourceManager afpResourceManager = new AFPResourceManager(
+                userAgent.getResourceResolver());
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        AFPPaintingState paintingState = new AFPPaintingState();
+        paintingState.setColorImages(true);
+        DataStream ds = afpResourceManager.createDataStream(paintingState, bos);
+        ds.startDocument();
+        ds.startPage(0, 0, 0, 0, 0);
+        ImageInfo info = new ImageInfo("a", null);
+        info.setSize(new ImageSize(100, 100, 72));
+        AFPRenderingContext afpRenderingContext = new AFPRenderingContext(userAgent,
+                afpResourceManager, paintingState, null, null);
+        new AFPImageHandlerRenderedImage().handleImage(afpRenderingContext,
+                new ImageRendered(info, img, null), new Rectangle(0, 0, 72000, 72000));
+        ds.endPage();
+        ds.endDocument();
+        afpResourceManager.writeToStream();
+        return bos.toByteArray();
+    }
+
     @Test
     public void checkMimeTypeTrueUseIocaImages() throws IOException {
         MyAFPResourceManager afpResourceManager = new MyAFPResourceManager();
@@ -48,6 +48,7 @@ import static org.apache.fop.render.afp.AFPRendererOption.LINE_WIDTH_CORRECTION;
 import static org.apache.fop.render.afp.AFPRendererOption.RENDERER_RESOLUTION;
 import static org.apache.fop.render.afp.AFPRendererOption.RESOURCE_GROUP_URI;
 import static org.apache.fop.render.afp.AFPRendererOption.SHADING;
+import static org.apache.fop.render.afp.AFPRendererOption.STREAM_PAGES;
 
 /**
  * A config builder specific to a particular renderer for specific MIME type.
@@ -108,6 +109,10 @@ public final class AFPRendererConfBuilder extends RendererConfBuilder {
         return this;
     }
 
+    public AFPRendererConfBuilder setStreamPages(boolean value) {
+        return createTextElement(STREAM_PAGES, String.valueOf(value));
+    }
+
     public AFPRendererConfBuilder setDefaultResourceLevels(Map<String, String> levels) {
         Element e = createElement(DEFAULT_RESOURCE_LEVELS.getName());
         for (Map.Entry<String, String> stringStringEntry : levels.entrySet()) {
@@ -23,9 +23,12 @@ import org.apache.fop.apps.FopConfBuilder.RendererConfBuilder;
 
 import static org.apache.fop.render.bitmap.BitmapRendererOption.ANTI_ALIASING;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.BACKGROUND_COLOR;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.BAND_HEIGHT;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.COLOR_MODE;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.JAVA2D_TRANSPARENT_PAGE_BACKGROUND;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.MAX_RASTERS_IN_FLIGHT;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_QUALITY_ELEMENT;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_THREADS;
 
 public class BitmapRendererConfBuilder extends RendererConfBuilder {
 
@@ -62,6 +65,21 @@ public class BitmapRendererConfBuilder extends RendererConfBuilder {
         return this;
     }
 
+    public BitmapRendererConfBuilder setRenderingThreads(int threads) {
+        createTextElement(RENDERING_THREADS, String.valueOf(threads));
+        return this;
+    }
+
+    public BitmapRendererConfBuilder setMaxRastersInFlight(int max) {
+        createTextElement(MAX_RASTERS_IN_FLIGHT, String.valueOf(max));
+        return this;
+    }
+
+    public BitmapRendererConfBuilder setBandHeight(int bandHeight) {
+        createTextElement(BAND_HEIGHT, String.valueOf(bandHeight));
+        return this;
+    }
+
     public static String getMimeType() {
         return "Bitmap";
     }
@@ -157,6 +157,42 @@ public final class MutableConfig implements FopFactoryConfig {
         return delegate.isLegacyFoWrapper();
     }
 
+    public int getPageSequenceLayoutThreads() {
+        return delegate.getPageSequenceLayoutThreads();
+    }
+
+    public int getPageBreakingMaxActiveNodes() {
+        return delegate.getPageBreakingMaxActiveNodes();
+    }
+
+    public int getPageBreakingLookahead() {
+        return delegate.getPageBreakingLookahead();
+    }
+
+    public int getPageSequencePipelineSize() {
+        return delegate.getPageSequencePipelineSize();
+    }
+
+    public int getPageCacheSize() {
+        return delegate.getPageCacheSize();
+    }
+
+    public boolean isStaticContentCachingEnabled() {
+        return delegate.isStaticContentCachingEnabled();
+    }
+
+    public int getHyphenationWordCacheSize() {
+        return delegate.getHyphenationWordCacheSize();
+    }
+
+    public int getPropertyExpressionCacheSize() {
+        return delegate.getPropertyExpressionCacheSize();
+    }
+
+    public long getAFPDataObjectCacheSize() {
+        return delegate.getAFPDataObjectCacheSize();
+    }
+
     public Map<String, String> getHyphenationPatternNames() {
         return delegate.getHyphenationPatternNames();
     }
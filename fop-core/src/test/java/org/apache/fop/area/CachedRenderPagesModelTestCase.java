@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.FopFactoryBuilder;
+import org.apache.fop.apps.FopFactoryConfig;
+import org.apache.fop.apps.MimeConstants;
+
+/**
+ * Checks that saving unresolved pages and loading them again produces the same area tree as
+ * keeping all pages in memory.
+ */
+public class CachedRenderPagesModelTestCase {
+
+    private static String createFO() {
+        StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">\n"
+                + "  <fo:layout-master-set>\n"
+                + "    <fo:simple-page-master master-name=\"simple\" page-height=\"10cm\""
+                + " page-width=\"10cm\">\n"
+                + "      <fo:region-body/>\n"
+                + "    </fo:simple-page-master>\n"
+                + "  </fo:layout-master-set>\n"
+                + "  <fo:page-sequence master-reference=\"simple\" id=\"root\">\n"
+                + "    <fo:flow flow-name=\"xsl-region-body\">\n");
+        for (int i = 0; i < 40; i++) {
+            // every page links to the last one, so all pages are saved until the end
+            fo.append("      <fo:block break-before=\"page\" id=\"block" + i + "\">Page " + i
+                    + ", see <fo:basic-link internal-destination=\"last\">the end</fo:basic-link>"
+                    + " and <fo:basic-link internal-destination=\"block" + (i + 1) + "\">the next"
+                    + " page</fo:basic-link></fo:block>\n"
+                    + "      <fo:block text-align=\"justify\" border=\"1pt solid red\""
+                    + " background-color=\"#e0e0ff\">The end is on page"
+                    + " <fo:page-number-citation ref-id=\"last\"/> of"
+                    + " <fo:page-number-citation-last ref-id=\"root\"/>,"
+                    + " <fo:inline font-weight=\"bold\" text-decoration=\"underline\">well"
+                    + " after</fo:inline> this <fo:leader leader-pattern=\"dots\""
+                    + " leader-length=\"2cm\"/> page <fo:page-number/>.<fo:footnote>"
+                    + "<fo:inline baseline-shift=\"super\">" + i + "</fo:inline>"
+                    + "<fo:footnote-body><fo:block>Note " + i + "</fo:block></fo:footnote-body>"
+                    + "</fo:footnote></fo:block>\n"
+                    + "      <fo:block-container width=\"3cm\" reference-orientation=\"90\">"
+                    + "<fo:block>Rotated <fo:inline-container width=\"1cm\"><fo:block>"
+                    + "inline</fo:block></fo:inline-container></fo:block></fo:block-container>\n");
+        }
+        fo.append("      <fo:block id=\"last\">The end</fo:block>\n"
+                + "    </fo:flow>\n"
+                + "  </fo:page-sequence>\n"
+                + "</fo:root>");
+        return fo.toString();
+    }
+
+    private static String render(String fo, boolean conserveMemory, int pageCacheSize)
+            throws Exception {
+        FopFactory fopFactory = new FopFactoryBuilder(new File(".").toURI())
+                .setPageCacheSize(pageCacheSize).build();
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setConserveMemoryPolicy(conserveMemory);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Source src = new StreamSource(new ByteArrayInputStream(fo.getBytes("UTF-8")));
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+        return out.toString("UTF-8");
+    }
+
+    @Test
+    public void testSameAreaTreeAsInMemory() throws Exception {
+        String fo = createFO();
+        String expected = render(fo, false, FopFactoryConfig.DEFAULT_PAGE_CACHE_SIZE);
+        assertTrue(expected.contains("prod-id=\"block39\""));
+        assertEquals(expected, render(fo, true, FopFactoryConfig.DEFAULT_PAGE_CACHE_SIZE));
+    }
+
+    @Test
+    public void testAllPagesInPageStore() throws Exception {
+        String fo = createFO();
+        assertEquals(render(fo, false, 0), render(fo, true, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativePageCacheSize() {
+        new FopFactoryBuilder(new File(".").toURI()).setPageCacheSize(-1);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.FopFactoryBuilder;
+import org.apache.fop.apps.MimeConstants;
+
+/**
+ * Checks that laying out page-sequences while the FO tree of the next ones is being built
+ * produces the same area tree as laying them out on the thread building the FO tree.
+ */
+public class PageSequencePipelineTestCase {
+
+    private static String createFO() {
+        StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">\n"
+                + "  <fo:layout-master-set>\n"
+                + "    <fo:simple-page-master master-name=\"page\" page-height=\"10cm\""
+                + " page-width=\"10cm\">\n"
+                + "      <fo:region-body margin-top=\"1cm\"/>\n"
+                + "      <fo:region-before extent=\"1cm\"/>\n"
+                + "    </fo:simple-page-master>\n"
+                + "  </fo:layout-master-set>\n"
+                + "  <fo:bookmark-tree>\n"
+                + "    <fo:bookmark internal-destination=\"seq7\">"
+                + "<fo:bookmark-title>Sequence 7</fo:bookmark-title></fo:bookmark>\n"
+                + "  </fo:bookmark-tree>\n");
+        for (int i = 0; i < 12; i++) {
+            fo.append("  <fo:page-sequence master-reference=\"page\""
+                    + (i % 3 == 1 ? " force-page-count=\"even\"" : "") + ">\n"
+                    + "    <fo:static-content flow-name=\"xsl-region-before\">\n"
+                    + "      <fo:block>Page <fo:page-number/></fo:block>\n"
+                    + "    </fo:static-content>\n"
+                    + "    <fo:flow flow-name=\"xsl-region-body\">\n"
+                    + "      <fo:block id=\"seq" + i + "\">Sequence " + i + "</fo:block>\n");
+            for (int j = 0; j < 5 + i; j++) {
+                fo.append("      <fo:block space-before=\"1cm\">See page <fo:page-number-citation"
+                        + " ref-id=\"seq" + (11 - i) + "\"/> and <fo:page-number-citation-last"
+                        + " ref-id=\"seq" + i + "\"/></fo:block>\n");
+            }
+            fo.append("    </fo:flow>\n"
+                    + "  </fo:page-sequence>\n");
+        }
+        fo.append("</fo:root>");
+        return fo.toString();
+    }
+
+    private static String render(String fo, int pipelineSize, int threads) throws Exception {
+        FopFactoryBuilder builder = new FopFactoryBuilder(new File(".").toURI());
+        builder.setPageSequencePipelineSize(pipelineSize);
+        builder.setPageSequenceLayoutThreads(threads);
+        FopFactory fopFactory = builder.build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Source src = new StreamSource(new ByteArrayInputStream(fo.getBytes("UTF-8")));
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+        assertEquals(12, fop.getResults().getPageSequences().size());
+        return out.toString("UTF-8");
+    }
+
+    @Test
+    public void testSameAreaTreeAsWithoutPipeline() throws Exception {
+        String fo = createFO();
+        String expected = render(fo, 0, 0);
+        assertTrue(expected.contains("prod-id=\"seq11\""));
+        assertTrue(expected.contains("<bookmark title=\"Sequence 7\""));
+        assertEquals(expected, render(fo, 1, 0));
+        assertEquals(expected, render(fo, 4, 0));
+        // page keys depend on the order in which the pages were created
+        assertEquals(expected.replaceAll(" key=\"[^\"]*\"", ""),
+                render(fo, 2, 2).replaceAll(" key=\"[^\"]*\"", ""));
+    }
+
+    @Test
+    public void testStepsRunInOrder() {
+        PageSequencePipeline pipeline = new PageSequencePipeline(1);
+        final List<Integer> steps = new ArrayList<Integer>();
+        for (int i = 0; i < 20; i++) {
+            final int step = i;
+            Runnable runnable = new Runnable() {
+                public void run() {
+                    steps.add(step);
+                }
+            };
+            if (i % 2 == 0) {
+                pipeline.addStep(runnable);
+            } else {
+                pipeline.addPageSequence(runnable);
+            }
+        }
+        pipeline.close();
+        assertEquals(20, steps.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, steps.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testFailureIsRethrown() {
+        PageSequencePipeline pipeline = new PageSequencePipeline(1);
+        final IllegalStateException failure = new IllegalStateException("layout failed");
+        final List<Runnable> ranAfterFailure = new ArrayList<Runnable>();
+        pipeline.addPageSequence(new Runnable() {
+            public void run() {
+                throw failure;
+            }
+        });
+        Runnable afterFailure = new Runnable() {
+            public void run() {
+                ranAfterFailure.add(this);
+            }
+        };
+        try {
+            pipeline.addPageSequence(afterFailure);
+            pipeline.close();
+            fail("The failure of the layout must be rethrown");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+        assertTrue(ranAfterFailure.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativePipelineSize() {
+        new FopFactoryBuilder(new File(".").toURI()).setPageSequencePipelineSize(-1);
+    }
+}
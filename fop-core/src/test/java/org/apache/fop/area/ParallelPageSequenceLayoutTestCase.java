@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.FopFactoryBuilder;
+import org.apache.fop.apps.MimeConstants;
+
+/**
+ * Checks that laying out page-sequences on worker threads produces the same area tree as
+ * laying them out one after the other.
+ */
+public class ParallelPageSequenceLayoutTestCase {
+
+    private static String createFO() {
+        StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">\n"
+                + "  <fo:layout-master-set>\n"
+                + "    <fo:simple-page-master master-name=\"first\" page-height=\"10cm\""
+                + " page-width=\"10cm\">\n"
+                + "      <fo:region-body margin-top=\"1cm\"/>\n"
+                + "      <fo:region-before extent=\"1cm\"/>\n"
+                + "    </fo:simple-page-master>\n"
+                + "    <fo:simple-page-master master-name=\"rest\" page-height=\"10cm\""
+                + " page-width=\"10cm\">\n"
+                + "      <fo:region-body/>\n"
+                + "    </fo:simple-page-master>\n"
+                + "    <fo:page-sequence-master master-name=\"alternating\">\n"
+                + "      <fo:repeatable-page-master-alternatives>\n"
+                + "        <fo:conditional-page-master-reference master-reference=\"first\""
+                + " page-position=\"first\"/>\n"
+                + "        <fo:conditional-page-master-reference master-reference=\"rest\"/>\n"
+                + "      </fo:repeatable-page-master-alternatives>\n"
+                + "    </fo:page-sequence-master>\n"
+                + "  </fo:layout-master-set>\n");
+        for (int i = 0; i < 12; i++) {
+            // every fourth page-sequence is numbered automatically and laid out serially
+            String initialPageNumber = i % 4 == 3 ? "auto" : String.valueOf(i * 100 + 1);
+            fo.append("  <fo:page-sequence master-reference=\"alternating\" initial-page-number=\""
+                    + initialPageNumber + "\" force-page-count=\"even\">\n"
+                    + "    <fo:static-content flow-name=\"xsl-region-before\">\n"
+                    + "      <fo:block>Page <fo:page-number/></fo:block>\n"
+                    + "    </fo:static-content>\n"
+                    + "    <fo:flow flow-name=\"xsl-region-body\">\n"
+                    + "      <fo:block id=\"seq" + i + "\">Sequence " + i + "</fo:block>\n");
+            for (int j = 0; j < 10 + i; j++) {
+                fo.append("      <fo:block space-before=\"1cm\">See page <fo:page-number-citation"
+                        + " ref-id=\"seq" + (11 - i) + "\"/> and <fo:page-number-citation"
+                        + " ref-id=\"seq" + i + "\"/></fo:block>\n");
+            }
+            fo.append("    </fo:flow>\n"
+                    + "  </fo:page-sequence>\n");
+        }
+        fo.append("</fo:root>");
+        return fo.toString();
+    }
+
+    private static String render(String fo, int threads) throws Exception {
+        FopFactoryBuilder builder = new FopFactoryBuilder(new File(".").toURI());
+        builder.setPageSequenceLayoutThreads(threads);
+        FopFactory fopFactory = builder.build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Source src = new StreamSource(new ByteArrayInputStream(fo.getBytes("UTF-8")));
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+        // page keys depend on the order in which the pages were created
+        return out.toString("UTF-8").replaceAll(" key=\"[^\"]*\"", "");
+    }
+
+    @Test
+    public void testSameAreaTreeAsSerialLayout() throws Exception {
+        String fo = createFO();
+        String expected = render(fo, 0);
+        assertTrue(expected.contains("prod-id=\"seq11\""));
+        assertEquals(expected, render(fo, 4));
+        assertEquals(expected, render(fo, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeThreadCount() {
+        new FopFactoryBuilder(new File(".").toURI()).setPageSequenceLayoutThreads(-1);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo.expr;
+
+import java.io.File;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.FopFactoryBuilder;
+import org.apache.fop.fo.Constants;
+import org.apache.fop.fo.FObj;
+import org.apache.fop.fo.PropertyList;
+import org.apache.fop.fo.properties.FixedLength;
+import org.apache.fop.fo.properties.ListProperty;
+import org.apache.fop.fo.properties.Property;
+import org.apache.fop.fo.properties.PropertyMaker;
+
+public class PropertyExpressionCacheTestCase {
+
+    private PropertyExpressionCache cache;
+
+    private PropertyInfo propInfo;
+
+    @Before
+    public void setUp() throws PropertyException {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        cache = userAgent.getPropertyExpressionCache();
+        FObj fobj = mock(FObj.class);
+        when(fobj.getUserAgent()).thenReturn(userAgent);
+        PropertyList pList = mock(PropertyList.class);
+        when(pList.getFObj()).thenReturn(fobj);
+        Property fontSize = FixedLength.getInstance(10, "pt");
+        when(pList.get(Constants.PR_FONT_SIZE)).thenReturn(fontSize);
+        propInfo = new PropertyInfo(new PropertyMaker(Constants.PR_SPACE_BEFORE), pList);
+    }
+
+    @Test
+    public void testContextFreeExpressionsAreCached() throws PropertyException {
+        Property first = PropertyParser.parse("2pt + 1pt", propInfo);
+        assertEquals(3000, first.getLength().getValue());
+        assertSame(first, PropertyParser.parse("2pt + 1pt", propInfo));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testRelativeExpressionsAreNotCached() throws PropertyException {
+        Property first = PropertyParser.parse("1.2em", propInfo);
+        assertEquals(12000, first.getLength().getValue());
+        PropertyParser.parse("1.2em", propInfo);
+        PropertyParser.parse("max(1pt, 2pt)", propInfo);
+        PropertyParser.parse("max(1pt, 2pt)", propInfo);
+        assertEquals(0, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    public void testListsAreNotCached() throws PropertyException {
+        Property first = PropertyParser.parse("1pt 2pt", propInfo);
+        assertTrue(first instanceof ListProperty);
+        assertNotSame(first, PropertyParser.parse("1pt 2pt", propInfo));
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void testDisabledCache() {
+        PropertyExpressionCache disabled = new PropertyExpressionCache(0);
+        disabled.put("1pt", FixedLength.getInstance(1, "pt"));
+        assertNull(disabled.get("1pt"));
+        assertEquals(0, disabled.getMissCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedExpressionIsRemoved() {
+        PropertyExpressionCache small = new PropertyExpressionCache(2);
+        small.put("1pt", FixedLength.getInstance(1, "pt"));
+        small.put("2pt", FixedLength.getInstance(2, "pt"));
+        small.get("1pt");
+        small.put("3pt", FixedLength.getInstance(3, "pt"));
+        assertNull(small.get("2pt"));
+        assertEquals(1000, small.get("1pt").getLength().getValue());
+        assertEquals(3000, small.get("3pt").getLength().getValue());
+    }
+
+    @Test
+    public void testSizeIsConfiguredOnTheFactory() {
+        FopFactory fopFactory = new FopFactoryBuilder(new File(".").toURI())
+                .setPropertyExpressionCacheSize(0).build();
+        assertFalse(fopFactory.newFOUserAgent().getPropertyExpressionCache().isEnabled());
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo.pagination;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.area.AreaTreeHandler;
+import org.apache.fop.fo.FONode;
+
+/**
+ * Checks that page-sequences are detached from the FO tree once they have been laid out,
+ * while references between page-sequences still resolve.
+ */
+public class PageSequenceReleaseTestCase {
+
+    private static final int SEQUENCE_COUNT = 5;
+
+    private final List<PageSequence> pageSequences = new ArrayList<PageSequence>();
+
+    private static String createFO() {
+        StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">\n"
+                + "  <fo:layout-master-set>\n"
+                + "    <fo:simple-page-master master-name=\"page\" page-height=\"10cm\""
+                + " page-width=\"10cm\">\n"
+                + "      <fo:region-body margin-top=\"1cm\"/>\n"
+                + "      <fo:region-before extent=\"1cm\"/>\n"
+                + "    </fo:simple-page-master>\n"
+                + "  </fo:layout-master-set>\n");
+        for (int i = 0; i < SEQUENCE_COUNT; i++) {
+            fo.append("  <fo:page-sequence master-reference=\"page\" id=\"seq" + i + "\">\n"
+                    + "    <fo:static-content flow-name=\"xsl-region-before\">"
+                    + "<fo:block><fo:retrieve-marker retrieve-class-name=\"title\"/></fo:block>"
+                    + "</fo:static-content>\n"
+                    + "    <fo:flow flow-name=\"xsl-region-body\">\n"
+                    + "      <fo:block id=\"block" + i + "\"><fo:marker marker-class-name=\"title\">"
+                    + "Title" + i + "</fo:marker>Sequence " + i + " ends on page "
+                    + "<fo:page-number-citation-last ref-id=\"seq" + i + "\"/> next starts on "
+                    + "page <fo:page-number-citation ref-id=\"block" + ((i + 1) % SEQUENCE_COUNT)
+                    + "\"/></fo:block>\n"
+                    + "      <fo:block break-before=\"page\">Second page</fo:block>\n"
+                    + "    </fo:flow>\n"
+                    + "  </fo:page-sequence>\n");
+        }
+        fo.append("</fo:root>");
+        return fo.toString();
+    }
+
+    private Document render(String fo) throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        userAgent.setFOEventHandlerOverride(new PageSequenceTrackingHandler(userAgent, out));
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Source src = new StreamSource(new ByteArrayInputStream(fo.getBytes("UTF-8")));
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(
+                new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test
+    public void testPageSequencesReleased() throws Exception {
+        Document doc = render(createFO());
+        assertEquals(SEQUENCE_COUNT, pageSequences.size());
+        Root root = pageSequences.get(0).getRoot();
+        assertEquals(0, root.getPageSequenceCount());
+        for (FONode.FONodeIterator it = root.getChildNodes(); it != null && it.hasNext();) {
+            assertFalse(it.next() instanceof PageSequence);
+        }
+        for (PageSequence pageSequence : pageSequences) {
+            assertNull(pageSequence.getMainFlow());
+            assertNull(pageSequence.getChildNodes());
+        }
+
+        NodeList pages = doc.getElementsByTagName("pageViewport");
+        assertEquals(SEQUENCE_COUNT * 2, pages.getLength());
+        StringBuilder text = new StringBuilder();
+        NodeList words = doc.getElementsByTagName("word");
+        for (int i = 0; i < words.getLength(); i++) {
+            text.append(words.item(i).getTextContent()).append(' ');
+        }
+        for (int i = 0; i < SEQUENCE_COUNT; i++) {
+            String expected = "Title" + i + " Sequence " + i + " ends on page " + (i * 2 + 2)
+                    + " next starts on page " + (((i + 1) % SEQUENCE_COUNT) * 2 + 1) + " ";
+            assertEquals(expected, text.substring(text.indexOf("Title" + i + " "),
+                    text.indexOf("Title" + i + " ") + expected.length()));
+        }
+    }
+
+    private class PageSequenceTrackingHandler extends AreaTreeHandler {
+
+        PageSequenceTrackingHandler(FOUserAgent userAgent, ByteArrayOutputStream out)
+                throws FOPException {
+            super(userAgent, MimeConstants.MIME_FOP_AREA_TREE, out);
+        }
+
+        @Override
+        public void startPageSequence(PageSequence pageSequence) {
+            pageSequences.add(pageSequence);
+            super.startPageSequence(pageSequence);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo.properties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PropertyCacheTestCase {
+
+    /** A value whose instances all have the same hash code. */
+    private static final class Colliding {
+
+        private final int value;
+
+        Colliding(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Colliding && ((Colliding) obj).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+        PropertyCache<String> cache = new PropertyCache<String>(String.class);
+        String first = new String("value");
+        assertSame(first, cache.fetch(first));
+        assertSame(first, cache.fetch(new String("value")));
+        assertSame(first, cache.fetch(new String("value")));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.size());
+        assertTrue(PropertyCache.getCaches().contains(cache));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testUntypedCache() {
+        PropertyCache<String> cache = new PropertyCache<String>();
+        String first = new String("value");
+        assertSame(first, cache.fetch(first));
+        assertSame(first, cache.fetch(new String("value")));
+        assertEquals(Object.class.getName(), cache.getName());
+    }
+
+    @Test
+    public void testHashCodeCollisions() {
+        PropertyCache<Colliding> cache = new PropertyCache<Colliding>(Colliding.class);
+        Colliding one = new Colliding(1);
+        Colliding two = new Colliding(2);
+        assertSame(one, cache.fetch(one));
+        assertSame(two, cache.fetch(two));
+        // both instances are kept, neither replaces the other
+        assertSame(one, cache.fetch(new Colliding(1)));
+        assertSame(two, cache.fetch(new Colliding(2)));
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void testConcurrentFetch() throws Exception {
+        final PropertyCache<Colliding> cache = new PropertyCache<Colliding>(Colliding.class);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Colliding>>> results = new ArrayList<Future<List<Colliding>>>();
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(new Callable<List<Colliding>>() {
+                    public List<Colliding> call() {
+                        List<Colliding> fetched = new ArrayList<Colliding>();
+                        for (int i = 0; i < 50; i++) {
+                            fetched.add(cache.fetch(new Colliding(i)));
+                        }
+                        return fetched;
+                    }
+                }));
+            }
+            List<Colliding> expected = results.get(0).get();
+            for (Future<List<Colliding>> result : results) {
+                List<Colliding> fetched = result.get();
+                for (int i = 0; i < 50; i++) {
+                    assertSame(expected.get(i), fetched.get(i));
+                }
+            }
+            assertEquals(50, cache.getMissCount());
+            assertEquals(150, cache.getHitCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
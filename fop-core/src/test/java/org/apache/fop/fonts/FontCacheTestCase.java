@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+
+public class FontCacheTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private InternalResourceResolver resourceResolver;
+
+    private File fontFile;
+
+    private String fontKey;
+
+    private long lastModified;
+
+    @Before
+    public void setUp() throws IOException {
+        resourceResolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                folder.getRoot().toURI());
+        fontFile = folder.newFile("font.ttf");
+        fontKey = fontFile.toURI().toASCIIString();
+        lastModified = FontCache.getLastModified(fontFile.toURI());
+    }
+
+    private EmbedFontInfo createFontInfo(String postScriptName) {
+        List<FontTriplet> triplets = Arrays.asList(
+                new FontTriplet("Font", Font.STYLE_NORMAL, Font.WEIGHT_NORMAL),
+                new FontTriplet("Font", Font.STYLE_ITALIC, Font.WEIGHT_BOLD, 5));
+        EmbedFontInfo fontInfo = new EmbedFontInfo(new FontUris(fontFile.toURI(), null),
+                true, false, triplets, "Sub", EncodingMode.CID, EmbeddingMode.SUBSET,
+                false, true, false, true);
+        fontInfo.setPostScriptName(postScriptName);
+        return fontInfo;
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        FontCache fontCache = new FontCache();
+        fontCache.addFont(createFontInfo("Font-Regular"), resourceResolver);
+        fontCache.addFont(createFontInfo("Font-Bold"), resourceResolver);
+        fontCache.registerFailedFont("file:/broken.ttf", 42);
+        assertTrue(fontCache.hasChanged());
+        File cacheFile = new File(folder.getRoot(), "fop-fonts.cache");
+        fontCache.saveTo(cacheFile);
+        assertFalse(fontCache.hasChanged());
+
+        FontCache loaded = FontCache.loadFrom(cacheFile);
+        assertFalse(loaded.hasChanged());
+        assertTrue(loaded.containsFont(fontKey));
+        assertTrue(loaded.isFailedFont("file:/broken.ttf", 42));
+        EmbedFontInfo[] fontInfos = loaded.getFontInfos(fontKey, lastModified);
+        assertEquals(2, fontInfos.length);
+        for (EmbedFontInfo fontInfo : fontInfos) {
+            EmbedFontInfo expected = createFontInfo(fontInfo.getPostScriptName());
+            assertEquals(expected.toString(), fontInfo.toString());
+            assertEquals(expected.getEmbeddingMode(), fontInfo.getEmbeddingMode());
+            assertEquals(expected.getEmbedAsType1(), fontInfo.getEmbedAsType1());
+            assertEquals(expected.getUseSVG(), fontInfo.getUseSVG());
+            assertEquals(expected.isLazyLoad(), fontInfo.isLazyLoad());
+            assertEquals(expected.getFontTriplets(), fontInfo.getFontTriplets());
+            assertEquals(5, fontInfo.getFontTriplets().get(1).getPriority());
+        }
+    }
+
+    @Test
+    public void testIncrementalUpdate() throws Exception {
+        FontCache fontCache = new FontCache();
+        fontCache.addFont(createFontInfo("Font-Regular"), resourceResolver);
+        File cacheFile = new File(folder.getRoot(), "fop-fonts.cache");
+        fontCache.saveTo(cacheFile);
+
+        // entries which are never requested are written back without being decoded
+        FontCache loaded = FontCache.loadFrom(cacheFile);
+        loaded.registerFailedFont("file:/broken.ttf", 42);
+        loaded.saveTo(cacheFile);
+        loaded = FontCache.loadFrom(cacheFile);
+        assertEquals(1, loaded.getFontInfos(fontKey, lastModified).length);
+
+        // a modified font file is dropped from the cache
+        assertNull(loaded.getFontInfos(fontKey, lastModified + 1));
+        assertFalse(loaded.containsFont(fontKey));
+        assertTrue(loaded.hasChanged());
+        loaded.saveTo(cacheFile);
+        assertFalse(FontCache.loadFrom(cacheFile).containsFont(fontKey));
+    }
+
+    @Test
+    public void testSaveReleasesCacheFile() throws Exception {
+        FontCache fontCache = new FontCache();
+        fontCache.addFont(createFontInfo("Font-Regular"), resourceResolver);
+        File cacheFile = new File(folder.getRoot(), "fop-fonts.cache");
+        fontCache.saveTo(cacheFile);
+
+        // the cache file is replaced while the loaded cache still holds undecoded entries
+        FontCache loaded = FontCache.loadFrom(cacheFile);
+        loaded.registerFailedFont("file:/broken.ttf", 42);
+        loaded.saveTo(cacheFile);
+        assertTrue(cacheFile.delete());
+        assertEquals(1, loaded.getFontInfos(fontKey, lastModified).length);
+        loaded.registerFailedFont("file:/broken2.ttf", 42);
+        loaded.saveTo(cacheFile);
+        assertEquals(1, FontCache.loadFrom(cacheFile).getFontInfos(fontKey, lastModified).length);
+    }
+
+    @Test
+    public void testDiscardInvalidCacheFile() throws Exception {
+        File cacheFile = new File(folder.getRoot(), "fop-fonts.cache");
+        ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(cacheFile));
+        try {
+            out.writeObject(URI.create("file:/font.ttf"));
+        } finally {
+            out.close();
+        }
+        assertNull(FontCache.loadFrom(cacheFile));
+        assertFalse(cacheFile.exists());
+    }
+}
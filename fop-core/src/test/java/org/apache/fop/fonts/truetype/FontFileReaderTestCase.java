@@ -21,21 +21,31 @@ package org.apache.fop.fonts.truetype;
 
 import java.io.ByteArrayInputStream;
 import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Arrays;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import org.apache.fop.apps.io.ResourceResolverFactory;
+
 /**
  * A test class for org.apache.fop.truetype.FontFileReader
  */
 public class FontFileReaderTestCase {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private FontFileReader fontReader;
     private final InputStream in;
     private final byte[] byteArray;
@@ -301,4 +311,32 @@ public class FontFileReaderTestCase {
         byte[] retrievedBytes = fontReader.getBytes(0, 256);
         assertTrue(Arrays.equals(byteArray, retrievedBytes));
     }
+
+    /**
+     * Test reading a memory-mapped font file
+     * @throws IOException exception
+     */
+    @Test
+    public void testMappedFile() throws IOException {
+        File file = folder.newFile("font.ttf");
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(byteArray);
+        } finally {
+            out.close();
+        }
+        FontFileReader mappedReader = FontFileReader.open(
+                ResourceResolverFactory.createDefaultInternalResourceResolver(
+                        folder.getRoot().toURI()), file.toURI());
+        assertEquals(256, mappedReader.getFileSize());
+        mappedReader.seekSet(250);
+        assertEquals(4210818301L, mappedReader.readTTFULong());
+        assertTrue(Arrays.equals(byteArray, mappedReader.getBytes(0, 256)));
+        assertTrue(Arrays.equals(byteArray, mappedReader.getAllBytes()));
+
+        // changes must not be written back to the file
+        mappedReader.writeTTFUShort(0, 0xffff);
+        assertEquals(0xffff, mappedReader.readTTFUShort(0));
+        assertEquals(0x0001, new FontFileReader(file).readTTFUShort(0));
+    }
 }
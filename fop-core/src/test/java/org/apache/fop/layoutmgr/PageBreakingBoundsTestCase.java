@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.FopFactoryBuilder;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.metrics.Metrics;
+
+/**
+ * Checks that bounding the active nodes of the page breaking algorithm still lays out all the
+ * content and that the dropped nodes are counted.
+ */
+public class PageBreakingBoundsTestCase {
+
+    private static final int BLOCK_COUNT = 120;
+
+    private static final class CountingMetrics implements Metrics {
+
+        private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+
+        public boolean isEnabled() {
+            return true;
+        }
+
+        public void recordTime(String name, long nanos, String... tags) {
+        }
+
+        public void increment(String name, long amount, String... tags) {
+            counters.putIfAbsent(name, new AtomicLong());
+            counters.get(name).addAndGet(amount);
+        }
+
+        long get(String name) {
+            AtomicLong counter = counters.get(name);
+            return counter != null ? counter.get() : 0;
+        }
+    }
+
+    private static String createFO() {
+        StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">\n"
+                + "  <fo:layout-master-set>\n"
+                + "    <fo:simple-page-master master-name=\"page\" page-height=\"10cm\""
+                + " page-width=\"10cm\">\n"
+                + "      <fo:region-body/>\n"
+                + "    </fo:simple-page-master>\n"
+                + "  </fo:layout-master-set>\n"
+                + "  <fo:page-sequence master-reference=\"page\">\n"
+                + "    <fo:flow flow-name=\"xsl-region-body\">\n");
+        for (int i = 0; i < BLOCK_COUNT; i++) {
+            fo.append("      <fo:block space-before.minimum=\"2pt\" space-before.optimum=\""
+                    + (4 + i % 7) + "pt\" space-before.maximum=\"20pt\""
+                    + (i % 5 == 0 ? " keep-with-next=\"always\"" : "")
+                    + ">Block " + i + "</fo:block>\n");
+        }
+        fo.append("    </fo:flow>\n"
+                + "  </fo:page-sequence>\n"
+                + "</fo:root>");
+        return fo.toString();
+    }
+
+    private static String render(CountingMetrics metrics, int maxActiveNodes, int lookahead)
+            throws Exception {
+        FopFactoryBuilder builder = new FopFactoryBuilder(new File(".").toURI());
+        builder.setPageBreakingMaxActiveNodes(maxActiveNodes);
+        builder.setPageBreakingLookahead(lookahead);
+        FopFactory fopFactory = builder.build();
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setMetrics(metrics);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Source src = new StreamSource(new ByteArrayInputStream(createFO().getBytes("UTF-8")));
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+        return out.toString("UTF-8");
+    }
+
+    private static void checkContent(String areaTree) {
+        int index = 0;
+        for (int i = 0; i < BLOCK_COUNT; i++) {
+            index = areaTree.indexOf(">" + i + "</word>", index);
+            assertTrue("Block " + i + " is missing", index > 0);
+        }
+    }
+
+    @Test
+    public void testUnbounded() throws Exception {
+        CountingMetrics metrics = new CountingMetrics();
+        checkContent(render(metrics, 0, 0));
+        assertTrue(metrics.get(Metrics.PAGE_BREAKING_ITERATIONS) > 0);
+        assertEquals(0, metrics.get(Metrics.PAGE_BREAKING_PRUNED_NODES));
+        assertEquals(0, metrics.get(Metrics.PAGE_BREAKING_COMMITTED_PAGES));
+    }
+
+    @Test
+    public void testMaxActiveNodes() throws Exception {
+        CountingMetrics metrics = new CountingMetrics();
+        checkContent(render(metrics, 2, 0));
+        assertTrue(metrics.get(Metrics.PAGE_BREAKING_PRUNED_NODES) > 0);
+        assertEquals(0, metrics.get(Metrics.PAGE_BREAKING_COMMITTED_PAGES));
+    }
+
+    @Test
+    public void testLookahead() throws Exception {
+        CountingMetrics metrics = new CountingMetrics();
+        checkContent(render(metrics, 0, 1));
+        assertTrue(metrics.get(Metrics.PAGE_BREAKING_COMMITTED_PAGES) > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeLookahead() {
+        new FopFactoryBuilder(new File(".").toURI()).setPageBreakingLookahead(-1);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.FopFactoryBuilder;
+import org.apache.fop.apps.MimeConstants;
+
+/**
+ * Checks that side regions restored from the {@link StaticContentCache} show the page number
+ * and the markers of the page they are placed on.
+ */
+public class StaticContentCacheTestCase {
+
+    private static final int PAGE_COUNT = 30;
+
+    private static String getChapter(int page) {
+        return page < 5 ? "Intro" : page < 12 ? "Middle" : "End";
+    }
+
+    private static String createFO(String headerAttributes) {
+        StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">\n"
+                + "  <fo:layout-master-set>\n"
+                + "    <fo:simple-page-master master-name=\"page\" page-height=\"10cm\""
+                + " page-width=\"10cm\">\n"
+                + "      <fo:region-body margin-top=\"1cm\" margin-bottom=\"1cm\"/>\n"
+                + "      <fo:region-before extent=\"1cm\"/>\n"
+                + "      <fo:region-after extent=\"1cm\"/>\n"
+                + "    </fo:simple-page-master>\n"
+                + "  </fo:layout-master-set>\n"
+                + "  <fo:page-sequence master-reference=\"page\">\n"
+                + "    <fo:static-content flow-name=\"xsl-region-before\">\n"
+                + "      <fo:block" + headerAttributes + ">Page <fo:page-number/> of"
+                + " <fo:retrieve-marker retrieve-class-name=\"chapter\"/></fo:block>\n"
+                + "    </fo:static-content>\n"
+                + "    <fo:static-content flow-name=\"xsl-region-after\">\n"
+                + "      <fo:block text-align=\"center\">Footer</fo:block>\n"
+                + "    </fo:static-content>\n"
+                + "    <fo:flow flow-name=\"xsl-region-body\">\n");
+        for (int page = 1; page <= PAGE_COUNT; page++) {
+            fo.append("      <fo:block break-before=\"page\">");
+            if (page == 1 || !getChapter(page).equals(getChapter(page - 1))) {
+                fo.append("<fo:marker marker-class-name=\"chapter\">" + getChapter(page)
+                        + "</fo:marker>");
+            }
+            fo.append("Body " + page + "</fo:block>\n");
+        }
+        fo.append("    </fo:flow>\n"
+                + "  </fo:page-sequence>\n"
+                + "</fo:root>");
+        return fo.toString();
+    }
+
+    private static byte[] renderAreaTree(String fo, boolean staticContentCaching)
+            throws Exception {
+        FopFactory fopFactory = new FopFactoryBuilder(new File(".").toURI())
+                .setStaticContentCaching(staticContentCaching).build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Source src = new StreamSource(new ByteArrayInputStream(fo.getBytes("UTF-8")));
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+        return out.toByteArray();
+    }
+
+    private static Document render(String fo) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(
+                new ByteArrayInputStream(renderAreaTree(fo, true)));
+    }
+
+    private static String getWords(Element region) {
+        StringBuilder sb = new StringBuilder();
+        NodeList words = region.getElementsByTagName("word");
+        for (int i = 0; i < words.getLength(); i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(words.item(i).getTextContent());
+        }
+        return sb.toString();
+    }
+
+    private static void checkRegions(Document doc) {
+        NodeList pages = doc.getElementsByTagName("pageViewport");
+        assertEquals(PAGE_COUNT, pages.getLength());
+        for (int i = 0; i < pages.getLength(); i++) {
+            Element page = (Element) pages.item(i);
+            int pageNumber = i + 1;
+            Element before = (Element) page.getElementsByTagName("regionBefore").item(0);
+            assertEquals("Page " + pageNumber + " of " + getChapter(pageNumber),
+                    getWords(before));
+            Element after = (Element) page.getElementsByTagName("regionAfter").item(0);
+            assertEquals("Footer", getWords(after));
+        }
+    }
+
+    @Test
+    public void testPageNumbersAndMarkers() throws Exception {
+        checkRegions(render(createFO("")));
+    }
+
+    @Test
+    public void testJustifiedHeader() throws Exception {
+        checkRegions(render(createFO(" text-align=\"justify\" text-align-last=\"justify\"")));
+    }
+
+    @Test
+    public void testHeaderWithId() throws Exception {
+        checkRegions(render(createFO(" id=\"header\"")));
+    }
+
+    @Test
+    public void testSameAreasAsWithoutCache() throws Exception {
+        String fo = createFO(" text-align=\"justify\" text-align-last=\"justify\"");
+        assertArrayEquals(renderAreaTree(fo, false), renderAreaTree(fo, true));
+    }
+}
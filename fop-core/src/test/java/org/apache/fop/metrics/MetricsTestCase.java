@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+
+/**
+ * Tests the metrics reported while processing a document.
+ */
+public class MetricsTestCase {
+
+    private static final String FO = "<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+            + "<fo:layout-master-set><fo:simple-page-master master-name=\"A4\" page-height=\"297mm\""
+            + " page-width=\"210mm\"><fo:region-body/></fo:simple-page-master></fo:layout-master-set>"
+            + "<fo:page-sequence master-reference=\"A4\"><fo:flow flow-name=\"xsl-region-body\">"
+            + "<fo:block>Hello World!</fo:block>"
+            + "<fo:block><fo:external-graphic src=\"test/resources/images/bgimg300dpi.jpg\"/></fo:block>"
+            + "</fo:flow></fo:page-sequence>"
+            + "<fo:page-sequence master-reference=\"A4\"><fo:flow flow-name=\"xsl-region-body\">"
+            + "<fo:block>Second page-sequence</fo:block>"
+            + "</fo:flow></fo:page-sequence></fo:root>";
+
+    private static final class RecordingMetrics extends MeterRegistryAdapter {
+
+        private final Map<String, AtomicLong> timerCounts = new HashMap<String, AtomicLong>();
+
+        private final Map<String, AtomicLong> counters = new HashMap<String, AtomicLong>();
+
+        private static String getKey(String name, String[] tags) {
+            return name + Arrays.toString(tags);
+        }
+
+        protected synchronized Timer createTimer(String name, String[] tags) {
+            final AtomicLong count = new AtomicLong();
+            timerCounts.put(getKey(name, tags), count);
+            return new Timer() {
+                public void record(long nanos) {
+                    assertTrue(nanos >= 0);
+                    count.incrementAndGet();
+                }
+            };
+        }
+
+        protected synchronized Counter createCounter(String name, String[] tags) {
+            final AtomicLong total = new AtomicLong();
+            counters.put(getKey(name, tags), total);
+            return new Counter() {
+                public void increment(long amount) {
+                    total.addAndGet(amount);
+                }
+            };
+        }
+
+        long getTimerCount(String name, String... tags) {
+            AtomicLong count = timerCounts.get(getKey(name, tags));
+            return count != null ? count.get() : 0;
+        }
+
+        long getCounterTotal(String name, String... tags) {
+            AtomicLong total = counters.get(getKey(name, tags));
+            return total != null ? total.get() : 0;
+        }
+    }
+
+    private byte[] render(FOUserAgent userAgent) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = userAgent.newFop(MimeConstants.MIME_PDF, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(FO)),
+                new SAXResult(fop.getDefaultHandler()));
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testDefaultIsNoOp() {
+        FOUserAgent userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+        assertSame(NoOpMetrics.INSTANCE, userAgent.getMetrics());
+        assertFalse(userAgent.getMetrics().isEnabled());
+        userAgent.setMetrics(new RecordingMetrics());
+        userAgent.setMetrics(null);
+        assertSame(NoOpMetrics.INSTANCE, userAgent.getMetrics());
+    }
+
+    @Test
+    public void testMetricsOfDocument() throws Exception {
+        FOUserAgent userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+        RecordingMetrics metrics = new RecordingMetrics();
+        userAgent.setMetrics(metrics);
+        byte[] pdf = render(userAgent);
+
+        String[] pdfTag = {Metrics.TAG_FORMAT, MimeConstants.MIME_PDF};
+        assertEquals(1, metrics.getTimerCount(Metrics.DOCUMENT, pdfTag));
+        assertEquals(1, metrics.getTimerCount(Metrics.PARSE));
+        assertEquals(2, metrics.getTimerCount(Metrics.LAYOUT));
+        assertEquals(2, metrics.getTimerCount(Metrics.RENDER_PAGE));
+        assertEquals(1, metrics.getTimerCount(Metrics.IMAGE_LOAD));
+        assertEquals(1, metrics.getTimerCount(Metrics.FONT_SUBSET, pdfTag));
+        assertTrue(metrics.getCounterTotal(Metrics.LINE_BREAKING_ITERATIONS) > 0);
+        assertTrue(metrics.getCounterTotal(Metrics.PAGE_BREAKING_ITERATIONS) > 0);
+        assertEquals(pdf.length, metrics.getCounterTotal(Metrics.OUTPUT_BYTES, pdfTag));
+    }
+
+    @Test
+    public void testMetersAreReused() {
+        RecordingMetrics metrics = new RecordingMetrics();
+        String[] tags = {Metrics.TAG_FORMAT, MimeConstants.MIME_PDF};
+        metrics.increment(Metrics.OUTPUT_BYTES, 10, tags);
+        tags[1] = MimeConstants.MIME_POSTSCRIPT;
+        metrics.increment(Metrics.OUTPUT_BYTES, 5, tags);
+        metrics.increment(Metrics.OUTPUT_BYTES, 7, Metrics.TAG_FORMAT, MimeConstants.MIME_PDF);
+        assertEquals(17, metrics.getCounterTotal(Metrics.OUTPUT_BYTES,
+                Metrics.TAG_FORMAT, MimeConstants.MIME_PDF));
+        assertEquals(5, metrics.getCounterTotal(Metrics.OUTPUT_BYTES,
+                Metrics.TAG_FORMAT, MimeConstants.MIME_POSTSCRIPT));
+    }
+}
@@ -21,10 +21,14 @@ package org.apache.fop.pdf;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.zip.Deflater;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test case for {@link PDFDocument}
@@ -59,4 +63,65 @@ public class PDFDocumentTestCase {
         PDFDocument.flushTextBuffer(textBuffer, out);
         assertEquals(fullString, out.toString());
     }
+
+    @Test
+    public void testParallelCompressionKeepsOutput() throws IOException {
+        byte[] expected = outputContentStreams(0, null);
+        assertArrayEquals(expected, outputContentStreams(4, null));
+    }
+
+    @Test
+    public void testCompressionLevel() throws IOException {
+        FlateCompression stored = new FlateCompression(Deflater.NO_COMPRESSION, Deflater.DEFAULT_STRATEGY);
+        int defaultSize = outputContentStreams(0, null).length;
+        assertTrue(outputContentStreams(0, stored).length > defaultSize);
+        assertEquals(outputContentStreams(0, stored).length, outputContentStreams(4, stored).length);
+    }
+
+    @Test
+    public void testAbandonedDocumentStopsCompressionThreads() throws Exception {
+        PDFDocument doc = createDocument(4, null);
+        doc.output(new ByteArrayOutputStream());
+        assertTrue(countCompressionThreads() > 0);
+        doc.stopBackgroundEncoding();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (countCompressionThreads() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, countCompressionThreads());
+    }
+
+    private static int countCompressionThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith("FOP PDF compression")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private byte[] outputContentStreams(int threads, FlateCompression compression) throws IOException {
+        PDFDocument doc = createDocument(threads, compression);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.output(out);
+        doc.outputTrailer(new ByteArrayOutputStream());
+        return out.toByteArray();
+    }
+
+    private PDFDocument createDocument(int threads, FlateCompression compression) {
+        PDFDocument doc = new PDFDocument("test");
+        doc.setCompressionThreads(threads);
+        if (compression != null) {
+            doc.setCompressionMap(Collections.singletonMap(PDFFilterList.DEFAULT_FILTER, compression));
+        }
+        for (int i = 0; i < 50; i++) {
+            PDFStream stream = new PDFStream();
+            for (int j = 0; j < 100; j++) {
+                stream.add("BT /F1 12 Tf " + i + " " + j + " Td (Line " + j + ") Tj ET\n");
+            }
+            doc.registerObject(stream);
+        }
+        return doc;
+    }
 }
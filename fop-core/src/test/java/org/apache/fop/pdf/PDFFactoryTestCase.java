@@ -29,10 +29,13 @@ import java.io.InputStream;
 import java.net.URI;
 
 import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import org.apache.commons.io.FileUtils;
+
 import org.apache.xmlgraphics.io.ResourceResolver;
 
 import org.apache.fop.apps.io.InternalResourceResolver;
@@ -42,6 +45,7 @@ import org.apache.fop.fonts.CIDSubset;
 import org.apache.fop.fonts.CodePointMapping;
 import org.apache.fop.fonts.CustomFont;
 import org.apache.fop.fonts.EmbeddingMode;
+import org.apache.fop.fonts.EncodingMode;
 import org.apache.fop.fonts.FontType;
 import org.apache.fop.fonts.FontUris;
 import org.apache.fop.fonts.MultiByteFont;
@@ -223,6 +227,22 @@ public class PDFFactoryTestCase {
         assertNull(fontDescriptor.getCIDSet());
     }
 
+    @Test
+    public void testMakeFullyEmbeddedTTFFont() throws IOException {
+        InternalResourceResolver rr =
+                ResourceResolverFactory.createDefaultInternalResourceResolver(new File(".").toURI());
+        PDFFactory pdfFactory = new PDFFactory(new PDFDocument(""));
+        File file = new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf");
+        CustomFont font = OFFontLoader.loadFont(new FontUris(file.toURI(), null),
+                null, true, EmbeddingMode.FULL, EncodingMode.CID, false, false, rr, false, false, false);
+        AbstractPDFStream stream = pdfFactory.makeFontFile(font, "");
+        assertTrue(stream instanceof PDFTTFStream);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        stream.outputRawStreamData(bos);
+        assertArrayEquals(FileUtils.readFileToByteArray(file), bos.toByteArray());
+    }
+
     @Test
     public void testGetExternalAction() {
 
@@ -49,6 +49,29 @@ public class PDFObjectStreamTestCase {
         Assert.assertTrue(out.contains("<<\n  /Type /ObjStm\n  /N 3\n  /First 16\n  /Length"));
     }
 
+    @Test
+    public void testFullObjectStreamsWrittenIncrementally() throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        doc.setObjectStreamsEnabled(true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < 250; i++) {
+            doc.registerObject(new PDFDictionary());
+        }
+        doc.output(out);
+        Assert.assertEquals(2, countObjectStreams(out.toString()));
+        doc.outputTrailer(out);
+        Assert.assertEquals(3, countObjectStreams(out.toString()));
+        Assert.assertTrue(out.toString().contains("/Type /XRef"));
+    }
+
+    private static int countObjectStreams(String pdf) {
+        int count = 0;
+        for (int i = pdf.indexOf("/Type /ObjStm"); i >= 0; i = pdf.indexOf("/Type /ObjStm", i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
     private String buildObjectStreamsPDF(PDFDocument doc) throws IOException {
         TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
         Map<String, List<String>> filterMap = new HashMap<>();
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.xmlgraphics.io.Resource;
+import org.apache.xmlgraphics.io.TempResourceResolver;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+
+/**
+ * Test case for {@link PooledStreamCache}.
+ */
+public class PooledStreamCacheTestCase {
+
+    private static final int SEGMENT_SIZE = StreamCacheBufferPool.SEGMENT_SIZE;
+
+    private final InMemoryTempResources tempResources = new InMemoryTempResources();
+
+    private final InternalResourceResolver resourceResolver
+            = ResourceResolverFactory.createInternalResourceResolver(new File(".").toURI(),
+                    ResourceResolverFactory.createTempAwareResourceResolver(tempResources,
+                            ResourceResolverFactory.createDefaultResourceResolver()));
+
+    private final StreamCacheSpill spill = new StreamCacheSpill(resourceResolver);
+
+    private static byte[] createData(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31 + i / 7);
+        }
+        return data;
+    }
+
+    private static byte[] getContents(StreamCache cache) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(cache.getSize(), cache.outputContents(out));
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testWriteAcrossSegments() throws IOException {
+        StreamCacheBufferPool pool = new StreamCacheBufferPool(16 * SEGMENT_SIZE);
+        PooledStreamCache cache = new PooledStreamCache(pool, spill);
+        byte[] data = createData(3 * SEGMENT_SIZE + 100);
+        OutputStream out = cache.getOutputStream();
+        out.write(data[0]);
+        out.write(data, 1, data.length - 1);
+        assertEquals(data.length, cache.getSize());
+        assertArrayEquals(data, getContents(cache));
+        assertEquals(4 * SEGMENT_SIZE, pool.getAllocatedMemory());
+    }
+
+    @Test
+    public void testBuffersAreReused() throws IOException {
+        StreamCacheBufferPool pool = new StreamCacheBufferPool(16 * SEGMENT_SIZE);
+        PooledStreamCache cache = new PooledStreamCache(pool, spill);
+        cache.write(createData(2 * SEGMENT_SIZE));
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertEquals(2, pool.getFreeBufferCount());
+
+        PooledStreamCache other = new PooledStreamCache(pool, spill);
+        byte[] data = createData(SEGMENT_SIZE + 1);
+        other.write(data);
+        assertArrayEquals(data, getContents(other));
+        assertEquals(2 * SEGMENT_SIZE, pool.getAllocatedMemory());
+        assertEquals(0, pool.getFreeBufferCount());
+    }
+
+    @Test
+    public void testSpillWhenPoolIsExhausted() throws IOException {
+        StreamCacheBufferPool pool = new StreamCacheBufferPool(2 * SEGMENT_SIZE);
+        PooledStreamCache cache = new PooledStreamCache(pool, spill);
+        byte[] data = createData(5 * SEGMENT_SIZE + 10);
+        cache.write(data);
+        assertEquals(2 * SEGMENT_SIZE, pool.getAllocatedMemory());
+        assertEquals(1, tempResources.resources.size());
+        assertArrayEquals(data, getContents(cache));
+        assertArrayEquals(data, getContents(cache));
+        // the resolver deletes the temporary resource once it has been read
+        assertTrue(tempResources.resources.isEmpty());
+
+        cache.clear();
+        assertEquals(2, pool.getFreeBufferCount());
+        cache.write(data);
+        assertArrayEquals(data, getContents(cache));
+        cache.clear();
+    }
+
+    @Test
+    public void testSpillIsDeletedWhenClosed() throws IOException {
+        StreamCacheBufferPool pool = new StreamCacheBufferPool(SEGMENT_SIZE);
+        PooledStreamCache first = new PooledStreamCache(pool, spill);
+        PooledStreamCache second = new PooledStreamCache(pool, spill);
+        byte[] data = createData(4 * SEGMENT_SIZE);
+        first.write(data);
+        second.write(data);
+        assertEquals(1, tempResources.resources.size());
+        spill.close();
+        assertTrue(tempResources.resources.isEmpty());
+    }
+
+    @Test
+    public void testDocumentWithPooledStreams() throws IOException {
+        byte[] expected = outputStreams(StreamCacheFactory.getInstance());
+        assertArrayEquals(expected, outputStreams(
+                StreamCacheFactory.newPooledInstance(resourceResolver)));
+    }
+
+    private byte[] outputStreams(StreamCacheFactory factory) throws IOException {
+        PDFDocument doc = new PDFDocument("test");
+        doc.setStreamCacheFactory(factory);
+        for (int i = 0; i < 20; i++) {
+            PDFStream stream = doc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false);
+            for (int j = 0; j < 500; j++) {
+                stream.add("BT " + i + " " + j + " Td (Line " + j + ") Tj ET\n");
+            }
+            assertEquals(factory.isPooled(), stream.data instanceof PooledStreamCache);
+            doc.registerObject(stream);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.output(out);
+        doc.close();
+        return out.toByteArray();
+    }
+
+    /** Keeps the temporary resources in memory, and deletes them once they have been read */
+    private static final class InMemoryTempResources implements TempResourceResolver {
+
+        private final Map<String, ByteArrayOutputStream> resources
+                = new HashMap<String, ByteArrayOutputStream>();
+
+        public Resource getResource(String id) throws IOException {
+            ByteArrayOutputStream data = resources.remove(id);
+            if (data == null) {
+                throw new IOException("No such resource: " + id);
+            }
+            return new Resource(new ByteArrayInputStream(data.toByteArray()));
+        }
+
+        public OutputStream getOutputStream(String id) throws IOException {
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            resources.put(id, data);
+            return data;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.afp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.render.intermediate.IFContext;
+
+/**
+ * Checks that the pages of an AFP document can be written out as soon as they are complete.
+ */
+public class AFPPageStreamingTestCase {
+
+    private static final String IMAGE = "test/resources/images/fop-logo-color-24bit.png";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+
+    private static String createFO(int imagePage) {
+        StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">\n"
+                + "  <fo:layout-master-set>\n"
+                + "    <fo:simple-page-master master-name=\"page\" page-height=\"10cm\""
+                + " page-width=\"10cm\">\n"
+                + "      <fo:region-body/>\n"
+                + "    </fo:simple-page-master>\n"
+                + "  </fo:layout-master-set>\n"
+                + "  <fo:page-sequence master-reference=\"page\">\n"
+                + "    <fo:flow flow-name=\"xsl-region-body\">\n");
+        for (int i = 1; i <= 3; i++) {
+            fo.append("      <fo:block break-before=\"page\">Page " + i + "</fo:block>\n");
+            if (i == imagePage) {
+                fo.append("      <fo:block><fo:external-graphic src=\"" + IMAGE + "\"/>"
+                        + "</fo:block>\n");
+            }
+        }
+        fo.append("    </fo:flow>\n"
+                + "  </fo:page-sequence>\n"
+                + "</fo:root>");
+        return fo.toString();
+    }
+
+    private byte[] render(String fo, boolean streamPages, File resourceGroupFile)
+            throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        AFPDocumentHandler handler = new AFPDocumentHandler(new IFContext(userAgent));
+        handler.setStreamPages(streamPages);
+        handler.setDefaultResourceGroupUri(resourceGroupFile.toURI());
+        userAgent.setDocumentHandlerOverride(handler);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_AFP, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Source src = new StreamSource(new ByteArrayInputStream(fo.getBytes("UTF-8")));
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testResourcesOfFirstPageInPrintFile() throws Exception {
+        String fo = createFO(1);
+        File resourceGroupFile = new File(folder.getRoot(), "resources.afp");
+        byte[] expected = render(fo, false, resourceGroupFile);
+        assertArrayEquals(expected, render(fo, true, resourceGroupFile));
+        assertFalse(resourceGroupFile.exists());
+    }
+
+    @Test
+    public void testLaterResourcesInExternalResourceGroup() throws Exception {
+        String fo = createFO(3);
+        File resourceGroupFile = new File(folder.getRoot(), "resources.afp");
+        byte[] printFile = render(fo, false, resourceGroupFile);
+        assertFalse(resourceGroupFile.exists());
+        byte[] streamed = render(fo, true, resourceGroupFile);
+        assertTrue(resourceGroupFile.length() > 0);
+        //the image is only referenced by the streamed document
+        assertTrue(streamed.length < printFile.length);
+    }
+}
@@ -87,6 +87,14 @@ public class AFPRendererConfigParserTestCase
         }
     }
 
+    @Test
+    public void testStreamPages() throws Exception {
+        parseConfig(createRenderer());
+        assertFalse(conf.isStreamPages());
+        parseConfig(createRenderer().setStreamPages(true));
+        assertTrue(conf.isStreamPages());
+    }
+
     @Test
     public void testResourceLevelDefaults() throws Exception {
         parseConfig(createRenderer());
@@ -150,6 +150,12 @@ public class AFPRendererConfiguratorTestCase extends
         verify(getDocHandler()).setDefaultResourceGroupUri(uri);
     }
 
+    @Test
+    public void testStreamPages() throws Exception {
+        parseConfig(createBuilder().setStreamPages(true));
+        verify(getDocHandler()).setStreamPages(true);
+    }
+
     @Test
     public void testResourceLevelDefaults() throws Exception {
         testResourceLevelDefault(ResourceType.DOCUMENT);
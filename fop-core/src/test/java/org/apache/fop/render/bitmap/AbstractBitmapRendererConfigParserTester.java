@@ -122,4 +122,24 @@ public class AbstractBitmapRendererConfigParserTester
         parseConfig(createRenderer());
         assertEquals(BufferedImage.TYPE_INT_ARGB, (int) conf.getColorMode());
     }
+
+    @Test
+    public void testRenderingThreads() throws Exception {
+        parseConfig(createRenderer().setRenderingThreads(4).setMaxRastersInFlight(6));
+        assertEquals(4, (int) conf.getRenderingThreads());
+        assertEquals(6, (int) conf.getMaxRastersInFlight());
+
+        parseConfig(createRenderer());
+        assertEquals(0, (int) conf.getRenderingThreads());
+        assertEquals(0, (int) conf.getMaxRastersInFlight());
+    }
+
+    @Test
+    public void testBandHeight() throws Exception {
+        parseConfig(createRenderer().setBandHeight(256));
+        assertEquals(256, (int) conf.getBandHeight());
+
+        parseConfig(createRenderer());
+        assertEquals(0, (int) conf.getBandHeight());
+    }
 }
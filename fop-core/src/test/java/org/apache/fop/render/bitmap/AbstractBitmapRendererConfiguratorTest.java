@@ -117,4 +117,23 @@ public abstract class AbstractBitmapRendererConfiguratorTest extends
         parseConfig(createBuilder());
         assertEquals(BufferedImage.TYPE_INT_ARGB, settings.getBufferedImageType());
     }
+
+    @Test
+    public void testRenderingThreads() throws Exception {
+        parseConfig(createBuilder().setRenderingThreads(3));
+        assertEquals(3, settings.getRenderingThreads());
+        assertEquals(6, settings.getMaxRastersInFlight());
+
+        parseConfig(createBuilder().setRenderingThreads(3).setMaxRastersInFlight(4));
+        assertEquals(4, settings.getMaxRastersInFlight());
+    }
+
+    @Test
+    public void testBandHeight() throws Exception {
+        parseConfig(createBuilder().setBandHeight(256));
+        assertEquals(256, settings.getBandHeight());
+
+        parseConfig(createBuilder());
+        assertEquals(0, settings.getBandHeight());
+    }
 }
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.bitmap;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class BandedRenderedImageTestCase {
+
+    private static final int WIDTH = 5;
+    private static final int HEIGHT = 23;
+    private static final int BAND_HEIGHT = 10;
+
+    private final List<Integer> paintedBands = new ArrayList<Integer>();
+
+    /** Every pixel holds the row it is on */
+    private static BufferedImage createBand(int y) {
+        BufferedImage band = new BufferedImage(WIDTH, BAND_HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+        for (int j = 0; j < BAND_HEIGHT; j++) {
+            for (int i = 0; i < WIDTH; i++) {
+                band.getRaster().setSample(i, j, 0, y + j);
+            }
+        }
+        return band;
+    }
+
+    private BandedRenderedImage createImage() {
+        return new BandedRenderedImage(WIDTH, HEIGHT, createBand(0)) {
+            protected BufferedImage paintBand(int y) {
+                paintedBands.add(y);
+                return createBand(y);
+            }
+        };
+    }
+
+    @Test
+    public void testBandsArePaintedWhenRequested() {
+        BandedRenderedImage image = createImage();
+        assertEquals(3, image.getNumYTiles());
+        assertEquals(BAND_HEIGHT, image.getTileHeight());
+        assertEquals(0, image.getTile(0, 0).getMinY());
+        assertEquals(0, paintedBands.size());
+        Raster tile = image.getTile(0, 2);
+        assertEquals(20, tile.getMinY());
+        assertEquals(22, tile.getSample(3, 22, 0));
+        image.getTile(0, 2);
+        assertEquals(1, paintedBands.size());
+        image.getTile(0, 0);
+        assertEquals(2, paintedBands.size());
+        assertEquals(0, (int) paintedBands.get(1));
+    }
+
+    @Test
+    public void testGetDataAcrossBands() {
+        BandedRenderedImage image = createImage();
+        Raster data = image.getData(new Rectangle(1, 8, 3, 6));
+        assertEquals(8, data.getMinY());
+        for (int j = 8; j < 14; j++) {
+            assertEquals(j, data.getSample(2, j, 0));
+        }
+        assertEquals(1, paintedBands.size());
+
+        Raster all = image.getData();
+        assertEquals(HEIGHT, all.getHeight());
+        for (int j = 0; j < HEIGHT; j++) {
+            assertEquals(j, all.getSample(4, j, 0));
+        }
+    }
+}
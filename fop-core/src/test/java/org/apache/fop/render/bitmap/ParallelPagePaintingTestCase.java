@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.bitmap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.io.FileUtils;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.render.intermediate.IFContext;
+
+/**
+ * Checks that painting the pages on several threads, or in bands, produces the same bitmaps
+ * as painting them while they are rendered.
+ */
+public class ParallelPagePaintingTestCase {
+
+    private static final int PAGES = 7;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+
+    private static String createFO() {
+        StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\""
+                + " xmlns:svg=\"http://www.w3.org/2000/svg\">\n"
+                + "  <fo:layout-master-set>\n"
+                + "    <fo:simple-page-master master-name=\"page\" page-height=\"8cm\""
+                + " page-width=\"6cm\" margin=\"0.5cm\">\n"
+                + "      <fo:region-body/>\n"
+                + "    </fo:simple-page-master>\n"
+                + "  </fo:layout-master-set>\n"
+                + "  <fo:page-sequence master-reference=\"page\">\n"
+                + "    <fo:flow flow-name=\"xsl-region-body\">\n");
+        for (int i = 0; i < PAGES; i++) {
+            fo.append("      <fo:block break-before=\"page\" border=\"1pt solid blue\""
+                    + " font-family=\"" + (i % 2 == 0 ? "serif" : "sans-serif") + "\""
+                    + " font-size=\"" + (8 + i) + "pt\" letter-spacing=\"0.5pt\">"
+                    + "Page " + (i + 1) + " with some text that is long enough to wrap"
+                    + " over several lines.</fo:block>\n"
+                    + "      <fo:block background-color=\"yellow\">"
+                    + "<fo:external-graphic src=\"test/resources/images/"
+                    + (i % 2 == 0 ? "fop-logo-color-24bit.png" : "img.svg")
+                    + "\" content-width=\"2cm\"/></fo:block>\n"
+                    + "      <fo:block><fo:instream-foreign-object>"
+                    + "<svg:svg width=\"40\" height=\"20\"><svg:text x=\"2\" y=\"12\">SVG " + i
+                    + "</svg:text></svg:svg></fo:instream-foreign-object></fo:block>\n");
+        }
+        fo.append("    </fo:flow>\n"
+                + "  </fo:page-sequence>\n"
+                + "</fo:root>");
+        return fo.toString();
+    }
+
+    private void render(AbstractBitmapDocumentHandler handler, FOUserAgent userAgent,
+            OutputStream out) throws Exception {
+        userAgent.setDocumentHandlerOverride(handler);
+        Fop fop = fopFactory.newFop(handler.getMimeType(), userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Source src = new StreamSource(new ByteArrayInputStream(createFO().getBytes("UTF-8")));
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+    }
+
+    private byte[] renderTIFF(int threads, int maxRastersInFlight) throws Exception {
+        return renderTIFF(threads, maxRastersInFlight, 0);
+    }
+
+    private byte[] renderTIFF(int threads, int maxRastersInFlight, int bandHeight)
+            throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        TIFFDocumentHandler handler = new TIFFDocumentHandler(new IFContext(userAgent));
+        handler.getSettings().setRenderingThreads(threads);
+        handler.getSettings().setMaxRastersInFlight(maxRastersInFlight);
+        handler.getSettings().setBandHeight(bandHeight);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        render(handler, userAgent, out);
+        return out.toByteArray();
+    }
+
+    private File renderPNG(int threads) throws Exception {
+        return renderPNG(threads, 0);
+    }
+
+    private File renderPNG(int threads, int bandHeight) throws Exception {
+        File dir = folder.newFolder();
+        File outputFile = new File(dir, "page.png");
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setOutputFile(outputFile);
+        PNGDocumentHandler handler = new PNGDocumentHandler(new IFContext(userAgent));
+        handler.getSettings().setRenderingThreads(threads);
+        handler.getSettings().setBandHeight(bandHeight);
+        OutputStream out = new FileOutputStream(outputFile);
+        try {
+            render(handler, userAgent, out);
+        } finally {
+            out.close();
+        }
+        return dir;
+    }
+
+    @Test
+    public void testMultiPageTIFF() throws Exception {
+        byte[] expected = renderTIFF(0, 0);
+        assertArrayEquals(expected, renderTIFF(3, 0));
+        assertArrayEquals(expected, renderTIFF(2, 1));
+    }
+
+    @Test
+    public void testOneFilePerPage() throws Exception {
+        assertSamePages(renderPNG(0), renderPNG(3));
+    }
+
+    @Test
+    public void testBandedTIFF() throws Exception {
+        byte[] expected = renderTIFF(0, 0);
+        assertArrayEquals(expected, renderTIFF(0, 0, 50));
+        assertArrayEquals(expected, renderTIFF(0, 0, 7));
+        assertArrayEquals(expected, renderTIFF(2, 0, 50));
+    }
+
+    @Test
+    public void testBandedOneFilePerPage() throws Exception {
+        File expected = renderPNG(0);
+        assertSamePages(expected, renderPNG(0, 33));
+        assertSamePages(expected, renderPNG(3, 33));
+    }
+
+    private void assertSamePages(File expected, File actual) throws Exception {
+        for (int i = 1; i <= PAGES; i++) {
+            //The first page goes to the output file
+            String name = "page" + (i > 1 ? String.valueOf(i) : "") + ".png";
+            File page = new File(expected, name);
+            assertTrue(page.exists());
+            assertArrayEquals(FileUtils.readFileToByteArray(page),
+                    FileUtils.readFileToByteArray(new File(actual, name)));
+        }
+    }
+}
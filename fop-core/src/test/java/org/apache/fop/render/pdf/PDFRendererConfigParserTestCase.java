@@ -20,17 +20,20 @@
 package org.apache.fop.render.pdf;
 
 import java.io.File;
+import java.util.zip.Deflater;
 
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.apache.fop.apps.AbstractRendererConfigParserTester;
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.apps.FopFactory;
 import org.apache.fop.apps.PDFRendererConfBuilder;
+import org.apache.fop.pdf.FlateCompression;
 import org.apache.fop.pdf.PDFAMode;
 import org.apache.fop.pdf.PDFEncryptionParams;
 import org.apache.fop.pdf.PDFXMode;
@@ -142,6 +145,38 @@ public class PDFRendererConfigParserTestCase
         assertEquals("ascii-85", conf.getConfigOptions().getFilterMap().get("image").get(1));
     }
 
+    @Test
+    public void testCompression() throws Exception {
+        parseConfig(createRenderer()
+                .createCompression(null, "9", null)
+                .createCompression("image", "1", "filtered"));
+        assertEquals(new FlateCompression(9, Deflater.DEFAULT_STRATEGY),
+                conf.getConfigOptions().getCompressionMap().get("default"));
+        assertEquals(new FlateCompression(1, Deflater.FILTERED),
+                conf.getConfigOptions().getCompressionMap().get("image"));
+
+        parseConfig(createRenderer());
+        assertNull(conf.getConfigOptions().getCompressionMap());
+    }
+
+    @Test
+    public void testCompressionThreads() throws Exception {
+        parseConfig(createRenderer().setCompressionThreads(4));
+        assertEquals(Integer.valueOf(4), conf.getConfigOptions().getCompressionThreads());
+
+        parseConfig(createRenderer());
+        assertNull(conf.getConfigOptions().getCompressionThreads());
+    }
+
+    @Test
+    public void testPooledStreamCache() throws Exception {
+        parseConfig(createRenderer().setPooledStreamCacheEnabled(true));
+        assertTrue(conf.getConfigOptions().getPooledStreamCacheEnabled());
+
+        parseConfig(createRenderer());
+        assertNull(conf.getConfigOptions().getPooledStreamCacheEnabled());
+    }
+
     @Test
     public void testPDFAMode() throws Exception {
         parseConfig(createRenderer().setPDFAMode(PDFAMode.PDFA_1A.getName()));
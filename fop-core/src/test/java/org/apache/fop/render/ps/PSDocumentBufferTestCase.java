@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+package org.apache.fop.render.ps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.io.InternalResourceResolver;
+
+/**
+ * Tests the buffer keeping the PostScript document until its resources are known.
+ */
+public class PSDocumentBufferTestCase {
+
+    private final InternalResourceResolver resourceResolver
+            = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent().getResourceResolver();
+
+    private static void write(PSDocumentBuffer buffer, String s) throws IOException {
+        buffer.write(s.getBytes("US-ASCII"));
+    }
+
+    private String writeWithSlots(PSDocumentBuffer buffer) throws IOException {
+        write(buffer, "%!PS-Adobe-3.0\n");
+        buffer.addSlot("header");
+        write(buffer, "%%EndComments\n");
+        for (int i = 0; i < 2000; i++) {
+            write(buffer, "0 0 moveto (line " + i + ") show\n");
+        }
+        buffer.addSlot("form");
+        write(buffer, "FOPForm:1 execform\n");
+        write(buffer, "%%EOF\n");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PSDocumentBuffer.Reader reader = buffer.read();
+        try {
+            assertTrue(reader.copyToNextSlot(out));
+            assertEquals("header", reader.getSlotContent());
+            out.write("%%Pages: 1\n".getBytes("US-ASCII"));
+            assertTrue(reader.copyToNextSlot(out));
+            assertEquals("form", reader.getSlotContent());
+            out.write("save\n".getBytes("US-ASCII"));
+            assertEquals("FOPForm:1 execform", reader.copyLine(out));
+            out.write("restore\n".getBytes("US-ASCII"));
+            assertFalse(reader.copyToNextSlot(out));
+            assertNull(reader.copyLine(out));
+        } finally {
+            reader.close();
+        }
+        return out.toString("US-ASCII");
+    }
+
+    private static void checkDocument(String document) {
+        assertTrue(document.startsWith("%!PS-Adobe-3.0\n%%Pages: 1\n%%EndComments\n"
+                + "0 0 moveto (line 0) show\n"));
+        assertTrue(document.endsWith("0 0 moveto (line 1999) show\n"
+                + "save\nFOPForm:1 execform\nrestore\n%%EOF\n"));
+    }
+
+    @Test
+    public void testInMemory() throws IOException {
+        PSDocumentBuffer buffer = new PSDocumentBuffer(resourceResolver,
+                PSDocumentBuffer.DEFAULT_MEMORY_LIMIT);
+        checkDocument(writeWithSlots(buffer));
+        assertFalse(buffer.isInTempFile());
+    }
+
+    @Test
+    public void testInTempFile() throws IOException {
+        PSDocumentBuffer buffer = new PSDocumentBuffer(resourceResolver, 1000);
+        checkDocument(writeWithSlots(buffer));
+        assertTrue(buffer.isInTempFile());
+    }
+
+    @Test
+    public void testSameDocumentInMemoryAndInTempFile() throws IOException {
+        PSDocumentBuffer inMemory = new PSDocumentBuffer(resourceResolver,
+                PSDocumentBuffer.DEFAULT_MEMORY_LIMIT);
+        PSDocumentBuffer inTempFile = new PSDocumentBuffer(resourceResolver, 1000);
+        assertEquals(writeWithSlots(inMemory), writeWithSlots(inTempFile));
+        assertEquals(inMemory.getSize(), inTempFile.getSize());
+    }
+}